@@ -0,0 +1,41 @@
+package com.drop_token.benchmarks;
+
+/**
+ * A single measured operation.
+ * The runner calls {@link #setUp()} once, then calls {@link #run()} repeatedly while timing it.
+ */
+public abstract class Benchmark {
+
+    private final String name;
+    private final int operationsPerInvocation;
+
+    protected Benchmark(String name) {
+        this(name, 1);
+    }
+
+    /**
+     * @param name                    the name the results are reported under
+     * @param operationsPerInvocation how many operations a single call of {@link #run()} performs,
+     *                                the reported scores are normalized by this value
+     */
+    protected Benchmark(String name, int operationsPerInvocation) {
+        this.name = name;
+        this.operationsPerInvocation = operationsPerInvocation;
+    }
+
+    public void setUp() {
+    }
+
+    /**
+     * @return any value derived from the work done, so the JIT can't eliminate it
+     */
+    public abstract int run();
+
+    public String getName() {
+        return name;
+    }
+
+    public int getOperationsPerInvocation() {
+        return operationsPerInvocation;
+    }
+}
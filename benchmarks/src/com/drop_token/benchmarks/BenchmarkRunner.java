@@ -0,0 +1,99 @@
+package com.drop_token.benchmarks;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Runs benchmarks in the same fashion as JMH's throughput mode:
+ * a number of timed warmup iterations which are discarded, followed by the measured iterations.
+ * <p>
+ * Besides the throughput, the bytes allocated by the benchmark thread are reported per operation,
+ * the equivalent of JMH's gc.alloc.rate.norm.
+ */
+public class BenchmarkRunner {
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final PrintStream out;
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    // Results of every invocation are folded into this field so they are never dead code
+    private volatile int sink;
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis, PrintStream out) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.out = out;
+        this.threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    public void runAll(List<Benchmark> benchmarks) {
+        out.println(String.format("%-60s %6s %18s %14s", "Benchmark", "Cnt", "Score (ops/s)", "Alloc (B/op)"));
+
+        for (Benchmark benchmark : benchmarks) {
+            run(benchmark);
+        }
+    }
+
+    private void run(Benchmark benchmark) {
+        benchmark.setUp();
+
+        for (int i = 0; i < warmupIterations; i++) {
+            runIteration(benchmark);
+        }
+
+        double totalOperations = 0;
+        double totalSeconds = 0;
+        double totalAllocatedBytes = 0;
+
+        for (int i = 0; i < measurementIterations; i++) {
+            IterationResult result = runIteration(benchmark);
+            totalOperations += result.operations;
+            totalSeconds += result.nanos / 1e9;
+            totalAllocatedBytes += result.allocatedBytes;
+        }
+
+        out.println(String.format("%-60s %6d %18.1f %14.1f",
+                benchmark.getName(), measurementIterations,
+                totalOperations / totalSeconds, totalAllocatedBytes / totalOperations));
+    }
+
+    private IterationResult runIteration(Benchmark benchmark) {
+        long threadId = Thread.currentThread().getId();
+        int result = 0;
+        long invocations = 0;
+
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long elapsed;
+
+        do {
+            result ^= benchmark.run();
+            invocations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        sink ^= result;
+
+        return new IterationResult(invocations * benchmark.getOperationsPerInvocation(), elapsed, allocatedBytes);
+    }
+
+    private static class IterationResult {
+        private final long operations;
+        private final long nanos;
+        private final long allocatedBytes;
+
+        private IterationResult(long operations, long nanos, long allocatedBytes) {
+            this.operations = operations;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
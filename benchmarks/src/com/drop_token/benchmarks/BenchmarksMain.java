@@ -0,0 +1,58 @@
+package com.drop_token.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of the benchmarks.
+ * <p>
+ * Usage: BenchmarksMain [-wi warmupIterations] [-i iterations] [-t iterationMillis] [nameFilter]
+ * <p>
+ * Only benchmarks whose name contains the filter are run, for example "insertToken[size=16".
+ */
+public class BenchmarksMain {
+
+    private static final int DEFAULT_WARMUP_ITERATIONS = 5;
+    private static final int DEFAULT_MEASUREMENT_ITERATIONS = 5;
+    private static final long DEFAULT_ITERATION_MILLIS = 1000;
+
+    public static void main(String[] args) {
+        int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+        int measurementIterations = DEFAULT_MEASUREMENT_ITERATIONS;
+        long iterationMillis = DEFAULT_ITERATION_MILLIS;
+        String filter = "";
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-wi":
+                    warmupIterations = Integer.parseInt(args[++i]);
+                    break;
+                case "-i":
+                    measurementIterations = Integer.parseInt(args[++i]);
+                    break;
+                case "-t":
+                    iterationMillis = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    filter = args[i];
+            }
+        }
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.addAll(EngineBenchmarks.create());
+        benchmarks.addAll(InputBenchmarks.create());
+        benchmarks.addAll(ViewBenchmarks.create());
+        benchmarks.addAll(MetricsBenchmarks.create());
+        benchmarks.addAll(PipelineBenchmarks.create());
+        benchmarks.addAll(JournalBenchmarks.create());
+        benchmarks.addAll(EvaluationBenchmarks.create());
+
+        List<Benchmark> selected = new ArrayList<>();
+
+        for (Benchmark benchmark : benchmarks) {
+            if (benchmark.getName().contains(filter)) selected.add(benchmark);
+        }
+
+        new BenchmarkRunner(warmupIterations, measurementIterations, iterationMillis, System.out).runAll(selected);
+    }
+}
@@ -0,0 +1,270 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.DTConcurrentEngine;
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.DTPositionHash;
+import com.drop_token.model.DTSnapshot;
+import com.drop_token.model.IDTBoardView;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stress test of {@link DTConcurrentEngine}, in the jcstress fashion: writer threads race to play random moves,
+ * undos, skipped turns, forfeits and resets on one game, while reader threads observe it as fast as they can,
+ * and every observation is checked for a state no sequence of whole moves could have left.
+ * <p>
+ * An observation must hold as many tokens as moves, stacked from the bottom of the columns the moves were played in,
+ * with the position hash of those tokens, the last token's player as the previous player, a winner if and only if
+ * the game is won, and no streak while it's playing. The readers observe through
+ * {@link DTConcurrentEngine#read}, where every observation must be consistent, and, as a control, through the getters
+ * one by one, where the torn observations are only counted: they show the check does catch torn states.
+ * <p>
+ * The engine is then played in lockstep with a plain one, whose every state it must publish.
+ * <p>
+ * Usage: ConcurrentEngineStressCheck [seconds] [readersCount] [seed]
+ */
+public class ConcurrentEngineStressCheck {
+
+    private static final int ROWS_COUNT = 6;
+    private static final int COLUMNS_COUNT = 7;
+    private static final int PLAYERS_COUNT = 3;
+    private static final int WINNING_STREAK = 4;
+
+    private static final int WRITERS_COUNT = 2;
+    private static final int LOCKSTEP_STEPS = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        long durationMillis = (args.length > 0 ? Long.parseLong(args[0]) : 5) * 1000;
+        int readersCount = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 24;
+
+        DTConcurrentEngine engine = new DTConcurrentEngine(
+                new DTEngine(ROWS_COUNT, COLUMNS_COUNT, PLAYERS_COUNT, WINNING_STREAK));
+        long deadlineMillis = System.currentTimeMillis() + durationMillis;
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread[] threads = new Thread[WRITERS_COUNT + readersCount];
+        long[] writesCounts = new long[WRITERS_COUNT];
+        long[][] readsCounts = new long[readersCount][3];
+
+        for (int i = 0; i < WRITERS_COUNT; i++) {
+            int writerIndex = i;
+            Random random = new Random(seed + i);
+
+            threads[i] = new Thread(() -> {
+                while (System.currentTimeMillis() < deadlineMillis && failure.get() == null) {
+                    play(engine, random);
+                    writesCounts[writerIndex]++;
+                }
+            });
+        }
+
+        for (int i = 0; i < readersCount; i++) {
+            long[] readCounts = readsCounts[i];
+
+            threads[WRITERS_COUNT + i] = new Thread(() -> {
+                while (System.currentTimeMillis() < deadlineMillis && failure.get() == null) {
+                    String error = engine.read(Observation::new).check();
+
+                    if (error != null) failure.compareAndSet(null, error);
+
+                    readCounts[0]++;
+
+                    // The control, read without the sequence
+                    if (new Observation(engine).check() != null) readCounts[2]++;
+
+                    readCounts[1]++;
+                }
+            });
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (failure.get() != null) throw new IllegalStateException("Torn read: " + failure.get());
+
+        long readsCount = 0;
+        long controlReadsCount = 0;
+        long tornControlReadsCount = 0;
+
+        for (long[] readCounts : readsCounts) {
+            readsCount += readCounts[0];
+            controlReadsCount += readCounts[1];
+            tornControlReadsCount += readCounts[2];
+        }
+
+        System.out.println(String.format("%d writes by %d writers, %d reads by %d readers, every read consistent",
+                writesCounts[0] + writesCounts[1], WRITERS_COUNT, readsCount, readersCount));
+        System.out.println(String.format("%d of %d reads through the getters one by one were torn",
+                tornControlReadsCount, controlReadsCount));
+
+        checkLockstep(new Random(seed));
+
+        System.out.println(LOCKSTEP_STEPS + " steps published the same states as a plain engine");
+    }
+
+    private static void play(IDTEngine engine, Random random) {
+        int action = random.nextInt(100);
+
+        if (engine.getGameStatus() != GameStatus.PLAYING || action < 2) engine.reset();
+        else if (action < 20) engine.undo();
+        else if (action < 28) engine.skipTurn();
+        else if (action < 30) engine.forfeit(1 + random.nextInt(PLAYERS_COUNT));
+        else engine.insertToken(random.nextInt(COLUMNS_COUNT));
+    }
+
+    /**
+     * Plays the same steps on the concurrent engine and on a plain one, copying and restoring them now and then.
+     */
+    private static void checkLockstep(Random random) {
+        IDTEngine engine = new DTEngine(ROWS_COUNT, COLUMNS_COUNT, PLAYERS_COUNT, WINNING_STREAK);
+        IDTEngine concurrentEngine = new DTConcurrentEngine(engine.copy());
+
+        for (int step = 0; step < LOCKSTEP_STEPS; step++) {
+            int action = random.nextInt(1000);
+
+            if (action == 0) {
+                engine = engine.copy();
+                concurrentEngine = concurrentEngine.copy();
+            } else if (action == 1) {
+                DTSnapshot snapshot = concurrentEngine.snapshot();
+
+                if (!snapshot.equals(engine.snapshot())) fail(step, "snapshots differ");
+
+                engine.restore(snapshot);
+                concurrentEngine.restore(snapshot);
+            } else {
+                long seed = random.nextLong();
+
+                play(engine, new Random(seed));
+                play(concurrentEngine, new Random(seed));
+            }
+
+            if (!Arrays.deepEquals(engine.getBoard(), concurrentEngine.getBoard())
+                    || engine.getPositionHash() != concurrentEngine.getPositionHash()
+                    || engine.getMovesCount() != concurrentEngine.getMovesCount()
+                    || engine.getCurrentPlayerId() != concurrentEngine.getCurrentPlayerId()
+                    || engine.getPreviousPlayerId() != concurrentEngine.getPreviousPlayerId()
+                    || engine.getWinnerId() != concurrentEngine.getWinnerId()
+                    || engine.getGameStatus() != concurrentEngine.getGameStatus())
+                fail(step, "states differ");
+
+            for (int i = 0; i < engine.getMovesCount(); i++) {
+                if (engine.getMoveColumn(i) != concurrentEngine.getMoveColumn(i)) fail(step, "moves differ");
+            }
+        }
+    }
+
+    private static void fail(int step, String message) {
+        throw new IllegalStateException("Lockstep step " + step + ": " + message);
+    }
+
+    /**
+     * A game's state, read through the getters of the engine.
+     */
+    private static class Observation {
+        private final int[][] board = new int[ROWS_COUNT][COLUMNS_COUNT];
+        private final int[] moves;
+        private final long positionHash;
+        private final int previousPlayerId;
+        private final int winnerId;
+        private final GameStatus gameStatus;
+
+        private Observation(IDTEngine engine) {
+            for (int row = 0; row < ROWS_COUNT; row++) {
+                for (int column = 0; column < COLUMNS_COUNT; column++) {
+                    board[row][column] = engine.getTokenId(row, column);
+                }
+            }
+
+            int[] moves = new int[Math.min(engine.getMovesCount(), ROWS_COUNT * COLUMNS_COUNT)];
+
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] = engine.getMoveColumn(i);
+            }
+
+            this.moves = moves;
+            this.positionHash = engine.getPositionHash();
+            this.previousPlayerId = engine.getPreviousPlayerId();
+            this.winnerId = engine.getWinnerId();
+            this.gameStatus = engine.getGameStatus();
+        }
+
+        /**
+         * @return what's inconsistent in the state, null if nothing is
+         */
+        private String check() {
+            int[] heights = new int[COLUMNS_COUNT];
+            long expectedHash = 0;
+
+            for (int move : moves) {
+                if (++heights[move] > ROWS_COUNT) return "column " + move + " overfilled " + describe();
+            }
+
+            for (int column = 0; column < COLUMNS_COUNT; column++) {
+                for (int height = 0; height < ROWS_COUNT; height++) {
+                    int tokenId = board[ROWS_COUNT - 1 - height][column];
+
+                    if ((tokenId != 0) != (height < heights[column]))
+                        return "column " + column + " doesn't hold its " + heights[column] + " moves " + describe();
+
+                    if (tokenId != 0) expectedHash ^= DTPositionHash.getTokenHash(height, column, tokenId);
+                }
+            }
+
+            if (expectedHash != positionHash) return "hash of another position " + describe();
+
+            if (moves.length > 0) {
+                int lastColumn = moves[moves.length - 1];
+
+                if (board[ROWS_COUNT - heights[lastColumn]][lastColumn] != previousPlayerId)
+                    return "previous player " + previousPlayerId + " didn't play the last token " + describe();
+            }
+
+            if ((winnerId != 0) != (gameStatus == GameStatus.FINISHED_WIN))
+                return "winner " + winnerId + " of a game " + gameStatus + " " + describe();
+
+            boolean hasStreak = ReferenceWinChecker.hasAnyStreak(new BoardView(board), WINNING_STREAK);
+
+            if (hasStreak && gameStatus == GameStatus.PLAYING) return "streak on a game playing " + describe();
+
+            return null;
+        }
+
+        private String describe() {
+            return Arrays.deepToString(board) + " moves " + Arrays.toString(moves);
+        }
+    }
+
+    private static class BoardView implements IDTBoardView {
+        private final int[][] board;
+
+        private BoardView(int[][] board) {
+            this.board = board;
+        }
+
+        @Override
+        public int getRowsCount() {
+            return ROWS_COUNT;
+        }
+
+        @Override
+        public int getColumnsCount() {
+            return COLUMNS_COUNT;
+        }
+
+        @Override
+        public int getTokenId(int row, int column) {
+            return board[row][column];
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.DTEnginePool;
+import com.drop_token.model.IDTEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks of the engines' construction, token insertion and board copying,
+ * across board sizes and winning streaks.
+ */
+public class EngineBenchmarks {
+
+    private static final int PLAYERS_COUNT = 2;
+    private static final long GAME_SEED = 98;
+
+    private static final int[] BOARD_SIZES = {4, 7, 16, 64};
+    private static final int[] WINNING_STREAKS = {3, 4, 6};
+
+    // Biggest board a BitboardDTEngine can hold
+    private static final int MAX_BITBOARD_SIZE = 7;
+
+    // The board of the pooled engines, as a server would play
+    private static final int POOLED_BOARD_SIZE = 7;
+    private static final int POOLED_WINNING_STREAK = 4;
+
+    // A very large board, played sparsely
+    private static final int LARGE_ROWS_COUNT = 1_000;
+    private static final int LARGE_COLUMNS_COUNT = 10_000;
+    private static final int LARGE_WINNING_STREAK = 5;
+    private static final int LARGE_GAME_TOKENS = 10_000;
+
+    private EngineBenchmarks() {
+    }
+
+    public static List<Benchmark> create() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+
+        for (int boardSize : BOARD_SIZES) {
+            benchmarks.add(construction("DTEngine", DTEngine::new, boardSize));
+
+            if (boardSize <= MAX_BITBOARD_SIZE)
+                benchmarks.add(construction("BitboardDTEngine", BitboardDTEngine::new, boardSize));
+
+            for (int winningStreak : WINNING_STREAKS) {
+                if (winningStreak > boardSize) continue;
+
+                benchmarks.add(insertToken("DTEngine", DTEngine::new, boardSize, winningStreak));
+                benchmarks.add(resetInsertToken("DTEngine", DTEngine::new, boardSize, winningStreak));
+
+                if (boardSize <= MAX_BITBOARD_SIZE) {
+                    benchmarks.add(insertToken("BitboardDTEngine", BitboardDTEngine::new, boardSize, winningStreak));
+                    benchmarks.add(resetInsertToken("BitboardDTEngine", BitboardDTEngine::new, boardSize,
+                            winningStreak));
+                }
+            }
+
+            benchmarks.add(getBoard("DTEngine", DTEngine::new, boardSize));
+
+            if (boardSize <= MAX_BITBOARD_SIZE)
+                benchmarks.add(getBoard("BitboardDTEngine", BitboardDTEngine::new, boardSize));
+        }
+
+        benchmarks.add(pooledInsertToken(POOLED_BOARD_SIZE, POOLED_WINNING_STREAK));
+
+        benchmarks.add(largeConstruction());
+        benchmarks.add(largeInsertToken());
+
+        return benchmarks;
+    }
+
+    private static Benchmark construction(String engineName, EngineFactory factory, int boardSize) {
+        return new Benchmark(engineName + ".new[size=" + boardSize + "]") {
+            @Override
+            public int run() {
+                return factory.create(boardSize, PLAYERS_COUNT, boardSize).getCurrentPlayerId();
+            }
+        };
+    }
+
+    /**
+     * Every invocation plays a whole recorded game on a fresh engine,
+     * scores are per inserted token, including the engine construction spread over the game.
+     */
+    private static Benchmark insertToken(String engineName, EngineFactory factory, int boardSize, int winningStreak) {
+        int[] game = recordGame(factory, boardSize, winningStreak);
+
+        return new Benchmark(engineName + ".insertToken[size=" + boardSize + ",streak=" + winningStreak
+                + ",tokens=" + game.length + "]", game.length) {
+            @Override
+            public int run() {
+                IDTEngine engine = factory.create(boardSize, PLAYERS_COUNT, winningStreak);
+                int result = 0;
+
+                for (int column : game) {
+                    result += engine.insertToken(column).ordinal();
+                }
+
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Same as insertToken, but every game is played on the same engine, reset between games as simulations do.
+     */
+    private static Benchmark resetInsertToken(String engineName, EngineFactory factory, int boardSize,
+                                              int winningStreak) {
+        int[] game = recordGame(factory, boardSize, winningStreak);
+
+        return new Benchmark(engineName + ".reset+insertToken[size=" + boardSize + ",streak=" + winningStreak
+                + ",tokens=" + game.length + "]", game.length) {
+            private IDTEngine engine;
+
+            @Override
+            public void setUp() {
+                engine = factory.create(boardSize, PLAYERS_COUNT, winningStreak);
+            }
+
+            @Override
+            public int run() {
+                engine.reset();
+                int result = 0;
+
+                for (int column : game) {
+                    result += engine.insertToken(column).ordinal();
+                }
+
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Same as insertToken, but every game is played on an engine acquired from a pool and released back into it,
+     * as the server's sessions do.
+     */
+    private static Benchmark pooledInsertToken(int boardSize, int winningStreak) {
+        int[] game = recordGame(DTEngine::new, boardSize, winningStreak);
+        DTEnginePool enginePool = new DTEnginePool(DTEngine::new, 1);
+
+        return new Benchmark("DTEnginePool.acquire+insertToken+release[size=" + boardSize + ",streak="
+                + winningStreak + ",tokens=" + game.length + "]", game.length) {
+            @Override
+            public int run() {
+                IDTEngine engine = enginePool.acquire(boardSize, boardSize, PLAYERS_COUNT, winningStreak);
+                int result = 0;
+
+                for (int column : game) {
+                    result += engine.insertToken(column).ordinal();
+                }
+
+                enginePool.release(engine);
+
+                return result;
+            }
+        };
+    }
+
+    private static Benchmark getBoard(String engineName, EngineFactory factory, int boardSize) {
+        return new Benchmark(engineName + ".getBoard[size=" + boardSize + "]") {
+            private IDTEngine engine;
+
+            @Override
+            public void setUp() {
+                engine = factory.create(boardSize, PLAYERS_COUNT, boardSize);
+                int[] game = recordGame(factory, boardSize, boardSize);
+
+                // Leave the last token out so the board stays in play, as it would be when spectated
+                for (int i = 0; i < game.length - 1; i++) {
+                    engine.insertToken(game[i]);
+                }
+            }
+
+            @Override
+            public int run() {
+                return engine.getBoard()[boardSize - 1][0];
+            }
+        };
+    }
+
+    private static Benchmark largeConstruction() {
+        return new Benchmark("DTEngine.new[rows=" + LARGE_ROWS_COUNT + ",columns=" + LARGE_COLUMNS_COUNT + "]") {
+            @Override
+            public int run() {
+                return new DTEngine(LARGE_ROWS_COUNT, LARGE_COLUMNS_COUNT, PLAYERS_COUNT, LARGE_WINNING_STREAK)
+                        .getCurrentPlayerId();
+            }
+        };
+    }
+
+    /**
+     * Plays the first random tokens of a game on a large board, where most of the slots stay empty.
+     */
+    private static Benchmark largeInsertToken() {
+        Random random = new Random(GAME_SEED);
+        int[] game = new int[LARGE_GAME_TOKENS];
+
+        for (int i = 0; i < game.length; i++) {
+            game[i] = random.nextInt(LARGE_COLUMNS_COUNT);
+        }
+
+        return new Benchmark("DTEngine.insertToken[rows=" + LARGE_ROWS_COUNT + ",columns=" + LARGE_COLUMNS_COUNT
+                + ",streak=" + LARGE_WINNING_STREAK + ",tokens=" + game.length + "]", game.length) {
+            @Override
+            public int run() {
+                IDTEngine engine = new DTEngine(LARGE_ROWS_COUNT, LARGE_COLUMNS_COUNT, PLAYERS_COUNT,
+                        LARGE_WINNING_STREAK);
+                int result = 0;
+
+                for (int column : game) {
+                    result += engine.insertToken(column).ordinal();
+                }
+
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Plays random legal tokens until the game is finished.
+     *
+     * @return the columns of the successful insertions, in order
+     */
+    static int[] recordGame(EngineFactory factory, int boardSize, int winningStreak) {
+        Random random = new Random(GAME_SEED);
+        IDTEngine engine = factory.create(boardSize, PLAYERS_COUNT, winningStreak);
+        int[] game = new int[boardSize * boardSize];
+        int tokensCount = 0;
+
+        while (engine.getGameStatus() == IDTEngine.GameStatus.PLAYING) {
+            int column = random.nextInt(boardSize);
+
+            if (engine.insertToken(column) != IDTEngine.TokenInsertionStatus.ERROR)
+                game[tokensCount++] = column;
+        }
+
+        return Arrays.copyOf(game, tokensCount);
+    }
+
+    interface EngineFactory {
+        IDTEngine create(int boardSize, int playersCount, int winningStreak);
+    }
+}
@@ -0,0 +1,86 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.ai.ThreatEvaluator;
+import com.drop_token.ai.WinningLines;
+import com.drop_token.model.DTEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of the search's evaluation: a position scored by the {@link ThreatEvaluator}, following the moves,
+ * and by the {@link ReferenceEvaluator}, scanning the board's lines again for every position.
+ */
+public class EvaluationBenchmarks {
+
+    private static final int[] BOARD_SIZES = {7, 16};
+    private static final int WINNING_STREAK = 4;
+
+    private EvaluationBenchmarks() {
+    }
+
+    public static List<Benchmark> create() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+
+        for (int boardSize : BOARD_SIZES) {
+            benchmarks.add(evaluate(boardSize, true));
+            benchmarks.add(evaluate(boardSize, false));
+        }
+
+        return benchmarks;
+    }
+
+    /**
+     * Every invocation plays a whole recorded game, scoring every position, then undoes it the way a search
+     * takes its moves back; scores are per position.
+     */
+    private static Benchmark evaluate(int boardSize, boolean isIncremental) {
+        int[] game = EngineBenchmarks.recordGame(DTEngine::new, boardSize, WINNING_STREAK);
+
+        return new Benchmark((isIncremental ? "ThreatEvaluator" : "ReferenceEvaluator") + ".evaluate[size="
+                + boardSize + ",positions=" + game.length + "]", game.length) {
+            private DTEngine engine;
+            private ThreatEvaluator evaluator;
+            private int[] rows;
+
+            @Override
+            public void setUp() {
+                engine = new DTEngine(boardSize, 2, WINNING_STREAK);
+                evaluator = new ThreatEvaluator(new WinningLines(boardSize, boardSize, WINNING_STREAK), 2);
+                rows = new int[game.length];
+
+                int[] heights = new int[boardSize];
+
+                for (int i = 0; i < game.length; i++) {
+                    rows[i] = boardSize - 1 - heights[game[i]]++;
+                }
+            }
+
+            @Override
+            public int run() {
+                int result = 0;
+
+                for (int i = 0; i < game.length; i++) {
+                    int playerId = engine.getCurrentPlayerId();
+
+                    engine.insertToken(game[i]);
+
+                    if (isIncremental) {
+                        evaluator.onTokenInserted(rows[i], game[i], playerId);
+                        result += evaluator.evaluate(1);
+                    } else {
+                        result += (int) new ReferenceEvaluator(engine, 2, WINNING_STREAK).evaluate(1);
+                    }
+                }
+
+                for (int i = game.length - 1; i >= 0; i--) {
+                    if (isIncremental) evaluator.onTokenRemoved(rows[i], game[i], engine.getPreviousPlayerId());
+
+                    engine.undo();
+                }
+
+                return result;
+            }
+        };
+    }
+}
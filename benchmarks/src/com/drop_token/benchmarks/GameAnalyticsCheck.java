@@ -0,0 +1,271 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.analytics.DTGameAnalytics;
+import com.drop_token.analytics.DTGameArchive;
+import com.drop_token.analytics.DTGameStats;
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.records.DTGameRecordWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks the answers of {@link DTGameAnalytics} against a scan of the games as they were played: random games
+ * of several configurations, some of them unfinished or with undos, are recorded, loaded into a
+ * {@link DTGameArchive}, and every configuration's stats, the stats of random openings of every indexed length,
+ * and the most played openings are compared with the ones counted game by game.
+ * <p>
+ * Usage: GameAnalyticsCheck [gamesCount] [seed]
+ */
+public class GameAnalyticsCheck {
+
+    // The rows count, columns count, players count and winning streak of the games' boards
+    private static final int[][] CONFIGURATIONS = {{6, 7, 2, 4}, {6, 7, 3, 4}, {5, 5, 3, 3}, {4, 9, 4, 3},
+            {2, 300, 2, 2}};
+    private static final int MAX_PLAYERS_COUNT = 4;
+
+    private static final int OPENINGS_PER_LENGTH = 200;
+    private static final int TOP_OPENINGS_COUNT = 10;
+
+    public static void main(String[] args) throws IOException {
+        int gamesCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 25);
+        Path file = Files.createTempFile("games", ".dtgr");
+
+        try {
+            List<Game> games = new ArrayList<>(gamesCount);
+
+            try (DTGameRecordWriter gameRecordWriter = new DTGameRecordWriter(file)) {
+                for (int i = 0; i < gamesCount; i++) {
+                    games.add(recordGame(random, gameRecordWriter));
+                }
+            }
+
+            DTGameArchive archive = DTGameArchive.load(Collections.singletonList(file));
+            DTGameAnalytics analytics = new DTGameAnalytics(archive, 2);
+
+            checkArchive(archive, games);
+
+            int queriesCount = 0;
+
+            for (int configuration = 0; configuration < archive.getConfigurationsCount(); configuration++) {
+                queriesCount += checkConfiguration(analytics, configuration, games, random);
+            }
+
+            System.out.println(gamesCount + " games of " + archive.getConfigurationsCount() + " configurations, "
+                    + queriesCount + " queries answered as a scan of the games");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Game recordGame(Random random, DTGameRecordWriter gameRecordWriter) throws IOException {
+        int[] configuration = CONFIGURATIONS[random.nextInt(CONFIGURATIONS.length)];
+        IDTEngine engine = new DTEngine(configuration[0], configuration[1], configuration[2], configuration[3]);
+        int columnsCount = configuration[1];
+        boolean isUnfinished = random.nextInt(20) == 0;
+        int stepsCount = isUnfinished ? random.nextInt(configuration[0] * columnsCount) : Integer.MAX_VALUE;
+
+        gameRecordWriter.startGame(engine);
+
+        for (int step = 0; step < stepsCount && engine.getGameStatus() == GameStatus.PLAYING; step++) {
+            // Central columns are favoured, so the openings aren't all equally played
+            int column = (int) Math.round((columnsCount - 1) / 2.0 + random.nextGaussian() * columnsCount / 5.0);
+
+            if (random.nextInt(30) == 0) engine.undo();
+            else if (column >= 0 && column < columnsCount) engine.insertToken(column);
+        }
+
+        gameRecordWriter.endGame();
+
+        return new Game(engine);
+    }
+
+    private static void checkArchive(DTGameArchive archive, List<Game> games) {
+        if (archive.getGamesCount() != games.size()) fail("archive holds " + archive.getGamesCount() + " games");
+
+        for (int i = 0; i < games.size(); i++) {
+            Game game = games.get(i);
+            int configuration = archive.getConfiguration(i);
+
+            if (archive.getRowsCount(configuration) != game.configuration[0]
+                    || archive.getColumnsCount(configuration) != game.configuration[1]
+                    || archive.getPlayersCount(configuration) != game.configuration[2]
+                    || archive.getWinningStreak(configuration) != game.configuration[3]
+                    || archive.getGameStatus(i) != game.gameStatus || archive.getWinnerId(i) != game.winnerId
+                    || archive.getMovesCount(i) != game.moves.length)
+                fail("game " + i + " archived with another header");
+
+            for (int move = 0; move < game.moves.length; move++) {
+                if (archive.getMove(i, move) != game.moves[move]) fail("game " + i + " archived with other moves");
+            }
+        }
+    }
+
+    /**
+     * @return the number of queries checked
+     */
+    private static int checkConfiguration(DTGameAnalytics analytics, int configuration, List<Game> games,
+                                          Random random) {
+        DTGameArchive archive = analytics.getArchive();
+        List<Game> configurationGames = new ArrayList<>();
+
+        for (int i = 0; i < games.size(); i++) {
+            if (archive.getConfiguration(i) == configuration) configurationGames.add(games.get(i));
+        }
+
+        String description = archive.describeConfiguration(configuration);
+        int queriesCount = 1;
+
+        checkStats(description, analytics.getConfigurationStats(configuration), count(configurationGames, null));
+
+        int depth = analytics.getOpeningsDepth(configuration);
+
+        for (int length = 0; length <= depth; length++) {
+            for (int i = 0; i < OPENINGS_PER_LENGTH; i++) {
+                // Half of the openings are played ones, the other half random moves, most of them never played
+                int[] opening = new int[length];
+                Game game = configurationGames.get(random.nextInt(configurationGames.size()));
+
+                for (int move = 0; move < length; move++) {
+                    opening[move] = random.nextBoolean() && move < game.moves.length ? game.moves[move]
+                            : random.nextInt(archive.getColumnsCount(configuration));
+                }
+
+                checkStats(description + " opening " + Arrays.toString(opening),
+                        analytics.getOpeningStats(configuration, opening), count(configurationGames, opening));
+                queriesCount++;
+            }
+
+            checkTopOpenings(description, analytics.getTopOpenings(configuration, length, TOP_OPENINGS_COUNT),
+                    configurationGames, length);
+            queriesCount++;
+        }
+
+        try {
+            analytics.getOpeningStats(configuration, new int[depth + 1]);
+            fail(description + " answered for an opening deeper than its index");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        return queriesCount;
+    }
+
+    private static void checkTopOpenings(String description, List<DTGameAnalytics.Opening> topOpenings,
+                                         List<Game> games, int length) {
+        Map<List<Integer>, Integer> openingsCounts = new HashMap<>();
+
+        for (Game game : games) {
+            if (game.moves.length < length) continue;
+
+            List<Integer> opening = new ArrayList<>();
+
+            for (int move = 0; move < length; move++) {
+                opening.add(game.moves[move]);
+            }
+
+            openingsCounts.merge(opening, 1, Integer::sum);
+        }
+
+        List<Integer> counts = new ArrayList<>(openingsCounts.values());
+        counts.sort(Collections.reverseOrder());
+
+        if (topOpenings.size() != Math.min(TOP_OPENINGS_COUNT, counts.size()))
+            fail(description + " found " + topOpenings.size() + " top openings of " + length + " moves");
+
+        for (int i = 0; i < topOpenings.size(); i++) {
+            DTGameAnalytics.Opening topOpening = topOpenings.get(i);
+            int[] columns = topOpening.getColumns();
+
+            // Openings played as often may come in any order, but with the counts of the best ones
+            if (topOpening.getStats().getGamesCount() != counts.get(i))
+                fail(description + " top opening " + i + " of " + length + " moves played "
+                        + topOpening.getStats().getGamesCount() + " times, not " + counts.get(i));
+
+            checkStats(description + " top opening " + Arrays.toString(columns), topOpening.getStats(),
+                    count(games, columns));
+        }
+    }
+
+    private static void checkStats(String description, DTGameStats stats, long[] expectedCounts) {
+        int playersCount = stats.getPlayersCount();
+        boolean isSame = stats.getGamesCount() == expectedCounts[0]
+                && Math.round(stats.getAverageLength() * stats.getGamesCount()) == expectedCounts[1]
+                && stats.getDrawsCount() == expectedCounts[2] && stats.getUnfinishedCount() == expectedCounts[3];
+
+        for (int playerId = 1; playerId <= playersCount; playerId++) {
+            isSame &= stats.getWinsCount(playerId) == expectedCounts[3 + playerId];
+        }
+
+        if (!isSame) fail(description + ": " + stats + ", scanned " + Arrays.toString(expectedCounts));
+    }
+
+    /**
+     * @param opening the first moves of the games to count, null for all the games
+     * @return the games count, the moves sum, the draws count, the unfinished games count, and the wins count of every
+     * player
+     */
+    private static long[] count(List<Game> games, int[] opening) {
+        long[] counts = new long[4 + MAX_PLAYERS_COUNT];
+
+        for (Game game : games) {
+            if (opening != null && !game.startsWith(opening)) continue;
+
+            counts[0]++;
+            counts[1] += game.moves.length;
+
+            if (game.gameStatus == GameStatus.FINISHED_DRAW) counts[2]++;
+            else if (game.gameStatus == GameStatus.PLAYING) counts[3]++;
+            else counts[3 + game.winnerId]++;
+        }
+
+        return counts;
+    }
+
+    private static void fail(String message) {
+        throw new IllegalStateException(message);
+    }
+
+    /**
+     * A game as it was played.
+     */
+    private static class Game {
+        private final int[] configuration;
+        private final int[] moves;
+        private final GameStatus gameStatus;
+        private final int winnerId;
+
+        private Game(IDTEngine engine) {
+            this.configuration = new int[]{engine.getRowsCount(), engine.getColumnsCount(), engine.getPlayersCount(),
+                    engine.getWinningStreak()};
+            this.moves = new int[engine.getMovesCount()];
+            this.gameStatus = engine.getGameStatus();
+            this.winnerId = engine.getWinnerId();
+
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] = engine.getMoveColumn(i);
+            }
+        }
+
+        private boolean startsWith(int[] opening) {
+            if (moves.length < opening.length) return false;
+
+            for (int i = 0; i < opening.length; i++) {
+                if (moves[i] != opening[i]) return false;
+            }
+
+            return true;
+        }
+    }
+}
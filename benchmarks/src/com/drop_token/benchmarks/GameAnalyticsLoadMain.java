@@ -0,0 +1,113 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.analytics.DTGameAnalytics;
+import com.drop_token.analytics.DTGameArchive;
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.records.DTGameRecordWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Load test of the game analytics: records millions of random games of the classic board, then times loading them
+ * into a {@link DTGameArchive}, indexing their openings, and the queries of {@link DTGameAnalytics}.
+ * The opening queries are timed one by one over random openings of every indexed length.
+ * <p>
+ * Every game takes about 40 bytes in memory, moves included, so 5 million games need a heap of 1-2 GB.
+ * <p>
+ * Usage: GameAnalyticsLoadMain [gamesCount] [threadsCount]
+ */
+public class GameAnalyticsLoadMain {
+
+    private static final int ROWS_COUNT = 6;
+    private static final int COLUMNS_COUNT = 7;
+    private static final int PLAYERS_COUNT = 2;
+    private static final int WINNING_STREAK = 4;
+
+    private static final int OPENING_QUERIES_COUNT = 100_000;
+    private static final int TOP_OPENINGS_COUNT = 10;
+    private static final int TOP_OPENINGS_MOVES = 4;
+
+    public static void main(String[] args) throws IOException {
+        int gamesCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int threadsCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Random random = new Random(25);
+        Path file = Files.createTempFile("games", ".dtgr");
+
+        try {
+            long startNanos = System.nanoTime();
+
+            try (DTGameRecordWriter gameRecordWriter = new DTGameRecordWriter(file)) {
+                IDTEngine engine = new BitboardDTEngine(ROWS_COUNT, COLUMNS_COUNT, PLAYERS_COUNT, WINNING_STREAK);
+
+                for (int i = 0; i < gamesCount; i++) {
+                    engine.reset();
+                    gameRecordWriter.startGame(engine);
+
+                    while (engine.getGameStatus() == GameStatus.PLAYING) {
+                        engine.insertToken(random.nextInt(COLUMNS_COUNT));
+                    }
+
+                    gameRecordWriter.endGame();
+                }
+            }
+
+            System.out.println(String.format("Recorded %d games, %d bytes, in %d ms", gamesCount, Files.size(file),
+                    (System.nanoTime() - startNanos) / 1_000_000));
+
+            startNanos = System.nanoTime();
+            DTGameArchive archive = DTGameArchive.load(Collections.singletonList(file));
+            System.out.println(String.format("Loaded in %d ms", (System.nanoTime() - startNanos) / 1_000_000));
+
+            startNanos = System.nanoTime();
+            DTGameAnalytics analytics = new DTGameAnalytics(archive, threadsCount);
+            System.out.println(String.format("Indexed the openings up to %d moves in %d ms",
+                    analytics.getOpeningsDepth(0), (System.nanoTime() - startNanos) / 1_000_000));
+
+            startNanos = System.nanoTime();
+            System.out.println(archive.describeConfiguration(0) + ": " + analytics.getConfigurationStats(0));
+            System.out.println(String.format("  scanned in %d ms", (System.nanoTime() - startNanos) / 1_000_000));
+
+            startNanos = System.nanoTime();
+
+            for (DTGameAnalytics.Opening opening : analytics.getTopOpenings(0, TOP_OPENINGS_MOVES,
+                    TOP_OPENINGS_COUNT)) {
+                System.out.println("  " + opening);
+            }
+
+            System.out.println(String.format("  top openings of %d moves found in %d ms", TOP_OPENINGS_MOVES,
+                    (System.nanoTime() - startNanos) / 1_000_000));
+
+            timeOpeningQueries(analytics, random);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void timeOpeningQueries(DTGameAnalytics analytics, Random random) {
+        int depth = analytics.getOpeningsDepth(0);
+        long gamesCount = 0;
+        long startNanos = System.nanoTime();
+
+        for (int i = 0; i < OPENING_QUERIES_COUNT; i++) {
+            int[] opening = new int[random.nextInt(depth + 1)];
+
+            for (int move = 0; move < opening.length; move++) {
+                opening[move] = random.nextInt(COLUMNS_COUNT);
+            }
+
+            gamesCount += analytics.getOpeningStats(0, opening).getGamesCount();
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        System.out.println(String.format("%d opening queries of up to %d moves, %.1f us per query "
+                + "(%d games matched)", OPENING_QUERIES_COUNT, depth,
+                elapsedNanos / 1000.0 / OPENING_QUERIES_COUNT, gamesCount));
+    }
+}
@@ -0,0 +1,153 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.records.DTGameRecordReader;
+import com.drop_token.records.DTGameRecordWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that games recorded by {@link DTGameRecordWriter} are read back by {@link DTGameRecordReader}
+ * as they were played, and replay to the same outcome, over random games with undos, some of them unfinished.
+ * The file is then read once more to measure the reading throughput.
+ * <p>
+ * Usage: GameRecordRoundTripCheck [gamesCount] [seed]
+ */
+public class GameRecordRoundTripCheck {
+
+    private static final int MAX_SMALL_BOARD_SIZE = 12;
+    private static final int MAX_LARGE_COLUMNS_COUNT = 10_000;
+    private static final int MAX_PLAYERS_COUNT = 4;
+    private static final int MAX_GAME_STEPS = 300;
+
+    public static void main(String[] args) throws IOException {
+        int gamesCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 98);
+        Path file = Files.createTempFile("games", ".dtgr");
+
+        try {
+            List<IDTEngine> games = new ArrayList<>(gamesCount);
+
+            try (DTGameRecordWriter gameRecordWriter = new DTGameRecordWriter(file)) {
+                for (int game = 0; game < gamesCount; game++) {
+                    games.add(recordGame(random, gameRecordWriter));
+                }
+            }
+
+            long movesCount = checkGames(file, games);
+
+            long startNanos = System.nanoTime();
+            long checksum = readGames(file);
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            System.out.println(gamesCount + " games, " + movesCount + " moves, " + Files.size(file)
+                    + " bytes, read back the same; reading at " + movesCount * 1_000_000_000L / elapsedNanos
+                    + " moves/s (checksum " + checksum + ")");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * @return the engine the game was played on, in its final position
+     */
+    private static IDTEngine recordGame(Random random, DTGameRecordWriter gameRecordWriter) throws IOException {
+        boolean isLarge = random.nextInt(10) == 0;
+        int rowsCount = 1 + random.nextInt(MAX_SMALL_BOARD_SIZE);
+        int columnsCount = 1 + random.nextInt(isLarge ? MAX_LARGE_COLUMNS_COUNT : MAX_SMALL_BOARD_SIZE);
+        int playersCount = 1 + random.nextInt(MAX_PLAYERS_COUNT);
+        int winningStreak = 1 + random.nextInt(Math.min(Math.max(rowsCount, columnsCount), 6) + 1);
+
+        IDTEngine engine = new DTEngine(rowsCount, columnsCount, playersCount, winningStreak);
+        gameRecordWriter.startGame(engine);
+
+        int stepsCount = random.nextInt(MAX_GAME_STEPS);
+
+        for (int step = 0; step < stepsCount && engine.getGameStatus() == GameStatus.PLAYING; step++) {
+            if (random.nextInt(6) == 0) engine.undo();
+            else engine.insertToken(random.nextInt(columnsCount));
+        }
+
+        gameRecordWriter.endGame();
+
+        return engine;
+    }
+
+    /**
+     * @return the number of moves of all the games
+     */
+    private static long checkGames(Path file, List<IDTEngine> games) throws IOException {
+        long movesCount = 0;
+
+        try (DTGameRecordReader gameRecordReader = new DTGameRecordReader(file)) {
+            for (int game = 0; game < games.size(); game++) {
+                IDTEngine expected = games.get(game);
+
+                if (!gameRecordReader.nextGame()) fail(game, "missing");
+
+                if (gameRecordReader.getRowsCount() != expected.getRowsCount()
+                        || gameRecordReader.getColumnsCount() != expected.getColumnsCount()
+                        || gameRecordReader.getPlayersCount() != expected.getPlayersCount()
+                        || gameRecordReader.getWinningStreak() != expected.getWinningStreak()
+                        || gameRecordReader.getGameStatus() != expected.getGameStatus()
+                        || gameRecordReader.getMovesCount() != expected.getMovesCount())
+                    fail(game, "header differs");
+
+                int expectedWinnerId = expected.getGameStatus() == GameStatus.FINISHED_WIN
+                        ? expected.getPreviousPlayerId() : 0;
+
+                if (gameRecordReader.getWinnerId() != expectedWinnerId) fail(game, "winner differs");
+
+                IDTEngine replayed = new DTEngine(expected.getRowsCount(), expected.getColumnsCount(),
+                        expected.getPlayersCount(), expected.getWinningStreak());
+                TokenInsertionStatus status = gameRecordReader.replay(replayed);
+
+                if (status == TokenInsertionStatus.ERROR || replayed.getGameStatus() != expected.getGameStatus()
+                        || !haveSameMoves(replayed, expected))
+                    fail(game, "replay differs");
+
+                movesCount += gameRecordReader.getMovesCount();
+            }
+
+            if (gameRecordReader.nextGame()) fail(games.size(), "unexpected");
+        }
+
+        return movesCount;
+    }
+
+    private static boolean haveSameMoves(IDTEngine engine, IDTEngine otherEngine) {
+        if (engine.getMovesCount() != otherEngine.getMovesCount()) return false;
+
+        for (int i = 0; i < engine.getMovesCount(); i++) {
+            if (engine.getMoveColumn(i) != otherEngine.getMoveColumn(i)) return false;
+        }
+
+        return true;
+    }
+
+    private static long readGames(Path file) throws IOException {
+        long checksum = 0;
+
+        try (DTGameRecordReader gameRecordReader = new DTGameRecordReader(file)) {
+            while (gameRecordReader.nextGame()) {
+                for (int column = gameRecordReader.nextMove(); column >= 0; column = gameRecordReader.nextMove()) {
+                    checksum += column;
+                }
+            }
+        }
+
+        return checksum;
+    }
+
+    private static void fail(int game, String message) {
+        throw new IllegalStateException("Game " + game + ": " + message);
+    }
+}
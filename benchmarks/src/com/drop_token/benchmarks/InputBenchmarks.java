@@ -0,0 +1,109 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.game_utils.AsciiSequence;
+import com.drop_token.game_utils.InputParser;
+import com.drop_token.game_utils.InputParser.ParsedInput;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of parsing the user commands, against the regex based parser as the baseline.
+ */
+public class InputBenchmarks {
+
+    // A mix resembling a real session; mostly moves, some queries and a few malformed lines
+    private static final String[] COMMANDS = {
+            "PUT 1", "put 2", "  PUT 3  ", "PUT 4", "GET", "BOARD", "PUT 12", "get 3", "PUT", "EXIT"
+    };
+
+    private InputBenchmarks() {
+    }
+
+    public static List<Benchmark> create() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(parseInputRegex());
+        benchmarks.add(parseInput());
+        benchmarks.add(parseInputReused());
+        benchmarks.add(parseInputBytes());
+        return benchmarks;
+    }
+
+    private static Benchmark parseInputRegex() {
+        RegexInputParser inputParser = new RegexInputParser();
+
+        return new Benchmark("RegexInputParser.parseInput[mixed]", COMMANDS.length) {
+            @Override
+            public int run() {
+                int result = 0;
+
+                for (String command : COMMANDS) {
+                    result += inputParser.parseInput(command).getInputType().ordinal();
+                }
+
+                return result;
+            }
+        };
+    }
+
+    private static Benchmark parseInput() {
+        InputParser inputParser = new InputParser();
+
+        return new Benchmark("InputParser.parseInput[mixed]", COMMANDS.length) {
+            @Override
+            public int run() {
+                int result = 0;
+
+                for (String command : COMMANDS) {
+                    result += inputParser.parseInput(command).getInputType().ordinal();
+                }
+
+                return result;
+            }
+        };
+    }
+
+    private static Benchmark parseInputReused() {
+        InputParser inputParser = new InputParser();
+        ParsedInput parsedInput = new ParsedInput();
+
+        return new Benchmark("InputParser.parseInput[mixed,reused]", COMMANDS.length) {
+            @Override
+            public int run() {
+                int result = 0;
+
+                for (String command : COMMANDS) {
+                    result += inputParser.parseInput(command, parsedInput).getInputType().ordinal();
+                }
+
+                return result;
+            }
+        };
+    }
+
+    private static Benchmark parseInputBytes() {
+        InputParser inputParser = new InputParser();
+        ParsedInput parsedInput = new ParsedInput();
+        AsciiSequence sequence = new AsciiSequence();
+        byte[][] commands = new byte[COMMANDS.length][];
+
+        for (int i = 0; i < COMMANDS.length; i++) {
+            commands[i] = COMMANDS[i].getBytes(StandardCharsets.US_ASCII);
+        }
+
+        return new Benchmark("InputParser.parseInput[mixed,bytes]", COMMANDS.length) {
+            @Override
+            public int run() {
+                int result = 0;
+
+                for (byte[] command : commands) {
+                    result += inputParser.parseInput(sequence.wrap(command, 0, command.length), parsedInput)
+                            .getInputType().ordinal();
+                }
+
+                return result;
+            }
+        };
+    }
+}
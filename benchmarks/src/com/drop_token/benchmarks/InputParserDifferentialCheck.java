@@ -0,0 +1,110 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.game_utils.InputParser;
+
+import java.util.Random;
+
+/**
+ * Checks that the hand-written {@link InputParser} accepts exactly the grammar of the original
+ * {@link RegexInputParser}, over random inputs built from the characters the grammar cares about.
+ * <p>
+ * The one intended difference: columns too big for an int made the regex parser throw,
+ * they are a plain ERROR now.
+ * <p>
+ * Usage: InputParserDifferentialCheck [inputsCount] [seed]
+ */
+public class InputParserDifferentialCheck {
+
+    private static final String[] WORDS = {"PUT", "GET", "BOARD", "EXIT", "put", "Get", "bOaRd", "exiT", "PU",
+            "BOARDS"};
+
+    // Letters of the commands in both cases, look-alikes outside US-ASCII, digits and every kind of space
+    private static final String CHARACTERS = "PUTGEBOARDXIputgeboardxi\u017F\u0131\u212A0123456789"
+            + " \t\n\u000B\f\r\u0001\u001F\u00A0\u3000";
+
+    private static final int MAX_RANDOM_LENGTH = 12;
+
+    public static void main(String[] args) {
+        long inputsCount = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 98);
+
+        InputParser inputParser = new InputParser();
+        RegexInputParser regexInputParser = new RegexInputParser();
+
+        for (long i = 0; i < inputsCount; i++) {
+            String input = random.nextBoolean() ? randomCommand(random) : randomCharacters(random);
+
+            String expected;
+
+            try {
+                RegexInputParser.ParsedInput parsedInput = regexInputParser.parseInput(input);
+                expected = describe(parsedInput.getInputType().name(), parsedInput.getArgs());
+            } catch (NumberFormatException e) {
+                expected = describe(InputParser.InputType.ERROR.name(), null);
+            }
+
+            InputParser.ParsedInput parsedInput = inputParser.parseInput(input);
+            String actual = describe(parsedInput.getInputType().name(), parsedInput.getArgs());
+
+            if (!expected.equals(actual))
+                throw new IllegalStateException("Parsers disagree on \"" + escape(input) + "\": expected "
+                        + expected + ", got " + actual);
+        }
+
+        System.out.println(inputsCount + " inputs parsed the same");
+    }
+
+    private static String randomCommand(Random random) {
+        StringBuilder input = new StringBuilder();
+
+        appendSpaces(input, random);
+        input.append(WORDS[random.nextInt(WORDS.length)]);
+        appendSpaces(input, random);
+
+        if (random.nextInt(4) > 0) {
+            int digitsCount = random.nextInt(4) == 0 ? 1 + random.nextInt(12) : 1 + random.nextInt(2);
+
+            for (int i = 0; i < digitsCount; i++) {
+                input.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+
+        appendSpaces(input, random);
+
+        return input.toString();
+    }
+
+    private static String randomCharacters(Random random) {
+        StringBuilder input = new StringBuilder();
+        int length = random.nextInt(MAX_RANDOM_LENGTH);
+
+        for (int i = 0; i < length; i++) {
+            input.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        }
+
+        return input.toString();
+    }
+
+    private static void appendSpaces(StringBuilder input, Random random) {
+        int spacesCount = random.nextInt(3);
+
+        for (int i = 0; i < spacesCount; i++) {
+            input.append(CHARACTERS.charAt(CHARACTERS.indexOf(' ') + random.nextInt(10)));
+        }
+    }
+
+    private static String describe(String inputType, int[] args) {
+        return inputType.equals(InputParser.InputType.PUT.name()) ? inputType + " " + args[0] : inputType;
+    }
+
+    private static String escape(String input) {
+        StringBuilder escaped = new StringBuilder();
+
+        for (char c : input.toCharArray()) {
+            if (c < ' ' || c > '~') escaped.append(String.format("\\u%04X", (int) c));
+            else escaped.append(c);
+        }
+
+        return escaped.toString();
+    }
+}
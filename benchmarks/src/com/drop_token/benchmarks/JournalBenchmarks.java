@@ -0,0 +1,92 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.controller.DTController;
+import com.drop_token.journal.DTJournal;
+import com.drop_token.model.DTEngine;
+import com.drop_token.view.DTBufferedConsoleManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of the journal's overhead on the games: the same commands handled by a controller whose engine
+ * isn't journaled, and by one whose engine is, into a temporary file forced to the disk as usual.
+ */
+public class JournalBenchmarks {
+
+    private static final int BOARD_SIZE = 7;
+    private static final int WINNING_STREAK = 4;
+
+    private JournalBenchmarks() {
+    }
+
+    public static List<Benchmark> create() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(handleInput(false));
+        benchmarks.add(handleInput(true));
+        return benchmarks;
+    }
+
+    /**
+     * Every invocation plays a whole recorded game through the controller's PUT commands, journaled as a new game,
+     * then ends it and resets the engine; scores are per command.
+     */
+    private static Benchmark handleInput(boolean isJournaled) {
+        int[] game = EngineBenchmarks.recordGame(DTEngine::new, BOARD_SIZE, WINNING_STREAK);
+        String[] commands = new String[game.length];
+
+        for (int i = 0; i < game.length; i++) {
+            commands[i] = "PUT " + (game[i] + 1);
+        }
+
+        return new Benchmark("DTController.handleInput[journal=" + (isJournaled ? "on" : "off") + ",commands="
+                + commands.length + "]", commands.length) {
+            private DTEngine engine;
+            private DTBufferedConsoleManager consoleManager;
+            private DTController controller;
+            private DTJournal journal;
+
+            @Override
+            public void setUp() {
+                engine = new DTEngine(BOARD_SIZE, 2, WINNING_STREAK);
+                consoleManager = new DTBufferedConsoleManager();
+                controller = new DTController(engine, consoleManager, null);
+
+                if (!isJournaled) return;
+
+                try {
+                    Path file = Files.createTempFile("dt-journal-benchmark", ".bin");
+                    file.toFile().deleteOnExit();
+                    Files.delete(file);
+
+                    journal = new DTJournal(file, BOARD_SIZE, BOARD_SIZE, 2, WINNING_STREAK, DTEngine::new);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public int run() {
+                DTJournal.GameLog gameLog = journal == null ? null : journal.startGame(engine);
+
+                for (String command : commands) {
+                    controller.handleInput(command);
+                }
+
+                int result = consoleManager.getOutput().length();
+
+                if (gameLog != null) gameLog.end();
+
+                // Back to the empty board for the next invocation
+                engine.reset();
+                consoleManager.clearOutput();
+
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.journal.DTJournal;
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks that the games recovered from a journal are the games that were left live in it.
+ * <p>
+ * Several threads play random games at once on the same journal, many games interleaved on each thread,
+ * with random undos, skipped turns and forfeits; games are ended as they finish, and some are ended halfway.
+ * The journal is closed with the other games live, a torn record is appended as a crash would leave it, and the
+ * journal is reopened on the other engine: exactly the live games must be recovered, each one at the same position,
+ * turn and status.
+ * Reopening it once more must recover them again, from the compacted file.
+ * <p>
+ * Usage: JournalRecoveryCheck [gamesCount] [seed]
+ */
+public class JournalRecoveryCheck {
+
+    private static final int ROWS_COUNT = 6;
+    private static final int COLUMNS_COUNT = 7;
+    private static final int PLAYERS_COUNT = 4;
+    private static final int WINNING_STREAK = 4;
+
+    private static final int THREADS_COUNT = 4;
+    private static final int INTERLEAVED_GAMES = 64;
+
+    public static void main(String[] args) throws Exception {
+        int gamesCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 20;
+
+        Path file = Files.createTempFile("dt-journal", ".bin");
+        Files.delete(file);
+
+        Map<Integer, IDTEngine> liveGames = new ConcurrentHashMap<>();
+        long startNanos = System.nanoTime();
+
+        try (DTJournal journal = new DTJournal(file, ROWS_COUNT, COLUMNS_COUNT, PLAYERS_COUNT, WINNING_STREAK,
+                DTEngine::new)) {
+            List<Thread> threads = new ArrayList<>();
+
+            for (int i = 0; i < THREADS_COUNT; i++) {
+                Random random = new Random(seed + i);
+                threads.add(new Thread(() -> playGames(journal, random, gamesCount / THREADS_COUNT, liveGames)));
+            }
+
+            for (Thread thread : threads) {
+                thread.start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            System.out.println(String.format("played %d games in %.0f ms, %d commits",
+                    gamesCount, (System.nanoTime() - startNanos) / 1e6, journal.getCommitsCount()));
+        }
+
+        // A crash in the middle of a record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        }
+
+        checkRecovery(file, liveGames);
+        checkRecovery(file, liveGames);
+
+        Files.delete(file);
+
+        System.out.println(liveGames.size() + " live games recovered at the same positions");
+    }
+
+    private static void playGames(DTJournal journal, Random random, int gamesCount,
+                                  Map<Integer, IDTEngine> liveGames) {
+        List<DTJournal.GameLog> playing = new ArrayList<>();
+        int startedCount = 0;
+
+        while (startedCount < gamesCount || !playing.isEmpty()) {
+            if (startedCount < gamesCount && playing.size() < INTERLEAVED_GAMES) {
+                playing.add(journal.startGame(new DTEngine(ROWS_COUNT, COLUMNS_COUNT, PLAYERS_COUNT,
+                        WINNING_STREAK)));
+                startedCount++;
+                continue;
+            }
+
+            int index = random.nextInt(playing.size());
+            DTJournal.GameLog gameLog = playing.get(index);
+            IDTEngine engine = gameLog.getEngine();
+            int step = random.nextInt(100);
+
+            if (step < 2) {
+                // Abandoned halfway
+                gameLog.end();
+                playing.remove(index);
+            } else if (step < 4) {
+                // Left live, for the recovery if it has any token
+                gameLog.detach();
+
+                if (engine.getMovesCount() > 0) liveGames.put(gameLog.getGameId(), engine);
+                playing.remove(index);
+            } else if (step < 10) {
+                engine.undo();
+            } else if (step < 13) {
+                engine.skipTurn();
+            } else if (step < 14) {
+                if (engine.forfeit(1 + random.nextInt(PLAYERS_COUNT))
+                        && engine.getGameStatus() == GameStatus.FINISHED_WIN) {
+                    gameLog.end();
+                    playing.remove(index);
+                }
+            } else {
+                TokenInsertionStatus status = engine.insertToken(random.nextInt(COLUMNS_COUNT));
+
+                if (status == TokenInsertionStatus.WIN || status == TokenInsertionStatus.DRAW) {
+                    gameLog.end();
+                    playing.remove(index);
+                }
+            }
+        }
+    }
+
+    private static void checkRecovery(Path file, Map<Integer, IDTEngine> liveGames) throws IOException {
+        long startNanos = System.nanoTime();
+
+        try (DTJournal journal = new DTJournal(file, ROWS_COUNT, COLUMNS_COUNT, PLAYERS_COUNT, WINNING_STREAK,
+                () -> new BitboardDTEngine(ROWS_COUNT, COLUMNS_COUNT, PLAYERS_COUNT, WINNING_STREAK))) {
+
+            System.out.println(String.format("recovered %d games in %.0f ms",
+                    journal.getRecoveredGamesCount(), (System.nanoTime() - startNanos) / 1e6));
+
+            if (journal.getRecoveredGamesCount() != liveGames.size())
+                throw new IllegalStateException("Recovered " + journal.getRecoveredGamesCount() + " games instead of "
+                        + liveGames.size());
+
+            for (Map.Entry<Integer, IDTEngine> liveGame : liveGames.entrySet()) {
+                DTJournal.GameLog gameLog = journal.resumeGame(liveGame.getKey());
+                IDTEngine expected = liveGame.getValue();
+
+                if (gameLog == null) throw new IllegalStateException("Game " + liveGame.getKey() + " wasn't recovered");
+
+                IDTEngine recovered = gameLog.getEngine();
+                GameStatus gameStatus = recovered.getGameStatus();
+
+                if (recovered.getPositionHash() != expected.getPositionHash()
+                        || recovered.getMovesCount() != expected.getMovesCount()
+                        || recovered.getCurrentPlayerId() != expected.getCurrentPlayerId()
+                        || gameStatus != expected.getGameStatus())
+                    throw new IllegalStateException("Game " + liveGame.getKey() + " was recovered at another position");
+
+                // Left live for the next recovery
+                gameLog.detach();
+            }
+        }
+    }
+}
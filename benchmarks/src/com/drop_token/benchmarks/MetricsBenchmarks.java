@@ -0,0 +1,92 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.controller.DTController;
+import com.drop_token.metrics.DTMetrics;
+import com.drop_token.metrics.LatencyHistogram;
+import com.drop_token.model.DTEngine;
+import com.drop_token.view.DTBufferedConsoleManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of the metrics' overhead: the same commands handled by a controller without metrics and with them,
+ * and the recording of a single latency.
+ */
+public class MetricsBenchmarks {
+
+    private static final int BOARD_SIZE = 7;
+    private static final int WINNING_STREAK = 4;
+
+    private MetricsBenchmarks() {
+    }
+
+    public static List<Benchmark> create() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(handleInput(false));
+        benchmarks.add(handleInput(true));
+        benchmarks.add(record());
+        return benchmarks;
+    }
+
+    /**
+     * Every invocation plays a whole recorded game through the controller's PUT commands, then takes it back
+     * on the engine directly; scores are per command.
+     */
+    private static Benchmark handleInput(boolean hasMetrics) {
+        int[] game = EngineBenchmarks.recordGame(DTEngine::new, BOARD_SIZE, WINNING_STREAK);
+        String[] commands = new String[game.length];
+
+        for (int i = 0; i < game.length; i++) {
+            commands[i] = "PUT " + (game[i] + 1);
+        }
+
+        return new Benchmark("DTController.handleInput[metrics=" + (hasMetrics ? "on" : "off") + ",commands="
+                + commands.length + "]", commands.length) {
+            private DTEngine engine;
+            private DTBufferedConsoleManager consoleManager;
+            private DTController controller;
+
+            @Override
+            public void setUp() {
+                engine = new DTEngine(BOARD_SIZE, 2, WINNING_STREAK);
+                consoleManager = new DTBufferedConsoleManager();
+                controller = new DTController(engine, consoleManager, null);
+
+                if (hasMetrics) controller.setMetrics(new DTMetrics());
+            }
+
+            @Override
+            public int run() {
+                for (String command : commands) {
+                    controller.handleInput(command);
+                }
+
+                int result = consoleManager.getOutput().length();
+
+                while (engine.undo()) {
+                    // Back to the empty board for the next invocation
+                }
+
+                consoleManager.clearOutput();
+
+                return result;
+            }
+        };
+    }
+
+    private static Benchmark record() {
+        return new Benchmark("LatencyHistogram.record") {
+            private final LatencyHistogram histogram = new LatencyHistogram();
+            private long nanos;
+
+            @Override
+            public int run() {
+                // Spread over many buckets, as real latencies are
+                nanos = (nanos * 31 + 17) & 0xFFFFF;
+                histogram.record(nanos);
+                return (int) nanos;
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.controller.DTController;
+import com.drop_token.model.DTEngine;
+import com.drop_token.view.DTConsoleManager;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of a console game fed a whole batch of commands at once, as pipelining clients send them,
+ * answered one response at a time as on the standard output, or pipelined.
+ * The output goes to the null device, so every write is a real system call doing nothing.
+ */
+public class PipelineBenchmarks {
+
+    private static final int BOARD_SIZE = 7;
+    private static final int WINNING_STREAK = 4;
+
+    private static final String NULL_DEVICE = "/dev/null";
+
+    // The standard output's buffer, flushed at every line
+    private static final int STANDARD_OUTPUT_BUFFER_SIZE = 128;
+
+    private PipelineBenchmarks() {
+    }
+
+    public static List<Benchmark> create() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(playGame(false));
+        benchmarks.add(playGame(true));
+        return benchmarks;
+    }
+
+    /**
+     * Every invocation plays a whole recorded game followed by GET and EXIT; scores are per command.
+     */
+    private static Benchmark playGame(boolean isPipelined) {
+        int[] game = EngineBenchmarks.recordGame(DTEngine::new, BOARD_SIZE, WINNING_STREAK);
+        StringBuilder commands = new StringBuilder();
+
+        for (int column : game) {
+            commands.append("PUT ").append(column + 1).append('\n');
+        }
+
+        commands.append("GET\nEXIT\n");
+
+        byte[] input = commands.toString().getBytes(StandardCharsets.US_ASCII);
+
+        return new Benchmark("DTController.startGame[pipelined=" + isPipelined + ",commands=" + (game.length + 2)
+                + "]", game.length + 2) {
+            @Override
+            public int run() {
+                DTController controller = new DTController(new DTEngine(BOARD_SIZE, 2, WINNING_STREAK),
+                        newConsoleManager(input, isPipelined));
+
+                if (isPipelined) {
+                    controller.startPipelinedGame();
+                } else {
+                    controller.startGame();
+                }
+
+                return input.length;
+            }
+        };
+    }
+
+    private static DTConsoleManager newConsoleManager(byte[] input, boolean isPipelined) {
+        try {
+            FileOutputStream out = new FileOutputStream(NULL_DEVICE);
+
+            if (isPipelined) return new DTConsoleManager(new ByteArrayInputStream(input), out, true);
+
+            return new DTConsoleManager(new ByteArrayInputStream(input),
+                    new PrintStream(new BufferedOutputStream(out, STANDARD_OUTPUT_BUFFER_SIZE), true));
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.DTPositionHash;
+import com.drop_token.model.DTSnapshot;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the engines' incremental position hashes against hashes computed from scratch, and their snapshots
+ * against replaying the game, over random games of random boards, players and streaks.
+ * <p>
+ * At random steps of every game, both engines are snapshotted, the snapshot goes through its bytes and is
+ * restored into engines of its own: the restored boards, hashes, statuses and turns must match, and the game
+ * goes on in lockstep on the original and the restored engines, so the restored streaks are checked as well.
+ * <p>
+ * Usage: PositionSnapshotCheck [gamesCount] [seed]
+ */
+public class PositionSnapshotCheck {
+
+    private static final int MAX_ROWS_COUNT = 9;
+    private static final int MAX_COLUMNS_COUNT = 9;
+    private static final int MAX_PLAYERS_COUNT = 3;
+
+    private static final int MAX_GAME_STEPS = 120;
+
+    public static void main(String[] args) {
+        long gamesCount = args.length > 0 ? Long.parseLong(args[0]) : 200_000;
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 98);
+        long snapshotsCount = 0;
+
+        for (long game = 0; game < gamesCount; game++) {
+            snapshotsCount += checkGame(random, game);
+        }
+
+        System.out.println(gamesCount + " games, " + snapshotsCount + " snapshots restored the same positions");
+    }
+
+    /**
+     * @return the number of restored snapshots
+     */
+    private static long checkGame(Random random, long game) {
+        int rowsCount = 1 + random.nextInt(MAX_ROWS_COUNT);
+        int columnsCount = 1 + random.nextInt(MAX_COLUMNS_COUNT);
+        int playersCount = 1 + random.nextInt(MAX_PLAYERS_COUNT);
+        int winningStreak = 1 + random.nextInt(Math.max(rowsCount, columnsCount) + 1);
+        boolean isBitboardFitting = columnsCount * (rowsCount + 1) <= Long.SIZE;
+
+        IDTEngine[] engines = {
+                new DTEngine(rowsCount, columnsCount, playersCount, winningStreak),
+                isBitboardFitting ? new BitboardDTEngine(rowsCount, columnsCount, playersCount, winningStreak)
+                        : new DTEngine(rowsCount, columnsCount, playersCount, winningStreak)
+        };
+        long snapshotsCount = 0;
+
+        for (int step = 0; step < MAX_GAME_STEPS; step++) {
+            int action = random.nextInt(10);
+
+            if (action == 0) {
+                DTSnapshot snapshot = DTSnapshot.fromByteArray(engines[0].snapshot().toByteArray());
+
+                if (!snapshot.equals(engines[1].snapshot())) fail(game, engines[0], "the engines' snapshots differ");
+
+                // Each restored engine is of the other kind than the one it replaces, and of a used one
+                IDTEngine[] restoredEngines = {
+                        isBitboardFitting ? new BitboardDTEngine(rowsCount, columnsCount, playersCount, winningStreak)
+                                : new DTEngine(rowsCount, columnsCount, playersCount, winningStreak),
+                        engines[0].copy()
+                };
+
+                for (int i = 0; i < engines.length; i++) {
+                    restoredEngines[i].restore(snapshot);
+                    checkSamePosition(game, engines[i], restoredEngines[i]);
+                }
+
+                engines = restoredEngines;
+                snapshotsCount++;
+                continue;
+            }
+
+            if (action == 1) {
+                boolean isUndone = engines[0].undo();
+
+                if (engines[1].undo() != isUndone) fail(game, engines[0], "the engines disagree on undo");
+            } else if (action == 2) {
+                engines[0].reset();
+                engines[1].reset();
+            } else {
+                int column = random.nextInt(columnsCount);
+                TokenInsertionStatus status = engines[0].insertToken(column);
+
+                if (engines[1].insertToken(column) != status)
+                    fail(game, engines[0], "the engines disagree on column " + column + ": " + status);
+            }
+
+            checkSamePosition(game, engines[0], engines[1]);
+
+            if (engines[0].getPositionHash() != computeHash(engines[0]))
+                fail(game, engines[0], "the incremental hash drifted");
+
+            // Boards too big for a bitboard are checked against the reference, instead of another kind of engine
+            if (ReferenceWinChecker.hasAnyStreak(engines[0], winningStreak)
+                    != (engines[0].getGameStatus() == GameStatus.FINISHED_WIN))
+                fail(game, engines[0], "the board is " + engines[0].getGameStatus());
+        }
+
+        return snapshotsCount;
+    }
+
+    private static void checkSamePosition(long game, IDTEngine engine, IDTEngine otherEngine) {
+        if (!Arrays.deepEquals(engine.getBoard(), otherEngine.getBoard()))
+            fail(game, engine, "the boards differ");
+
+        if (engine.getPositionHash() != otherEngine.getPositionHash()) fail(game, engine, "the hashes differ");
+
+        if (engine.getGameStatus() != otherEngine.getGameStatus()) fail(game, engine, "the statuses differ");
+
+        if (engine.getCurrentPlayerId() != otherEngine.getCurrentPlayerId())
+            fail(game, engine, "the players to play differ");
+    }
+
+    private static long computeHash(IDTEngine engine) {
+        long hash = 0;
+
+        for (int column = 0; column < engine.getColumnsCount(); column++) {
+            for (int height = 0; height < engine.getRowsCount(); height++) {
+                int tokenId = engine.getTokenId(engine.getRowsCount() - 1 - height, column);
+
+                if (tokenId != 0) hash ^= DTPositionHash.getTokenHash(height, column, tokenId);
+            }
+        }
+
+        return hash;
+    }
+
+    private static void fail(long game, IDTEngine engine, String message) {
+        throw new IllegalStateException("Game " + game + " on a " + engine.getRowsCount() + "x"
+                + engine.getColumnsCount() + " board, streak " + engine.getWinningStreak() + ": " + message
+                + "\n" + Arrays.deepToString(engine.getBoard()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.IDTBoardView;
+
+/**
+ * The obvious, slow, way to score a position by its open lines; walking every line of the board slot by slot.
+ * It's the reference the {@link com.drop_token.ai.ThreatEvaluator}'s incremental counters are checked against.
+ */
+public class ReferenceEvaluator {
+
+    // Horizontal, vertical, diagonal and anti-diagonal
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private static final int MAX_LINE_WEIGHT_LOG2 = 8;
+
+    private final int playersCount;
+    private final int winningStreak;
+
+    // Indexed by playerId - 1
+    private final long[] playersScores;
+    private final int[] playersThreatsCounts;
+
+    // Indexed by row, column, then playerId - 1
+    private final int[][][] slotsThreatsCounts;
+
+    /**
+     * Scans every line of the board.
+     */
+    public ReferenceEvaluator(IDTBoardView board, int playersCount, int winningStreak) {
+        this.playersCount = playersCount;
+        this.winningStreak = winningStreak;
+        this.playersScores = new long[playersCount];
+        this.playersThreatsCounts = new int[playersCount];
+        this.slotsThreatsCounts = new int[board.getRowsCount()][board.getColumnsCount()][playersCount];
+
+        // A streak of 1 is a single slot, the same line in every direction
+        int directionsCount = winningStreak == 1 ? 1 : DIRECTIONS.length;
+
+        for (int d = 0; d < directionsCount; d++) {
+            for (int row = 0; row < board.getRowsCount(); row++) {
+                for (int column = 0; column < board.getColumnsCount(); column++) {
+                    scanLine(board, row, column, DIRECTIONS[d][0], DIRECTIONS[d][1]);
+                }
+            }
+        }
+    }
+
+    public int getPlayersCount() {
+        return playersCount;
+    }
+
+    public long evaluate(int playerId) {
+        long scoresSum = 0;
+
+        for (long score : playersScores) {
+            scoresSum += score;
+        }
+
+        return 2 * playersScores[playerId - 1] - scoresSum;
+    }
+
+    public int getThreatsCount(int playerId) {
+        return playersThreatsCounts[playerId - 1];
+    }
+
+    public int getThreatsCount(int playerId, int row, int column) {
+        return slotsThreatsCounts[row][column][playerId - 1];
+    }
+
+    private void scanLine(IDTBoardView board, int row, int column, int rowStep, int columnStep) {
+        int lastRow = row + rowStep * (winningStreak - 1);
+        int lastColumn = column + columnStep * (winningStreak - 1);
+
+        if (lastRow >= board.getRowsCount() || lastColumn < 0 || lastColumn >= board.getColumnsCount()) return;
+
+        int ownerId = 0;
+        int tokensCount = 0;
+        int emptyRow = -1;
+        int emptyColumn = -1;
+
+        for (int i = 0; i < winningStreak; i++) {
+            int tokenId = board.getTokenId(row + i * rowStep, column + i * columnStep);
+
+            if (tokenId == 0) {
+                emptyRow = row + i * rowStep;
+                emptyColumn = column + i * columnStep;
+                continue;
+            }
+
+            // Shared lines are open to nobody
+            if (ownerId != 0 && tokenId != ownerId) return;
+
+            ownerId = tokenId;
+            tokensCount++;
+        }
+
+        if (ownerId == 0) return;
+
+        playersScores[ownerId - 1] += 1 << Math.min(2 * (tokensCount - 1), MAX_LINE_WEIGHT_LOG2);
+
+        if (tokensCount == winningStreak - 1) {
+            playersThreatsCounts[ownerId - 1]++;
+            slotsThreatsCounts[emptyRow][emptyColumn][ownerId - 1]++;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.IDTBoardView;
+
+/**
+ * The obvious, slow, way to find winning streaks; walking the board slot by slot.
+ * It's the reference the engines' incremental win detection is checked against.
+ */
+public class ReferenceWinChecker {
+
+    // Horizontal, vertical, diagonal and anti-diagonal
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {-1, 1}, {1, 1}};
+
+    private ReferenceWinChecker() {
+    }
+
+    /**
+     * @return if the token of the slot is part of a streak of at least winningStreak tokens, in any direction
+     */
+    public static boolean hasStreakThrough(IDTBoardView board, int row, int column, int winningStreak) {
+        int tokenId = board.getTokenId(row, column);
+
+        if (tokenId == 0) return false;
+
+        for (int[] direction : DIRECTIONS) {
+            int streak = 1
+                    + countTokens(board, row, column, direction[0], direction[1], tokenId)
+                    + countTokens(board, row, column, -direction[0], -direction[1], tokenId);
+
+            if (streak >= winningStreak) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return if any slot of the board is part of a streak of at least winningStreak tokens
+     */
+    public static boolean hasAnyStreak(IDTBoardView board, int winningStreak) {
+        for (int row = 0; row < board.getRowsCount(); row++) {
+            for (int column = 0; column < board.getColumnsCount(); column++) {
+                if (hasStreakThrough(board, row, column, winningStreak)) return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the number of consecutive tokens of the player following the slot, in the direction of the steps
+     */
+    private static int countTokens(IDTBoardView board, int row, int column, int rowStep, int columnStep,
+                                   int tokenId) {
+        int count = 0;
+
+        for (row += rowStep, column += columnStep; isInBoard(board, row, column);
+             row += rowStep, column += columnStep) {
+            if (board.getTokenId(row, column) != tokenId) break;
+
+            count++;
+        }
+
+        return count;
+    }
+
+    private static boolean isInBoard(IDTBoardView board, int row, int column) {
+        return row >= 0 && row < board.getRowsCount() && column >= 0 && column < board.getColumnsCount();
+    }
+}
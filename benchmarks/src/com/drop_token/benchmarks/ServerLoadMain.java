@@ -0,0 +1,155 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.journal.DTJournal;
+import com.drop_token.model.DTEngine;
+import com.drop_token.server.DTServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Load test of the server: many concurrent sessions, each one sending a command and waiting for its response
+ * before sending the next, and the round-trip latencies of all the commands.
+ * Given a journal file, the server journals the games into it, which is created or recovered first.
+ * <p>
+ * Usage: ServerLoadMain [sessions] [commandsPerSession] [serverThreads] [journalFile]
+ */
+public class ServerLoadMain {
+
+    private static final byte[][] COMMANDS = {
+            "PUT 1\n".getBytes(StandardCharsets.US_ASCII),
+            "PUT 2\n".getBytes(StandardCharsets.US_ASCII),
+            "GET\n".getBytes(StandardCharsets.US_ASCII),
+            "PUT 3\n".getBytes(StandardCharsets.US_ASCII),
+            "BOARD\n".getBytes(StandardCharsets.US_ASCII),
+    };
+
+    public static void main(String[] args) throws IOException {
+        int sessionsCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int commandsPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int serverThreadsCount = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        DTEngine board = new DTEngine();
+        DTJournal journal = args.length > 3 ? new DTJournal(Paths.get(args[3]), board.getRowsCount(),
+                board.getColumnsCount(), board.getPlayersCount(), board.getWinningStreak(), DTEngine::new) : null;
+
+        DTServer server = new DTServer(0, serverThreadsCount, DTEngine::new, engine -> {
+        }, null, journal, null);
+        server.start();
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        Selector selector = Selector.open();
+
+        for (int i = 0; i < sessionsCount; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Client(channel, commandsPerSession));
+        }
+
+        long[] latencies = new long[sessionsCount * commandsPerSession];
+        int latenciesCount = 0;
+        int finishedCount = 0;
+        long startNanos = System.nanoTime();
+
+        for (SelectionKey selectionKey : selector.keys()) {
+            ((Client) selectionKey.attachment()).sendNext();
+        }
+
+        while (finishedCount < sessionsCount) {
+            selector.select();
+
+            Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+
+            while (selectedKeys.hasNext()) {
+                SelectionKey selectionKey = selectedKeys.next();
+                selectedKeys.remove();
+
+                Client client = (Client) selectionKey.attachment();
+
+                if (!client.readResponse()) continue;
+
+                latencies[latenciesCount++] = System.nanoTime() - client.sentNanos;
+
+                if (client.hasNext()) {
+                    client.sendNext();
+                } else {
+                    finishedCount++;
+                    selectionKey.cancel();
+                    client.channel.close();
+                }
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        server.stop();
+
+        if (journal != null) journal.close();
+
+        Arrays.sort(latencies, 0, latenciesCount);
+
+        System.out.println(String.format("%d sessions, %d commands, %.0f commands/s",
+                sessionsCount, latenciesCount, latenciesCount / (elapsedNanos / 1e9)));
+        System.out.println(String.format("latency us: p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f",
+                percentile(latencies, latenciesCount, 0.5), percentile(latencies, latenciesCount, 0.99),
+                percentile(latencies, latenciesCount, 0.999), latencies[latenciesCount - 1] / 1e3));
+    }
+
+    private static double percentile(long[] sortedLatencies, int count, double percentile) {
+        return sortedLatencies[(int) Math.min(count - 1, count * percentile)] / 1e3;
+    }
+
+    /**
+     * A session sending one command at a time; every response is read up to the end of its last line,
+     * the multi-line responses (GET and BOARD) are known to end once no more bytes are pending.
+     */
+    private static class Client {
+        private final SocketChannel channel;
+        private final ByteBuffer inBuffer = ByteBuffer.allocate(4096);
+        private final int commandsCount;
+
+        private int sentCount;
+        private long sentNanos;
+
+        private Client(SocketChannel channel, int commandsCount) {
+            this.channel = channel;
+            this.commandsCount = commandsCount;
+        }
+
+        private boolean hasNext() {
+            return sentCount < commandsCount;
+        }
+
+        private void sendNext() throws IOException {
+            ByteBuffer command = ByteBuffer.wrap(COMMANDS[sentCount++ % COMMANDS.length]);
+            sentNanos = System.nanoTime();
+
+            while (command.hasRemaining()) {
+                channel.write(command);
+            }
+        }
+
+        /**
+         * @return if a complete response was received
+         */
+        private boolean readResponse() throws IOException {
+            channel.read(inBuffer);
+
+            boolean isComplete = inBuffer.position() > 0 && inBuffer.get(inBuffer.position() - 1) == '\n';
+
+            if (isComplete) inBuffer.clear();
+
+            return isComplete;
+        }
+    }
+}
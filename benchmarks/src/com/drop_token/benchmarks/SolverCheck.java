@@ -0,0 +1,159 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.solver.DTSolutionTable;
+import com.drop_token.solver.DTSolver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checks the solution tables written by the solver against a plain negamax over every reachable position.
+ * <p>
+ * Small boards are solved on several threads and written to a table file, then every position reachable from
+ * the empty board is walked on the default engine and solved again by a memoized negamax keyed by the board itself,
+ * without the solver's bitboards, mirrored keys or parallel frontier. Every unfinished position must have the same
+ * value in the table, and the table's best column must reach that value.
+ * <p>
+ * Usage: SolverCheck [threadsCount]
+ */
+public class SolverCheck {
+
+    // Rows, columns and winning streak of the solved boards
+    private static final int[][] BOARDS = {{4, 4, 4}, {4, 5, 3}, {3, 4, 3}, {5, 4, 4}};
+
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    public static void main(String[] args) throws Exception {
+        int threadsCount = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long positionsCount = 0;
+
+        for (int[] board : BOARDS) {
+            positionsCount += checkBoard(board[0], board[1], board[2], threadsCount);
+        }
+
+        System.out.println(positionsCount + " positions valued the same by the solution tables and a plain negamax");
+    }
+
+    private static long checkBoard(int rowsCount, int columnsCount, int winningStreak, int threadsCount)
+            throws Exception {
+        Path file = Files.createTempFile("dt-solution", ".bin");
+
+        try {
+            DTSolver solver = new DTSolver(rowsCount, columnsCount, winningStreak, threadsCount);
+            DTSolutionTable.write(file, solver, solver.solve());
+
+            DTSolutionTable table = DTSolutionTable.open(file);
+            ReferenceSolver reference = new ReferenceSolver(table,
+                    rowsCount + "x" + columnsCount + "/" + winningStreak);
+            reference.solve(new DTEngine(rowsCount, columnsCount, 2, winningStreak));
+
+            return reference.values.size();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Values every unfinished position as the table defines them, checking the table's as it goes.
+     */
+    private static class ReferenceSolver {
+        private final DTSolutionTable table;
+        private final String boardName;
+        private final Map<String, Integer> values = new HashMap<>();
+
+        private ReferenceSolver(DTSolutionTable table, String boardName) {
+            this.table = table;
+            this.boardName = boardName;
+        }
+
+        private int solve(IDTEngine engine) {
+            String key = getKey(engine);
+            Integer knownValue = values.get(key);
+
+            if (knownValue != null) return knownValue;
+
+            int columnsCount = engine.getColumnsCount();
+            int[] movesValues = new int[columnsCount];
+            int value = NO_VALUE;
+
+            for (int column = 0; column < columnsCount; column++) {
+                int moveValue;
+
+                switch (engine.insertToken(column)) {
+                    case WIN:
+                        moveValue = 1;
+                        break;
+                    case DRAW:
+                        moveValue = 0;
+                        break;
+                    case OK:
+                        moveValue = getParentValue(solve(engine));
+                        break;
+                    default:
+                        movesValues[column] = NO_VALUE;
+                        continue;
+                }
+
+                engine.undo();
+
+                movesValues[column] = moveValue;
+
+                if (value == NO_VALUE || getRank(moveValue) > getRank(value)) value = moveValue;
+            }
+
+            values.put(key, value);
+
+            int tableValue = table.getValue(engine);
+
+            if (tableValue != value)
+                throw new IllegalStateException(boardName + " " + key + ": table value " + tableValue
+                        + ", negamax value " + value);
+
+            int bestColumn = table.getBestColumn(engine);
+
+            if (bestColumn < 0 || movesValues[bestColumn] != value)
+                throw new IllegalStateException(boardName + " " + key + ": table's best column " + bestColumn
+                        + " isn't worth " + value);
+
+            return value;
+        }
+
+        private static String getKey(IDTEngine engine) {
+            StringBuilder key = new StringBuilder();
+
+            for (int row = 0; row < engine.getRowsCount(); row++) {
+                for (int column = 0; column < engine.getColumnsCount(); column++) {
+                    key.append(engine.getTokenId(row, column));
+                }
+
+                key.append('/');
+            }
+
+            return key.toString();
+        }
+
+        /**
+         * @return the value of a move leading to a position of the given value for the other player
+         */
+        private static int getParentValue(int value) {
+            if (value > 0) return -(value + 1);
+            if (value < 0) return -value + 1;
+
+            return 0;
+        }
+
+        /**
+         * Wins rank above draws, and draws above losses; the sooner a win the better, the later a loss the better.
+         */
+        private static int getRank(int value) {
+            if (value > 0) return 1000 - value;
+            if (value < 0) return -1000 - value;
+
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.DTEngine;
+import com.drop_token.server.DTServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Load test of spectators: a single player plays a long game, one command at a time, while many spectators follow it,
+ * either by watching it (WATCH) or by polling its board (BOARD) again as soon as they got the previous one,
+ * and the round-trip latencies of the player's moves.
+ * <p>
+ * Watching spectators rebuild the board from the first board they get and the moves that follow;
+ * each one must end up with the same board as the player's.
+ * <p>
+ * Usage: SpectatorLoadMain [spectators] [watch|poll] [serverThreads]
+ */
+public class SpectatorLoadMain {
+
+    // No line of 64 tokens can be made on 63 columns, nor up the columns as the players alternate in each of them
+    private static final int ROWS_COUNT = 64;
+    private static final int COLUMNS_COUNT = 63;
+    private static final int WINNING_STREAK = 64;
+    private static final int MOVES_COUNT = ROWS_COUNT * COLUMNS_COUNT;
+
+    private static final byte[] COMMAND_BOARD = "BOARD\n".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        int spectatorsCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        boolean isWatching = args.length <= 1 || args[1].equals("watch");
+        int serverThreadsCount = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        DTServer server = new DTServer(0, serverThreadsCount,
+                () -> new DTEngine(ROWS_COUNT, COLUMNS_COUNT, 2, WINNING_STREAK));
+        server.start();
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        SocketChannel player = SocketChannel.open(address);
+        ByteBuffer response = ByteBuffer.allocate(64);
+
+        send(player, "GAME\n".getBytes(StandardCharsets.US_ASCII));
+        String gameId = readLine(player, response).substring("GAME ".length());
+
+        Selector selector = Selector.open();
+        Spectator[] spectators = new Spectator[spectatorsCount];
+
+        for (int i = 0; i < spectatorsCount; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            spectators[i] = new Spectator(channel, isWatching);
+            send(channel, isWatching ? ("WATCH " + gameId + "\n").getBytes(StandardCharsets.US_ASCII)
+                    : COMMAND_BOARD);
+
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, spectators[i]);
+        }
+
+        Thread spectatorsThread = new Thread(() -> readSpectators(selector, isWatching));
+        spectatorsThread.setDaemon(true);
+        spectatorsThread.start();
+
+        long[] latencies = new long[MOVES_COUNT];
+        long startNanos = System.nanoTime();
+
+        for (int move = 0; move < MOVES_COUNT; move++) {
+            long sentNanos = System.nanoTime();
+
+            send(player, ("PUT " + (move % COLUMNS_COUNT + 1) + "\n").getBytes(StandardCharsets.US_ASCII));
+            readLine(player, response);
+
+            latencies[move] = System.nanoTime() - sentNanos;
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        // Let the watchers get the last moves
+        Thread.sleep(500);
+
+        long bytesCount = 0;
+        int matchingCount = 0;
+
+        for (Spectator spectator : spectators) {
+            synchronized (spectator) {
+                bytesCount += spectator.bytesCount;
+
+                if (spectator.isBoardFull()) matchingCount++;
+            }
+        }
+
+        server.stop();
+
+        Arrays.sort(latencies);
+
+        System.out.println(String.format("%d %s spectators, %d moves, %.0f moves/s, %.1f MB sent to spectators",
+                spectatorsCount, isWatching ? "watching" : "polling", MOVES_COUNT, MOVES_COUNT / (elapsedNanos / 1e9),
+                bytesCount / 1e6));
+        System.out.println(String.format("move latency us: p50 %.1f, p99 %.1f, max %.1f",
+                latencies[MOVES_COUNT / 2] / 1e3, latencies[MOVES_COUNT * 99 / 100] / 1e3,
+                latencies[MOVES_COUNT - 1] / 1e3));
+
+        if (isWatching) {
+            if (matchingCount != spectatorsCount)
+                throw new IllegalStateException((spectatorsCount - matchingCount) + " watchers missed moves");
+
+            System.out.println("every watcher rebuilt the full board");
+        }
+    }
+
+    private static void readSpectators(Selector selector, boolean isWatching) {
+        try {
+            while (true) {
+                selector.select();
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+
+                while (selectedKeys.hasNext()) {
+                    SelectionKey selectionKey = selectedKeys.next();
+                    selectedKeys.remove();
+
+                    Spectator spectator = (Spectator) selectionKey.attachment();
+
+                    if (spectator.read() && !isWatching) send(spectator.channel, COMMAND_BOARD);
+                }
+            }
+        } catch (IOException e) {
+            // The server was stopped
+        }
+    }
+
+    private static void send(SocketChannel channel, byte[] command) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(command);
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String readLine(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+
+        do {
+            if (channel.read(buffer) < 0) throw new IOException("Connection closed");
+        } while (buffer.get(buffer.position() - 1) != '\n');
+
+        return new String(buffer.array(), 0, buffer.position() - 1, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * A spectator parsing its output line by line when watching: the board's rows, then the moves of the game.
+     * A polling one only counts the lines of the boards.
+     */
+    private static class Spectator {
+        private final SocketChannel channel;
+        private final boolean isWatching;
+        private final ByteBuffer inBuffer = ByteBuffer.allocate(1 << 16);
+        private final StringBuilder line = new StringBuilder();
+        private final int[] heights = new int[COLUMNS_COUNT];
+
+        private long bytesCount;
+        private int boardRow;
+        private int linesCount;
+
+        private Spectator(SocketChannel channel, boolean isWatching) {
+            this.channel = channel;
+            this.isWatching = isWatching;
+        }
+
+        /**
+         * @return if a whole board was received
+         */
+        private synchronized boolean read() throws IOException {
+            inBuffer.clear();
+
+            if (channel.read(inBuffer) < 0) throw new IOException("Connection closed");
+
+            bytesCount += inBuffer.position();
+
+            boolean isBoardReceived = false;
+
+            for (int i = 0; i < inBuffer.position(); i++) {
+                char c = (char) inBuffer.get(i);
+
+                if (!isWatching) {
+                    // The rows, the border and the column numbers
+                    if (c == '\n' && ++linesCount == ROWS_COUNT + 2) {
+                        linesCount = 0;
+                        isBoardReceived = true;
+                    }
+
+                    continue;
+                }
+
+                if (c != '\n') {
+                    line.append(c);
+                    continue;
+                }
+
+                isBoardReceived |= readLine(line.toString());
+                line.setLength(0);
+            }
+
+            return isBoardReceived;
+        }
+
+        /**
+         * @return if the line ended a board
+         */
+        private boolean readLine(String line) {
+            if (line.startsWith("|")) {
+                String[] tokens = line.substring(1).trim().split(" ");
+
+                // The board's rows go from the top down
+                for (int column = 0; column < COLUMNS_COUNT; column++) {
+                    if (!tokens[column].equals("0") && heights[column] == 0) heights[column] = ROWS_COUNT - boardRow;
+                }
+
+                boardRow++;
+            } else if (line.startsWith("MOVE ")) {
+                String[] fields = line.split(" ");
+                int column = Integer.parseInt(fields[1]) - 1;
+
+                if (Integer.parseInt(fields[2]) != ++heights[column])
+                    throw new IllegalStateException("Move out of order: " + line);
+            } else if (line.startsWith(" ")) {
+                boardRow = 0;
+                return true;
+            }
+
+            return false;
+        }
+
+        private boolean isBoardFull() {
+            for (int height : heights) {
+                if (height != ROWS_COUNT) return false;
+            }
+
+            return true;
+        }
+    }
+}
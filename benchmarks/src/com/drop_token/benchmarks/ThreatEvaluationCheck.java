@@ -0,0 +1,138 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.ai.ThreatEvaluator;
+import com.drop_token.ai.WinningLines;
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the incremental scores and threats of the {@link ThreatEvaluator} against the {@link ReferenceEvaluator},
+ * over random games of random boards, players and streaks.
+ * <p>
+ * The evaluator follows the engine's insertions and undos the way a search does, and after every step its scores,
+ * its threats and the threats of every empty slot must be the reference's scan of the board; so must the ones
+ * of a second evaluator, reset from the board every few steps.
+ * <p>
+ * Usage: ThreatEvaluationCheck [gamesCount] [seed]
+ */
+public class ThreatEvaluationCheck {
+
+    private static final int MAX_ROWS_COUNT = 9;
+    private static final int MAX_COLUMNS_COUNT = 9;
+    private static final int MAX_PLAYERS_COUNT = 4;
+
+    // A game is cut after this many steps, some of them undos
+    private static final int MAX_GAME_STEPS = 120;
+    private static final int STEPS_BETWEEN_RESETS = 16;
+
+    public static void main(String[] args) {
+        long gamesCount = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 23);
+        long stepsCount = 0;
+
+        for (long game = 0; game < gamesCount; game++) {
+            stepsCount += checkGame(random, game);
+        }
+
+        System.out.println(gamesCount + " games, " + stepsCount + " steps, evaluated the same as a scan of the board");
+    }
+
+    /**
+     * @return the number of checked steps
+     */
+    private static long checkGame(Random random, long game) {
+        int rowsCount = 1 + random.nextInt(MAX_ROWS_COUNT);
+        int columnsCount = 1 + random.nextInt(MAX_COLUMNS_COUNT);
+        int playersCount = 1 + random.nextInt(MAX_PLAYERS_COUNT);
+        int winningStreak = 1 + random.nextInt(Math.max(rowsCount, columnsCount) + 1);
+
+        IDTEngine engine = new DTEngine(rowsCount, columnsCount, playersCount, winningStreak);
+        WinningLines winningLines = new WinningLines(rowsCount, columnsCount, winningStreak);
+        ThreatEvaluator evaluator = new ThreatEvaluator(winningLines, playersCount);
+        ThreatEvaluator resetEvaluator = new ThreatEvaluator(winningLines, playersCount);
+        long stepsCount = 0;
+
+        for (int step = 0; step < MAX_GAME_STEPS; step++) {
+            if (random.nextInt(4) == 0) {
+                if (engine.getMovesCount() == 0) continue;
+
+                int column = engine.getMoveColumn(engine.getMovesCount() - 1);
+                int row = getTopRow(engine, column);
+                int playerId = engine.getTokenId(row, column);
+
+                engine.undo();
+                evaluator.onTokenRemoved(row, column, playerId);
+            } else {
+                if (engine.getGameStatus() != GameStatus.PLAYING) continue;
+
+                int column = random.nextInt(columnsCount);
+                int playerId = engine.getCurrentPlayerId();
+
+                if (engine.insertToken(column) == TokenInsertionStatus.ERROR) continue;
+
+                evaluator.onTokenInserted(getTopRow(engine, column), column, playerId);
+            }
+
+            ReferenceEvaluator reference = new ReferenceEvaluator(engine, playersCount, winningStreak);
+
+            compare(game, engine, evaluator, reference, "incremental");
+
+            if (step % STEPS_BETWEEN_RESETS == 0) {
+                resetEvaluator.reset(engine);
+                compare(game, engine, resetEvaluator, reference, "reset");
+            }
+
+            stepsCount++;
+        }
+
+        return stepsCount;
+    }
+
+    private static void compare(long game, IDTEngine engine, ThreatEvaluator evaluator, ReferenceEvaluator reference,
+                                String evaluatorName) {
+        for (int playerId = 1; playerId <= reference.getPlayersCount(); playerId++) {
+            if (evaluator.evaluate(playerId) != reference.evaluate(playerId))
+                fail(game, engine, evaluatorName + " score of player " + playerId + ": "
+                        + evaluator.evaluate(playerId) + " instead of " + reference.evaluate(playerId));
+
+            if (evaluator.getThreatsCount(playerId) != reference.getThreatsCount(playerId))
+                fail(game, engine, evaluatorName + " threats of player " + playerId + ": "
+                        + evaluator.getThreatsCount(playerId) + " instead of " + reference.getThreatsCount(playerId));
+
+            for (int row = 0; row < engine.getRowsCount(); row++) {
+                for (int column = 0; column < engine.getColumnsCount(); column++) {
+                    if (engine.getTokenId(row, column) != 0) continue;
+
+                    if (evaluator.getThreatsCount(playerId, row, column)
+                            != reference.getThreatsCount(playerId, row, column))
+                        fail(game, engine, evaluatorName + " threats of player " + playerId + " at " + row + ","
+                                + column);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the row of the column's top token
+     */
+    private static int getTopRow(IDTEngine engine, int column) {
+        int row = 0;
+
+        while (engine.getTokenId(row, column) == 0) {
+            row++;
+        }
+
+        return row;
+    }
+
+    private static void fail(long game, IDTEngine engine, String message) {
+        throw new IllegalStateException("Game " + game + " on a " + engine.getRowsCount() + "x"
+                + engine.getColumnsCount() + " board of " + engine.getPlayersCount() + " players, streak "
+                + engine.getWinningStreak() + ": " + message + "\n" + Arrays.deepToString(engine.getBoard()));
+    }
+}
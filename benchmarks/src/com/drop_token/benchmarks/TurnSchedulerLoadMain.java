@@ -0,0 +1,172 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.scheduler.DTTimerWheel;
+import com.drop_token.scheduler.DTTurnClock;
+import com.drop_token.scheduler.DTTurnScheduler;
+import com.drop_token.scheduler.IDTTimeoutListener;
+import com.drop_token.scheduler.IDTTimeoutListener.TimeoutAction;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the turn clocks: many concurrent free-for-all games of 16 players, all timed by a single scheduler,
+ * in simulated time, so hours of play run in seconds.
+ * <p>
+ * The players think for a few seconds a turn, and now and then don't play at all, so their time runs out.
+ * Their moves are timed on a wheel of their own, and the loop sleeps from one deadline to the next, the way
+ * an event loop selects until the scheduler's next deadline: it reports how many times it woke up for the clocks,
+ * how many of those timed a turn out, and the time a move takes, the simulation's included.
+ * <p>
+ * Usage: TurnSchedulerLoadMain [games] [simulatedSeconds] [skip|forfeit]
+ */
+public class TurnSchedulerLoadMain {
+
+    private static final int ROWS_COUNT = 7;
+    private static final int COLUMNS_COUNT = 8;
+    private static final int PLAYERS_COUNT = 16;
+    private static final int WINNING_STREAK = 4;
+
+    private static final long BUDGET_MILLIS = 30_000;
+    private static final long INCREMENT_MILLIS = 2_000;
+
+    private static final long MAX_THINK_MILLIS = 6_000;
+
+    // One turn in this many, the player walks away from the game
+    private static final int AWAY_TURNS = 50;
+    private static final long AWAY_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final long MOVES_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MOVES_BUCKETS_COUNT = 1024;
+
+    public static void main(String[] args) {
+        int gamesCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long simulatedNanos = TimeUnit.SECONDS.toNanos(args.length > 1 ? Long.parseLong(args[1]) : 600);
+        TimeoutAction timeoutAction = args.length > 2 ? TimeoutAction.valueOf(args[2].toUpperCase())
+                : TimeoutAction.SKIP;
+
+        Random random = new Random(22);
+        DTTurnScheduler turnScheduler = new DTTurnScheduler(BUDGET_MILLIS, INCREMENT_MILLIS, timeoutAction, 0);
+        DTTimerWheel movesWheel = new DTTimerWheel(MOVES_TICK_NANOS, MOVES_BUCKETS_COUNT, 0);
+        Game[] games = new Game[gamesCount];
+
+        for (int i = 0; i < gamesCount; i++) {
+            games[i] = new Game(turnScheduler, movesWheel, random);
+            games[i].start(0);
+        }
+
+        System.out.println(String.format("%d games of %d players, %d clocks running", gamesCount, PLAYERS_COUNT,
+                turnScheduler.getRunningClocksCount()));
+
+        long nowNanos = 0;
+        long wakeupsCount = 0;
+        long timeoutWakeupsCount = 0;
+        long timeoutsCount = 0;
+        long movesCount = 0;
+        long startNanos = System.nanoTime();
+
+        while (nowNanos < simulatedNanos) {
+            long clocksDeadlineNanos = turnScheduler.getNextDeadlineNanos();
+            nowNanos = Math.max(nowNanos, Math.min(clocksDeadlineNanos, movesWheel.getNextDeadlineNanos()));
+
+            if (clocksDeadlineNanos <= nowNanos) {
+                int timedOutCount = turnScheduler.advance(nowNanos);
+
+                wakeupsCount++;
+                timeoutsCount += timedOutCount;
+
+                if (timedOutCount > 0) timeoutWakeupsCount++;
+            }
+
+            movesCount += movesWheel.advance(nowNanos);
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long gamesOver = 0;
+
+        for (Game game : games) {
+            gamesOver += game.gamesOver;
+        }
+
+        System.out.println(String.format("%d s simulated in %.1f s: %d moves, %d timeouts (%s), %d games over",
+                TimeUnit.NANOSECONDS.toSeconds(simulatedNanos), elapsedNanos / 1e9, movesCount, timeoutsCount,
+                timeoutAction.name().toLowerCase(), gamesOver));
+        System.out.println(String.format("%d wakeups for the clocks, %d of which timed turns out, instead of %d ticks",
+                wakeupsCount, timeoutWakeupsCount, simulatedNanos / TimeUnit.MILLISECONDS.toNanos(10)));
+        System.out.println(String.format("%.0f ns per move or timeout, the engine's and the simulation's included",
+                (double) elapsedNanos / (movesCount + timeoutsCount)));
+    }
+
+    /**
+     * A game and its players, playing a random column once their think time is over, and a new game once it's over.
+     */
+    private static class Game extends DTTimerWheel.Timer implements IDTTimeoutListener {
+        private final DTTurnScheduler turnScheduler;
+        private final DTTimerWheel movesWheel;
+        private final Random random;
+        private final IDTEngine engine = new BitboardDTEngine(ROWS_COUNT, COLUMNS_COUNT, PLAYERS_COUNT,
+                WINNING_STREAK);
+
+        private DTTurnClock turnClock;
+        private long gamesOver;
+
+        private Game(DTTurnScheduler turnScheduler, DTTimerWheel movesWheel, Random random) {
+            this.turnScheduler = turnScheduler;
+            this.movesWheel = movesWheel;
+            this.random = random;
+        }
+
+        private void start(long nowNanos) {
+            engine.reset();
+
+            turnClock = turnScheduler.startClock(engine, nowNanos);
+            turnClock.setTimeoutListener(this);
+
+            think(nowNanos);
+        }
+
+        /**
+         * Schedules the move of the turn starting now.
+         */
+        private void think(long nowNanos) {
+            long thinkMillis = random.nextInt(AWAY_TURNS) == 0 ? AWAY_MILLIS
+                    : 1 + random.nextInt((int) MAX_THINK_MILLIS);
+
+            movesWheel.schedule(this, nowNanos + TimeUnit.MILLISECONDS.toNanos(thinkMillis));
+        }
+
+        @Override
+        protected void onExpired(long nowNanos) {
+            TokenInsertionStatus status;
+
+            do {
+                status = engine.insertToken(random.nextInt(COLUMNS_COUNT));
+            } while (status == TokenInsertionStatus.ERROR);
+
+            turnClock.update(nowNanos);
+
+            if (engine.getGameStatus() == GameStatus.PLAYING) {
+                think(nowNanos);
+            } else {
+                gamesOver++;
+                start(nowNanos);
+            }
+        }
+
+        @Override
+        public void onTimeout(int playerId, TimeoutAction timeoutAction, long nowNanos) {
+            if (engine.getGameStatus() == GameStatus.PLAYING) {
+                // The away player's move is dropped, the next player starts thinking
+                think(nowNanos);
+            } else {
+                gamesOver++;
+                movesWheel.cancel(this);
+                start(nowNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.IDTBoardView;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.scheduler.DTTimerWheel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the turns the engines derive once turns are skipped and players forfeit, and the timer wheel timing
+ * the turns out.
+ * <p>
+ * Random games of up to 16 players insert tokens, skip turns, forfeit players and undo, on both engines
+ * and on a reference that replays the remaining turns from scratch after every step, passing the turn on
+ * player by player; the boards, the players to play, the last players, the statuses and the winners must match.
+ * <p>
+ * Random timers are then scheduled, rescheduled, cancelled and rescheduled from their own expiry on a small wheel,
+ * advanced by random steps: every timer must fire once per scheduling, never before its deadline, and never
+ * an advance later than the tick of its deadline.
+ * <p>
+ * Usage: TurnTimeoutCheck [gamesCount] [seed]
+ */
+public class TurnTimeoutCheck {
+
+    private static final int ROWS_COUNT = 6;
+    private static final int COLUMNS_COUNT = 7;
+    private static final int WINNING_STREAK = 4;
+    private static final int MAX_PLAYERS_COUNT = 16;
+
+    private static final int MAX_GAME_STEPS = 80;
+
+    private static final long TICK_NANOS = 1000;
+    private static final int BUCKETS_COUNT = 64;
+    private static final int TIMERS_COUNT = 4096;
+    private static final int TIMER_STEPS_PER_GAME = 8;
+
+    // Skips, forfeits and undos are kept in the reference's turns as the journal keeps them
+    private static final int TURN_SKIPPED = -1;
+
+    public static void main(String[] args) {
+        long gamesCount = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 22);
+
+        for (long game = 0; game < gamesCount; game++) {
+            checkGame(random, game);
+        }
+
+        System.out.println(gamesCount + " games of skipped turns and forfeits played the same on both engines");
+
+        TimerWheelCheck timerWheelCheck = new TimerWheelCheck(random);
+
+        for (long step = 0; step < gamesCount * TIMER_STEPS_PER_GAME; step++) {
+            timerWheelCheck.step();
+        }
+
+        System.out.println(timerWheelCheck.finish() + " timers fired on time, once per scheduling");
+    }
+
+    private static void checkGame(Random random, long game) {
+        int playersCount = 1 + random.nextInt(MAX_PLAYERS_COUNT);
+
+        IDTEngine[] engines = {
+                new DTEngine(ROWS_COUNT, COLUMNS_COUNT, playersCount, WINNING_STREAK),
+                new BitboardDTEngine(ROWS_COUNT, COLUMNS_COUNT, playersCount, WINNING_STREAK)
+        };
+        ReferenceGame reference = new ReferenceGame(playersCount);
+
+        for (int step = 0; step < MAX_GAME_STEPS; step++) {
+            int action = random.nextInt(10);
+            String turn;
+            boolean isAccepted;
+
+            if (action == 0) {
+                turn = "skip";
+                isAccepted = reference.skipTurn();
+
+                for (IDTEngine engine : engines) {
+                    if (engine.skipTurn() != isAccepted) fail(game, engine, "the skip wasn't " + isAccepted);
+                }
+            } else if (action == 1) {
+                // Sometimes a player who's out already, or no player at all
+                int playerId = random.nextInt(playersCount + 2);
+                turn = "forfeit of " + playerId;
+                isAccepted = reference.forfeit(playerId);
+
+                for (IDTEngine engine : engines) {
+                    if (engine.forfeit(playerId) != isAccepted) fail(game, engine, turn + " wasn't " + isAccepted);
+                }
+            } else if (action == 2) {
+                turn = "undo";
+                isAccepted = reference.undo();
+
+                for (IDTEngine engine : engines) {
+                    if (engine.undo() != isAccepted) fail(game, engine, "the undo wasn't " + isAccepted);
+                }
+            } else {
+                int column = random.nextInt(COLUMNS_COUNT);
+                turn = "column " + column;
+                isAccepted = reference.insertToken(column);
+
+                for (IDTEngine engine : engines) {
+                    if ((engine.insertToken(column) != TokenInsertionStatus.ERROR) != isAccepted)
+                        fail(game, engine, turn + " wasn't " + isAccepted);
+                }
+            }
+
+            for (IDTEngine engine : engines) {
+                checkSameGame(game, engine, reference, turn);
+            }
+        }
+    }
+
+    private static void checkSameGame(long game, IDTEngine engine, ReferenceGame reference, String turn) {
+        for (int row = 0; row < ROWS_COUNT; row++) {
+            for (int column = 0; column < COLUMNS_COUNT; column++) {
+                if (engine.getTokenId(row, column) != reference.getTokenId(row, column))
+                    fail(game, engine, "the boards differ after the " + turn);
+            }
+        }
+
+        if (engine.getCurrentPlayerId() != reference.currentPlayerId)
+            fail(game, engine, "player " + engine.getCurrentPlayerId() + " plays after the " + turn
+                    + " instead of " + reference.currentPlayerId);
+
+        if (engine.getMovesCount() > 0 && engine.getPreviousPlayerId() != reference.lastPlayerId)
+            fail(game, engine, "player " + engine.getPreviousPlayerId() + " played last instead of "
+                    + reference.lastPlayerId);
+
+        if (engine.getGameStatus() != reference.gameStatus)
+            fail(game, engine, "the game is " + engine.getGameStatus() + " after the " + turn);
+
+        if (engine.getWinnerId() != reference.winnerId)
+            fail(game, engine, "player " + engine.getWinnerId() + " won instead of " + reference.winnerId);
+    }
+
+    private static void fail(long game, IDTEngine engine, String message) {
+        throw new IllegalStateException("Game " + game + " of " + engine.getPlayersCount() + " players on "
+                + engine.getClass().getSimpleName() + ": " + message + "\n" + Arrays.deepToString(engine.getBoard()));
+    }
+
+    /**
+     * A game kept as its turns, replayed from scratch after every change, the turn passing on player by player.
+     */
+    private static class ReferenceGame implements IDTBoardView {
+        private final int playersCount;
+
+        // The columns of the moves, TURN_SKIPPED, or TURN_SKIPPED - playerId for a forfeit
+        private final List<Integer> turns = new ArrayList<>();
+
+        private final int[][] board = new int[ROWS_COUNT][COLUMNS_COUNT];
+        private final int[] heights = new int[COLUMNS_COUNT];
+        private final boolean[] forfeitedPlayers;
+        private int forfeitedPlayersCount;
+        private int currentPlayerId;
+        private int lastPlayerId;
+        private GameStatus gameStatus;
+        private int winnerId;
+
+        private ReferenceGame(int playersCount) {
+            this.playersCount = playersCount;
+            this.forfeitedPlayers = new boolean[playersCount + 1];
+
+            replay();
+        }
+
+        private boolean insertToken(int column) {
+            if (gameStatus != GameStatus.PLAYING || heights[column] == ROWS_COUNT) return false;
+
+            turns.add(column);
+            replay();
+            return true;
+        }
+
+        private boolean skipTurn() {
+            if (gameStatus != GameStatus.PLAYING) return false;
+
+            turns.add(TURN_SKIPPED);
+            replay();
+            return true;
+        }
+
+        private boolean forfeit(int playerId) {
+            if (gameStatus != GameStatus.PLAYING || playerId < 1 || playerId > playersCount
+                    || forfeitedPlayers[playerId] || playersCount == 1) return false;
+
+            turns.add(TURN_SKIPPED - playerId);
+            replay();
+            return true;
+        }
+
+        /**
+         * Removes the last move and the turns skipped after it, the forfeits after it stay.
+         */
+        private boolean undo() {
+            int moveIndex = turns.size() - 1;
+
+            while (moveIndex >= 0 && turns.get(moveIndex) < 0) moveIndex--;
+
+            if (moveIndex < 0) return false;
+
+            turns.remove(moveIndex);
+
+            for (int i = turns.size() - 1; i >= moveIndex; i--) {
+                if (turns.get(i) == TURN_SKIPPED) turns.remove(i);
+            }
+
+            replay();
+            return true;
+        }
+
+        private void replay() {
+            for (int[] row : board) {
+                Arrays.fill(row, 0);
+            }
+
+            Arrays.fill(heights, 0);
+            Arrays.fill(forfeitedPlayers, false);
+            forfeitedPlayersCount = 0;
+            currentPlayerId = 1;
+            lastPlayerId = 0;
+            gameStatus = GameStatus.PLAYING;
+            winnerId = 0;
+
+            int tokensCount = 0;
+
+            for (int turn : turns) {
+                if (turn >= 0) {
+                    int row = ROWS_COUNT - 1 - heights[turn]++;
+                    board[row][turn] = currentPlayerId;
+                    lastPlayerId = currentPlayerId;
+                    tokensCount++;
+
+                    if (ReferenceWinChecker.hasStreakThrough(this, row, turn, WINNING_STREAK)) {
+                        gameStatus = GameStatus.FINISHED_WIN;
+                        winnerId = currentPlayerId;
+                    } else if (tokensCount == ROWS_COUNT * COLUMNS_COUNT) {
+                        gameStatus = GameStatus.FINISHED_DRAW;
+                    }
+
+                    passTurn();
+                } else if (turn == TURN_SKIPPED) {
+                    passTurn();
+                } else {
+                    int playerId = TURN_SKIPPED - turn;
+                    forfeitedPlayers[playerId] = true;
+                    forfeitedPlayersCount++;
+
+                    if (playerId == currentPlayerId) passTurn();
+
+                    if (forfeitedPlayersCount == playersCount - 1) {
+                        gameStatus = GameStatus.FINISHED_WIN;
+                        winnerId = currentPlayerId;
+                    }
+                }
+            }
+        }
+
+        private void passTurn() {
+            do {
+                currentPlayerId = currentPlayerId % playersCount + 1;
+            } while (forfeitedPlayers[currentPlayerId]);
+        }
+
+        @Override
+        public int getRowsCount() {
+            return ROWS_COUNT;
+        }
+
+        @Override
+        public int getColumnsCount() {
+            return COLUMNS_COUNT;
+        }
+
+        @Override
+        public int getTokenId(int row, int column) {
+            return board[row][column];
+        }
+    }
+
+    /**
+     * Drives a small wheel, so the timers wrap around it for several rotations, with simulated time.
+     */
+    private static class TimerWheelCheck {
+        private final Random random;
+        private final DTTimerWheel timerWheel;
+        private final CheckedTimer[] timers = new CheckedTimer[TIMERS_COUNT];
+
+        private long nowNanos;
+        private long lastAdvanceNanos;
+        private long firedCount;
+
+        private TimerWheelCheck(Random random) {
+            this.random = random;
+            this.timerWheel = new DTTimerWheel(TICK_NANOS, BUCKETS_COUNT, 0);
+
+            for (int i = 0; i < TIMERS_COUNT; i++) {
+                timers[i] = new CheckedTimer();
+            }
+        }
+
+        private void step() {
+            CheckedTimer timer = timers[random.nextInt(TIMERS_COUNT)];
+            int action = random.nextInt(8);
+
+            if (action == 0) {
+                if (timerWheel.cancel(timer) != timer.isExpected) throw new IllegalStateException("Lost a timer");
+
+                timer.isExpected = false;
+            } else if (action == 1) {
+                // Up to a few ticks, far less than a rotation
+                nowNanos += random.nextInt(8 * (int) TICK_NANOS);
+                advance();
+            } else {
+                // Sometimes already due, sometimes several rotations away
+                schedule(timer, nowNanos - TICK_NANOS + random.nextInt(4 * BUCKETS_COUNT * (int) TICK_NANOS));
+            }
+
+            if (random.nextInt(64) == 0) checkNextDeadline();
+        }
+
+        /**
+         * @return the number of fired timers
+         */
+        private long finish() {
+            // The timers going on from their expiry go on a few times at most
+            while (timerWheel.getTimersCount() > 0) {
+                nowNanos += 8 * BUCKETS_COUNT * TICK_NANOS;
+                advance();
+            }
+
+            for (CheckedTimer timer : timers) {
+                if (timer.isExpected) throw new IllegalStateException("A timer never fired");
+            }
+
+            return firedCount;
+        }
+
+        private void advance() {
+            firedCount += timerWheel.advance(nowNanos);
+            lastAdvanceNanos = nowNanos;
+        }
+
+        private void schedule(CheckedTimer timer, long deadlineNanos) {
+            // The end of the deadline's tick, or of the tick after the last advance for a deadline already past
+            long deadlineTickNanos = Math.floorDiv(deadlineNanos + TICK_NANOS - 1, TICK_NANOS) * TICK_NANOS;
+            long nextTickNanos = (Math.floorDiv(lastAdvanceNanos, TICK_NANOS) + 1) * TICK_NANOS;
+
+            timer.deadlineNanos = deadlineNanos;
+            timer.dueNanos = Math.max(deadlineTickNanos, nextTickNanos);
+            timer.isExpected = true;
+
+            timerWheel.schedule(timer, deadlineNanos);
+        }
+
+        private void checkNextDeadline() {
+            long earliestDueNanos = Long.MAX_VALUE;
+
+            for (CheckedTimer timer : timers) {
+                if (timer.isExpected) earliestDueNanos = Math.min(earliestDueNanos, timer.dueNanos);
+            }
+
+            if (timerWheel.getNextDeadlineNanos() > earliestDueNanos)
+                throw new IllegalStateException("The next deadline is past a timer's");
+        }
+
+        private class CheckedTimer extends DTTimerWheel.Timer {
+            private long deadlineNanos;
+
+            // The advances from then on must fire the timer
+            private long dueNanos;
+            private boolean isExpected;
+
+            @Override
+            protected void onExpired(long expiryNanos) {
+                if (!isExpected) throw new IllegalStateException("A cancelled timer fired");
+
+                if (expiryNanos < deadlineNanos) throw new IllegalStateException("A timer fired early");
+
+                if (dueNanos <= lastAdvanceNanos) throw new IllegalStateException("A timer fired late");
+
+                isExpected = false;
+
+                // Some timers go on from their own expiry, as the clocks do
+                if (random.nextInt(4) == 0) schedule(this, expiryNanos + 1 + random.nextInt((int) TICK_NANOS * 4));
+            }
+        }
+    }
+}
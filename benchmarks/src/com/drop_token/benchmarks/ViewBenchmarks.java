@@ -0,0 +1,95 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.DTEngine;
+import com.drop_token.view.DTBoardRenderer;
+import com.drop_token.view.DTConsoleManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of rendering the board, written into a stream that discards everything
+ * so only the rendering itself is measured.
+ */
+public class ViewBenchmarks {
+
+    private static final int[] BOARD_SIZES = {4, 16, 64};
+
+    private ViewBenchmarks() {
+    }
+
+    public static List<Benchmark> create() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+
+        for (int boardSize : BOARD_SIZES) {
+            benchmarks.add(printBoard(boardSize));
+            benchmarks.add(render(boardSize));
+        }
+
+        return benchmarks;
+    }
+
+    private static Benchmark printBoard(int boardSize) {
+        return new Benchmark("DTConsoleManager.printBoard[size=" + boardSize + "]") {
+            private DTConsoleManager consoleManager;
+            private DTEngine engine;
+
+            @Override
+            public void setUp() {
+                consoleManager = new DTConsoleManager(new ByteArrayInputStream(new byte[0]),
+                        new PrintStream(new NullOutputStream()));
+
+                engine = playedEngine(boardSize);
+            }
+
+            @Override
+            public int run() {
+                consoleManager.printBoard(engine);
+                return boardSize;
+            }
+        };
+    }
+
+    private static Benchmark render(int boardSize) {
+        return new Benchmark("DTBoardRenderer.render[size=" + boardSize + "]") {
+            private final DTBoardRenderer boardRenderer = new DTBoardRenderer();
+            private final StringBuilder out = new StringBuilder();
+            private DTEngine engine;
+
+            @Override
+            public void setUp() {
+                engine = playedEngine(boardSize);
+            }
+
+            @Override
+            public int run() {
+                out.setLength(0);
+                boardRenderer.render(engine, out);
+                return out.length();
+            }
+        };
+    }
+
+    private static DTEngine playedEngine(int boardSize) {
+        DTEngine engine = new DTEngine(boardSize, 2, boardSize);
+
+        for (int column : EngineBenchmarks.recordGame(DTEngine::new, boardSize, boardSize)) {
+            engine.insertToken(column);
+        }
+
+        return engine;
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
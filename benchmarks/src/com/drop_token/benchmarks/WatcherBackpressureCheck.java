@@ -0,0 +1,126 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.DTEngine;
+import com.drop_token.server.DTServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks that a watcher whose output couldn't be written at once gets the moves played meanwhile, and the next ones,
+ * once its client reads again.
+ * <p>
+ * The board is large enough for its rendering not to fit in the sockets' buffers, so a watcher which doesn't read
+ * leaves its session with a partial write. A move is played while it's stuck, then the watcher reads the board,
+ * and another move is played: the watcher must get both moves, without sending anything.
+ * <p>
+ * Usage: WatcherBackpressureCheck [rounds] [serverThreads]
+ */
+public class WatcherBackpressureCheck {
+
+    // About 18 MB of board; no line of 3000 tokens is made of two moves
+    private static final int ROWS_COUNT = 3000;
+    private static final int COLUMNS_COUNT = 3000;
+    private static final int WINNING_STREAK = 3000;
+
+    private static final int WATCHER_RECEIVE_BUFFER_SIZE = 4096;
+    private static final int STALLED_MILLIS = 300;
+    private static final int READ_TIMEOUT_MILLIS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        int roundsCount = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int serverThreadsCount = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        DTServer server = new DTServer(0, serverThreadsCount,
+                () -> new DTEngine(ROWS_COUNT, COLUMNS_COUNT, 2, WINNING_STREAK));
+        server.start();
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+
+        try {
+            for (int round = 0; round < roundsCount; round++) {
+                checkRound(address, round);
+            }
+        } finally {
+            server.stop();
+        }
+
+        System.out.println(roundsCount + " watchers got the moves played while their output was stuck, and the next");
+    }
+
+    private static void checkRound(InetSocketAddress address, int round) throws IOException, InterruptedException {
+        try (Socket player = new Socket(address.getAddress(), address.getPort());
+             Socket watcher = new Socket()) {
+            player.setSoTimeout(READ_TIMEOUT_MILLIS);
+            BufferedReader playerIn = newReader(player);
+            OutputStream playerOut = player.getOutputStream();
+
+            send(playerOut, "GAME");
+            String gameId = playerIn.readLine().substring("GAME ".length());
+
+            // Set before connecting, for the window to stay that small
+            watcher.setReceiveBufferSize(WATCHER_RECEIVE_BUFFER_SIZE);
+            watcher.connect(address);
+            watcher.setSoTimeout(READ_TIMEOUT_MILLIS);
+            BufferedReader watcherIn = newReader(watcher);
+
+            send(watcher.getOutputStream(), "WATCH " + gameId);
+
+            // The board fills the sockets' buffers while the watcher doesn't read
+            Thread.sleep(STALLED_MILLIS);
+
+            int firstColumn = 1 + round % COLUMNS_COUNT;
+            playMove(playerIn, playerOut, firstColumn);
+
+            // The rows, the border and the column numbers
+            for (int line = 0; line < ROWS_COUNT + 2; line++) {
+                if (watcherIn.readLine() == null) throw new IllegalStateException("Watcher closed in round " + round);
+            }
+
+            int secondColumn = 1 + (round + 1) % COLUMNS_COUNT;
+            playMove(playerIn, playerOut, secondColumn);
+
+            expectMove(watcherIn, "MOVE " + firstColumn + " 1 1 OK", round);
+            expectMove(watcherIn, "MOVE " + secondColumn + " " + (secondColumn == firstColumn ? 2 : 1) + " 2 OK",
+                    round);
+        }
+    }
+
+    private static void playMove(BufferedReader playerIn, OutputStream playerOut, int column) throws IOException {
+        send(playerOut, "PUT " + column);
+
+        String response = playerIn.readLine();
+
+        if (!"OK".equals(response)) throw new IllegalStateException("PUT " + column + " answered " + response);
+    }
+
+    private static void expectMove(BufferedReader watcherIn, String expectedMove, int round) throws IOException {
+        String move;
+
+        try {
+            move = watcherIn.readLine();
+        } catch (SocketTimeoutException e) {
+            throw new IllegalStateException("Watcher stalled in round " + round + ", expected " + expectedMove, e);
+        }
+
+        if (!expectedMove.equals(move))
+            throw new IllegalStateException("Watcher got " + move + " in round " + round + ", expected "
+                    + expectedMove);
+    }
+
+    private static BufferedReader newReader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+    }
+
+    private static void send(OutputStream out, String command) throws IOException {
+        out.write((command + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
@@ -0,0 +1,138 @@
+package com.drop_token.benchmarks;
+
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the incremental win detection of {@link DTEngine}, and of {@link BitboardDTEngine} where the board fits,
+ * against the {@link ReferenceWinChecker}, over random games of random boards, players and streaks.
+ * <p>
+ * The games mix in undos and copies, so the streaks restored by undo are checked along with the inserted ones.
+ * Every game ends with a check of the whole board.
+ * <p>
+ * Usage: WinDetectionEquivalenceCheck [gamesCount] [seed]
+ */
+public class WinDetectionEquivalenceCheck {
+
+    private static final int MAX_ROWS_COUNT = 9;
+    private static final int MAX_COLUMNS_COUNT = 9;
+    private static final int MAX_PLAYERS_COUNT = 3;
+
+    // A game is cut after this many steps, some of them undos or refused insertions
+    private static final int MAX_GAME_STEPS = 200;
+
+    public static void main(String[] args) {
+        long gamesCount = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 98);
+        long tokensCount = 0;
+
+        for (long game = 0; game < gamesCount; game++) {
+            tokensCount += checkGame(random, game);
+        }
+
+        System.out.println(gamesCount + " games, " + tokensCount + " tokens, detected the same wins");
+    }
+
+    /**
+     * @return the number of inserted tokens
+     */
+    private static long checkGame(Random random, long game) {
+        int rowsCount = 1 + random.nextInt(MAX_ROWS_COUNT);
+        int columnsCount = 1 + random.nextInt(MAX_COLUMNS_COUNT);
+        int playersCount = 1 + random.nextInt(MAX_PLAYERS_COUNT);
+        int winningStreak = 1 + random.nextInt(Math.max(rowsCount, columnsCount) + 1);
+        boolean isBitboardFitting = columnsCount * (rowsCount + 1) <= Long.SIZE;
+
+        IDTEngine engine = new DTEngine(rowsCount, columnsCount, playersCount, winningStreak);
+        IDTEngine bitboardEngine = isBitboardFitting
+                ? new BitboardDTEngine(rowsCount, columnsCount, playersCount, winningStreak) : null;
+        long tokensCount = 0;
+
+        for (int step = 0; step < MAX_GAME_STEPS; step++) {
+            int action = random.nextInt(8);
+
+            if (action == 0) {
+                engine = engine.copy();
+                continue;
+            }
+
+            if (action == 1) {
+                boolean isUndone = engine.undo();
+
+                if (bitboardEngine != null && bitboardEngine.undo() != isUndone)
+                    fail(game, engine, "the engines disagree on undo");
+
+                continue;
+            }
+
+            if (engine.getGameStatus() != GameStatus.PLAYING) continue;
+
+            // One column past each edge, to check refused insertions too
+            int column = random.nextInt(columnsCount + 2) - 1;
+            int row = getInsertionRow(engine, column);
+
+            TokenInsertionStatus status = engine.insertToken(column);
+
+            if (bitboardEngine != null && bitboardEngine.insertToken(column) != status)
+                fail(game, engine, "the engines disagree on column " + column + ": " + status);
+
+            if (status == TokenInsertionStatus.ERROR) {
+                if (row >= 0) fail(game, engine, "column " + column + " refused");
+                continue;
+            }
+
+            tokensCount++;
+
+            boolean hasWon = ReferenceWinChecker.hasStreakThrough(engine, row, column, winningStreak);
+
+            if (hasWon != (status == TokenInsertionStatus.WIN))
+                fail(game, engine, "column " + column + " reported " + status);
+        }
+
+        if (ReferenceWinChecker.hasAnyStreak(engine, winningStreak)
+                != (engine.getGameStatus() == GameStatus.FINISHED_WIN))
+            fail(game, engine, "the final board is " + engine.getGameStatus());
+
+        if (bitboardEngine != null && !Arrays.deepEquals(engine.getBoard(), bitboardEngine.getBoard()))
+            fail(game, engine, "the engines' boards differ");
+
+        return tokensCount;
+    }
+
+    /**
+     * @return the row the next token of the column lands on, -1 if the column is full or out of the board
+     */
+    private static int getInsertionRow(IDTEngine engine, int column) {
+        if (column < 0 || column >= engine.getColumnsCount()) return -1;
+
+        int row = engine.getRowsCount() - 1;
+
+        while (row >= 0 && engine.getTokenId(row, column) != 0) {
+            row--;
+        }
+
+        return row;
+    }
+
+    private static void fail(long game, IDTEngine engine, String message) {
+        throw new IllegalStateException("Game " + game + " on a " + engine.getRowsCount() + "x"
+                + engine.getColumnsCount() + " board, streak " + engine.getWinningStreak() + ": " + message
+                + "\n" + Arrays.deepToString(engine.getBoard()) + "\ncolumns " + describeMoves(engine));
+    }
+
+    private static String describeMoves(IDTEngine engine) {
+        StringBuilder moves = new StringBuilder();
+
+        for (int i = 0; i < engine.getMovesCount(); i++) {
+            moves.append(' ').append(engine.getMoveColumn(i));
+        }
+
+        return moves.toString();
+    }
+}
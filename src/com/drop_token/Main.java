@@ -1,11 +1,498 @@
 package com.drop_token;
 
+import com.drop_token.ai.DTComputerPlayer;
+import com.drop_token.analytics.DTGameAnalytics;
+import com.drop_token.analytics.DTGameArchive;
 import com.drop_token.controller.DTController;
+import com.drop_token.journal.DTJournal;
+import com.drop_token.metrics.DTMetrics;
+import com.drop_token.metrics.DTMetricsReporter;
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.DTEngine;
+import com.drop_token.model.DTEnginePool;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.records.DTGameRecordWriter;
+import com.drop_token.replay.DTReplayer;
+import com.drop_token.scheduler.DTTurnScheduler;
+import com.drop_token.scheduler.IDTTimeoutListener.TimeoutAction;
+import com.drop_token.server.DTServer;
+import com.drop_token.simulation.CenterBiasedMovePolicy;
+import com.drop_token.simulation.ComputerMovePolicy;
+import com.drop_token.simulation.DTSimulator;
+import com.drop_token.simulation.IDTMovePolicy;
+import com.drop_token.simulation.RandomMovePolicy;
+import com.drop_token.solver.DTSolutionTable;
+import com.drop_token.solver.DTSolver;
+import com.drop_token.view.DTConsoleManager;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public class Main {
 
-    public static void main(String[] args) {
-        DTController dtController = new DTController();
-        dtController.startGame();
+    private static final String ARG_BITBOARD_ENGINE = "--bitboard";
+    private static final String ARG_BOARD = "--board";
+    private static final String ARG_COMPUTER_PLAYER = "--ai";
+    private static final String ARG_COMPUTER_MOVE_TIME = "--ai-time";
+    private static final String ARG_COMPUTER_THREADS = "--ai-threads";
+    private static final String ARG_COMPUTER_SOLUTION_TABLE = "--ai-table";
+    private static final String ARG_SOLVE = "--solve";
+    private static final String ARG_SERVER = "--server";
+    private static final String ARG_SERVER_THREADS = "--server-threads";
+    private static final String ARG_REPLAY = "--replay";
+    private static final String ARG_RECORD = "--record";
+    private static final String ARG_METRICS = "--metrics";
+    private static final String ARG_PIPELINED = "--pipelined";
+    private static final String ARG_SIMULATE = "--simulate";
+    private static final String ARG_SIMULATE_SEED = "--simulate-seed";
+    private static final String ARG_JOURNAL = "--journal";
+    private static final String ARG_TURN_TIME = "--turn-time";
+    private static final String ARG_TURN_TIMEOUT = "--turn-timeout";
+    private static final String ARG_ANALYZE = "--analyze";
+    private static final String ARG_ANALYZE_DEPTH = "--analyze-depth";
+    private static final String ARG_ANALYZE_OPENING = "--analyze-opening";
+
+    // The options each running something else than the console game, only one of them may be given
+    private static final String[] MODE_ARGS = {ARG_SOLVE, ARG_SIMULATE, ARG_ANALYZE, ARG_REPLAY, ARG_SERVER};
+
+    private static final String POLICY_RANDOM = "random";
+    private static final String POLICY_CENTER = "center";
+    private static final String POLICY_COMPUTER = "ai";
+
+    private static final long DEFAULT_COMPUTER_MOVE_TIME_MILLIS = 1000;
+
+    private static final int DEFAULT_ANALYZED_OPENINGS_DEPTH = 2;
+    private static final int ANALYZED_OPENINGS_COUNT = 10;
+
+    // Engines of closed sessions kept for the next ones
+    private static final int SERVER_IDLE_ENGINES = 1024;
+
+    public static void main(String[] args) throws IOException {
+        boolean isBitboardEngine = false;
+        int[] boardConfig = null;
+        List<Integer> computerPlayersIds = new ArrayList<>();
+        long computerMoveTimeMillis = DEFAULT_COMPUTER_MOVE_TIME_MILLIS;
+        int computerThreadsCount = 1;
+        String solutionTableFile = null;
+        String solveFile = null;
+        int serverPort = -1;
+        int serverThreadsCount = Runtime.getRuntime().availableProcessors();
+        List<String> replayFiles = new ArrayList<>();
+        String recordFile = null;
+        long metricsPeriodSeconds = 0;
+        boolean isPipelined = false;
+        long simulatedGamesCount = 0;
+        String[] simulatedPolicies = null;
+        long simulationSeed = System.nanoTime();
+        String journalFile = null;
+        long turnBudgetMillis = 0;
+        long turnIncrementMillis = 0;
+        TimeoutAction timeoutAction = TimeoutAction.SKIP;
+        List<Path> analyzedFiles = new ArrayList<>();
+        int analyzedOpeningsDepth = DEFAULT_ANALYZED_OPENINGS_DEPTH;
+        int[] analyzedOpening = null;
+
+        Set<String> givenArgs = new LinkedHashSet<>();
+
+        for (int i = 0; i < args.length; i++) {
+            givenArgs.add(args[i]);
+
+            switch (args[i]) {
+                case ARG_BITBOARD_ENGINE:
+                    isBitboardEngine = true;
+                    break;
+                case ARG_BOARD:
+                    boardConfig = new int[]{Integer.parseInt(args[++i]), Integer.parseInt(args[++i]),
+                            Integer.parseInt(args[++i]), Integer.parseInt(args[++i])};
+                    break;
+                case ARG_COMPUTER_PLAYER:
+                    computerPlayersIds.add(Integer.parseInt(args[++i]));
+                    break;
+                case ARG_COMPUTER_MOVE_TIME:
+                    computerMoveTimeMillis = Long.parseLong(args[++i]);
+                    break;
+                case ARG_COMPUTER_THREADS:
+                    computerThreadsCount = Integer.parseInt(args[++i]);
+                    break;
+                case ARG_COMPUTER_SOLUTION_TABLE:
+                    solutionTableFile = args[++i];
+                    break;
+                case ARG_SOLVE:
+                    solveFile = args[++i];
+                    break;
+                case ARG_SERVER:
+                    serverPort = Integer.parseInt(args[++i]);
+                    break;
+                case ARG_SERVER_THREADS:
+                    serverThreadsCount = Integer.parseInt(args[++i]);
+                    break;
+                case ARG_REPLAY:
+                    replayFiles.add(args[++i]);
+                    break;
+                case ARG_RECORD:
+                    recordFile = args[++i];
+                    break;
+                case ARG_METRICS:
+                    metricsPeriodSeconds = Long.parseLong(args[++i]);
+                    break;
+                case ARG_PIPELINED:
+                    isPipelined = true;
+                    break;
+                case ARG_SIMULATE:
+                    simulatedGamesCount = Long.parseLong(args[++i]);
+                    simulatedPolicies = args[++i].split(",");
+                    break;
+                case ARG_SIMULATE_SEED:
+                    simulationSeed = Long.parseLong(args[++i]);
+                    break;
+                case ARG_JOURNAL:
+                    journalFile = args[++i];
+                    break;
+                case ARG_TURN_TIME:
+                    turnBudgetMillis = Long.parseLong(args[++i]);
+                    turnIncrementMillis = Long.parseLong(args[++i]);
+                    break;
+                case ARG_TURN_TIMEOUT:
+                    timeoutAction = TimeoutAction.valueOf(args[++i].toUpperCase());
+                    break;
+                case ARG_ANALYZE:
+                    analyzedFiles.add(Paths.get(args[++i]));
+                    break;
+                case ARG_ANALYZE_DEPTH:
+                    analyzedOpeningsDepth = Integer.parseInt(args[++i]);
+                    break;
+                case ARG_ANALYZE_OPENING:
+                    analyzedOpening = parseOpening(args[++i]);
+                    break;
+                default:
+                    printUsageError(args[i], "unknown option");
+                    return;
+            }
+        }
+
+        if (!checkModeArgs(givenArgs)) return;
+
+        Supplier<IDTEngine> engineFactory = getEngineFactory(isBitboardEngine, boardConfig);
+
+        if (solveFile != null) {
+            IDTEngine engine = engineFactory.get();
+
+            if (engine.getPlayersCount() != 2) {
+                printUsageError(ARG_SOLVE, "only boards of 2 players can be solved");
+                return;
+            }
+
+            DTSolver solver;
+
+            try {
+                solver = new DTSolver(engine.getRowsCount(), engine.getColumnsCount(), engine.getWinningStreak(),
+                        Runtime.getRuntime().availableProcessors());
+            } catch (IllegalArgumentException e) {
+                printUsageError(ARG_SOLVE, e.getMessage());
+                return;
+            }
+
+            DTSolutionTable.write(Paths.get(solveFile), solver, solver.solve());
+            return;
+        }
+
+        if (simulatedPolicies != null) {
+            List<Supplier<IDTMovePolicy>> policyFactories = new ArrayList<>();
+
+            for (String policy : simulatedPolicies) {
+                policyFactories.add(getMovePolicyFactory(policy, computerMoveTimeMillis));
+            }
+
+            DTSimulator simulator = new DTSimulator(engineFactory, policyFactories,
+                    Runtime.getRuntime().availableProcessors());
+            System.out.print(simulator.simulate(simulatedGamesCount, simulationSeed));
+            return;
+        }
+
+        if (!analyzedFiles.isEmpty()) {
+            analyze(analyzedFiles, analyzedOpeningsDepth, analyzedOpening);
+            return;
+        }
+
+        if (!replayFiles.isEmpty()) {
+            DTReplayer replayer = new DTReplayer(engineFactory.get(),
+                    Channels.newChannel(new FileOutputStream(FileDescriptor.out)));
+
+            for (String replayFile : replayFiles) {
+                replayer.replay(Paths.get(replayFile));
+            }
+
+            return;
+        }
+
+        DTMetrics metrics = null;
+        DTMetricsReporter metricsReporter = null;
+
+        if (metricsPeriodSeconds > 0) {
+            metrics = new DTMetrics();
+            metrics.register();
+            metricsReporter = new DTMetricsReporter(metrics, System.err, metricsPeriodSeconds);
+        }
+
+        if (serverPort >= 0) {
+            Supplier<DTTurnScheduler> turnSchedulers = null;
+
+            if (turnBudgetMillis > 0 || turnIncrementMillis > 0) {
+                long budgetMillis = turnBudgetMillis;
+                long incrementMillis = turnIncrementMillis;
+                TimeoutAction serverTimeoutAction = timeoutAction;
+
+                turnSchedulers = () -> new DTTurnScheduler(budgetMillis, incrementMillis, serverTimeoutAction);
+            }
+
+            startServer(serverPort, serverThreadsCount, isBitboardEngine, engineFactory.get(), metrics, journalFile,
+                    turnSchedulers);
+            return;
+        }
+
+        DTConsoleManager consoleManager = isPipelined
+                ? new DTConsoleManager(System.in, new FileOutputStream(FileDescriptor.out), true)
+                : new DTConsoleManager();
+        DTController dtController = new DTController(engineFactory.get(), consoleManager);
+
+        if (metrics != null) dtController.setMetrics(metrics);
+
+        DTSolutionTable solutionTable = solutionTableFile == null ? null
+                : DTSolutionTable.open(Paths.get(solutionTableFile));
+
+        for (int playerId : computerPlayersIds) {
+            DTComputerPlayer computerPlayer = new DTComputerPlayer(computerMoveTimeMillis, computerThreadsCount);
+            computerPlayer.setSolutionTable(solutionTable);
+
+            try {
+                dtController.setComputerPlayer(playerId, computerPlayer);
+            } catch (IllegalArgumentException e) {
+                printUsageError(ARG_COMPUTER_PLAYER, e.getMessage());
+                return;
+            }
+        }
+
+        if (recordFile == null) {
+            startGame(dtController, isPipelined);
+        } else {
+            try (DTGameRecordWriter gameRecordWriter = new DTGameRecordWriter(Paths.get(recordFile))) {
+                dtController.setGameRecordWriter(gameRecordWriter);
+                startGame(dtController, isPipelined);
+            }
+        }
+
+        if (metricsReporter != null) metricsReporter.close();
+    }
+
+    /**
+     * Serves games of the first engine's configuration, on engines recycled from one session to the next.
+     * With a journal file, the games left in it are recovered first, and the journal is committed on shutdown.
+     * With turn schedulers, every event loop times the games of its sessions on its own scheduler.
+     */
+    private static void startServer(int serverPort, int serverThreadsCount, boolean isBitboardEngine,
+                                    IDTEngine firstEngine, DTMetrics metrics, String journalFile,
+                                    Supplier<DTTurnScheduler> turnSchedulers) throws IOException {
+        int rowsCount = firstEngine.getRowsCount();
+        int columnsCount = firstEngine.getColumnsCount();
+        int playersCount = firstEngine.getPlayersCount();
+        int winningStreak = firstEngine.getWinningStreak();
+
+        DTEnginePool enginePool = new DTEnginePool(isBitboardEngine ? BitboardDTEngine::new : DTEngine::new,
+                SERVER_IDLE_ENGINES);
+        enginePool.release(firstEngine);
+
+        Supplier<IDTEngine> engineFactory = () -> enginePool.acquire(rowsCount, columnsCount, playersCount,
+                winningStreak);
+        DTJournal journal = null;
+
+        if (journalFile != null) {
+            journal = new DTJournal(Paths.get(journalFile), rowsCount, columnsCount, playersCount, winningStreak,
+                    engineFactory);
+            System.err.println("Recovered " + journal.getRecoveredGamesCount() + " games from the journal");
+
+            DTJournal shutdownJournal = journal;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    shutdownJournal.close();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed closing the journal", e);
+                }
+            }));
+        }
+
+        new DTServer(serverPort, serverThreadsCount, engineFactory, enginePool::release, metrics, journal,
+                turnSchedulers).start();
+    }
+
+    /**
+     * Prints the stats of the recorded games of every configuration, the most played openings of the depth,
+     * and the stats of the opening if any, on the boards it fits.
+     *
+     * @param opening the columns of the opening, indexing starting at 0, or null
+     */
+    private static void analyze(List<Path> files, int openingsDepth, int[] opening) throws IOException {
+        DTGameArchive archive = DTGameArchive.load(files);
+        DTGameAnalytics analytics = new DTGameAnalytics(archive, Runtime.getRuntime().availableProcessors());
+
+        for (int configuration = 0; configuration < archive.getConfigurationsCount(); configuration++) {
+            int depth = Math.min(openingsDepth, analytics.getOpeningsDepth(configuration));
+
+            System.out.println(archive.describeConfiguration(configuration) + ": "
+                    + analytics.getConfigurationStats(configuration));
+            System.out.println("  Most played openings of " + depth + " moves:");
+
+            for (DTGameAnalytics.Opening topOpening : analytics.getTopOpenings(configuration, depth,
+                    ANALYZED_OPENINGS_COUNT)) {
+                System.out.println("    " + topOpening);
+            }
+
+            if (opening != null && fitsBoard(opening, archive.getColumnsCount(configuration))
+                    && opening.length <= analytics.getOpeningsDepth(configuration))
+                System.out.println("  Opening " + describeOpening(opening) + ": "
+                        + analytics.getOpeningStats(configuration, opening));
+        }
+    }
+
+    /**
+     * @param opening comma separated columns, indexing starting at 1 as played
+     * @return the columns, indexing starting at 0
+     */
+    private static int[] parseOpening(String opening) {
+        String[] columns = opening.split(",");
+        int[] parsedColumns = new int[columns.length];
+
+        for (int i = 0; i < columns.length; i++) {
+            parsedColumns[i] = Integer.parseInt(columns[i].trim()) - 1;
+        }
+
+        return parsedColumns;
+    }
+
+    /**
+     * @return the columns, indexing starting at 1 as played, comma separated
+     */
+    private static String describeOpening(int[] columns) {
+        StringBuilder description = new StringBuilder();
+
+        for (int column : columns) {
+            if (description.length() > 0) description.append(',');
+
+            description.append(column + 1);
+        }
+
+        return description.toString();
+    }
+
+    private static boolean fitsBoard(int[] columns, int columnsCount) {
+        for (int column : columns) {
+            if (column < 0 || column >= columnsCount) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks that the options are all options of a single mode: solving, simulating, analyzing, replaying,
+     * serving, or playing on the console when none of the others is given.
+     *
+     * @return false if the usage error was reported
+     */
+    private static boolean checkModeArgs(Set<String> givenArgs) {
+        String mode = null;
+
+        for (String modeArg : MODE_ARGS) {
+            if (!givenArgs.contains(modeArg)) continue;
+
+            if (mode != null) {
+                printUsageError(modeArg, "can't be combined with " + mode);
+                return false;
+            }
+
+            mode = modeArg;
+        }
+
+        List<String> modeArgs = getModeArgs(mode);
+
+        for (String arg : givenArgs) {
+            if (!modeArgs.contains(arg)) {
+                printUsageError(arg, mode == null ? "not an option of the console game" : "not an option of " + mode);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param mode the option of the mode, or null for the console game
+     */
+    private static List<String> getModeArgs(String mode) {
+        if (mode == null)
+            return Arrays.asList(ARG_BITBOARD_ENGINE, ARG_BOARD, ARG_COMPUTER_PLAYER, ARG_COMPUTER_MOVE_TIME,
+                    ARG_COMPUTER_THREADS, ARG_COMPUTER_SOLUTION_TABLE, ARG_RECORD, ARG_METRICS, ARG_PIPELINED);
+
+        switch (mode) {
+            case ARG_SOLVE:
+                return Arrays.asList(ARG_BITBOARD_ENGINE, ARG_BOARD, ARG_SOLVE);
+            case ARG_SIMULATE:
+                return Arrays.asList(ARG_BITBOARD_ENGINE, ARG_BOARD, ARG_SIMULATE, ARG_SIMULATE_SEED,
+                        ARG_COMPUTER_MOVE_TIME);
+            case ARG_ANALYZE:
+                // The boards are the ones of the recorded games
+                return Arrays.asList(ARG_ANALYZE, ARG_ANALYZE_DEPTH, ARG_ANALYZE_OPENING);
+            case ARG_REPLAY:
+                return Arrays.asList(ARG_BITBOARD_ENGINE, ARG_BOARD, ARG_REPLAY);
+            default:
+                return Arrays.asList(ARG_BITBOARD_ENGINE, ARG_BOARD, ARG_SERVER, ARG_SERVER_THREADS, ARG_METRICS,
+                        ARG_JOURNAL, ARG_TURN_TIME, ARG_TURN_TIMEOUT);
+        }
+    }
+
+    private static void printUsageError(String arg, String message) {
+        System.err.println("Invalid " + arg + ": " + message);
+        System.exit(2);
+    }
+
+    private static void startGame(DTController dtController, boolean isPipelined) {
+        if (isPipelined) {
+            dtController.startPipelinedGame();
+        } else {
+            dtController.startGame();
+        }
+    }
+
+    private static Supplier<IDTMovePolicy> getMovePolicyFactory(String policy, long computerMoveTimeMillis) {
+        switch (policy) {
+            case POLICY_RANDOM:
+                return RandomMovePolicy::new;
+            case POLICY_CENTER:
+                return CenterBiasedMovePolicy::new;
+            case POLICY_COMPUTER:
+                return () -> new ComputerMovePolicy(computerMoveTimeMillis);
+            default:
+                throw new IllegalArgumentException("Unknown move policy: " + policy);
+        }
+    }
+
+    /**
+     * @param boardConfig the rows count, columns count, players count and winning streak, or null for the defaults
+     */
+    private static Supplier<IDTEngine> getEngineFactory(boolean isBitboardEngine, int[] boardConfig) {
+        if (boardConfig == null) return isBitboardEngine ? BitboardDTEngine::new : DTEngine::new;
+
+        if (isBitboardEngine)
+            return () -> new BitboardDTEngine(boardConfig[0], boardConfig[1], boardConfig[2], boardConfig[3]);
+
+        return () -> new DTEngine(boardConfig[0], boardConfig[1], boardConfig[2], boardConfig[3]);
     }
 }
@@ -0,0 +1,449 @@
+package com.drop_token.ai;
+
+import com.drop_token.model.DTPositionHash;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+/**
+ * Chooses the best column for the player to play, by an alpha-beta search over the engine itself.
+ * <p>
+ * Positions are walked with insertToken and undo, so the engine is left untouched once the search is over.
+ * The search deepens iteratively until the time budget runs out, reusing the previous iterations through
+ * the transposition table, and orders the moves as: the table's best move, the columns winning a line,
+ * the columns blocking another player's line, the killer moves of the ply, then the columns from the center outwards.
+ * <p>
+ * The positions left at the end of the depth are scored by an {@link IDTEvaluator}, told of every move as the search
+ * walks them, so the leaves cost nothing more than the moves; without one, they're all scored as even.
+ * <p>
+ * With more than two players the search is paranoid; every other player is assumed to play against the searcher.
+ */
+public class AlphaBetaSearcher {
+
+    public static final int WIN_SCORE = 1_000_000_000;
+
+    private static final int MAX_DEPTH = 128;
+    public static final int WIN_THRESHOLD = WIN_SCORE - MAX_DEPTH - 1;
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int KILLERS_PER_PLY = 2;
+    private static final int NODES_BETWEEN_CLOCK_CHECKS = 1024;
+
+    // Mixed with the searching player's id, as scores are always from the searching player's point of view
+    private static final long SEARCHER_KEY_SEED = 0x98D7_0CE1L;
+
+    // Mixed with the id of the player to play, as skipped turns and forfeits leave the same tokens to other players
+    private static final long PLAYER_KEY_SEED = 0x98D7_7A4EL;
+
+    private final int rowsCount;
+    private final int columnsCount;
+    private final int playersCount;
+    private final int winningStreak;
+
+    private final TranspositionTable transpositionTable;
+    private final IDTEvaluator evaluator;
+
+    private final int[] centerFirstColumns;
+    private final int[][] killerColumns;
+    private final int[][] orderedColumns;
+    private final int[] columnsHeights;
+
+    // Indexed by the players ids
+    private final long[] playerKeys;
+
+    // A column is already ordered at the current node when its mark is the node's
+    private final long[] columnsMarks;
+    private long columnsMark;
+
+    private IDTEngine engine;
+    private int rootPlayerId;
+    private long searcherKey;
+    private int rootBestColumn;
+
+    private long deadlineNanos;
+    private boolean isAborted;
+    private volatile boolean isStopRequested;
+
+    private long nodes;
+    private long tableProbes;
+    private long tableHits;
+
+    /**
+     * Searches with a {@link ThreatEvaluator}, when the board isn't too large for one.
+     */
+    public AlphaBetaSearcher(int rowsCount, int columnsCount, int playersCount, int winningStreak,
+                             TranspositionTable transpositionTable) {
+        this(rowsCount, columnsCount, playersCount, winningStreak, transpositionTable,
+                ThreatEvaluator.isSupported(rowsCount, columnsCount, playersCount, winningStreak)
+                        ? new ThreatEvaluator(new WinningLines(rowsCount, columnsCount, winningStreak), playersCount)
+                        : null);
+    }
+
+    /**
+     * @param evaluator scores the positions at the end of the depth, null to score them as even
+     */
+    public AlphaBetaSearcher(int rowsCount, int columnsCount, int playersCount, int winningStreak,
+                             TranspositionTable transpositionTable, IDTEvaluator evaluator) {
+        this.rowsCount = rowsCount;
+        this.columnsCount = columnsCount;
+        this.playersCount = playersCount;
+        this.winningStreak = winningStreak;
+        this.transpositionTable = transpositionTable;
+        this.evaluator = evaluator;
+        this.centerFirstColumns = getCenterFirstColumns(columnsCount);
+        this.killerColumns = new int[MAX_DEPTH + 1][KILLERS_PER_PLY];
+        this.orderedColumns = new int[MAX_DEPTH + 1][columnsCount];
+        this.columnsHeights = new int[columnsCount];
+        this.columnsMarks = new long[columnsCount];
+        this.playerKeys = new long[playersCount + 1];
+
+        for (int playerId = 1; playerId <= playersCount; playerId++) {
+            playerKeys[playerId] = DTPositionHash.mix(PLAYER_KEY_SEED + playerId);
+        }
+    }
+
+    /**
+     * @return if the searcher was built for the board and players of the given engine
+     */
+    public boolean supports(IDTEngine engine) {
+        return engine.getRowsCount() == rowsCount && engine.getColumnsCount() == columnsCount
+                && engine.getPlayersCount() == playersCount && engine.getWinningStreak() == winningStreak;
+    }
+
+    /**
+     * Searches for the best column of the engine's current player.
+     * The game must still be playing.
+     *
+     * @param engine          the game to search, it's restored to its original position before returning
+     * @param timeBudgetNanos wall-clock time the search may take
+     * @return the chosen column and the statistics of the search
+     */
+    public SearchReport search(IDTEngine engine, long timeBudgetNanos) {
+        long startNanos = System.nanoTime();
+
+        transpositionTable.nextGeneration();
+        clearStop();
+
+        return search(engine, startNanos, startNanos + timeBudgetNanos, 1);
+    }
+
+    /**
+     * Searches as one of several searchers sharing the transposition table.
+     * The caller is responsible for starting a new table generation, and for clearing the stop requested
+     * by a previous search before any of the searchers starts, so a stop sent as soon as one ends isn't undone.
+     *
+     * @param startNanos    when the search started, as given by System.nanoTime()
+     * @param deadlineNanos when the search must be over, as given by System.nanoTime()
+     * @param firstDepth    the depth iterative deepening starts at
+     */
+    SearchReport search(IDTEngine engine, long startNanos, long deadlineNanos, int firstDepth) {
+
+        initSearch(engine, deadlineNanos);
+
+        int bestColumn = getFirstPlayableColumn();
+        int bestScore = 0;
+        int completedDepth = 0;
+        int maxDepth = Math.min(MAX_DEPTH, getEmptySlotsCount());
+
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+            rootBestColumn = -1;
+
+            int score = alphaBeta(depth, 0, -INFINITY, INFINITY);
+
+            if (isAborted) break;
+
+            bestColumn = rootBestColumn;
+            bestScore = score;
+            completedDepth = depth;
+
+            if (Math.abs(score) > WIN_THRESHOLD) break;
+        }
+
+        return new SearchReport(bestColumn, bestScore, completedDepth, nodes,
+                System.nanoTime() - startNanos, tableProbes, tableHits);
+    }
+
+    /**
+     * Asks a running search to return as soon as possible, with the result of its last completed depth.
+     */
+    void stop() {
+        isStopRequested = true;
+    }
+
+    /**
+     * Lets the next search run until its deadline, unless it's asked to stop again.
+     */
+    void clearStop() {
+        isStopRequested = false;
+    }
+
+    private void initSearch(IDTEngine engine, long deadlineNanos) {
+        this.engine = engine;
+        this.rootPlayerId = engine.getCurrentPlayerId();
+        this.searcherKey = DTPositionHash.mix(SEARCHER_KEY_SEED + rootPlayerId);
+        this.deadlineNanos = deadlineNanos;
+        this.isAborted = false;
+        this.nodes = 0;
+        this.tableProbes = 0;
+        this.tableHits = 0;
+
+        for (int[] killers : killerColumns) {
+            killers[0] = -1;
+            killers[1] = -1;
+        }
+
+        for (int column = 0; column < columnsCount; column++) {
+            columnsHeights[column] = 0;
+
+            while (columnsHeights[column] < rowsCount
+                    && engine.getTokenId(rowsCount - 1 - columnsHeights[column], column) != 0) {
+                columnsHeights[column]++;
+            }
+        }
+
+        if (evaluator != null) evaluator.reset(engine);
+    }
+
+    /**
+     * Minimax with alpha-beta pruning; the root player maximizes the score and every other player minimizes it.
+     *
+     * @param depth remaining plies to search
+     * @param ply   plies played since the root
+     * @return the score of the position from the root player's point of view
+     */
+    private int alphaBeta(int depth, int ply, int alpha, int beta) {
+
+        if (++nodes % NODES_BETWEEN_CLOCK_CHECKS == 0 && (isStopRequested || System.nanoTime() > deadlineNanos))
+            isAborted = true;
+
+        if (isAborted) return 0;
+
+        int currentPlayerId = engine.getCurrentPlayerId();
+
+        long key = engine.getPositionHash() ^ searcherKey ^ playerKeys[currentPlayerId];
+
+        long entry = transpositionTable.probe(key);
+        int tableColumn = -1;
+
+        tableProbes++;
+
+        if (entry != TranspositionTable.NO_ENTRY) {
+            tableHits++;
+            tableColumn = TranspositionTable.getBestColumn(entry);
+
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                int score = fromTableScore(TranspositionTable.getScore(entry), ply);
+
+                switch (TranspositionTable.getBound(entry)) {
+                    case TranspositionTable.BOUND_EXACT:
+                        return score;
+                    case TranspositionTable.BOUND_LOWER:
+                        alpha = Math.max(alpha, score);
+                        break;
+                    case TranspositionTable.BOUND_UPPER:
+                        beta = Math.min(beta, score);
+                        break;
+                }
+
+                if (alpha >= beta) return score;
+            }
+        }
+
+        if (depth == 0) return evaluate();
+
+        int originalAlpha = alpha;
+        int originalBeta = beta;
+
+        boolean isMaximizing = currentPlayerId == rootPlayerId;
+        int bestScore = isMaximizing ? -INFINITY : INFINITY;
+        int bestColumn = -1;
+
+        int[] columns = orderColumns(ply, tableColumn, currentPlayerId);
+
+        for (int column : columns) {
+
+            if (columnsHeights[column] >= rowsCount) continue;
+
+            int score = scoreMove(column, currentPlayerId, depth, ply, alpha, beta);
+
+            if (isAborted) return 0;
+
+            if (isMaximizing ? score > bestScore : score < bestScore) {
+                bestScore = score;
+                bestColumn = column;
+            }
+
+            if (isMaximizing)
+                alpha = Math.max(alpha, bestScore);
+            else
+                beta = Math.min(beta, bestScore);
+
+            if (alpha >= beta) {
+                storeKiller(ply, column);
+                break;
+            }
+        }
+
+        int bound = TranspositionTable.BOUND_EXACT;
+
+        if (bestScore <= originalAlpha) bound = TranspositionTable.BOUND_UPPER;
+        else if (bestScore >= originalBeta) bound = TranspositionTable.BOUND_LOWER;
+
+        transpositionTable.store(key, toTableScore(bestScore, ply), depth, bound, bestColumn);
+
+        if (ply == 0) rootBestColumn = bestColumn;
+
+        return bestScore;
+    }
+
+    /**
+     * Plays the column, scores the resulting position and takes the token back.
+     */
+    private int scoreMove(int column, int playerId, int depth, int ply, int alpha, int beta) {
+        int row = rowsCount - 1 - columnsHeights[column];
+        TokenInsertionStatus status = engine.insertToken(column);
+
+        columnsHeights[column]++;
+
+        int score;
+
+        switch (status) {
+            case WIN:
+                score = playerId == rootPlayerId ? WIN_SCORE - (ply + 1) : -(WIN_SCORE - (ply + 1));
+                break;
+            case DRAW:
+                score = 0;
+                break;
+            default:
+                // The evaluator only follows the positions searched further
+                if (evaluator == null) {
+                    score = alphaBeta(depth - 1, ply + 1, alpha, beta);
+                    break;
+                }
+
+                evaluator.onTokenInserted(row, column, playerId);
+                score = alphaBeta(depth - 1, ply + 1, alpha, beta);
+                evaluator.onTokenRemoved(row, column, playerId);
+        }
+
+        engine.undo();
+
+        columnsHeights[column]--;
+
+        return score;
+    }
+
+    /**
+     * Positions short of a result are scored by the evaluator, from the root player's point of view,
+     * or as even without one; the search then only tells apart forced wins and losses.
+     */
+    private int evaluate() {
+        return evaluator == null ? 0 : evaluator.evaluate(rootPlayerId);
+    }
+
+    /**
+     * @return the columns of the ply ordered as: the transposition table's column, the columns completing a line
+     * of the player, then of any other player, the killers, then center first.
+     */
+    private int[] orderColumns(int ply, int tableColumn, int playerId) {
+        int[] columns = orderedColumns[ply];
+        int count = 0;
+
+        columnsMark++;
+
+        if (tableColumn >= 0) count = addColumn(columns, count, tableColumn);
+
+        if (evaluator != null) {
+            for (int column : centerFirstColumns) {
+                if (columnsHeights[column] < rowsCount
+                        && evaluator.getThreatsCount(playerId, rowsCount - 1 - columnsHeights[column], column) > 0)
+                    count = addColumn(columns, count, column);
+            }
+
+            // The must-blocks; the player's own threats were ordered already
+            for (int column : centerFirstColumns) {
+                if (columnsHeights[column] < rowsCount
+                        && evaluator.getThreatsCount(rowsCount - 1 - columnsHeights[column], column) > 0)
+                    count = addColumn(columns, count, column);
+            }
+        }
+
+        for (int killer : killerColumns[ply]) {
+            if (killer >= 0) count = addColumn(columns, count, killer);
+        }
+
+        for (int column : centerFirstColumns) {
+            count = addColumn(columns, count, column);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Adds the column unless it's already ordered at this node.
+     *
+     * @return the number of ordered columns
+     */
+    private int addColumn(int[] columns, int count, int column) {
+        if (columnsMarks[column] == columnsMark) return count;
+
+        columnsMarks[column] = columnsMark;
+        columns[count] = column;
+
+        return count + 1;
+    }
+
+    private void storeKiller(int ply, int column) {
+        int[] killers = killerColumns[ply];
+
+        if (killers[0] != column) {
+            killers[1] = killers[0];
+            killers[0] = column;
+        }
+    }
+
+    /**
+     * Win scores count the plies from the root; the table stores them counted from the position instead,
+     * so they remain valid when the position is reached at another ply.
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score + ply;
+        if (score < -WIN_THRESHOLD) return score - ply;
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score - ply;
+        if (score < -WIN_THRESHOLD) return score + ply;
+        return score;
+    }
+
+    private int getFirstPlayableColumn() {
+        for (int column : centerFirstColumns) {
+            if (columnsHeights[column] < rowsCount) return column;
+        }
+
+        return -1;
+    }
+
+    private int getEmptySlotsCount() {
+        int emptySlotsCount = 0;
+
+        for (int height : columnsHeights) {
+            emptySlotsCount += rowsCount - height;
+        }
+
+        return emptySlotsCount;
+    }
+
+    private static int[] getCenterFirstColumns(int columnsCount) {
+        int[] columns = new int[columnsCount];
+
+        for (int i = 0; i < columnsCount; i++) {
+            // Alternates around the center; for 7 columns that's 3, 4, 2, 5, 1, 6, 0
+            int offset = (i + 1) / 2;
+            columns[i] = (columnsCount - 1) / 2 + (i % 2 == 1 ? offset : -offset);
+        }
+
+        return columns;
+    }
+}
@@ -0,0 +1,94 @@
+package com.drop_token.ai;
+
+import com.drop_token.model.IDTEngine;
+import com.drop_token.solver.DTSolutionTable;
+
+/**
+ * A computer opponent, choosing its columns through an {@link AlphaBetaSearcher} within a fixed time per move,
+ * or through a {@link ParallelSearcher} when given more than one thread.
+ * The transposition table is kept between moves, so each search starts from what the previous ones learnt.
+ * <p>
+ * Given the solution table of the game's configuration, the solved best column is played instantly instead.
+ */
+public class DTComputerPlayer {
+
+    private static final int DEFAULT_TABLE_SIZE_LOG2 = 20;
+
+    private final long moveTimeNanos;
+    private final int threadsCount;
+    private final TranspositionTable transpositionTable;
+
+    private DTSolutionTable solutionTable;
+    private AlphaBetaSearcher searcher;
+    private ParallelSearcher parallelSearcher;
+
+    public DTComputerPlayer(long moveTimeMillis) {
+        this(moveTimeMillis, 1);
+    }
+
+    public DTComputerPlayer(long moveTimeMillis, int threadsCount) {
+        this(moveTimeMillis, threadsCount, DEFAULT_TABLE_SIZE_LOG2);
+    }
+
+    /**
+     * @param moveTimeMillis wall-clock time budget of every move
+     * @param threadsCount   the number of cores to search on
+     * @param tableSizeLog2  the transposition table holds 2^tableSizeLog2 positions
+     */
+    public DTComputerPlayer(long moveTimeMillis, int threadsCount, int tableSizeLog2) {
+        this.moveTimeNanos = moveTimeMillis * 1_000_000L;
+        this.threadsCount = threadsCount;
+        this.transpositionTable = new TranspositionTable(tableSizeLog2);
+    }
+
+    public void setSolutionTable(DTSolutionTable solutionTable) {
+        this.solutionTable = solutionTable;
+    }
+
+    /**
+     * Chooses the column of the engine's current player.
+     * The engine is searched in place, and left in its original position.
+     *
+     * @return the chosen column, indexing starting at 0, along with the statistics of the search.
+     */
+    public SearchReport chooseColumn(IDTEngine engine) {
+        if (solutionTable != null && solutionTable.supports(engine)) {
+            SearchReport solvedReport = lookUpColumn(engine);
+
+            if (solvedReport != null) return solvedReport;
+        }
+
+        if (threadsCount > 1) {
+            if (parallelSearcher == null || !parallelSearcher.supports(engine)) {
+                if (parallelSearcher != null) parallelSearcher.close();
+
+                parallelSearcher = new ParallelSearcher(engine.getRowsCount(), engine.getColumnsCount(),
+                        engine.getPlayersCount(), engine.getWinningStreak(), transpositionTable, threadsCount);
+            }
+
+            return parallelSearcher.search(engine, moveTimeNanos);
+        }
+
+        if (searcher == null || !searcher.supports(engine))
+            searcher = new AlphaBetaSearcher(engine.getRowsCount(), engine.getColumnsCount(), engine.getPlayersCount(),
+                    engine.getWinningStreak(), transpositionTable);
+
+        return searcher.search(engine, moveTimeNanos);
+    }
+
+    private SearchReport lookUpColumn(IDTEngine engine) {
+        long startNanos = System.nanoTime();
+        int column = solutionTable.getBestColumn(engine);
+
+        if (column < 0) return null;
+
+        int value = solutionTable.getValue(engine);
+        int distance = Math.abs(value);
+        int score = value > 0 ? AlphaBetaSearcher.WIN_SCORE - distance
+                : value < 0 ? -(AlphaBetaSearcher.WIN_SCORE - distance) : 0;
+
+        // Reported as a search as deep as the end of the game, which took no node but a probe per column
+        return new SearchReport(column, score, distance, 0, System.nanoTime() - startNanos,
+                engine.getColumnsCount() + 1, engine.getColumnsCount() + 1);
+    }
+}
@@ -0,0 +1,43 @@
+package com.drop_token.ai;
+
+import com.drop_token.model.IDTBoardView;
+
+/**
+ * Scores the positions a search can't play to the end, kept up to date by the searcher move by move,
+ * so scoring a position doesn't read the board again.
+ */
+public interface IDTEvaluator {
+
+    /**
+     * Forgets the previous position and evaluates the board's tokens from scratch.
+     */
+    void reset(IDTBoardView board);
+
+    /**
+     * @param row      Row of the slot, indexing starts at 0 for the top row.
+     * @param column   Column of the slot, indexing starts at 0.
+     * @param playerId the player of the token
+     */
+    void onTokenInserted(int row, int column, int playerId);
+
+    /**
+     * Reverts {@link #onTokenInserted(int, int, int)}, in the reverse order of the insertions.
+     */
+    void onTokenRemoved(int row, int column, int playerId);
+
+    /**
+     * @return the score of the position from the player's point of view, positive when ahead of the others,
+     * and far from {@link AlphaBetaSearcher#WIN_THRESHOLD}.
+     */
+    int evaluate(int playerId);
+
+    /**
+     * @return the number of lines the player would win with a token in the empty slot
+     */
+    int getThreatsCount(int playerId, int row, int column);
+
+    /**
+     * @return the number of lines any player would win with a token in the empty slot
+     */
+    int getThreatsCount(int row, int column);
+}
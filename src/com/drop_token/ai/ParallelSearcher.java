@@ -0,0 +1,129 @@
+package com.drop_token.ai;
+
+import com.drop_token.model.IDTEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Searches a position on several cores at once, in the Lazy SMP fashion.
+ * <p>
+ * Every worker runs its own iterative deepening {@link AlphaBetaSearcher} on its own copy of the engine,
+ * and they only cooperate through the shared transposition table. Half of the workers start one ply deeper,
+ * so the workers spread over neighbouring depths and fill the table for each other.
+ * The move of the worker which completed the deepest search is played.
+ */
+public class ParallelSearcher {
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable transpositionTable;
+    private final AlphaBetaSearcher[] searchers;
+
+    public ParallelSearcher(int rowsCount, int columnsCount, int playersCount, int winningStreak,
+                            TranspositionTable transpositionTable, int threadsCount) {
+        this.pool = new ForkJoinPool(threadsCount);
+        this.transpositionTable = transpositionTable;
+        this.searchers = new AlphaBetaSearcher[threadsCount];
+
+        // The workers only share the lines, each one follows its own engine's tokens
+        WinningLines winningLines = ThreatEvaluator.isSupported(rowsCount, columnsCount, playersCount, winningStreak)
+                ? new WinningLines(rowsCount, columnsCount, winningStreak) : null;
+
+        for (int i = 0; i < threadsCount; i++) {
+            IDTEvaluator evaluator = winningLines == null ? null : new ThreatEvaluator(winningLines, playersCount);
+
+            searchers[i] = new AlphaBetaSearcher(rowsCount, columnsCount, playersCount, winningStreak,
+                    transpositionTable, evaluator);
+        }
+    }
+
+    public boolean supports(IDTEngine engine) {
+        return searchers[0].supports(engine);
+    }
+
+    /**
+     * Searches for the best column of the engine's current player.
+     * The given engine is only copied, never played on.
+     *
+     * @param timeBudgetNanos wall-clock time the search may take
+     * @return the chosen column and the statistics of all the workers combined
+     */
+    public SearchReport search(IDTEngine engine, long timeBudgetNanos) {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + timeBudgetNanos;
+
+        transpositionTable.nextGeneration();
+
+        // Cleared before any worker starts, a worker finishing early may stop the others before they even begin
+        for (AlphaBetaSearcher searcher : searchers) {
+            searcher.clearStop();
+        }
+
+        List<Callable<SearchReport>> workers = new ArrayList<>(searchers.length);
+
+        for (int i = 0; i < searchers.length; i++) {
+            AlphaBetaSearcher searcher = searchers[i];
+            IDTEngine workerEngine = engine.copy();
+            int firstDepth = 1 + i % 2;
+
+            workers.add(() -> {
+                SearchReport searchReport = searcher.search(workerEngine, startNanos, deadlineNanos, firstDepth);
+
+                // A worker only finishes early when the game is solved, so there's nothing left for the others
+                stopAll();
+
+                return searchReport;
+            });
+        }
+
+        return combine(pool.invokeAll(workers), startNanos);
+    }
+
+    /**
+     * Stops the workers' threads; the searcher can't search anymore.
+     */
+    public void close() {
+        pool.shutdown();
+    }
+
+    private void stopAll() {
+        for (AlphaBetaSearcher searcher : searchers) {
+            searcher.stop();
+        }
+    }
+
+    private SearchReport combine(List<Future<SearchReport>> results, long startNanos) {
+        SearchReport bestReport = null;
+        long nodes = 0;
+        long tableProbes = 0;
+        long tableHits = 0;
+
+        for (Future<SearchReport> result : results) {
+            SearchReport searchReport = getResult(result);
+
+            nodes += searchReport.getNodes();
+            tableProbes += searchReport.getTableProbes();
+            tableHits += searchReport.getTableHits();
+
+            if (bestReport == null || searchReport.getDepth() > bestReport.getDepth()) bestReport = searchReport;
+        }
+
+        return new SearchReport(bestReport.getColumn(), bestReport.getScore(), bestReport.getDepth(), nodes,
+                System.nanoTime() - startNanos, tableProbes, tableHits);
+    }
+
+    private static SearchReport getResult(Future<SearchReport> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search worker failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.drop_token.ai;
+
+/**
+ * The outcome and the statistics of a single move search.
+ */
+public class SearchReport {
+
+    private final int column;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final long tableProbes;
+    private final long tableHits;
+
+    public SearchReport(int column, int score, int depth, long nodes, long elapsedNanos,
+                        long tableProbes, long tableHits) {
+        this.column = column;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+    }
+
+    /**
+     * @return The chosen column, indexing starts at 0.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return The score of the chosen column from the searching player's point of view.
+     * Positive scores beyond {@link AlphaBetaSearcher#WIN_THRESHOLD} are forced wins, negative ones forced losses.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The deepest fully searched depth.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    /**
+     * @return The ratio of transposition table probes which found the position, between 0 and 1.
+     */
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("column %d, score %d, depth %d, %d nodes, %d nodes/s, TT hit rate %.1f%%",
+                column + 1, score, depth, nodes, getNodesPerSecond(), getTableHitRate() * 100);
+    }
+}
@@ -0,0 +1,234 @@
+package com.drop_token.ai;
+
+import com.drop_token.model.IDTBoardView;
+
+import java.util.Arrays;
+
+/**
+ * Scores positions by the lines each player can still win, counting the tokens every player has on every line.
+ * <p>
+ * A line holding the tokens of a single player is open to that player, and is worth more the more tokens it holds;
+ * a line one token short of the streak is a threat, won by whoever plays its empty slot first, and the other
+ * players must block it. A token only changes the lines through its slot, so inserting and removing it updates
+ * the scores and the threats of every player in O(lines through the slot), and evaluating a position is O(1).
+ * <p>
+ * Many players are scored the way the search plays them: every other player against the evaluated one.
+ */
+public class ThreatEvaluator implements IDTEvaluator {
+
+    // Bounds the memory of the counters, and keeps the scores far from the search's win scores
+    private static final int MAX_COUNTERS_COUNT = 1 << 20;
+    private static final int MAX_LINE_WEIGHT_LOG2 = 8;
+
+    private final WinningLines winningLines;
+    private final int playersCount;
+    private final int threatTokensCount;
+    private final int[] linesWeights;
+
+    private final int[] slotsTokenIds;
+
+    // Indexed by line * playersCount + playerId - 1
+    private final int[] linesPlayersTokensCounts;
+    private final int[] linesTokensCounts;
+    private final int[] linesPlayersCounts;
+
+    // The owner of a line holding a single player's tokens is the sum of their ids over their count
+    private final int[] linesTokenIdsSums;
+
+    // The empty slot of each threat, valid while the line is one
+    private final int[] linesThreatSlots;
+
+    // Indexed by slot * playersCount + playerId - 1
+    private final int[] slotsPlayersThreatsCounts;
+    private final int[] slotsThreatsCounts;
+
+    // Indexed by playerId - 1
+    private final int[] playersScores;
+    private final int[] playersThreatsCounts;
+    private int scoresSum;
+
+    public ThreatEvaluator(WinningLines winningLines, int playersCount) {
+        if (!isSupported(winningLines.getRowsCount(), winningLines.getColumnsCount(), playersCount,
+                winningLines.getWinningStreak()))
+            throw new IllegalArgumentException("The board has too many lines to evaluate");
+
+        int linesCount = winningLines.getLinesCount();
+        int slotsCount = winningLines.getSlotsCount();
+
+        this.winningLines = winningLines;
+        this.playersCount = playersCount;
+        this.threatTokensCount = winningLines.getWinningStreak() - 1;
+        this.linesWeights = getLinesWeights(winningLines.getWinningStreak());
+        this.slotsTokenIds = new int[slotsCount];
+        this.linesPlayersTokensCounts = new int[linesCount * playersCount];
+        this.linesTokensCounts = new int[linesCount];
+        this.linesPlayersCounts = new int[linesCount];
+        this.linesTokenIdsSums = new int[linesCount];
+        this.linesThreatSlots = new int[linesCount];
+        this.slotsPlayersThreatsCounts = new int[slotsCount * playersCount];
+        this.slotsThreatsCounts = new int[slotsCount];
+        this.playersScores = new int[playersCount];
+        this.playersThreatsCounts = new int[playersCount];
+    }
+
+    /**
+     * @return if the counters of the board and players are small enough to keep
+     */
+    public static boolean isSupported(int rowsCount, int columnsCount, int playersCount, int winningStreak) {
+        long linesCount = WinningLines.countLines(rowsCount, columnsCount, winningStreak);
+
+        return linesCount * Math.max(playersCount, winningStreak) <= MAX_COUNTERS_COUNT
+                && (long) rowsCount * columnsCount * playersCount <= MAX_COUNTERS_COUNT;
+    }
+
+    @Override
+    public void reset(IDTBoardView board) {
+        if (board.getRowsCount() != winningLines.getRowsCount()
+                || board.getColumnsCount() != winningLines.getColumnsCount())
+            throw new IllegalArgumentException("The board doesn't match the lines");
+
+        Arrays.fill(slotsTokenIds, 0);
+        Arrays.fill(linesPlayersTokensCounts, 0);
+        Arrays.fill(linesTokensCounts, 0);
+        Arrays.fill(linesPlayersCounts, 0);
+        Arrays.fill(linesTokenIdsSums, 0);
+        Arrays.fill(slotsPlayersThreatsCounts, 0);
+        Arrays.fill(slotsThreatsCounts, 0);
+        Arrays.fill(playersScores, 0);
+        Arrays.fill(playersThreatsCounts, 0);
+        scoresSum = 0;
+
+        // The counters don't depend on the order of the tokens
+        for (int row = 0; row < board.getRowsCount(); row++) {
+            for (int column = 0; column < board.getColumnsCount(); column++) {
+                int tokenId = board.getTokenId(row, column);
+
+                if (tokenId != 0) onTokenInserted(row, column, tokenId);
+            }
+        }
+    }
+
+    @Override
+    public void onTokenInserted(int row, int column, int playerId) {
+        int slot = winningLines.getSlot(row, column);
+
+        slotsTokenIds[slot] = playerId;
+
+        for (int i = winningLines.getSlotLinesStart(slot); i < winningLines.getSlotLinesEnd(slot); i++) {
+            updateLine(winningLines.getSlotLine(i), playerId, 1);
+        }
+    }
+
+    @Override
+    public void onTokenRemoved(int row, int column, int playerId) {
+        int slot = winningLines.getSlot(row, column);
+
+        slotsTokenIds[slot] = 0;
+
+        for (int i = winningLines.getSlotLinesStart(slot); i < winningLines.getSlotLinesEnd(slot); i++) {
+            updateLine(winningLines.getSlotLine(i), playerId, -1);
+        }
+    }
+
+    @Override
+    public int evaluate(int playerId) {
+        // The player's lines against the lines of all the others
+        return 2 * playersScores[playerId - 1] - scoresSum;
+    }
+
+    @Override
+    public int getThreatsCount(int playerId, int row, int column) {
+        return slotsPlayersThreatsCounts[winningLines.getSlot(row, column) * playersCount + playerId - 1];
+    }
+
+    @Override
+    public int getThreatsCount(int row, int column) {
+        return slotsThreatsCounts[winningLines.getSlot(row, column)];
+    }
+
+    /**
+     * @return the number of lines the player is a token short of winning, playable yet or not
+     */
+    public int getThreatsCount(int playerId) {
+        return playersThreatsCounts[playerId - 1];
+    }
+
+    /**
+     * Takes the line's worth away from its owner, counts the token in or out, then gives the line's new worth.
+     */
+    private void updateLine(int line, int playerId, int tokensDelta) {
+        int ownerId = getOwnerId(line);
+
+        if (ownerId != 0) {
+            setLineWorth(line, ownerId, -1);
+
+            if (linesTokensCounts[line] == threatTokensCount) updateThreat(line, ownerId, linesThreatSlots[line], -1);
+        }
+
+        int counterIndex = line * playersCount + playerId - 1;
+        int playerTokensCount = linesPlayersTokensCounts[counterIndex];
+
+        // The player joins the line with its first token, and leaves it with its last one
+        if (tokensDelta > 0 ? playerTokensCount == 0 : playerTokensCount == 1)
+            linesPlayersCounts[line] += tokensDelta;
+
+        linesPlayersTokensCounts[counterIndex] = playerTokensCount + tokensDelta;
+        linesTokensCounts[line] += tokensDelta;
+        linesTokenIdsSums[line] += tokensDelta * playerId;
+
+        ownerId = getOwnerId(line);
+
+        if (ownerId != 0) {
+            setLineWorth(line, ownerId, 1);
+
+            if (linesTokensCounts[line] == threatTokensCount) updateThreat(line, ownerId, findEmptySlot(line), 1);
+        }
+    }
+
+    /**
+     * @return the only player with tokens on the line, 0 if the line is empty or shared
+     */
+    private int getOwnerId(int line) {
+        return linesPlayersCounts[line] == 1 ? linesTokenIdsSums[line] / linesTokensCounts[line] : 0;
+    }
+
+    private void setLineWorth(int line, int ownerId, int sign) {
+        int worth = sign * linesWeights[linesTokensCounts[line]];
+
+        playersScores[ownerId - 1] += worth;
+        scoresSum += worth;
+    }
+
+    private void updateThreat(int line, int ownerId, int slot, int delta) {
+        linesThreatSlots[line] = slot;
+        slotsPlayersThreatsCounts[slot * playersCount + ownerId - 1] += delta;
+        slotsThreatsCounts[slot] += delta;
+        playersThreatsCounts[ownerId - 1] += delta;
+    }
+
+    /**
+     * Only called as the line becomes a threat, so a line is walked once per threat and not once per token.
+     */
+    private int findEmptySlot(int line) {
+        int slot = winningLines.getLineSlot(line, 0);
+
+        for (int i = 1; slotsTokenIds[slot] != 0; i++) {
+            slot = winningLines.getLineSlot(line, i);
+        }
+
+        return slot;
+    }
+
+    /**
+     * @return the worth of a line holding from 0 to winningStreak tokens of a single player, 4 times more a token
+     */
+    private static int[] getLinesWeights(int winningStreak) {
+        int[] weights = new int[winningStreak + 1];
+
+        for (int tokensCount = 1; tokensCount <= winningStreak; tokensCount++) {
+            weights[tokensCount] = 1 << Math.min(2 * (tokensCount - 1), MAX_LINE_WEIGHT_LOG2);
+        }
+
+        return weights;
+    }
+}
@@ -0,0 +1,100 @@
+package com.drop_token.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size cache of searched positions, indexed by their engine's position hash.
+ * <p>
+ * Entries are packed into a single long, next to the full key to detect index collisions:
+ * bits 0-31 hold the score, 32-39 the searched depth, 40-41 the bound type,
+ * 42-57 the best column plus one and 58-63 the search generation that stored it.
+ * Generations start at 1, so an entry of 0 is always an empty slot.
+ * <p>
+ * Replacement prefers deeper searches, but anything stored by an older search can be overwritten.
+ * <p>
+ * The table is shared by concurrent searchers without locking. Every slot stores the key XORed with its entry,
+ * so an entry and key written by two racing stores don't decode back into the probed key, and are treated as a miss.
+ */
+public class TranspositionTable {
+
+    public static final int BOUND_EXACT = 0;
+    public static final int BOUND_LOWER = 1;
+    public static final int BOUND_UPPER = 2;
+
+    public static final long NO_ENTRY = 0;
+
+    private static final int MAX_GENERATION = 63;
+
+    private final AtomicLongArray checkedKeys;
+    private final AtomicLongArray entries;
+    private final int indexMask;
+
+    private volatile int generation = 1;
+
+    /**
+     * @param sizeLog2 the table holds 2^sizeLog2 entries, each one taking 16 bytes
+     */
+    public TranspositionTable(int sizeLog2) {
+        this.checkedKeys = new AtomicLongArray(1 << sizeLog2);
+        this.entries = new AtomicLongArray(1 << sizeLog2);
+        this.indexMask = (1 << sizeLog2) - 1;
+    }
+
+    /**
+     * Marks the start of a new search, making the entries of the previous searches replaceable.
+     * Called once per move, even when several searchers share the table.
+     */
+    public void nextGeneration() {
+        generation = generation == MAX_GENERATION ? 1 : generation + 1;
+    }
+
+    /**
+     * @return the packed entry stored for the key, or NO_ENTRY
+     */
+    public long probe(long key) {
+        int index = (int) key & indexMask;
+        long entry = entries.get(index);
+        return (checkedKeys.get(index) ^ entry) == key ? entry : NO_ENTRY;
+    }
+
+    public void store(long key, int score, int depth, int bound, int bestColumn) {
+        int index = (int) key & indexMask;
+        int currentGeneration = generation;
+        long oldEntry = entries.get(index);
+
+        if (oldEntry != NO_ENTRY && (checkedKeys.get(index) ^ oldEntry) != key
+                && getGeneration(oldEntry) == currentGeneration && getDepth(oldEntry) > depth) return;
+
+        long entry = (score & 0xFFFFFFFFL)
+                | ((long) depth << 32)
+                | ((long) bound << 40)
+                | ((long) (bestColumn + 1) << 42)
+                | ((long) currentGeneration << 58);
+
+        checkedKeys.lazySet(index, key ^ entry);
+        entries.lazySet(index, entry);
+    }
+
+    public static int getScore(long entry) {
+        return (int) entry;
+    }
+
+    public static int getDepth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int getBound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /**
+     * @return the best column found for the position, or -1 if there was none
+     */
+    public static int getBestColumn(long entry) {
+        return ((int) (entry >>> 42) & 0xFFFF) - 1;
+    }
+
+    private static int getGeneration(long entry) {
+        return (int) (entry >>> 58);
+    }
+}
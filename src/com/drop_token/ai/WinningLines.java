@@ -0,0 +1,160 @@
+package com.drop_token.ai;
+
+/**
+ * Every line of slots a streak can be won on, for a board size and a winning streak, and the lines through each slot.
+ * <p>
+ * Slots are numbered row by row, from the top row. A line is its first slot and the step to its next slot,
+ * and the lines through each slot are listed back to back in a single array, the slot's first line indexed by
+ * another one, so walking the lines of a slot reads a few consecutive ints. The index is immutable, and shared
+ * by the evaluators of the same board.
+ */
+public final class WinningLines {
+
+    private final int rowsCount;
+    private final int columnsCount;
+    private final int winningStreak;
+
+    private final int[] linesFirstSlots;
+    private final int[] linesSteps;
+
+    // The lines through slot s are slotsLines[slotsLinesStarts[s]] to slotsLines[slotsLinesStarts[s + 1] - 1]
+    private final int[] slotsLinesStarts;
+    private final int[] slotsLines;
+
+    public WinningLines(int rowsCount, int columnsCount, int winningStreak) {
+        long linesCount = countLines(rowsCount, columnsCount, winningStreak);
+
+        if (linesCount * winningStreak > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many lines to index: " + linesCount);
+
+        this.rowsCount = rowsCount;
+        this.columnsCount = columnsCount;
+        this.winningStreak = winningStreak;
+        this.linesFirstSlots = new int[(int) linesCount];
+        this.linesSteps = new int[(int) linesCount];
+
+        int line = 0;
+
+        // Horizontal, vertical, diagonal going down and right, then going down and left
+        line = addLines(line, 0, 1);
+        line = addLines(line, 1, 0);
+        line = addLines(line, 1, 1);
+        addLines(line, 1, -1);
+
+        this.slotsLinesStarts = new int[rowsCount * columnsCount + 1];
+        this.slotsLines = new int[(int) linesCount * winningStreak];
+
+        indexSlotsLines();
+    }
+
+    /**
+     * @return the number of lines of the board, without indexing them
+     */
+    public static long countLines(int rowsCount, int columnsCount, int winningStreak) {
+        long rowLines = Math.max(0, columnsCount - winningStreak + 1);
+        long columnLines = Math.max(0, rowsCount - winningStreak + 1);
+
+        // A streak of 1 is won on a single slot, whichever the direction
+        if (winningStreak == 1) return (long) rowsCount * columnsCount;
+
+        return rowsCount * rowLines + columnLines * columnsCount + 2 * columnLines * rowLines;
+    }
+
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    public int getColumnsCount() {
+        return columnsCount;
+    }
+
+    public int getWinningStreak() {
+        return winningStreak;
+    }
+
+    public int getLinesCount() {
+        return linesFirstSlots.length;
+    }
+
+    public int getSlotsCount() {
+        return rowsCount * columnsCount;
+    }
+
+    int getSlot(int row, int column) {
+        return row * columnsCount + column;
+    }
+
+    /**
+     * @param index the slot's index along the line, from 0 to the winning streak excluded
+     */
+    int getLineSlot(int line, int index) {
+        return linesFirstSlots[line] + index * linesSteps[line];
+    }
+
+    /**
+     * @return the index of the slot's first line in {@link #getSlotLine(int)}
+     */
+    int getSlotLinesStart(int slot) {
+        return slotsLinesStarts[slot];
+    }
+
+    /**
+     * @return the index following the slot's last line in {@link #getSlotLine(int)}
+     */
+    int getSlotLinesEnd(int slot) {
+        return slotsLinesStarts[slot + 1];
+    }
+
+    int getSlotLine(int index) {
+        return slotsLines[index];
+    }
+
+    /**
+     * Adds the lines of a direction, from every slot a whole streak fits from.
+     *
+     * @return the index of the next line to add
+     */
+    private int addLines(int line, int rowStep, int columnStep) {
+        if (winningStreak == 1 && (rowStep != 0 || columnStep != 1)) return line;
+
+        int reach = winningStreak - 1;
+
+        for (int row = 0; row + rowStep * reach < rowsCount; row++) {
+            for (int column = 0; column < columnsCount; column++) {
+                int lastColumn = column + columnStep * reach;
+
+                if (lastColumn < 0 || lastColumn >= columnsCount) continue;
+
+                linesFirstSlots[line] = getSlot(row, column);
+                linesSteps[line++] = rowStep * columnsCount + columnStep;
+            }
+        }
+
+        return line;
+    }
+
+    private void indexSlotsLines() {
+        int slotsCount = getSlotsCount();
+
+        // Counts the lines of each slot, then turns the counts into the starts of the slots
+        for (int line = 0; line < linesFirstSlots.length; line++) {
+            for (int i = 0; i < winningStreak; i++) {
+                slotsLinesStarts[getLineSlot(line, i) + 1]++;
+            }
+        }
+
+        for (int slot = 0; slot < slotsCount; slot++) {
+            slotsLinesStarts[slot + 1] += slotsLinesStarts[slot];
+        }
+
+        int[] nextIndexes = new int[slotsCount];
+
+        for (int line = 0; line < linesFirstSlots.length; line++) {
+            for (int i = 0; i < winningStreak; i++) {
+                int slot = getLineSlot(line, i);
+
+                slotsLines[slotsLinesStarts[slot] + nextIndexes[slot]++] = line;
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.drop_token.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Answers aggregate queries over an archive of recorded games: the outcomes and average length of the games
+ * of a board configuration, the outcomes of the games opened with given moves, and the most played openings.
+ * <p>
+ * The games of a configuration are scanned on parallel workers, each one over its share of the archive's arrays.
+ * Queries on openings go through an index of every configuration built up front, see {@link DTOpeningIndex},
+ * and take a couple of binary searches whatever the number of games. The outcomes are recorded with the games,
+ * so no game is ever replayed.
+ */
+public class DTGameAnalytics {
+
+    // Every worker takes several shares, so a slow one holds the others back less
+    private static final int SHARES_PER_THREAD = 4;
+
+    private final DTGameArchive archive;
+    private final int threadsCount;
+    private final DTOpeningIndex[] indexes;
+
+    public DTGameAnalytics(DTGameArchive archive, int threadsCount) {
+        this.archive = archive;
+        this.threadsCount = threadsCount;
+        this.indexes = new DTOpeningIndex[archive.getConfigurationsCount()];
+
+        int[][] configurationsGames = new int[indexes.length][];
+        int[] gamesCounts = new int[indexes.length];
+
+        for (int game = 0; game < archive.getGamesCount(); game++) {
+            gamesCounts[archive.getConfiguration(game)]++;
+        }
+
+        for (int configuration = 0; configuration < indexes.length; configuration++) {
+            configurationsGames[configuration] = new int[gamesCounts[configuration]];
+            gamesCounts[configuration] = 0;
+        }
+
+        for (int game = 0; game < archive.getGamesCount(); game++) {
+            int configuration = archive.getConfiguration(game);
+
+            configurationsGames[configuration][gamesCounts[configuration]++] = game;
+        }
+
+        for (int configuration = 0; configuration < indexes.length; configuration++) {
+            indexes[configuration] = new DTOpeningIndex(archive, configuration, configurationsGames[configuration]);
+
+            // The games of the configuration aren't needed once indexed
+            configurationsGames[configuration] = null;
+        }
+    }
+
+    public DTGameArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * @return the number of first moves of the games of the configuration the openings can be queried for
+     */
+    public int getOpeningsDepth(int configuration) {
+        return indexes[configuration].getDepth();
+    }
+
+    /**
+     * Scans the games of the archive for the ones of the configuration.
+     */
+    public DTGameStats getConfigurationStats(int configuration) {
+        int playersCount = archive.getPlayersCount(configuration);
+        int gamesCount = archive.getGamesCount();
+        int sharesCount = threadsCount * SHARES_PER_THREAD;
+        List<Callable<DTGameStats>> workers = new ArrayList<>(sharesCount);
+
+        for (int i = 0; i < sharesCount; i++) {
+            int firstGame = (int) ((long) gamesCount * i / sharesCount);
+            int lastGame = (int) ((long) gamesCount * (i + 1) / sharesCount);
+
+            workers.add(() -> {
+                DTGameStats stats = new DTGameStats(playersCount);
+
+                for (int game = firstGame; game < lastGame; game++) {
+                    if (archive.getConfiguration(game) == configuration)
+                        stats.add(archive.getOutcome(game), archive.getMovesCount(game), 1);
+                }
+
+                return stats;
+            });
+        }
+
+        DTGameStats stats = new DTGameStats(playersCount);
+
+        for (DTGameStats workerStats : invokeAll(workers)) {
+            stats.merge(workerStats);
+        }
+
+        return stats;
+    }
+
+    /**
+     * @param columns the opening's moves, indexing starting at 0
+     * @return the stats of the games of the configuration opened with the moves
+     * @throws IllegalArgumentException if the opening is longer than {@link #getOpeningsDepth(int)},
+     *                                  or plays outside the board
+     */
+    public DTGameStats getOpeningStats(int configuration, int[] columns) {
+        checkOpeningLength(configuration, columns.length);
+
+        for (int column : columns) {
+            if (column < 0 || column >= archive.getColumnsCount(configuration))
+                throw new IllegalArgumentException("No column " + (column + 1) + " on a board of "
+                        + archive.getColumnsCount(configuration) + " columns");
+        }
+
+        return indexes[configuration].getStats(columns);
+    }
+
+    /**
+     * Finds the openings of the length most played by the games of the configuration, counting the games long
+     * enough to have one.
+     *
+     * @param openingsCount the maximum number of openings to return
+     * @return the openings, most played first
+     * @throws IllegalArgumentException if the length is longer than {@link #getOpeningsDepth(int)}
+     */
+    public List<Opening> getTopOpenings(int configuration, int movesCount, int openingsCount) {
+        checkOpeningLength(configuration, movesCount);
+
+        DTOpeningIndex index = indexes[configuration];
+        int sharesCount = threadsCount * SHARES_PER_THREAD;
+        List<Callable<long[][]>> workers = new ArrayList<>(sharesCount);
+
+        for (int i = 0; i < sharesCount; i++) {
+            // Shares start on an opening, so no opening is counted by two workers
+            int firstKey = index.alignToOpening(movesCount, (int) ((long) index.getKeysCount() * i / sharesCount));
+            int lastKey = index.alignToOpening(movesCount,
+                    (int) ((long) index.getKeysCount() * (i + 1) / sharesCount));
+
+            workers.add(() -> {
+                long[] openings = new long[openingsCount];
+                long[] counts = new long[openingsCount];
+
+                index.findTopOpenings(movesCount, firstKey, lastKey, openings, counts);
+
+                return new long[][]{openings, counts};
+            });
+        }
+
+        long[] openings = new long[openingsCount];
+        long[] counts = new long[openingsCount];
+
+        for (long[][] workerOpenings : invokeAll(workers)) {
+            for (int i = 0; i < openingsCount && workerOpenings[1][i] > 0; i++) {
+                DTOpeningIndex.addTopOpening(workerOpenings[0][i], workerOpenings[1][i], openings, counts);
+            }
+        }
+
+        List<Opening> topOpenings = new ArrayList<>();
+
+        for (int i = 0; i < openingsCount && counts[i] > 0; i++) {
+            int[] columns = index.getColumns(openings[i], movesCount);
+
+            topOpenings.add(new Opening(columns, index.getStats(columns)));
+        }
+
+        return topOpenings;
+    }
+
+    private void checkOpeningLength(int configuration, int movesCount) {
+        if (movesCount < 0 || movesCount > indexes[configuration].getDepth())
+            throw new IllegalArgumentException("Openings of " + archive.describeConfiguration(configuration)
+                    + " are indexed up to " + indexes[configuration].getDepth() + " moves, not " + movesCount);
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> workers) {
+        ForkJoinPool pool = new ForkJoinPool(threadsCount);
+
+        try {
+            List<T> results = new ArrayList<>(workers.size());
+
+            for (Future<T> result : pool.invokeAll(workers)) {
+                results.add(getResult(result));
+            }
+
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static <T> T getResult(Future<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the games", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Query worker failed", e.getCause());
+        }
+    }
+
+    /**
+     * The first moves of games, and the stats of the games opened with them.
+     */
+    public static class Opening {
+        private final int[] columns;
+        private final DTGameStats stats;
+
+        private Opening(int[] columns, DTGameStats stats) {
+            this.columns = columns;
+            this.stats = stats;
+        }
+
+        /**
+         * @return the moves, indexing starting at 0
+         */
+        public int[] getColumns() {
+            return columns.clone();
+        }
+
+        public DTGameStats getStats() {
+            return stats;
+        }
+
+        /**
+         * @return e.g. "4 4 3: 1000 games, ...", the columns indexing starting at 1 as played
+         */
+        @Override
+        public String toString() {
+            StringBuilder description = new StringBuilder();
+
+            for (int column : columns) {
+                if (description.length() > 0) description.append(' ');
+
+                description.append(column + 1);
+            }
+
+            return description.append(": ").append(stats).toString();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.drop_token.analytics;
+
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.records.DTGameRecordReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recorded games loaded into memory column by column: an array per field of the games, indexed by the games'
+ * numbers, and the moves of all the games back to back in large chunks, so a query over millions of games
+ * reads a few primitive arrays from start to end, and keeps no object per game.
+ * <p>
+ * The board configurations of the games are numbered in the order they're met, and every game keeps the number
+ * of its configuration. Outcomes are coded on a short: {@link #OUTCOME_UNFINISHED}, {@link #OUTCOME_DRAW},
+ * or {@link #OUTCOME_WIN} plus the winner's id minus one.
+ */
+public final class DTGameArchive {
+
+    static final int OUTCOME_UNFINISHED = 0;
+    static final int OUTCOME_DRAW = 1;
+    static final int OUTCOME_WIN = 2;
+
+    private static final int INITIAL_GAMES_CAPACITY = 1024;
+
+    // Moves are kept in chunks of 2^26 moves, 128MB, so the archive isn't bound by the size of an array
+    private static final int MOVES_CHUNK_BITS = 26;
+    private static final int MOVES_CHUNK_SIZE = 1 << MOVES_CHUNK_BITS;
+    private static final int INITIAL_MOVES_CAPACITY = 1 << 16;
+
+    // The rows count, columns count, players count and winning streak of every configuration
+    private final List<int[]> configurations = new ArrayList<>();
+
+    private int gamesCount;
+    private short[] gamesConfigurations = new short[INITIAL_GAMES_CAPACITY];
+    private short[] gamesOutcomes = new short[INITIAL_GAMES_CAPACITY];
+    private int[] gamesMovesCounts = new int[INITIAL_GAMES_CAPACITY];
+    private long[] gamesMovesStarts = new long[INITIAL_GAMES_CAPACITY];
+
+    // The columns of the moves, read as unsigned shorts; the last chunk grows up to the chunks' size
+    private short[][] movesChunks = {new short[INITIAL_MOVES_CAPACITY]};
+    private long movesCount;
+
+    private DTGameArchive() {
+    }
+
+    /**
+     * Reads every game of the game record files, in the order of the files.
+     *
+     * @throws IllegalArgumentException if a game's board has more than 65536 columns, or there are more than
+     *                                  32767 configurations or players
+     */
+    public static DTGameArchive load(List<Path> files) throws IOException {
+        DTGameArchive archive = new DTGameArchive();
+
+        for (Path file : files) {
+            try (DTGameRecordReader reader = new DTGameRecordReader(file)) {
+                while (reader.nextGame()) {
+                    archive.addGame(reader);
+                }
+            }
+        }
+
+        archive.trim();
+
+        return archive;
+    }
+
+    public int getGamesCount() {
+        return gamesCount;
+    }
+
+    public int getConfigurationsCount() {
+        return configurations.size();
+    }
+
+    public int getRowsCount(int configuration) {
+        return configurations.get(configuration)[0];
+    }
+
+    public int getColumnsCount(int configuration) {
+        return configurations.get(configuration)[1];
+    }
+
+    public int getPlayersCount(int configuration) {
+        return configurations.get(configuration)[2];
+    }
+
+    public int getWinningStreak(int configuration) {
+        return configurations.get(configuration)[3];
+    }
+
+    /**
+     * @return e.g. "6x7, 2 players, streak 4"
+     */
+    public String describeConfiguration(int configuration) {
+        return getRowsCount(configuration) + "x" + getColumnsCount(configuration) + ", "
+                + getPlayersCount(configuration) + " players, streak " + getWinningStreak(configuration);
+    }
+
+    public int getConfiguration(int game) {
+        return gamesConfigurations[game];
+    }
+
+    /**
+     * @return the game's outcome, coded as described by the class
+     */
+    public int getOutcome(int game) {
+        return gamesOutcomes[game];
+    }
+
+    public GameStatus getGameStatus(int game) {
+        int outcome = gamesOutcomes[game];
+
+        return outcome == OUTCOME_UNFINISHED ? GameStatus.PLAYING
+                : outcome == OUTCOME_DRAW ? GameStatus.FINISHED_DRAW : GameStatus.FINISHED_WIN;
+    }
+
+    /**
+     * @return the id of the winner, 0 if the game wasn't won
+     */
+    public int getWinnerId(int game) {
+        int outcome = gamesOutcomes[game];
+
+        return outcome < OUTCOME_WIN ? 0 : outcome - OUTCOME_WIN + 1;
+    }
+
+    public int getMovesCount(int game) {
+        return gamesMovesCounts[game];
+    }
+
+    /**
+     * @return the column of the game's move, indexing starting at 0
+     */
+    public int getMove(int game, int index) {
+        long move = gamesMovesStarts[game] + index;
+
+        return movesChunks[(int) (move >>> MOVES_CHUNK_BITS)][(int) move & (MOVES_CHUNK_SIZE - 1)] & 0xFFFF;
+    }
+
+    /**
+     * @return the number of outcome codes of games of that many players
+     */
+    static int getOutcomesCount(int playersCount) {
+        return OUTCOME_WIN + playersCount;
+    }
+
+    private void addGame(DTGameRecordReader reader) {
+        if (gamesCount == gamesOutcomes.length) growGames();
+
+        int configuration = findConfiguration(reader.getRowsCount(), reader.getColumnsCount(),
+                reader.getPlayersCount(), reader.getWinningStreak());
+        GameStatus gameStatus = reader.getGameStatus();
+
+        gamesConfigurations[gamesCount] = (short) configuration;
+        gamesOutcomes[gamesCount] = (short) (gameStatus == GameStatus.PLAYING ? OUTCOME_UNFINISHED
+                : gameStatus == GameStatus.FINISHED_DRAW ? OUTCOME_DRAW : OUTCOME_WIN + reader.getWinnerId() - 1);
+        gamesMovesCounts[gamesCount] = reader.getMovesCount();
+        gamesMovesStarts[gamesCount] = movesCount;
+        gamesCount++;
+
+        for (int column = reader.nextMove(); column >= 0; column = reader.nextMove()) {
+            addMove(column);
+        }
+    }
+
+    /**
+     * @return the number of the configuration, numbered now if it's a new one
+     */
+    private int findConfiguration(int rowsCount, int columnsCount, int playersCount, int winningStreak) {
+        // Archives hold a handful of configurations, usually all the games of a file of the same one
+        for (int configuration = configurations.size() - 1; configuration >= 0; configuration--) {
+            int[] values = configurations.get(configuration);
+
+            if (values[0] == rowsCount && values[1] == columnsCount && values[2] == playersCount
+                    && values[3] == winningStreak) return configuration;
+        }
+
+        if (configurations.size() > Short.MAX_VALUE || columnsCount > 1 << Short.SIZE
+                || getOutcomesCount(playersCount) > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Can't load games of " + rowsCount + "x" + columnsCount + ", "
+                    + playersCount + " players");
+
+        configurations.add(new int[]{rowsCount, columnsCount, playersCount, winningStreak});
+
+        return configurations.size() - 1;
+    }
+
+    private void addMove(int column) {
+        int chunk = (int) (movesCount >>> MOVES_CHUNK_BITS);
+        int index = (int) movesCount & (MOVES_CHUNK_SIZE - 1);
+
+        if (chunk == movesChunks.length) {
+            movesChunks = Arrays.copyOf(movesChunks, chunk + 1);
+            movesChunks[chunk] = new short[INITIAL_MOVES_CAPACITY];
+        } else if (index == movesChunks[chunk].length) {
+            movesChunks[chunk] = Arrays.copyOf(movesChunks[chunk], index * 2);
+        }
+
+        movesChunks[chunk][index] = (short) column;
+        movesCount++;
+    }
+
+    private void growGames() {
+        int capacity = gamesCount * 2;
+
+        if (capacity < 0) throw new IllegalArgumentException("Too many games to load");
+
+        gamesConfigurations = Arrays.copyOf(gamesConfigurations, capacity);
+        gamesOutcomes = Arrays.copyOf(gamesOutcomes, capacity);
+        gamesMovesCounts = Arrays.copyOf(gamesMovesCounts, capacity);
+        gamesMovesStarts = Arrays.copyOf(gamesMovesStarts, capacity);
+    }
+
+    /**
+     * Gives the room left at the end of the arrays back.
+     */
+    private void trim() {
+        gamesConfigurations = Arrays.copyOf(gamesConfigurations, gamesCount);
+        gamesOutcomes = Arrays.copyOf(gamesOutcomes, gamesCount);
+        gamesMovesCounts = Arrays.copyOf(gamesMovesCounts, gamesCount);
+        gamesMovesStarts = Arrays.copyOf(gamesMovesStarts, gamesCount);
+
+        int lastChunk = movesChunks.length - 1;
+
+        movesChunks[lastChunk] = Arrays.copyOf(movesChunks[lastChunk],
+                (int) (movesCount - ((long) lastChunk << MOVES_CHUNK_BITS)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.drop_token.analytics;
+
+import java.util.Locale;
+
+/**
+ * The outcomes and lengths of a set of games, e.g. the games of a board configuration or of an opening.
+ */
+public class DTGameStats {
+
+    private final long[] outcomesCounts;
+    private long gamesCount;
+    private long movesSum;
+
+    DTGameStats(int playersCount) {
+        this.outcomesCounts = new long[DTGameArchive.getOutcomesCount(playersCount)];
+    }
+
+    /**
+     * @param outcome the outcome of the games, as coded by {@link DTGameArchive#getOutcome(int)}
+     */
+    void add(int outcome, long movesCount, long gamesCount) {
+        this.outcomesCounts[outcome] += gamesCount;
+        this.gamesCount += gamesCount;
+        this.movesSum += movesCount * gamesCount;
+    }
+
+    void merge(DTGameStats stats) {
+        for (int outcome = 0; outcome < outcomesCounts.length; outcome++) {
+            outcomesCounts[outcome] += stats.outcomesCounts[outcome];
+        }
+
+        gamesCount += stats.gamesCount;
+        movesSum += stats.movesSum;
+    }
+
+    /**
+     * Takes the games of the other stats out of these ones, which must hold them.
+     */
+    void subtract(DTGameStats stats) {
+        for (int outcome = 0; outcome < outcomesCounts.length; outcome++) {
+            outcomesCounts[outcome] -= stats.outcomesCounts[outcome];
+        }
+
+        gamesCount -= stats.gamesCount;
+        movesSum -= stats.movesSum;
+    }
+
+    public int getPlayersCount() {
+        return outcomesCounts.length - DTGameArchive.OUTCOME_WIN;
+    }
+
+    public long getGamesCount() {
+        return gamesCount;
+    }
+
+    public long getWinsCount(int playerId) {
+        return outcomesCounts[DTGameArchive.OUTCOME_WIN + playerId - 1];
+    }
+
+    public long getDrawsCount() {
+        return outcomesCounts[DTGameArchive.OUTCOME_DRAW];
+    }
+
+    /**
+     * @return the number of games recorded before they were decided
+     */
+    public long getUnfinishedCount() {
+        return outcomesCounts[DTGameArchive.OUTCOME_UNFINISHED];
+    }
+
+    /**
+     * @return the average number of moves of the games, 0 without any game
+     */
+    public double getAverageLength() {
+        return gamesCount == 0 ? 0 : (double) movesSum / gamesCount;
+    }
+
+    /**
+     * @return the share of the games the player won, from 0 to 1
+     */
+    public double getWinRate(int playerId) {
+        return gamesCount == 0 ? 0 : (double) getWinsCount(playerId) / gamesCount;
+    }
+
+    /**
+     * @return e.g. "1000 games, 21.4 moves, wins 55.1% 43.2%, draws 1.7%, unfinished 0.0%"
+     */
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder(String.format(Locale.ROOT, "%d games, %.1f moves, wins",
+                gamesCount, getAverageLength()));
+
+        for (int playerId = 1; playerId <= getPlayersCount(); playerId++) {
+            description.append(String.format(Locale.ROOT, " %.1f%%", 100 * getWinRate(playerId)));
+        }
+
+        return description.append(String.format(Locale.ROOT, ", draws %.1f%%, unfinished %.1f%%",
+                100 * getRate(getDrawsCount()), 100 * getRate(getUnfinishedCount()))).toString();
+    }
+
+    private double getRate(long count) {
+        return gamesCount == 0 ? 0 : (double) count / gamesCount;
+    }
+}
@@ -0,0 +1,265 @@
+package com.drop_token.analytics;
+
+import java.util.Arrays;
+
+/**
+ * The games of a board configuration sorted by their openings, so the games of any opening are a range of the index,
+ * found by two binary searches, and their outcomes are summed in O(log games) whatever their number.
+ * <p>
+ * Every game is a 63-bit key: the first moves of the game, each one its column plus one on just enough bits,
+ * from the highest bits down and 0 past the game's end, then its outcome, then its length. Sorting the keys
+ * sorts the games by their moves, so the games of an opening are the keys between the opening's moves followed
+ * by zeros and the next opening. Equal keys are kept once with their count, and the outcomes and lengths
+ * summed from the first key are kept every {@link #BLOCK_SIZE} keys: the sums of a range are the difference of the
+ * sums of the blocks it covers, plus the few keys at both ends.
+ */
+final class DTOpeningIndex {
+
+    private static final int KEY_BITS = Long.SIZE - 1;
+    private static final int BLOCK_SIZE = 256;
+
+    private final int playersCount;
+
+    private final int moveBits;
+    private final int outcomeBits;
+    private final int lengthBits;
+    private final int depth;
+
+    // Sorted, distinct keys and the number of games of each one
+    private final long[] keys;
+    private final int[] keysCounts;
+
+    // The stats of the keys before each block
+    private final DTGameStats[] blocksStats;
+
+    /**
+     * @param games the games of the archive of that configuration
+     */
+    DTOpeningIndex(DTGameArchive archive, int configuration, int[] games) {
+        int columnsCount = archive.getColumnsCount(configuration);
+        long slotsCount = (long) archive.getRowsCount(configuration) * columnsCount;
+
+        this.playersCount = archive.getPlayersCount(configuration);
+        this.moveBits = getBitsCount(columnsCount);
+        this.outcomeBits = getBitsCount(DTGameArchive.getOutcomesCount(playersCount) - 1);
+        this.lengthBits = getBitsCount(slotsCount);
+        this.depth = (int) Math.min(slotsCount, Math.max(0, KEY_BITS - outcomeBits - lengthBits) / moveBits);
+
+        int gamesCount = games.length;
+        long[] sortedKeys = new long[gamesCount];
+
+        for (int i = 0; i < gamesCount; i++) {
+            sortedKeys[i] = getKey(archive, games[i]);
+        }
+
+        Arrays.parallelSort(sortedKeys);
+
+        int keysCount = 0;
+
+        // Compacts the equal keys in place, counting them
+        int[] counts = new int[gamesCount];
+
+        for (int i = 0; i < gamesCount; i++) {
+            if (keysCount > 0 && sortedKeys[keysCount - 1] == sortedKeys[i]) {
+                counts[keysCount - 1]++;
+            } else {
+                sortedKeys[keysCount] = sortedKeys[i];
+                counts[keysCount++] = 1;
+            }
+        }
+
+        this.keys = Arrays.copyOf(sortedKeys, keysCount);
+        this.keysCounts = Arrays.copyOf(counts, keysCount);
+        this.blocksStats = new DTGameStats[keysCount / BLOCK_SIZE + 1];
+
+        DTGameStats stats = new DTGameStats(playersCount);
+
+        for (int i = 0; i < keysCount; i++) {
+            if (i % BLOCK_SIZE == 0) blocksStats[i / BLOCK_SIZE] = copy(stats);
+
+            addKey(stats, i);
+        }
+
+        if (keysCount % BLOCK_SIZE == 0) blocksStats[keysCount / BLOCK_SIZE] = stats;
+    }
+
+    /**
+     * @return the number of first moves the index tells apart, the longest opening it can be queried for
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @param columns the opening's moves, indexing starting at 0, at most {@link #getDepth()} of them
+     * @return the stats of the games opened with the moves
+     */
+    DTGameStats getStats(int[] columns) {
+        long firstKey = 0;
+
+        for (int column : columns) {
+            firstKey = firstKey << moveBits | column + 1;
+        }
+
+        int shift = getShift(columns.length);
+        long nextKey = firstKey + 1 << shift;
+
+        // The keys take 63 bits, so the key after the last opening is 2^63, negative as a long
+        return getStats(find(firstKey << shift), nextKey < 0 ? keys.length : find(nextKey));
+    }
+
+    /**
+     * Counts the games of every opening of the length within a range of the index, and keeps the most played ones.
+     *
+     * @param firstKey the index of the first key of the range, where an opening starts
+     * @param lastKey  the index of the key following the range, where an opening starts
+     * @param openings the most played openings so far, the first moves of their keys, best first
+     * @param counts   the games counts of the openings
+     */
+    void findTopOpenings(int movesCount, int firstKey, int lastKey, long[] openings, long[] counts) {
+        int shift = getShift(movesCount);
+
+        for (int i = firstKey; i < lastKey; ) {
+            long opening = keys[i] >>> shift;
+            long count = 0;
+
+            for (; i < lastKey && keys[i] >>> shift == opening; i++) {
+                count += keysCounts[i];
+            }
+
+            // Openings cut short by the end of their games aren't openings of that length
+            if ((opening & (1L << moveBits) - 1) != 0 || movesCount == 0)
+                addTopOpening(opening, count, openings, counts);
+        }
+    }
+
+    /**
+     * @return the index of the first key of the opening of the key at the index, or of the next opening if the index
+     * is in the middle of an opening
+     */
+    int alignToOpening(int movesCount, int index) {
+        if (index == 0 || index >= keys.length) return Math.min(index, keys.length);
+
+        int shift = getShift(movesCount);
+        long opening = keys[index - 1] >>> shift;
+
+        while (index < keys.length && keys[index] >>> shift == opening) {
+            index++;
+        }
+
+        return index;
+    }
+
+    int getKeysCount() {
+        return keys.length;
+    }
+
+    /**
+     * @return the columns of an opening found by {@link #findTopOpenings}, indexing starting at 0
+     */
+    int[] getColumns(long opening, int movesCount) {
+        int[] columns = new int[movesCount];
+
+        for (int i = movesCount - 1; i >= 0; i--, opening >>>= moveBits) {
+            columns[i] = (int) (opening & (1L << moveBits) - 1) - 1;
+        }
+
+        return columns;
+    }
+
+    private long getKey(DTGameArchive archive, int game) {
+        int movesCount = archive.getMovesCount(game);
+        long key = 0;
+
+        for (int i = 0; i < depth; i++) {
+            key = key << moveBits | (i < movesCount ? archive.getMove(game, i) + 1 : 0);
+        }
+
+        return (key << outcomeBits | archive.getOutcome(game)) << lengthBits | movesCount;
+    }
+
+    /**
+     * @return the number of bits following the first moves of a key
+     */
+    private int getShift(int movesCount) {
+        return (depth - movesCount) * moveBits + outcomeBits + lengthBits;
+    }
+
+    /**
+     * @return the index of the first key not below the key
+     */
+    private int find(long key) {
+        int index = Arrays.binarySearch(keys, key);
+
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private DTGameStats getStats(int firstKey, int lastKey) {
+        int firstBlock = (firstKey + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int lastBlock = lastKey / BLOCK_SIZE;
+
+        if (firstBlock >= lastBlock) {
+            DTGameStats stats = new DTGameStats(playersCount);
+
+            for (int i = firstKey; i < lastKey; i++) {
+                addKey(stats, i);
+            }
+
+            return stats;
+        }
+
+        DTGameStats stats = copy(blocksStats[lastBlock]);
+
+        stats.subtract(blocksStats[firstBlock]);
+
+        for (int i = firstKey; i < firstBlock * BLOCK_SIZE; i++) {
+            addKey(stats, i);
+        }
+
+        for (int i = lastBlock * BLOCK_SIZE; i < lastKey; i++) {
+            addKey(stats, i);
+        }
+
+        return stats;
+    }
+
+    private void addKey(DTGameStats stats, int index) {
+        long key = keys[index];
+
+        stats.add((int) (key >>> lengthBits) & (1 << outcomeBits) - 1, key & (1L << lengthBits) - 1,
+                keysCounts[index]);
+    }
+
+    private DTGameStats copy(DTGameStats stats) {
+        DTGameStats copy = new DTGameStats(playersCount);
+
+        copy.merge(stats);
+
+        return copy;
+    }
+
+    /**
+     * Inserts the opening among the best ones if it's played more than the last of them.
+     */
+    static void addTopOpening(long opening, long count, long[] openings, long[] counts) {
+        int index = counts.length;
+
+        while (index > 0 && counts[index - 1] < count) {
+            index--;
+        }
+
+        if (index == counts.length) return;
+
+        System.arraycopy(openings, index, openings, index + 1, openings.length - index - 1);
+        System.arraycopy(counts, index, counts, index + 1, counts.length - index - 1);
+        openings[index] = opening;
+        counts[index] = count;
+    }
+
+    /**
+     * @return the number of bits needed to hold any value from 0 to maxValue
+     */
+    private static int getBitsCount(long maxValue) {
+        return Long.SIZE - Long.numberOfLeadingZeros(maxValue);
+    }
+}
@@ -1,78 +1,267 @@
 package com.drop_token.controller;
 
+import com.drop_token.ai.DTComputerPlayer;
+import com.drop_token.ai.SearchReport;
 import com.drop_token.game_utils.InputParser;
 import com.drop_token.game_utils.InputParser.ParsedInput;
+import com.drop_token.metrics.DTMetrics;
 import com.drop_token.model.DTEngine;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
 import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.records.DTGameRecordWriter;
 import com.drop_token.view.DTConsoleManager;
+import com.drop_token.view.IDTConsoleInput;
+import com.drop_token.view.IDTConsoleManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class DTController implements IDTController {
 
-    private DTConsoleManager consoleManager;
-    private DTEngine engine;
+    private static final String COMMAND_PUT_PREFIX = "PUT ";
+
+    private IDTConsoleManager consoleManager;
+
+    // Null when the input is pushed through handleInput by the game's owner
+    private IDTConsoleInput consoleInput;
+    private IDTEngine engine;
     private InputParser inputParser;
+    private ParsedInput parsedInput;
+
+    // Computer players indexed by the id of the player they play for; null for human players
+    private DTComputerPlayer[] computerPlayers;
+
+    private DTGameRecordWriter gameRecordWriter;
+
+    // Null unless metrics were asked for, so games without them don't even read the clock
+    private DTMetrics metrics;
 
     private boolean isExitCalled;
+    private boolean isGameFinished;
 
     public DTController() {
         this(new DTEngine(), new DTConsoleManager());
     }
 
-    public DTController(DTEngine engine, DTConsoleManager consoleManager) {
+    /**
+     * A game playing on the console, reading its own input.
+     */
+    public DTController(IDTEngine engine, DTConsoleManager consoleManager) {
+        this(engine, consoleManager, consoleManager);
+    }
+
+    /**
+     * @param consoleInput where {@link #startGame()} reads the commands from, or null for a game whose input
+     *                     is pushed one line at a time through {@link #handleInput(CharSequence)}, and which
+     *                     can't be started
+     */
+    public DTController(IDTEngine engine, IDTConsoleManager consoleManager, IDTConsoleInput consoleInput) {
         this.engine = engine;
         this.consoleManager = consoleManager;
+        this.consoleInput = consoleInput;
         this.inputParser = new InputParser();
+        this.parsedInput = new ParsedInput();
+        this.computerPlayers = new DTComputerPlayer[engine.getPlayersCount() + 1];
+    }
+
+    /**
+     * Hands the turns of the given player to the computer.
+     * Its moves are fed into the game as PUT commands, in place of the console's input.
+     *
+     * @throws IllegalArgumentException if the game has no player of that id
+     */
+    public void setComputerPlayer(int playerId, DTComputerPlayer computerPlayer) {
+        if (playerId < 1 || playerId >= computerPlayers.length)
+            throw new IllegalArgumentException("No player " + playerId + ", the players are 1 to "
+                    + (computerPlayers.length - 1));
+
+        computerPlayers[playerId] = computerPlayer;
+    }
+
+    /**
+     * Records the game from now on, it's written once it's finished or exited.
+     * The writer stays owned by the caller, which closes it.
+     */
+    public void setGameRecordWriter(DTGameRecordWriter gameRecordWriter) {
+        this.gameRecordWriter = gameRecordWriter;
+        gameRecordWriter.startGame(engine);
+    }
+
+    /**
+     * Records the game's metrics from now on, counting it as a started game.
+     */
+    public void setMetrics(DTMetrics metrics) {
+        this.metrics = metrics;
+        metrics.recordGameStarted();
     }
 
     public void startGame() {
+        requireConsoleInput();
+
+        while (!isExitCalled) {
+            handleNextInput();
+        }
 
-        ParsedInput parsedInput;
+    }
+
+    /**
+     * Plays the game like {@link #startGame()}, for clients pipelining their commands.
+     * <p>
+     * Commands are still run one by one in their order, but the responses of all the commands already waiting
+     * in the input are flushed together, once there is no more input to run without blocking.
+     */
+    public void startPipelinedGame() {
+        requireConsoleInput();
 
         while (!isExitCalled) {
+            handleNextInput();
+
+            // Exiting already wrote out everything and closed the console
+            if (!isExitCalled && !consoleInput.hasPendingInput()) consoleManager.flush();
+        }
 
-                parsedInput = inputParser.parseInput(consoleManager.getNextInput());
+    }
 
-                switch (parsedInput.getInputType()) {
+    @Override
+    public void handleInput(CharSequence input) {
 
-                    case PUT:
-                        commandPut(parsedInput.getArgs()[0]);
-                        break;
-                    case GET:
-                        commandGet();
-                        break;
-                    case BOARD:
-                        commandBoard();
-                        break;
-                    case EXIT:
-                        commandExit();
-                        break;
-                    case ERROR:
-                        notifyWrongCommand();
-                        continue;
-                }
+        if (metrics == null) {
+            inputParser.parseInput(input, parsedInput);
+            dispatchCommand();
+            return;
+        }
 
-            }
+        long startNanos = System.nanoTime();
+        inputParser.parseInput(input, parsedInput);
+        long parsedNanos = System.nanoTime();
+
+        dispatchCommand();
+
+        metrics.recordParseInput(parsedNanos - startNanos);
+        metrics.recordCommand(parsedInput.getInputType(), System.nanoTime() - parsedNanos);
+    }
+
+    private void dispatchCommand() {
+        switch (parsedInput.getInputType()) {
+
+            case PUT:
+                commandPut(parsedInput.getArgs()[0]);
+                break;
+            case GET:
+                commandGet();
+                break;
+            case BOARD:
+                commandBoard();
+                break;
+            case EXIT:
+                commandExit();
+                break;
+            case ERROR:
+                notifyWrongCommand();
+                break;
+        }
+    }
 
+    /**
+     * Tells the controller a turn ran out of time, and was skipped or forfeited on the engine by the game's clock
+     * rather than by a command; a game ended by a forfeit is finished like one ended by a move.
+     */
+    public void onTurnTimedOut() {
+        if (engine.getGameStatus() != GameStatus.PLAYING) onGameFinished();
+    }
+
+    @Override
+    public boolean isExitCalled() {
+        return isExitCalled;
+    }
+
+    private void handleNextInput() {
+        String input = getNextInput();
+
+        // The input ended, nothing more can be played
+        if (input == null) {
+            commandExit();
+            return;
+        }
+
+        handleInput(input);
+    }
+
+    private String getNextInput() {
+        DTComputerPlayer computerPlayer = computerPlayers[engine.getCurrentPlayerId()];
+
+        if (computerPlayer == null || engine.getGameStatus() != GameStatus.PLAYING)
+            return consoleInput.getNextInput();
+
+        SearchReport searchReport = computerPlayer.chooseColumn(engine);
+        String input = COMMAND_PUT_PREFIX + (searchReport.getColumn() + 1);
+
+        consoleManager.displayComputerInput(input, searchReport.toString());
+
+        return input;
+    }
+
+    private void requireConsoleInput() {
+        if (consoleInput == null)
+            throw new IllegalStateException(
+                    "The game has no console input, its commands are pushed through handleInput");
     }
 
     private void commandPut(int column) {
-        TokenInsertionStatus tokenInsertionStatus = engine.insertToken(column - 1);
+        TokenInsertionStatus tokenInsertionStatus = insertToken(column - 1);
         consoleManager.displayInsertionResult(tokenInsertionStatus);
+
+        if (tokenInsertionStatus == TokenInsertionStatus.WIN || tokenInsertionStatus == TokenInsertionStatus.DRAW)
+            onGameFinished();
+    }
+
+    /**
+     * Counts the game as finished and writes its record, once, however it ended.
+     */
+    private void onGameFinished() {
+        if (isGameFinished) return;
+
+        isGameFinished = true;
+
+        if (metrics != null) metrics.recordGameFinished(engine.getMovesCount());
+        endGameRecord();
+    }
+
+    private TokenInsertionStatus insertToken(int column) {
+        if (metrics == null) return engine.insertToken(column);
+
+        long startNanos = System.nanoTime();
+        TokenInsertionStatus tokenInsertionStatus = engine.insertToken(column);
+        metrics.recordInsertion(tokenInsertionStatus, System.nanoTime() - startNanos);
+
+        return tokenInsertionStatus;
     }
 
     private void commandGet() {
-        consoleManager.printInsertionSequence(engine.getInsertionSequence());
+        consoleManager.printInsertionSequence(engine);
     }
 
     private void commandBoard() {
-        consoleManager.printBoard(engine.getBoard());
+        consoleManager.printBoard(engine);
     }
 
     private void commandExit() {
         isExitCalled = true;
+        endGameRecord();
         consoleManager.exit();
     }
 
+    private void endGameRecord() {
+        if (gameRecordWriter == null) return;
+
+        try {
+            gameRecordWriter.endGame();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't record the game", e);
+        }
+    }
+
     private void notifyWrongCommand() {
         consoleManager.notifyWrongInput();
     }
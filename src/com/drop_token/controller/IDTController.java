@@ -7,4 +7,17 @@ public interface IDTController {
      * Manages the logic of the gameplay, and communicates directly with the game engine.
      * */
      void startGame();
+
+    /**
+     * Runs a single command against the game and writes its response through the console manager.
+     * Lets a game be driven one input at a time by whoever owns the input, without blocking on it.
+     *
+     * @param input the raw command line, as typed by the user
+     */
+    void handleInput(CharSequence input);
+
+    /**
+     * @return if the EXIT command was received, after which the game takes no more input
+     */
+    boolean isExitCalled();
 }
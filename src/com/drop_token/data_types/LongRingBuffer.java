@@ -0,0 +1,69 @@
+package com.drop_token.data_types;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of longs between a single producer thread and a single consumer thread, without locking.
+ * <p>
+ * The values sit in a power of two sized array, indexed by ever growing head and tail counters; each side
+ * only writes its own counter, and publishes it with an ordered store, so neither ever waits for the other.
+ */
+public class LongRingBuffer {
+
+    private final long[] values;
+    private final int mask;
+
+    // The count of values polled, written by the consumer only
+    private final AtomicLong head = new AtomicLong();
+
+    // The count of values offered, written by the producer only
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public LongRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+
+        this.values = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Called by the producer only.
+     *
+     * @return false if the buffer is full, and the value wasn't added
+     */
+    public boolean offer(long value) {
+        long currentTail = tail.get();
+
+        if (currentTail - head.get() == values.length) return false;
+
+        values[(int) currentTail & mask] = value;
+        tail.lazySet(currentTail + 1);
+
+        return true;
+    }
+
+    /**
+     * Called by the consumer only, which must check that the buffer isn't empty first.
+     *
+     * @return the oldest value
+     */
+    public long poll() {
+        long currentHead = head.get();
+        long value = values[(int) currentHead & mask];
+
+        head.lazySet(currentHead + 1);
+
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    public int getCapacity() {
+        return values.length;
+    }
+}
@@ -0,0 +1,62 @@
+package com.drop_token.data_types;
+
+import java.util.Arrays;
+
+/**
+ * The columns of a game's moves in play order, in a growable int array.
+ * Appending and removing the last move are O(1), any move is read by index, and nothing is ever boxed.
+ */
+public class MoveHistory {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] columns;
+    private int size;
+
+    public MoveHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveHistory(int capacity) {
+        this.columns = new int[Math.max(1, capacity)];
+    }
+
+    public MoveHistory(MoveHistory moveHistory) {
+        this.columns = moveHistory.columns.clone();
+        this.size = moveHistory.size;
+    }
+
+    public void add(int column) {
+        if (size == columns.length) columns = Arrays.copyOf(columns, size * 2);
+
+        columns[size++] = column;
+    }
+
+    /**
+     * @return the column of the removed move
+     */
+    public int removeLast() {
+        return columns[--size];
+    }
+
+    /**
+     * @param index 0 for the first move
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+
+        return columns[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
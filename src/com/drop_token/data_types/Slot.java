@@ -1,20 +1,41 @@
 package com.drop_token.data_types;
 
 public class Slot {
+
+    // The directions of the streaks; the diagonal rises to the right, the anti-diagonal falls to the right
+    public static final int DIRECTION_HORIZONTAL = 0;
+    public static final int DIRECTION_VERTICAL = 1;
+    public static final int DIRECTION_DIAGONAL = 2;
+    public static final int DIRECTION_ANTI_DIAGONAL = 3;
+    public static final int DIRECTIONS_COUNT = 4;
+
     private int tokenId;
     private int streakHorizontal;
     private int streakVertical;
     private int streakDiagonal;
+    private int streakAntiDiagonal;
 
     public Slot(int tokenId) {
-        this(tokenId, 0, 0, 0);
+        this(tokenId, 0, 0, 0, 0);
     }
 
-    public Slot(int tokenId, int streakHorizontal, int streakVertical, int streakDiagonal) {
+    public Slot(int tokenId, int streakHorizontal, int streakVertical, int streakDiagonal, int streakAntiDiagonal) {
         this.tokenId = tokenId;
         this.streakHorizontal = streakHorizontal;
         this.streakVertical = streakVertical;
         this.streakDiagonal = streakDiagonal;
+        this.streakAntiDiagonal = streakAntiDiagonal;
+    }
+
+    /**
+     * Empties the slot, as if no token was ever inserted into it.
+     */
+    public void clear() {
+        this.tokenId = 0;
+        this.streakHorizontal = 0;
+        this.streakVertical = 0;
+        this.streakDiagonal = 0;
+        this.streakAntiDiagonal = 0;
     }
 
     @Override
@@ -56,4 +77,47 @@ public class Slot {
     public void setStreakDiagonal(int streakDiagonal) {
         this.streakDiagonal = streakDiagonal;
     }
+
+    public int getStreakAntiDiagonal() {
+        return streakAntiDiagonal;
+    }
+
+    public void setStreakAntiDiagonal(int streakAntiDiagonal) {
+        this.streakAntiDiagonal = streakAntiDiagonal;
+    }
+
+    /**
+     * @param direction one of the DIRECTION constants
+     */
+    public int getStreak(int direction) {
+        switch (direction) {
+            case DIRECTION_HORIZONTAL:
+                return streakHorizontal;
+            case DIRECTION_VERTICAL:
+                return streakVertical;
+            case DIRECTION_DIAGONAL:
+                return streakDiagonal;
+            default:
+                return streakAntiDiagonal;
+        }
+    }
+
+    /**
+     * @param direction one of the DIRECTION constants
+     */
+    public void setStreak(int direction, int streak) {
+        switch (direction) {
+            case DIRECTION_HORIZONTAL:
+                streakHorizontal = streak;
+                break;
+            case DIRECTION_VERTICAL:
+                streakVertical = streak;
+                break;
+            case DIRECTION_DIAGONAL:
+                streakDiagonal = streak;
+                break;
+            default:
+                streakAntiDiagonal = streak;
+        }
+    }
 }
@@ -0,0 +1,63 @@
+package com.drop_token.game_utils;
+
+/**
+ * A reusable character sequence viewing a window of an US-ASCII byte array, one char per byte.
+ * Lets raw network or file bytes be parsed as text without decoding them into a String first.
+ */
+public class AsciiSequence implements CharSequence {
+
+    private byte[] bytes;
+    private int offset;
+    private int length;
+
+    public AsciiSequence() {
+        this(new byte[0], 0, 0);
+    }
+
+    public AsciiSequence(byte[] bytes, int offset, int length) {
+        wrap(bytes, offset, length);
+    }
+
+    /**
+     * Points the sequence to another window, without copying the bytes.
+     *
+     * @return this sequence
+     */
+    public AsciiSequence wrap(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException("Index: " + index);
+
+        return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException("Range: " + start + " to " + end);
+
+        return new AsciiSequence(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            stringBuilder.append(charAt(i));
+        }
+
+        return stringBuilder.toString();
+    }
+}
@@ -1,73 +1,138 @@
 package com.drop_token.game_utils;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class InputParser {
 
-    // Regex to have a command of one of the four commands (PUT|GET|BOARD|EXIT) -case insensitive-
+    // The accepted grammar is the one of this regex, applied on the trimmed input;
+    // a command of one of the four commands (PUT|GET|BOARD|EXIT) -case insensitive-
     // and also checks for additional arg of the column index
-    private static final String REGEX_COMMANDS = "^\\s*(?i)(PUT|GET|BOARD|EXIT)(\\s+(\\d+)?)?\\s*$";
-
-    private static final int GROUP_POSITION_COMMAND = 1;
-    private static final int GROUP_POSITION_COLUMN = 3;
+    //
+    //     ^\s*(?i)(PUT|GET|BOARD|EXIT)(\s+(\d+)?)?\s*$
+    //
+    // The input is scanned by hand instead, so parsing allocates nothing.
 
     private static final String COMMAND_PUT = "PUT";
     private static final String COMMAND_GET = "GET";
     private static final String COMMAND_BOARD = "BOARD";
     private static final String COMMAND_EXIT = "EXIT";
 
-    private final Pattern commandPattern;
+    private static final int NO_COLUMN = -1;
 
-    public InputParser() {
-        this.commandPattern = Pattern.compile(REGEX_COMMANDS);
+    public ParsedInput parseInput(String input) {
+        return parseInput(input, new ParsedInput());
     }
 
-    public ParsedInput parseInput(String input) {
+    /**
+     * Parses the input into the given result, so the same result can be reused for every command.
+     *
+     * @param input       the command line, either a String or any other character sequence such as an
+     *                    {@link AsciiSequence} over raw bytes
+     * @param parsedInput the result to fill
+     * @return the given result
+     */
+    public ParsedInput parseInput(CharSequence input, ParsedInput parsedInput) {
 
-        ParsedInput parsedInput = new ParsedInput();
         parsedInput.setInputType(InputType.ERROR);
 
-        Matcher commandMatcher = commandPattern.matcher(input.trim());
+        int end = input.length();
+        int position = 0;
+
+        // Same as String.trim()
+        while (position < end && input.charAt(position) <= ' ') position++;
+        while (end > position && input.charAt(end - 1) <= ' ') end--;
+
+        if (position == end) return parsedInput;
+
+        InputType inputType;
+        String command;
+
+        switch (toUpperCase(input.charAt(position))) {
+            case 'P':
+                inputType = InputType.PUT;
+                command = COMMAND_PUT;
+                break;
+            case 'G':
+                inputType = InputType.GET;
+                command = COMMAND_GET;
+                break;
+            case 'B':
+                inputType = InputType.BOARD;
+                command = COMMAND_BOARD;
+                break;
+            case 'E':
+                inputType = InputType.EXIT;
+                command = COMMAND_EXIT;
+                break;
+            default:
+                return parsedInput;
+        }
+
+        if (!matchesCommand(input, position, end, command)) return parsedInput;
 
-        if (!commandMatcher.matches()) return parsedInput;
+        position += command.length();
 
-        String command = commandMatcher.group(GROUP_POSITION_COMMAND);
+        int column = NO_COLUMN;
 
-        if (command != null) {
+        if (position < end) {
 
-            String column = commandMatcher.group(GROUP_POSITION_COLUMN);
+            if (!isWhitespace(input.charAt(position))) return parsedInput;
 
-            switch (command.toUpperCase()) {
+            while (position < end && isWhitespace(input.charAt(position))) position++;
 
-                case COMMAND_PUT:
-                    if (column != null) {
-                        parsedInput.setInputType(InputType.PUT);
-                        parsedInput.setArgs(new int[]{Integer.valueOf(column)});
-                    }
+            if (position < end && isDigit(input.charAt(position))) {
+                column = 0;
 
-                    break;
-                case COMMAND_GET:
-                    if (column == null)
-                        parsedInput.setInputType(InputType.GET);
-                    break;
-                case COMMAND_BOARD:
-                    if (column == null)
-                        parsedInput.setInputType(InputType.BOARD);
-                    break;
-                case COMMAND_EXIT:
-                    if (column == null)
-                        parsedInput.setInputType(InputType.EXIT);
-                    break;
+                while (position < end && isDigit(input.charAt(position))) {
+                    int digit = input.charAt(position++) - '0';
+
+                    // Too big for an int, which can't be a column anyway
+                    if (column > (Integer.MAX_VALUE - digit) / 10) return parsedInput;
+
+                    column = column * 10 + digit;
+                }
+
+                while (position < end && isWhitespace(input.charAt(position))) position++;
             }
+
+            if (position < end) return parsedInput;
         }
 
+        // Only PUT takes the column argument, and it requires it
+        if ((inputType == InputType.PUT) != (column != NO_COLUMN)) return parsedInput;
+
+        parsedInput.setInputType(inputType);
+        parsedInput.getArgs()[0] = column;
+
         return parsedInput;
     }
 
-    public class ParsedInput {
+    private static boolean matchesCommand(CharSequence input, int position, int end, String command) {
+        if (end - position < command.length()) return false;
+
+        for (int i = 0; i < command.length(); i++) {
+            if (toUpperCase(input.charAt(position + i)) != command.charAt(i)) return false;
+        }
+
+        return true;
+    }
+
+    // Case insensitivity only applies to US-ASCII, as in a regex without the UNICODE_CASE flag
+    private static char toUpperCase(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+
+    // The characters of the regex \s class
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // The characters of the regex \d class
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public static class ParsedInput {
         private InputType inputType;
-        private int[] args;
+        private int[] args = new int[1];
 
         public InputType getInputType() {
             return inputType;
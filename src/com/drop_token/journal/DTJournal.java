@@ -0,0 +1,473 @@
+package com.drop_token.journal;
+
+import com.drop_token.data_types.MoveHistory;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.model.IDTMoveListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A write-ahead log of the moves of live games, so they survive the JVM going down, in the
+ * {@link JournalFormat}.
+ * <p>
+ * Every accepted token, undo, skipped turn, forfeit and game end is appended as a record of 8 bytes
+ * to an in-memory batch, which is all it costs the game's thread. A single writer thread writes the batch and forces
+ * it to the disk while the next batch fills up, so one fsync commits every move made during the previous one
+ * (group commit). A move is durable once its batch is committed, about an fsync after it was made; a crash may lose
+ * the moves of the last batches, never a move without the ones before it.
+ * <p>
+ * Opening an existing journal recovers its games that weren't ended: they're replayed in parallel, and kept until
+ * their clients resume them. The file is then rewritten with these games only, so it doesn't grow across restarts
+ * with the games that ended.
+ */
+public class DTJournal implements Closeable {
+
+    private static final int INITIAL_BATCH_SIZE = 1 << 16;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final String COMPACTION_SUFFIX = ".compacting";
+
+    // The turns of a live game are kept as the columns of its moves, and negative codes for the others;
+    // TURN_SKIPPED, or TURN_SKIPPED - playerId for a forfeit
+    private static final int TURN_SKIPPED = -1;
+
+    private final int rowsCount;
+    private final int columnsCount;
+    private final int playersCount;
+    private final int winningStreak;
+
+    private final FileChannel channel;
+    private final Thread writerThread;
+
+    private final AtomicInteger lastGameId = new AtomicInteger();
+    private final ConcurrentMap<Integer, IDTEngine> recoveredGames = new ConcurrentHashMap<>();
+
+    // Guards the batch being appended to, and the closing
+    private final Object lock = new Object();
+    private ByteBuffer batch = ByteBuffer.allocateDirect(INITIAL_BATCH_SIZE);
+    private boolean isClosed;
+
+    // Only touched by the writer thread
+    private ByteBuffer committingBatch = ByteBuffer.allocateDirect(INITIAL_BATCH_SIZE);
+
+    private volatile long commitsCount;
+    private volatile IOException failure;
+
+    /**
+     * Opens the journal, creating it if it doesn't exist, and recovers the games left live in it.
+     *
+     * @param engineFactory creates the engines the recovered games are replayed on, called from several threads
+     * @throws IOException if the file isn't a journal, or one of games of another configuration
+     */
+    public DTJournal(Path file, int rowsCount, int columnsCount, int playersCount, int winningStreak,
+                     Supplier<IDTEngine> engineFactory) throws IOException {
+        this.rowsCount = rowsCount;
+        this.columnsCount = columnsCount;
+        this.playersCount = playersCount;
+        this.winningStreak = winningStreak;
+
+        Map<Integer, MoveHistory> liveGames = new HashMap<>();
+
+        if (Files.exists(file)) readLiveGames(file, liveGames);
+
+        // Games without a token, all of their moves undone, have nothing to resume
+        liveGames.values().removeIf(turns -> !hasMove(turns));
+
+        replayLiveGames(liveGames, engineFactory);
+        compact(file, liveGames);
+
+        this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        this.writerThread = new Thread(this::commitBatches, "dt-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Starts journaling a new game, whose engine mustn't have any token yet.
+     * The game is only recovered once it has tokens.
+     *
+     * @return the journal of the game, listening to its engine
+     */
+    public GameLog startGame(IDTEngine engine) {
+        return new GameLog(lastGameId.incrementAndGet(), engine);
+    }
+
+    /**
+     * Takes a recovered game, at most once.
+     *
+     * @return the journal of the game, listening to its engine, or null if no such game was recovered
+     */
+    public GameLog resumeGame(int gameId) {
+        IDTEngine engine = recoveredGames.remove(gameId);
+
+        return engine == null ? null : new GameLog(gameId, engine);
+    }
+
+    /**
+     * @return the number of recovered games not resumed yet
+     */
+    public int getRecoveredGamesCount() {
+        return recoveredGames.size();
+    }
+
+    /**
+     * @return the number of batches forced to the disk so far
+     */
+    public long getCommitsCount() {
+        return commitsCount;
+    }
+
+    /**
+     * Commits the records appended so far and closes the file; later records are dropped.
+     * The games that weren't ended are recovered when the journal is opened again.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            isClosed = true;
+            lock.notifyAll();
+        }
+
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+
+        if (failure != null) throw new IOException("Failed committing the journal", failure);
+    }
+
+    private void append(long record) {
+        synchronized (lock) {
+            if (isClosed) return;
+
+            if (!batch.hasRemaining()) {
+                // The writer is behind, the batch grows rather than blocking the game
+                ByteBuffer biggerBatch = ByteBuffer.allocateDirect(batch.capacity() * 2);
+                batch.flip();
+                biggerBatch.put(batch);
+                batch = biggerBatch;
+            }
+
+            batch.putLong(record);
+
+            // The writer only waits for the first record of a batch
+            if (batch.position() == JournalFormat.RECORD_SIZE) lock.notifyAll();
+        }
+    }
+
+    /**
+     * The writer thread's loop; swaps the filled batch with the committed one, and commits it.
+     */
+    private void commitBatches() {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while (batch.position() == 0 && !isClosed) {
+                        lock.wait();
+                    }
+
+                    // Closed, and every record was committed
+                    if (batch.position() == 0) return;
+
+                    ByteBuffer filledBatch = batch;
+                    batch = committingBatch;
+                    committingBatch = filledBatch;
+                }
+
+                committingBatch.flip();
+
+                while (committingBatch.hasRemaining()) {
+                    channel.write(committingBatch);
+                }
+
+                committingBatch.clear();
+                channel.force(false);
+                commitsCount++;
+            }
+        } catch (IOException e) {
+            failure = e;
+
+            synchronized (lock) {
+                isClosed = true;
+            }
+
+            throw new IllegalStateException("Failed committing the journal, the games aren't journaled anymore", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads the turns of the games that weren't ended, in their order. A record cut by a crash ends the journal.
+     */
+    private void readLiveGames(Path file, Map<Integer, MoveHistory> liveGames) throws IOException {
+        try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            // Nothing was ever written
+            if (readChannel.size() == 0) return;
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+            buffer.limit(JournalFormat.FILE_HEADER_SIZE);
+
+            while (buffer.hasRemaining()) {
+                if (readChannel.read(buffer) < 0) throw new IOException("Truncated journal: " + file);
+            }
+
+            buffer.flip();
+
+            if (buffer.getInt() != JournalFormat.MAGIC || buffer.getInt() != JournalFormat.VERSION)
+                throw new IOException("Not a journal file: " + file);
+
+            if (buffer.getInt() != rowsCount || buffer.getInt() != columnsCount || buffer.getInt() != playersCount
+                    || buffer.getInt() != winningStreak)
+                throw new IOException("The journal's games are of another configuration: " + file);
+
+            buffer.clear();
+
+            while (readChannel.read(buffer) >= 0) {
+                buffer.flip();
+
+                while (buffer.remaining() >= JournalFormat.RECORD_SIZE) {
+                    if (!readRecord(buffer.getLong(), liveGames)) return;
+                }
+
+                buffer.compact();
+            }
+        }
+    }
+
+    /**
+     * @return false if the record ends the journal
+     */
+    private boolean readRecord(long record, Map<Integer, MoveHistory> liveGames) throws IOException {
+        int gameId = JournalFormat.getGameId(record);
+
+        lastGameId.set(Math.max(lastGameId.get(), gameId));
+
+        switch (JournalFormat.getType(record)) {
+            case JournalFormat.TYPE_NONE:
+                return false;
+            case JournalFormat.TYPE_MOVE:
+                liveGames.computeIfAbsent(gameId, id -> new MoveHistory()).add(JournalFormat.getColumn(record));
+                return true;
+            case JournalFormat.TYPE_SKIP:
+                liveGames.computeIfAbsent(gameId, id -> new MoveHistory()).add(TURN_SKIPPED);
+                return true;
+            case JournalFormat.TYPE_FORFEIT:
+                liveGames.computeIfAbsent(gameId, id -> new MoveHistory())
+                        .add(TURN_SKIPPED - JournalFormat.getColumn(record));
+                return true;
+            case JournalFormat.TYPE_UNDO:
+                MoveHistory turns = liveGames.get(gameId);
+
+                if (turns == null || !removeLastMove(turns)) throw new IOException("Corrupt journal, undo of no move");
+
+                return true;
+            case JournalFormat.TYPE_END:
+                liveGames.remove(gameId);
+                return true;
+            default:
+                throw new IOException("Corrupt journal, unknown record type");
+        }
+    }
+
+    private static boolean hasMove(MoveHistory turns) {
+        for (int i = 0; i < turns.size(); i++) {
+            if (turns.get(i) >= 0) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes the last move and the turns skipped after it, as undoing it does; the forfeits after it stay.
+     *
+     * @return false if there's no move to remove
+     */
+    private static boolean removeLastMove(MoveHistory turns) {
+        int moveIndex = turns.size() - 1;
+
+        while (moveIndex >= 0 && turns.get(moveIndex) < 0) moveIndex--;
+
+        if (moveIndex < 0) return false;
+
+        int[] forfeits = new int[turns.size() - 1 - moveIndex];
+        int forfeitsCount = 0;
+
+        while (turns.size() > moveIndex + 1) {
+            int turn = turns.removeLast();
+
+            if (turn < TURN_SKIPPED) forfeits[forfeitsCount++] = turn;
+        }
+
+        turns.removeLast();
+
+        while (forfeitsCount > 0) {
+            turns.add(forfeits[--forfeitsCount]);
+        }
+
+        return true;
+    }
+
+    /**
+     * Replays every game on its own engine, the games being spread over all the cores.
+     */
+    private void replayLiveGames(Map<Integer, MoveHistory> liveGames, Supplier<IDTEngine> engineFactory)
+            throws IOException {
+        try {
+            liveGames.entrySet().parallelStream().forEach(game -> {
+                IDTEngine engine = engineFactory.get();
+                MoveHistory turns = game.getValue();
+
+                for (int i = 0; i < turns.size(); i++) {
+                    if (!replayTurn(engine, turns.get(i)))
+                        throw new UncheckedIOException(new IOException("Corrupt journal, game " + game.getKey()
+                                + " doesn't replay"));
+                }
+
+                recoveredGames.put(game.getKey(), engine);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return false if the engine refused the turn
+     */
+    private static boolean replayTurn(IDTEngine engine, int turn) {
+        if (turn >= 0) return engine.insertToken(turn) != TokenInsertionStatus.ERROR;
+        if (turn == TURN_SKIPPED) return engine.skipTurn();
+
+        return engine.forfeit(TURN_SKIPPED - turn);
+    }
+
+    /**
+     * Replaces the file with one holding only the live games, written aside and moved over it atomically,
+     * so a crash meanwhile leaves either file whole.
+     */
+    private void compact(Path file, Map<Integer, MoveHistory> liveGames) throws IOException {
+        Path compactedFile = file.resolveSibling(file.getFileName() + COMPACTION_SUFFIX);
+
+        try (FileChannel compactedChannel = FileChannel.open(compactedFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+
+            buffer.putInt(JournalFormat.MAGIC).putInt(JournalFormat.VERSION)
+                    .putInt(rowsCount).putInt(columnsCount).putInt(playersCount).putInt(winningStreak);
+
+            for (Map.Entry<Integer, MoveHistory> game : liveGames.entrySet()) {
+                MoveHistory turns = game.getValue();
+
+                for (int i = 0; i < turns.size(); i++) {
+                    if (buffer.remaining() < JournalFormat.RECORD_SIZE) write(compactedChannel, buffer);
+
+                    buffer.putLong(getTurnRecord(game.getKey(), turns.get(i)));
+                }
+            }
+
+            write(compactedChannel, buffer);
+            compactedChannel.force(true);
+        }
+
+        Files.move(compactedFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long getTurnRecord(int gameId, int turn) {
+        if (turn >= 0) return JournalFormat.getRecord(gameId, JournalFormat.TYPE_MOVE, turn);
+        if (turn == TURN_SKIPPED) return JournalFormat.getRecord(gameId, JournalFormat.TYPE_SKIP, 0);
+
+        return JournalFormat.getRecord(gameId, JournalFormat.TYPE_FORFEIT, TURN_SKIPPED - turn);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * The journal of a single game, listening to its engine's turns.
+     * Only accepted tokens reach it, the engine doesn't report the insertions it refuses.
+     */
+    public class GameLog implements IDTMoveListener {
+
+        private final int gameId;
+        private final IDTEngine engine;
+
+        private GameLog(int gameId, IDTEngine engine) {
+            this.gameId = gameId;
+            this.engine = engine;
+
+            engine.setMoveListener(this);
+        }
+
+        /**
+         * @return the id the game is resumed by
+         */
+        public int getGameId() {
+            return gameId;
+        }
+
+        public IDTEngine getEngine() {
+            return engine;
+        }
+
+        @Override
+        public void onTokenInserted(int column) {
+            append(JournalFormat.getRecord(gameId, JournalFormat.TYPE_MOVE, column));
+        }
+
+        @Override
+        public void onTokenRemoved() {
+            append(JournalFormat.getRecord(gameId, JournalFormat.TYPE_UNDO, 0));
+        }
+
+        @Override
+        public void onTurnSkipped() {
+            append(JournalFormat.getRecord(gameId, JournalFormat.TYPE_SKIP, 0));
+        }
+
+        @Override
+        public void onPlayerForfeited(int playerId) {
+            append(JournalFormat.getRecord(gameId, JournalFormat.TYPE_FORFEIT, playerId));
+        }
+
+        /**
+         * Journals the end of the game, which won't be recovered, and stops listening to its engine.
+         */
+        public void end() {
+            engine.setMoveListener(null);
+            append(JournalFormat.getRecord(gameId, JournalFormat.TYPE_END, 0));
+        }
+
+        /**
+         * Stops listening to the engine, leaving the game to be recovered when the journal is opened again.
+         */
+        public void detach() {
+            engine.setMoveListener(null);
+        }
+    }
+}
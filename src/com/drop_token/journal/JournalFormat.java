@@ -0,0 +1,52 @@
+package com.drop_token.journal;
+
+/**
+ * The layout of journal files, shared by the journal's writing and its recovery.
+ * <p>
+ * A file starts with six big-endian ints; the magic number, the format version, then the rows count,
+ * the columns count, the players count and the winning streak of all its games. Records follow,
+ * each one a big-endian long holding the game's id in its 32 highest bits, the column of a move or the id of
+ * a forfeiting player above bit 8, and the record's type in its 8 lowest bits. Records are appended as the games go,
+ * so the records of a game are in the order of its moves, interleaved with the records of the other games.
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x44544A4C;
+    static final int VERSION = 1;
+    static final int FILE_HEADER_SIZE = 6 * Integer.BYTES;
+    static final int RECORD_SIZE = Long.BYTES;
+
+    // A zeroed record, as a crash while the file was growing may leave, ends the journal
+    static final int TYPE_NONE = 0;
+    static final int TYPE_MOVE = 1;
+    static final int TYPE_UNDO = 2;
+    static final int TYPE_END = 3;
+    static final int TYPE_SKIP = 4;
+    static final int TYPE_FORFEIT = 5;
+
+    private static final int TYPE_BITS = 8;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private JournalFormat() {
+    }
+
+    /**
+     * @param column the column of a move, indexing starting at 0, less than 2^24, or the id of a forfeiting player;
+     *               0 for the other types
+     */
+    static long getRecord(int gameId, int type, int column) {
+        return (long) gameId << Integer.SIZE | (long) column << TYPE_BITS | type;
+    }
+
+    static int getGameId(long record) {
+        return (int) (record >>> Integer.SIZE);
+    }
+
+    static int getType(long record) {
+        return (int) record & TYPE_MASK;
+    }
+
+    static int getColumn(long record) {
+        return (int) record >>> TYPE_BITS;
+    }
+}
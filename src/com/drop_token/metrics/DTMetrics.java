@@ -0,0 +1,222 @@
+package com.drop_token.metrics;
+
+import com.drop_token.game_utils.InputParser.InputType;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies of the games played, shared by every game that records into it.
+ * <p>
+ * Metrics are opt-in: a controller only records them once given an instance, and recording is lock-free,
+ * so the games of a server's event loops record into the same instance without contending.
+ */
+public class DTMetrics implements DTMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.drop_token:type=DTMetrics";
+
+    private static final TokenInsertionStatus[] INSERTION_STATUSES = TokenInsertionStatus.values();
+    private static final InputType[] INPUT_TYPES = InputType.values();
+
+    private final LongAdder[] insertions = new LongAdder[INSERTION_STATUSES.length];
+    private final LatencyHistogram insertTokenLatency = new LatencyHistogram();
+    private final LatencyHistogram parseInputLatency = new LatencyHistogram();
+
+    // Indexed by the command's input type ordinal
+    private final LatencyHistogram[] commandLatencies = new LatencyHistogram[INPUT_TYPES.length];
+
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder finishedGamesMoves = new LongAdder();
+
+    public DTMetrics() {
+        for (int i = 0; i < insertions.length; i++) {
+            insertions[i] = new LongAdder();
+        }
+
+        for (int i = 0; i < commandLatencies.length; i++) {
+            commandLatencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Exposes the metrics on the platform MBean server, under {@link #OBJECT_NAME}.
+     */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            throw new IllegalStateException("Couldn't register the metrics", e);
+        }
+    }
+
+    public void recordInsertion(TokenInsertionStatus status, long nanos) {
+        insertions[status.ordinal()].increment();
+        insertTokenLatency.record(nanos);
+    }
+
+    public void recordParseInput(long nanos) {
+        parseInputLatency.record(nanos);
+    }
+
+    public void recordCommand(InputType inputType, long nanos) {
+        commandLatencies[inputType.ordinal()].record(nanos);
+    }
+
+    public void recordGameStarted() {
+        gamesStarted.increment();
+    }
+
+    public void recordGameFinished(int movesCount) {
+        gamesFinished.increment();
+        finishedGamesMoves.add(movesCount);
+    }
+
+    public long getInsertions(TokenInsertionStatus status) {
+        return insertions[status.ordinal()].sum();
+    }
+
+    public LatencyHistogram getInsertTokenLatency() {
+        return insertTokenLatency;
+    }
+
+    public LatencyHistogram getParseInputLatency() {
+        return parseInputLatency;
+    }
+
+    public LatencyHistogram getCommandLatency(InputType inputType) {
+        return commandLatencies[inputType.ordinal()];
+    }
+
+    @Override
+    public long getInsertionsOk() {
+        return getInsertions(TokenInsertionStatus.OK);
+    }
+
+    @Override
+    public long getInsertionsError() {
+        return getInsertions(TokenInsertionStatus.ERROR);
+    }
+
+    @Override
+    public long getInsertionsWin() {
+        return getInsertions(TokenInsertionStatus.WIN);
+    }
+
+    @Override
+    public long getInsertionsDraw() {
+        return getInsertions(TokenInsertionStatus.DRAW);
+    }
+
+    @Override
+    public long getGamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    @Override
+    public long getGamesFinished() {
+        return gamesFinished.sum();
+    }
+
+    @Override
+    public double getAverageGameLength() {
+        long finished = gamesFinished.sum();
+        return finished == 0 ? 0 : (double) finishedGamesMoves.sum() / finished;
+    }
+
+    @Override
+    public double getInsertTokenMeanNanos() {
+        return insertTokenLatency.getMeanNanos();
+    }
+
+    @Override
+    public long getInsertTokenP99Nanos() {
+        return insertTokenLatency.getPercentileNanos(99);
+    }
+
+    @Override
+    public double getParseInputMeanNanos() {
+        return parseInputLatency.getMeanNanos();
+    }
+
+    @Override
+    public long getParseInputP99Nanos() {
+        return parseInputLatency.getPercentileNanos(99);
+    }
+
+    @Override
+    public Map<String, Long> getCommandP99Nanos() {
+        Map<String, Long> percentiles = new TreeMap<>();
+
+        for (InputType inputType : INPUT_TYPES) {
+            LatencyHistogram latency = getCommandLatency(inputType);
+
+            if (latency.getCount() > 0) percentiles.put(inputType.name(), latency.getPercentileNanos(99));
+        }
+
+        return percentiles;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+
+        report.append("games: started=").append(getGamesStarted())
+                .append(" finished=").append(getGamesFinished())
+                .append(" averageLength=").append(String.format(Locale.ROOT, "%.1f", getAverageGameLength()))
+                .append('\n');
+
+        report.append("insertions:");
+        for (TokenInsertionStatus status : INSERTION_STATUSES) {
+            report.append(' ').append(status.name()).append('=').append(getInsertions(status));
+        }
+        report.append('\n');
+
+        appendLatency(report, "insertToken", insertTokenLatency);
+        appendLatency(report, "parseInput", parseInputLatency);
+
+        for (InputType inputType : INPUT_TYPES) {
+            appendLatency(report, "command " + inputType.name(), getCommandLatency(inputType));
+        }
+
+        return report.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : insertions) {
+            counter.reset();
+        }
+
+        insertTokenLatency.reset();
+        parseInputLatency.reset();
+
+        for (LatencyHistogram latency : commandLatencies) {
+            latency.reset();
+        }
+
+        gamesStarted.reset();
+        gamesFinished.reset();
+        finishedGamesMoves.reset();
+    }
+
+    private static void appendLatency(StringBuilder report, String name, LatencyHistogram latency) {
+        long count = latency.getCount();
+
+        if (count == 0) return;
+
+        report.append(name).append(" (ns): count=").append(count)
+                .append(" mean=").append(String.format(Locale.ROOT, "%.0f", latency.getMeanNanos()))
+                .append(" p50=").append(latency.getPercentileNanos(50))
+                .append(" p99=").append(latency.getPercentileNanos(99))
+                .append(" p99.9=").append(latency.getPercentileNanos(99.9))
+                .append(" max=").append(latency.getMaxNanos())
+                .append('\n');
+    }
+}
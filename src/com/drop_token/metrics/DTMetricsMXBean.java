@@ -0,0 +1,49 @@
+package com.drop_token.metrics;
+
+import java.util.Map;
+
+/**
+ * The game metrics as exposed over JMX, latencies are in nanoseconds.
+ */
+public interface DTMetricsMXBean {
+
+    long getInsertionsOk();
+
+    long getInsertionsError();
+
+    long getInsertionsWin();
+
+    long getInsertionsDraw();
+
+    long getGamesStarted();
+
+    long getGamesFinished();
+
+    /**
+     * @return the average number of moves of the finished games
+     */
+    double getAverageGameLength();
+
+    double getInsertTokenMeanNanos();
+
+    long getInsertTokenP99Nanos();
+
+    double getParseInputMeanNanos();
+
+    long getParseInputP99Nanos();
+
+    /**
+     * @return the 99th percentile latency of every command type that was handled
+     */
+    Map<String, Long> getCommandP99Nanos();
+
+    /**
+     * @return every metric as text, as dumped by {@link DTMetricsReporter}
+     */
+    String getReport();
+
+    /**
+     * Forgets every metric recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,41 @@
+package com.drop_token.metrics;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dumps the metrics' report periodically, on a daemon thread so it never keeps the application alive.
+ * Closing it stops the dumps and prints a last one.
+ */
+public class DTMetricsReporter implements Closeable {
+
+    private final DTMetrics metrics;
+    private final PrintStream out;
+    private final ScheduledExecutorService scheduler;
+
+    public DTMetricsReporter(DTMetrics metrics, PrintStream out, long periodSeconds) {
+        this.metrics = metrics;
+        this.out = out;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dt-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleAtFixedRate(this::report, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        report();
+    }
+
+    private void report() {
+        out.print(metrics.getReport());
+        out.flush();
+    }
+}
@@ -0,0 +1,114 @@
+package com.drop_token.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds, recorded by any number of threads without locking.
+ * <p>
+ * Buckets are laid out as in HdrHistogram: values below 16 get a bucket each, and every power of two above
+ * is split into 16 buckets of equal width, so a recorded value is known within 1/16 of it, whatever its magnitude.
+ * Recording is a single atomic increment of its bucket, plus the sum and the maximum.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // Positive longs have at most 63 significant bits, the first SUB_BUCKET_BITS of them share the linear buckets
+    private static final int BUCKETS_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS_COUNT);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos the latency, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        counts.incrementAndGet(getBucketIndex(nanos));
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+
+        for (int index = 0; index < BUCKETS_COUNT; index++) {
+            count += counts.get(index);
+        }
+
+        return count;
+    }
+
+    /**
+     * @return the mean of the recorded latencies, or 0 if none was recorded
+     */
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest latency of the bucket holding the percentile, or 0 if none was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long count = getCount();
+
+        if (count == 0) return 0;
+
+        // The rank of the percentile's value among the recorded ones, starting at 1
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int index = 0; index < BUCKETS_COUNT; index++) {
+            seen += counts.get(index);
+
+            if (seen >= rank) return Math.min(getBucketHighestValue(index), getMaxNanos());
+        }
+
+        // Values recorded while counting
+        return getMaxNanos();
+    }
+
+    /**
+     * Forgets everything recorded so far; values recorded meanwhile may be partly lost.
+     */
+    public void reset() {
+        for (int index = 0; index < BUCKETS_COUNT; index++) {
+            counts.set(index, 0);
+        }
+
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKETS_COUNT) return (int) value;
+
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+
+        // The top SUB_BUCKET_BITS + 1 bits, without the leading one, pick the bucket within the power of two
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS_COUNT;
+
+        return (shift + 1) * SUB_BUCKETS_COUNT + subBucket;
+    }
+
+    static long getBucketHighestValue(int index) {
+        if (index < SUB_BUCKETS_COUNT) return index;
+
+        int shift = index / SUB_BUCKETS_COUNT - 1;
+        long lowestValue = (long) (SUB_BUCKETS_COUNT + index % SUB_BUCKETS_COUNT) << shift;
+
+        return lowestValue + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,436 @@
+package com.drop_token.model;
+
+import java.util.Arrays;
+
+/**
+ * An {@link IDTEngine} that keeps the whole board inside a handful of longs.
+ * <p>
+ * Every column occupies (rowsCount + 1) consecutive bits, bottom to top, with the extra bit acting as a
+ * sentinel that is never set so shifted masks can't wrap from one column into the next.
+ * Each player owns a single bitmask of the slots holding their tokens, and the heights of the columns
+ * determine the next insertion bit.
+ * Token insertion never allocates, and win detection is a constant number of shift-and-AND operations.
+ * <p>
+ * The board must fit into 64 bits, which means columnsCount * (rowsCount + 1) <= 64.
+ */
+public class BitboardDTEngine implements IDTEngine {
+
+    private static final int DEFAULT_BOARD_SIZE = 4;
+    private static final int DEFAULT_PLAYERS_COUNT = 2;
+    private static final int DEFAULT_WINNING_STREAK = DEFAULT_BOARD_SIZE;
+
+    private final int playersCount;
+    private final int rowsCount;
+    private final int columnsCount;
+    private final int winningStreak;
+
+    // Number of bits reserved for a single column, including the sentinel bit
+    private final int columnStride;
+
+    // One bit at the bottom of every column
+    private final long bottomMask;
+
+    private final long[] playersMasks;
+    private final int[] columnsHeights;
+    private final int[] insertionSequence;
+    private int tokensCount;
+
+    // Tokens restored from a snapshot, ahead of the moves in insertionSequence
+    private int restoredTokensCount;
+    private long positionHash;
+
+    private GameStatus gameStatus;
+
+    // Shifts the turns from the tokens count, once turns are skipped or forfeited
+    private final DTTurnOrder turnOrder;
+
+    private IDTMoveListener moveListener;
+
+    public BitboardDTEngine() {
+        this(DEFAULT_BOARD_SIZE, DEFAULT_PLAYERS_COUNT, DEFAULT_WINNING_STREAK);
+    }
+
+    public BitboardDTEngine(int boardSize, int playersCount, int winningStreak) {
+        this(boardSize, boardSize, playersCount, winningStreak);
+    }
+
+    public BitboardDTEngine(int rowsCount, int columnsCount, int playersCount, int winningStreak) {
+        if (rowsCount <= 0 || columnsCount <= 0 || columnsCount * (rowsCount + 1) > Long.SIZE)
+            throw new IllegalArgumentException(
+                    "Board of " + rowsCount + "x" + columnsCount + " doesn't fit into a bitboard");
+
+        this.rowsCount = rowsCount;
+        this.columnsCount = columnsCount;
+        this.playersCount = playersCount;
+        this.winningStreak = winningStreak;
+        this.columnStride = rowsCount + 1;
+        this.bottomMask = getBottomMask(rowsCount, columnsCount);
+        this.playersMasks = new long[playersCount];
+        this.columnsHeights = new int[columnsCount];
+        this.insertionSequence = new int[rowsCount * columnsCount];
+        this.turnOrder = new DTTurnOrder(playersCount);
+        this.gameStatus = GameStatus.PLAYING;
+    }
+
+    private BitboardDTEngine(BitboardDTEngine engine) {
+        this.rowsCount = engine.rowsCount;
+        this.columnsCount = engine.columnsCount;
+        this.playersCount = engine.playersCount;
+        this.winningStreak = engine.winningStreak;
+        this.columnStride = engine.columnStride;
+        this.bottomMask = engine.bottomMask;
+        this.playersMasks = engine.playersMasks.clone();
+        this.columnsHeights = engine.columnsHeights.clone();
+        this.insertionSequence = engine.insertionSequence.clone();
+        this.tokensCount = engine.tokensCount;
+        this.restoredTokensCount = engine.restoredTokensCount;
+        this.positionHash = engine.positionHash;
+        this.gameStatus = engine.gameStatus;
+        this.turnOrder = new DTTurnOrder(engine.turnOrder);
+    }
+
+    @Override
+    public BitboardDTEngine copy() {
+        return new BitboardDTEngine(this);
+    }
+
+    @Override
+    public TokenInsertionStatus insertToken(int column) {
+
+        if (gameStatus != GameStatus.PLAYING || !isInsertionValid(column)) {
+            return TokenInsertionStatus.ERROR;
+        }
+
+        int playerIndex = turnOrder.getCurrentPlayerId(tokensCount) - 1;
+
+        long playerMask = playersMasks[playerIndex] | getSlotBit(columnsHeights[column], column);
+        playersMasks[playerIndex] = playerMask;
+        positionHash ^= DTPositionHash.getTokenHash(columnsHeights[column], column, playerIndex + 1);
+
+        columnsHeights[column]++;
+        insertionSequence[tokensCount++] = column;
+        turnOrder.onTokenInserted(tokensCount);
+
+        if (moveListener != null) moveListener.onTokenInserted(column);
+
+        return getTokenInsertionStatus(hasStreak(playerMask));
+    }
+
+    @Override
+    public boolean undo() {
+
+        if (tokensCount == restoredTokensCount) return false;
+
+        int playerIndex = turnOrder.getLastPlayerId(tokensCount) - 1;
+        int column = insertionSequence[--tokensCount];
+
+        columnsHeights[column]--;
+        playersMasks[playerIndex] &= ~getSlotBit(columnsHeights[column], column);
+        positionHash ^= DTPositionHash.getTokenHash(columnsHeights[column], column, playerIndex + 1);
+
+        turnOrder.onTokenRemoved(tokensCount);
+        gameStatus = turnOrder.isWonByForfeit() ? GameStatus.FINISHED_WIN : GameStatus.PLAYING;
+
+        if (moveListener != null) moveListener.onTokenRemoved();
+
+        return true;
+    }
+
+    @Override
+    public void reset() {
+
+        Arrays.fill(playersMasks, 0);
+        Arrays.fill(columnsHeights, 0);
+
+        while (tokensCount > restoredTokensCount) {
+            tokensCount--;
+
+            if (moveListener != null) moveListener.onTokenRemoved();
+        }
+
+        tokensCount = 0;
+        restoredTokensCount = 0;
+        positionHash = 0;
+        turnOrder.reset();
+        gameStatus = GameStatus.PLAYING;
+    }
+
+    @Override
+    public boolean skipTurn() {
+
+        if (gameStatus != GameStatus.PLAYING) return false;
+
+        turnOrder.skipTurn(tokensCount);
+
+        if (moveListener != null) moveListener.onTurnSkipped();
+
+        return true;
+    }
+
+    @Override
+    public boolean forfeit(int playerId) {
+
+        if (gameStatus != GameStatus.PLAYING || playerId < 1 || playerId > playersCount
+                || !turnOrder.forfeit(playerId, tokensCount)) return false;
+
+        if (turnOrder.isWonByForfeit()) gameStatus = GameStatus.FINISHED_WIN;
+
+        if (moveListener != null) moveListener.onPlayerForfeited(playerId);
+
+        return true;
+    }
+
+    @Override
+    public void restore(DTSnapshot snapshot) {
+        if (!snapshot.supports(this))
+            throw new IllegalArgumentException("Snapshot of another board configuration");
+
+        Arrays.fill(playersMasks, 0);
+        Arrays.fill(columnsHeights, 0);
+        positionHash = 0;
+        turnOrder.reset();
+
+        snapshot.forEachToken((height, column, playerId) -> {
+            playersMasks[playerId - 1] |= getSlotBit(height, column);
+            columnsHeights[column]++;
+            positionHash ^= DTPositionHash.getTokenHash(height, column, playerId);
+        });
+
+        tokensCount = snapshot.getTokensCount();
+        restoredTokensCount = tokensCount;
+
+        boolean hasWon = false;
+
+        for (long playerMask : playersMasks) {
+            hasWon |= hasStreak(playerMask);
+        }
+
+        // The status the last of the tokens would have left
+        gameStatus = GameStatus.PLAYING;
+        getTokenInsertionStatus(hasWon);
+    }
+
+    @Override
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    @Override
+    public void setMoveListener(IDTMoveListener moveListener) {
+        this.moveListener = moveListener;
+    }
+
+    private TokenInsertionStatus getTokenInsertionStatus(boolean hasWon) {
+
+        TokenInsertionStatus tokenInsertionStatus = TokenInsertionStatus.OK;
+
+        if (hasWon) {
+            tokenInsertionStatus = TokenInsertionStatus.WIN;
+            gameStatus = GameStatus.FINISHED_WIN;
+        } else if (tokensCount >= rowsCount * columnsCount) {
+            tokenInsertionStatus = TokenInsertionStatus.DRAW;
+            gameStatus = GameStatus.FINISHED_DRAW;
+        }
+
+        return tokenInsertionStatus;
+    }
+
+    /**
+     * @param playerMask the bitmask of the player's tokens
+     *                   <p>
+     *                   Checks the four directions of the board, vertical, horizontal and both diagonals.
+     *                   This has a runtime of O(winningStreak), independent of the board contents.
+     * @return if the player has a winning streak anywhere on the board
+     */
+    private boolean hasStreak(long playerMask) {
+        return hasStreak(playerMask, 1)
+                || hasStreak(playerMask, columnStride)
+                || hasStreak(playerMask, columnStride + 1)
+                || hasStreak(playerMask, columnStride - 1);
+    }
+
+    /**
+     * @param playerMask the bitmask of the player's tokens
+     * @param shift      the distance in bits between two consecutive slots in the checked direction
+     * @return if there are winningStreak set bits each separated by the given shift
+     */
+    private boolean hasStreak(long playerMask, int shift) {
+        long streaks = playerMask;
+
+        for (int i = 1; i < winningStreak && streaks != 0; i++) {
+            int distance = i * shift;
+
+            if (distance >= Long.SIZE) return false;
+
+            streaks &= playerMask >>> distance;
+        }
+
+        return streaks != 0;
+    }
+
+    /**
+     * Identifies the position of a two players game with a single long, the same whatever moves led to it.
+     * <p>
+     * Within each column's bits, the first player's tokens are set, and so is the bit right above the column's top
+     * token. The player to play follows from the number of tokens.
+     *
+     * @return the position's key, which uses the lowest columnsCount * (rowsCount + 1) bits
+     */
+    public long getPositionKey() {
+        long occupiedMask = 0;
+
+        for (long playerMask : playersMasks) {
+            occupiedMask |= playerMask;
+        }
+
+        // Adding the bottom bits carries every column's occupied bits into its first empty bit
+        return playersMasks[0] + occupiedMask + bottomMask;
+    }
+
+    /**
+     * @return the key of the position, or of its mirror image, the same one for both
+     */
+    public long getCanonicalPositionKey() {
+        long positionKey = getPositionKey();
+        return Math.min(positionKey, mirrorPositionKey(positionKey, rowsCount, columnsCount));
+    }
+
+    /**
+     * @return the key {@link #getPositionKey()} would give for the position on the board, whatever engine holds it
+     */
+    public static long getPositionKey(IDTBoardView board) {
+        int rowsCount = board.getRowsCount();
+        int columnsCount = board.getColumnsCount();
+        long positionKey = 0;
+
+        for (int column = 0; column < columnsCount; column++) {
+            int height = 0;
+
+            for (int row = rowsCount - 1; row >= 0 && board.getTokenId(row, column) != 0; row--, height++) {
+                if (board.getTokenId(row, column) == 1) positionKey |= 1L << (column * (rowsCount + 1) + height);
+            }
+
+            positionKey |= 1L << (column * (rowsCount + 1) + height);
+        }
+
+        return positionKey;
+    }
+
+    /**
+     * @return the key of the same position with the columns in reverse order
+     */
+    public static long mirrorPositionKey(long positionKey, int rowsCount, int columnsCount) {
+        int columnStride = rowsCount + 1;
+        long columnMask = (1L << columnStride) - 1;
+        long mirroredKey = 0;
+
+        for (int column = 0; column < columnsCount; column++) {
+            long columnBits = (positionKey >>> (column * columnStride)) & columnMask;
+            mirroredKey |= columnBits << ((columnsCount - 1 - column) * columnStride);
+        }
+
+        return mirroredKey;
+    }
+
+    @Override
+    public int getMovesCount() {
+        return tokensCount - restoredTokensCount;
+    }
+
+    @Override
+    public int getMoveColumn(int index) {
+        if (index < 0 || index >= getMovesCount())
+            throw new IndexOutOfBoundsException("Index: " + index + ", moves: " + getMovesCount());
+
+        return insertionSequence[restoredTokensCount + index];
+    }
+
+    @Override
+    public int[][] getBoard() {
+        int[][] outBoard = new int[rowsCount][columnsCount];
+
+        for (int playerIndex = 0; playerIndex < playersCount; playerIndex++) {
+            long playerMask = playersMasks[playerIndex];
+
+            for (int row = 0; row < rowsCount; row++) {
+                for (int column = 0; column < columnsCount; column++) {
+                    if ((playerMask & getSlotBit(rowsCount - 1 - row, column)) != 0)
+                        outBoard[row][column] = playerIndex + 1;
+                }
+            }
+        }
+
+        return outBoard;
+    }
+
+    @Override
+    public int getTokenId(int row, int column) {
+        long slotBit = getSlotBit(rowsCount - 1 - row, column);
+
+        for (int playerIndex = 0; playerIndex < playersCount; playerIndex++) {
+            if ((playersMasks[playerIndex] & slotBit) != 0) return playerIndex + 1;
+        }
+
+        return 0;
+    }
+
+    @Override
+    public int getCurrentPlayerId() {
+        return turnOrder.getCurrentPlayerId(tokensCount);
+    }
+
+    @Override
+    public int getPreviousPlayerId() {
+        return turnOrder.getLastPlayerId(tokensCount);
+    }
+
+    @Override
+    public int getWinnerId() {
+        if (gameStatus != GameStatus.FINISHED_WIN) return 0;
+
+        return turnOrder.isWonByForfeit() ? getCurrentPlayerId() : getPreviousPlayerId();
+    }
+
+    @Override
+    public GameStatus getGameStatus() {
+        return gameStatus;
+    }
+
+    @Override
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    @Override
+    public int getColumnsCount() {
+        return columnsCount;
+    }
+
+    @Override
+    public int getPlayersCount() {
+        return playersCount;
+    }
+
+    @Override
+    public int getWinningStreak() {
+        return winningStreak;
+    }
+
+    private static long getBottomMask(int rowsCount, int columnsCount) {
+        long bottomMask = 0;
+
+        for (int column = 0; column < columnsCount; column++) {
+            bottomMask |= 1L << (column * (rowsCount + 1));
+        }
+
+        return bottomMask;
+    }
+
+    private long getSlotBit(int height, int column) {
+        return 1L << (column * columnStride + height);
+    }
+
+    private boolean isInsertionValid(int column) {
+        return column >= 0 && column < columnsCount && columnsHeights[column] < rowsCount;
+    }
+}
@@ -0,0 +1,426 @@
+package com.drop_token.model;
+
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * An engine shared by threads: any thread may play moves, one at a time, while any number of threads read the game,
+ * without ever blocking the moves nor seeing a move half applied.
+ * <p>
+ * The moves are played on the wrapped engine by a single writer at a time, which claims the game by moving
+ * a sequence counter from even to odd with a compare-and-set, and releases it by moving the counter to the next even
+ * value. The writer then publishes the game's state into atomic copies: the tokens of every column, the moves,
+ * and the counters. Readers never touch the wrapped engine: a single getter reads a single published value,
+ * and {@link #read(Function)} reads several at once in the seqlock fashion, retrying until the counter
+ * didn't change while it read, so whatever it builds is the state between two moves.
+ * <p>
+ * Writers contending for the game spin, yielding the CPU, for as long as the move of the writer before them takes.
+ * The move listener is called by the writer once the move is published, so it reads the game as the move left it;
+ * it must not play moves itself.
+ */
+public class DTConcurrentEngine implements IDTEngine {
+
+    private static final int INITIAL_COLUMN_CAPACITY = 4;
+    private static final int INITIAL_MOVES_CAPACITY = 16;
+
+    private final IDTEngine engine;
+    private final int rowsCount;
+    private final int columnsCount;
+
+    // Even between moves, odd while a writer plays one
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Thread writer;
+
+    // The tokens of each column bottom to top, the empty slots at 0; null until the column's first token
+    private final AtomicReferenceArray<AtomicIntegerArray> columnsTokens;
+    private volatile AtomicIntegerArray movesColumns = new AtomicIntegerArray(INITIAL_MOVES_CAPACITY);
+
+    private volatile int movesCount;
+    private volatile int currentPlayerId;
+    private volatile int previousPlayerId;
+    private volatile int winnerId;
+    private volatile GameStatus gameStatus;
+    private volatile long positionHash;
+
+    // Only touched by the writer
+    private final int[] columnsHeights;
+    private IDTMoveListener moveListener;
+
+    /**
+     * @param engine the game to share, which is only played through this engine from now on
+     */
+    public DTConcurrentEngine(IDTEngine engine) {
+        this.engine = engine;
+        this.rowsCount = engine.getRowsCount();
+        this.columnsCount = engine.getColumnsCount();
+        this.columnsTokens = new AtomicReferenceArray<>(columnsCount);
+        this.columnsHeights = new int[columnsCount];
+
+        engine.setMoveListener(null);
+        publishGame();
+    }
+
+    /**
+     * Reads several values of the game at once, from the state between two moves.
+     * The reader may run several times, and see torn states on the runs but the last one, which it may
+     * throw from; it must not have side effects. Called by the writer, e.g. from the move listener,
+     * it reads the game as it is.
+     *
+     * @param reader reads the game through the getters of this engine
+     * @return what the last run of the reader returned
+     */
+    public <T> T read(Function<? super DTConcurrentEngine, T> reader) {
+        if (writer == Thread.currentThread()) return reader.apply(this);
+
+        while (true) {
+            long startSequence = sequence.get();
+
+            if ((startSequence & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+
+            T result;
+
+            try {
+                result = reader.apply(this);
+            } catch (RuntimeException e) {
+                // A torn state may not make sense to the reader
+                if (sequence.get() == startSequence) throw e;
+                continue;
+            }
+
+            if (sequence.get() == startSequence) return result;
+        }
+    }
+
+    /**
+     * @return a version growing with every move, refused ones included; the game is the same at the same version
+     */
+    public long getVersion() {
+        return sequence.get() >>> 1;
+    }
+
+    @Override
+    public TokenInsertionStatus insertToken(int column) {
+        beginWrite();
+
+        try {
+            int playerId = engine.getCurrentPlayerId();
+            TokenInsertionStatus status = engine.insertToken(column);
+
+            if (status == TokenInsertionStatus.ERROR) return status;
+
+            publishToken(column, columnsHeights[column]++, playerId);
+            publishMove(engine.getMovesCount() - 1, column);
+            publishState();
+
+            if (moveListener != null) moveListener.onTokenInserted(column);
+
+            return status;
+        } finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    public boolean undo() {
+        beginWrite();
+
+        try {
+            int movesCount = engine.getMovesCount();
+
+            if (movesCount == 0) return false;
+
+            int column = engine.getMoveColumn(movesCount - 1);
+
+            if (!engine.undo()) return false;
+
+            publishToken(column, --columnsHeights[column], 0);
+            publishState();
+
+            if (moveListener != null) moveListener.onTokenRemoved();
+
+            return true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    public boolean skipTurn() {
+        beginWrite();
+
+        try {
+            if (!engine.skipTurn()) return false;
+
+            publishState();
+
+            if (moveListener != null) moveListener.onTurnSkipped();
+
+            return true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    public boolean forfeit(int playerId) {
+        beginWrite();
+
+        try {
+            if (!engine.forfeit(playerId)) return false;
+
+            publishState();
+
+            if (moveListener != null) moveListener.onPlayerForfeited(playerId);
+
+            return true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    public void reset() {
+        beginWrite();
+
+        try {
+            int removedMovesCount = engine.getMovesCount();
+
+            engine.reset();
+            publishGame();
+
+            for (int i = 0; moveListener != null && i < removedMovesCount; i++) {
+                moveListener.onTokenRemoved();
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    public void restore(DTSnapshot snapshot) {
+        beginWrite();
+
+        try {
+            engine.restore(snapshot);
+            publishGame();
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * @return an engine sharing a copy of the game, taken between two moves
+     */
+    @Override
+    public IDTEngine copy() {
+        beginWrite();
+
+        try {
+            return new DTConcurrentEngine(engine.copy());
+        } finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    public void setMoveListener(IDTMoveListener moveListener) {
+        beginWrite();
+
+        try {
+            this.moveListener = moveListener;
+        } finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    public DTSnapshot snapshot() {
+        return read(DTSnapshot::of);
+    }
+
+    @Override
+    @Deprecated
+    public LinkedList<Integer> getInsertionSequence() {
+        return read(game -> IDTEngine.super.getInsertionSequence());
+    }
+
+    @Override
+    public int[][] getBoard() {
+        return read(game -> {
+            int[][] board = new int[rowsCount][columnsCount];
+
+            for (int row = 0; row < rowsCount; row++) {
+                for (int column = 0; column < columnsCount; column++) {
+                    board[row][column] = game.getTokenId(row, column);
+                }
+            }
+
+            return board;
+        });
+    }
+
+    @Override
+    public int getTokenId(int row, int column) {
+        AtomicIntegerArray tokens = columnsTokens.get(column);
+        int height = rowsCount - 1 - row;
+
+        return tokens == null || height >= tokens.length() ? 0 : tokens.get(height);
+    }
+
+    @Override
+    public int getMovesCount() {
+        return movesCount;
+    }
+
+    @Override
+    public int getMoveColumn(int index) {
+        return movesColumns.get(index);
+    }
+
+    @Override
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    @Override
+    public int getCurrentPlayerId() {
+        return currentPlayerId;
+    }
+
+    @Override
+    public int getPreviousPlayerId() {
+        return previousPlayerId;
+    }
+
+    @Override
+    public int getWinnerId() {
+        return winnerId;
+    }
+
+    @Override
+    public GameStatus getGameStatus() {
+        return gameStatus;
+    }
+
+    @Override
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    @Override
+    public int getColumnsCount() {
+        return columnsCount;
+    }
+
+    @Override
+    public int getPlayersCount() {
+        return engine.getPlayersCount();
+    }
+
+    @Override
+    public int getWinningStreak() {
+        return engine.getWinningStreak();
+    }
+
+    /**
+     * Claims the game for the current thread, waiting for the writer before it.
+     */
+    private void beginWrite() {
+        if (writer == Thread.currentThread())
+            throw new IllegalStateException("The game can't be played while a move is played");
+
+        while (true) {
+            long currentSequence = sequence.get();
+
+            if ((currentSequence & 1) == 0 && sequence.compareAndSet(currentSequence, currentSequence + 1)) break;
+
+            Thread.yield();
+        }
+
+        writer = Thread.currentThread();
+    }
+
+    private void endWrite() {
+        writer = null;
+
+        // The published values are all written before the counter, so a reader seeing it sees them too
+        sequence.lazySet(sequence.get() + 1);
+    }
+
+    /**
+     * Publishes the whole game of the wrapped engine, over whatever was published before.
+     */
+    private void publishGame() {
+        for (int column = 0; column < columnsCount; column++) {
+            while (columnsHeights[column] > 0) {
+                publishToken(column, --columnsHeights[column], 0);
+            }
+
+            while (columnsHeights[column] < rowsCount
+                    && engine.getTokenId(rowsCount - 1 - columnsHeights[column], column) != 0) {
+                int height = columnsHeights[column]++;
+
+                publishToken(column, height, engine.getTokenId(rowsCount - 1 - height, column));
+            }
+        }
+
+        for (int i = 0; i < engine.getMovesCount(); i++) {
+            publishMove(i, engine.getMoveColumn(i));
+        }
+
+        publishState();
+    }
+
+    private void publishToken(int column, int height, int playerId) {
+        AtomicIntegerArray tokens = columnsTokens.get(column);
+
+        if (tokens == null || height >= tokens.length()) {
+            if (playerId == 0) return;
+
+            // Grown by copies, so a reader holding the previous array still reads the tokens it had
+            AtomicIntegerArray grownTokens = new AtomicIntegerArray(tokens == null
+                    ? Math.min(rowsCount, INITIAL_COLUMN_CAPACITY) : Math.min(rowsCount, tokens.length() * 2));
+
+            for (int i = 0; tokens != null && i < tokens.length(); i++) {
+                grownTokens.lazySet(i, tokens.get(i));
+            }
+
+            columnsTokens.set(column, grownTokens);
+            tokens = grownTokens;
+        }
+
+        tokens.lazySet(height, playerId);
+    }
+
+    private void publishMove(int index, int column) {
+        AtomicIntegerArray columns = movesColumns;
+
+        if (index >= columns.length()) {
+            AtomicIntegerArray grownColumns = new AtomicIntegerArray(columns.length() * 2);
+
+            for (int i = 0; i < columns.length(); i++) {
+                grownColumns.lazySet(i, columns.get(i));
+            }
+
+            movesColumns = grownColumns;
+            columns = grownColumns;
+        }
+
+        columns.lazySet(index, column);
+    }
+
+    private void publishState() {
+        movesCount = engine.getMovesCount();
+        currentPlayerId = engine.getCurrentPlayerId();
+        previousPlayerId = engine.getPreviousPlayerId();
+        winnerId = engine.getWinnerId();
+        gameStatus = engine.getGameStatus();
+        positionHash = engine.getPositionHash();
+    }
+}
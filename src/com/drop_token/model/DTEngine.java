@@ -1,9 +1,10 @@
 package com.drop_token.model;
 
+import com.drop_token.data_types.MoveHistory;
 import com.drop_token.data_types.Slot;
 
 import java.io.PrintStream;
-import java.util.LinkedList;
+import java.util.Arrays;
 
 public class DTEngine implements IDTEngine {
 
@@ -11,35 +12,106 @@ public class DTEngine implements IDTEngine {
     private static final int DEFAULT_PLAYERS_COUNT = 2;
     private static final int DEFAULT_WINNING_STREAK = DEFAULT_BOARD_SIZE;
 
+    // Columns are allocated on their first token, then grow by chunks, doubling up to the rows count
+    private static final int COLUMN_CHUNK_SIZE = 8;
+
+    // Steps from a slot to the next one, for each of the Slot directions
+    private static final int[] DIRECTIONS_ROW_STEPS = {0, 1, -1, 1};
+    private static final int[] DIRECTIONS_COLUMN_STEPS = {1, 0, 1, 1};
+
+    // The lengths of the two runs joined by a token, in each direction
+    private static final int JOURNAL_ENTRIES_PER_TOKEN = 2 * Slot.DIRECTIONS_COUNT;
+
+    private static final int INITIAL_JOURNAL_SIZE = 64 * JOURNAL_ENTRIES_PER_TOKEN;
+
     private int playersCount;
-    private int boardSize;
+    private int rowsCount;
+    private int columnsCount;
 
-    private Slot[][] board;
+    // The slots of every column, bottom to top; null for the columns that never had a token.
+    // Slots above a column's tokens are empty, they keep the objects of undone tokens to be reused by the next ones
+    private Slot[][] columns;
     private int[] insertionIndices;
     private int tokensCount;
+    private long positionHash;
 
     private GameStatus gameStatus;
 
-    private LinkedList<Integer> playersQueue = new LinkedList<>();
-    private LinkedList<Integer> insertionSequence = new LinkedList<>();
+    private MoveHistory moveHistory;
+
+    // Shifts the turns from the tokens count, once turns are skipped or forfeited
+    private DTTurnOrder turnOrder;
 
     private int winningStreak;
 
+    private IDTMoveListener moveListener;
+
+    // Undo journal; the lengths of the runs joined by each insertion, see joinRuns
+    private int[] joinedStreaks;
+
     public DTEngine() {
         this(DEFAULT_BOARD_SIZE, DEFAULT_PLAYERS_COUNT, DEFAULT_WINNING_STREAK);
     }
 
     public DTEngine(int boardSize, int playersCount, int winningStreak) {
-        this.boardSize = boardSize;
+        this(boardSize, boardSize, playersCount, winningStreak);
+    }
+
+    /**
+     * Only the columns' bookkeeping is allocated, in O(columnsCount), the slots are allocated along with the tokens.
+     * So boards of thousands of rows and columns take memory in proportion to their tokens.
+     */
+    public DTEngine(int rowsCount, int columnsCount, int playersCount, int winningStreak) {
+        this.rowsCount = rowsCount;
+        this.columnsCount = columnsCount;
         this.playersCount = playersCount;
         this.winningStreak = winningStreak;
-        this.board = new Slot[boardSize][boardSize];
-        this.insertionIndices = new int[boardSize];
+        this.columns = new Slot[columnsCount][];
+        this.insertionIndices = new int[columnsCount];
+        this.joinedStreaks = new int[INITIAL_JOURNAL_SIZE];
+        this.moveHistory = new MoveHistory();
+        this.turnOrder = new DTTurnOrder(playersCount);
         this.gameStatus = GameStatus.PLAYING;
 
-        initBoard();
         initInsertionIndices();
-        initPlayers();
+    }
+
+    /**
+     * Copies the given engine's state slot by slot, without initializing a board of its own first.
+     */
+    private DTEngine(DTEngine engine) {
+        this.rowsCount = engine.rowsCount;
+        this.columnsCount = engine.columnsCount;
+        this.playersCount = engine.playersCount;
+        this.winningStreak = engine.winningStreak;
+        this.columns = new Slot[columnsCount][];
+        this.insertionIndices = engine.insertionIndices.clone();
+        this.tokensCount = engine.tokensCount;
+        this.positionHash = engine.positionHash;
+        this.gameStatus = engine.gameStatus;
+        this.moveHistory = new MoveHistory(engine.moveHistory);
+        this.turnOrder = new DTTurnOrder(engine.turnOrder);
+        this.joinedStreaks = engine.joinedStreaks.clone();
+
+        for (int i = 0; i < columnsCount; i++) {
+            Slot[] column = engine.columns[i];
+
+            if (column == null) continue;
+
+            columns[i] = new Slot[column.length];
+
+            for (int j = 0; j < getColumnHeight(i); j++) {
+                Slot slot = column[j];
+
+                columns[i][j] = new Slot(slot.getTokenId(), slot.getStreakHorizontal(),
+                        slot.getStreakVertical(), slot.getStreakDiagonal(), slot.getStreakAntiDiagonal());
+            }
+        }
+    }
+
+    @Override
+    public DTEngine copy() {
+        return new DTEngine(this);
     }
 
     @Override
@@ -49,19 +121,145 @@ public class DTEngine implements IDTEngine {
             return TokenInsertionStatus.ERROR;
         }
 
-        int currentPlayer = getNextPlayerToPlay();
+        int currentPlayer = getCurrentPlayerId();
 
         int insertionRow = insertionIndices[column];
 
-        board[insertionRow][column] = new Slot(currentPlayer);
+        Slot currentSlot = fillSlot(insertionRow, column, currentPlayer);
+        positionHash ^= DTPositionHash.getTokenHash(rowsCount - 1 - insertionRow, column, currentPlayer);
 
-        boolean hasWon = updateStreaks(insertionRow, column);
+        boolean hasWon = updateStreaks(currentSlot, insertionRow, column);
 
         updateCounters(column);
 
         return getTokenInsertionStatus(hasWon);
     }
 
+    /**
+     * Reverts the last insertion in O(1), the streaks it changed are restored from the undo journal.
+     * The emptied slot keeps its object, for the next token inserted there.
+     */
+    @Override
+    public boolean undo() {
+
+        if (moveHistory.isEmpty()) return false;
+
+        int column = moveHistory.removeLast();
+        int row = ++insertionIndices[column];
+        int height = rowsCount - 1 - row;
+
+        tokensCount--;
+        positionHash ^= DTPositionHash.getTokenHash(height, column, columns[column][height].getTokenId());
+
+        splitRuns(row, column);
+
+        turnOrder.onTokenRemoved(tokensCount);
+        gameStatus = turnOrder.isWonByForfeit() ? GameStatus.FINISHED_WIN : GameStatus.PLAYING;
+
+        if (moveListener != null) moveListener.onTokenRemoved();
+
+        return true;
+    }
+
+    /**
+     * Only the columns of the played tokens are emptied, in O(tokens) whatever the board size.
+     * The runs need no splitting, every slot holding them is emptied, and all the slots are kept for the next game.
+     */
+    @Override
+    public void reset() {
+
+        while (!moveHistory.isEmpty()) {
+            insertionIndices[moveHistory.removeLast()]++;
+            tokensCount--;
+
+            if (moveListener != null) moveListener.onTokenRemoved();
+        }
+
+        // Tokens restored from a snapshot aren't in the history, they're emptied along with every column
+        if (tokensCount > 0) initInsertionIndices();
+
+        tokensCount = 0;
+        positionHash = 0;
+        turnOrder.reset();
+        gameStatus = GameStatus.PLAYING;
+    }
+
+    @Override
+    public boolean skipTurn() {
+
+        if (gameStatus != GameStatus.PLAYING) return false;
+
+        turnOrder.skipTurn(tokensCount);
+
+        if (moveListener != null) moveListener.onTurnSkipped();
+
+        return true;
+    }
+
+    @Override
+    public boolean forfeit(int playerId) {
+
+        if (gameStatus != GameStatus.PLAYING || playerId < 1 || playerId > playersCount
+                || !turnOrder.forfeit(playerId, tokensCount)) return false;
+
+        if (turnOrder.isWonByForfeit()) gameStatus = GameStatus.FINISHED_WIN;
+
+        if (moveListener != null) moveListener.onPlayerForfeited(playerId);
+
+        return true;
+    }
+
+    /**
+     * Fills the slots column by column, then joins the runs of every direction in a single pass over the tokens,
+     * as insertions would have left them.
+     */
+    @Override
+    public void restore(DTSnapshot snapshot) {
+        if (!snapshot.supports(this))
+            throw new IllegalArgumentException("Snapshot of another board configuration");
+
+        moveHistory.clear();
+        initInsertionIndices();
+        tokensCount = 0;
+        positionHash = 0;
+        turnOrder.reset();
+
+        snapshot.forEachToken((height, column, playerId) -> {
+            fillSlot(rowsCount - 1 - height, column, playerId);
+            insertionIndices[column]--;
+            tokensCount++;
+            positionHash ^= DTPositionHash.getTokenHash(height, column, playerId);
+        });
+
+        // The journal of the next insertion goes after the restored tokens' entries, which are never read
+        int journalSize = (tokensCount + 1) * JOURNAL_ENTRIES_PER_TOKEN;
+        if (joinedStreaks.length < journalSize) joinedStreaks = new int[journalSize];
+
+        boolean hasWon = false;
+
+        for (int column = 0; column < columnsCount; column++) {
+            for (int height = 0; height < getColumnHeight(column); height++) {
+                for (int direction = 0; direction < Slot.DIRECTIONS_COUNT; direction++) {
+                    hasWon |= restoreRun(rowsCount - 1 - height, column, direction);
+                }
+            }
+        }
+
+        // The status the last of the tokens would have left
+        gameStatus = GameStatus.PLAYING;
+        getTokenInsertionStatus(hasWon);
+    }
+
+    @Override
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    @Override
+    public void setMoveListener(IDTMoveListener moveListener) {
+        this.moveListener = moveListener;
+    }
+
     private TokenInsertionStatus getTokenInsertionStatus(boolean hasWon) {
 
         TokenInsertionStatus tokenInsertionStatus = TokenInsertionStatus.OK;
@@ -69,7 +267,7 @@ public class DTEngine implements IDTEngine {
         if (hasWon) {
             tokenInsertionStatus = TokenInsertionStatus.WIN;
             gameStatus = GameStatus.FINISHED_WIN;
-        } else if (tokensCount >= boardSize * boardSize) {
+        } else if (tokensCount >= (long) rowsCount * columnsCount) {
             tokenInsertionStatus = TokenInsertionStatus.DRAW;
             gameStatus = GameStatus.FINISHED_DRAW;
         }
@@ -77,184 +275,199 @@ public class DTEngine implements IDTEngine {
         return tokenInsertionStatus;
     }
 
-    private boolean updateStreaks(int row, int column) {
-        if (!areCoordsValid(row, column)) return false;
-
-        return updateVerticalStreak(row, column)
-                || updateDiagonalStreak(row, column)
-                || updateHorizontalStreak(row, column);
-    }
-
     /**
-     * @param column the column to update its insertion index
-     *               <p>
-     *               This method updates the counters of the game.
-     *               Updates the index of the next available slot in the given column.
-     *               Updates the count of the tokens inserted into the board
-     *               Updates the insertion sequence on the columns into the board
+     * @param currentSlot the inserted slot
+     * @param column      Slot column
+     * @param row         Slot row
+     *                    <p>
+     *                    Joins the runs on both sides of the inserted slot, in each of the four directions.
+     *                    This has a runtime of O(1), independent of the board size.
+     * @return if the player won in any direction
      */
-    private void updateCounters(int column) {
-        insertionIndices[column]--;
-        tokensCount++;
-        insertionSequence.addFirst(column + 1);
+    private boolean updateStreaks(Slot currentSlot, int row, int column) {
+        int journalIndex = tokensCount * JOURNAL_ENTRIES_PER_TOKEN;
+
+        if (journalIndex == joinedStreaks.length) joinedStreaks = Arrays.copyOf(joinedStreaks, journalIndex * 2);
+
+        boolean hasWon = false;
+
+        // Every direction is joined, even after a win, so undo can restore all of them
+        for (int direction = 0; direction < Slot.DIRECTIONS_COUNT; direction++) {
+            hasWon |= joinRuns(currentSlot, row, column, direction, journalIndex + 2 * direction);
+        }
+
+        return hasWon;
     }
 
     /**
-     * @param column Slot column
-     * @param row    Slot row
-     *               <p>
-     *               Updates the Horizontal streak of the given slot.
-     *               Uses a Dynamic Programming approach;
-     *               Storing the streak into a local variable inside the slot and updates it if it's a streak.
-     *               Calculates the streak starting from the current slot and updates the streak of the slots on the right.
-     *               This has a runtime of O(boardSize).
-     * @return if the player won horizontally
+     * @param currentSlot  the inserted slot
+     * @param direction    the direction of the runs
+     * @param journalIndex where the lengths of both joined runs are recorded for undo
+     *                     <p>
+     *                     Both ends of every run of a player's tokens hold the run's length, the slots within
+     *                     a run keep stale lengths which are never read.
+     *                     The neighbours of the inserted slot are always at an end of their runs, since the slot
+     *                     was empty, so the new run's length is the sum of both neighbours' runs plus one.
+     *                     Only the new run's two ends need it; the far end of each joined run, or the inserted slot.
+     * @return if the new run is a winning streak
      */
-    private boolean updateHorizontalStreak(int row, int column) {
+    private boolean joinRuns(Slot currentSlot, int row, int column, int direction, int journalIndex) {
+        int rowStep = DIRECTIONS_ROW_STEPS[direction];
+        int columnStep = DIRECTIONS_COLUMN_STEPS[direction];
 
-        Slot currentSlot = board[row][column];
+        int backwardStreak = getNeighbourStreak(currentSlot, row - rowStep, column - columnStep, direction);
+        int forwardStreak = getNeighbourStreak(currentSlot, row + rowStep, column + columnStep, direction);
+        int streak = backwardStreak + 1 + forwardStreak;
 
-        currentSlot.setStreakHorizontal(1);
+        joinedStreaks[journalIndex] = backwardStreak;
+        joinedStreaks[journalIndex + 1] = forwardStreak;
 
-        if (!isAtLeftEdge(column)) {
-            Slot leftSlot = board[row][column - 1];
-            if (currentSlot.equals(leftSlot))
-                currentSlot.setStreakHorizontal(leftSlot.getStreakHorizontal() + 1);
-        }
+        currentSlot.setStreak(direction, streak);
 
-        boolean horizontallyWon = false;
+        if (backwardStreak > 0)
+            getSlot(row - backwardStreak * rowStep, column - backwardStreak * columnStep).setStreak(direction, streak);
 
-        if (currentSlot.getStreakHorizontal() >= winningStreak) horizontallyWon = true;
+        if (forwardStreak > 0)
+            getSlot(row + forwardStreak * rowStep, column + forwardStreak * columnStep).setStreak(direction, streak);
 
-        return horizontallyWon || updateHorizontalStreaksOnRight(row, column);
+        return streak >= winningStreak;
     }
 
-
     /**
-     * @param column Slot column
-     * @param row    Slot row
-     *               <p>
-     *               Updates the Horizontal streak of the slots to the right the given slot.
-     *               This has a runtime of O(boardSize).
-     * @return if the player won horizontally
+     * @return the length of the neighbour's run if it belongs to the same player as the current slot, 0 otherwise
      */
-    private boolean updateHorizontalStreaksOnRight(int row, int column) {
+    private int getNeighbourStreak(Slot currentSlot, int row, int column, int direction) {
+        if (!areCoordsValid(row, column)) return 0;
 
-        Slot currentSlot = board[row][column];
-        Slot nextSlotOnRight;
+        Slot neighbourSlot = getSlot(row, column);
 
-        int maxHorizontalStreak = currentSlot.getStreakHorizontal();
+        return isSameToken(currentSlot, neighbourSlot) ? neighbourSlot.getStreak(direction) : 0;
+    }
 
-        for (int columnIndex = column + 1; columnIndex < boardSize; columnIndex++) {
+    /**
+     * Writes the length of the run starting at the slot at both of its ends, if the slot starts a run.
+     *
+     * @return if the run is a winning streak
+     */
+    private boolean restoreRun(int row, int column, int direction) {
+        int rowStep = DIRECTIONS_ROW_STEPS[direction];
+        int columnStep = DIRECTIONS_COLUMN_STEPS[direction];
+        Slot firstSlot = getSlot(row, column);
 
-            nextSlotOnRight = board[row][columnIndex];
+        if (areCoordsValid(row - rowStep, column - columnStep)
+                && isSameToken(firstSlot, getSlot(row - rowStep, column - columnStep))) return false;
 
-            if (currentSlot.equals(nextSlotOnRight)) {
-                nextSlotOnRight.setStreakHorizontal(currentSlot.getStreakHorizontal() + 1);
-                maxHorizontalStreak++;
-            } else {
-                break;
-            }
+        int streak = 1;
 
+        while (areCoordsValid(row + streak * rowStep, column + streak * columnStep)
+                && isSameToken(firstSlot, getSlot(row + streak * rowStep, column + streak * columnStep))) {
+            streak++;
         }
 
-        return maxHorizontalStreak >= winningStreak;
+        firstSlot.setStreak(direction, streak);
+        getSlot(row + (streak - 1) * rowStep, column + (streak - 1) * columnStep).setStreak(direction, streak);
+
+        return streak >= winningStreak;
     }
 
     /**
-     * @param column Slot column
-     * @param row    Slot row
+     * @param column Slot column of the reverted insertion
+     * @param row    Slot row of the reverted insertion
      *               <p>
-     *               Updates the Diagonal streak of the given slot.
-     *               Uses a Dynamic Programming approach;
-     *               Storing the streak into a local variable inside the slot and updates it if it's a streak.
-     *               Gets the max of streaks of both the left and right diagonals.
-     *               This has a runtime of O(1).
-     * @return if the player won diagonally
+     *               Splits the runs the reverted insertion joined, putting back the lengths of the joined runs
+     *               at their far ends, from the undo journal.
+     *               This has a runtime of O(1), independent of the board size.
      */
-    private boolean updateDiagonalStreak(int row, int column) {
-
-        Slot currentSlot = board[row][column];
-
-        if (isAtBottom(row)) {
-            currentSlot.setStreakDiagonal(1);
-        } else {
-            if (!isAtRightEdge(column)) {
-                Slot bottomRightSlot = board[row + 1][column + 1];
-
-                if (currentSlot.equals(bottomRightSlot)) {
-                    currentSlot.setStreakDiagonal(
-                            Math.max(bottomRightSlot.getStreakDiagonal() + 1, currentSlot.getStreakDiagonal()));
-                } else {
-                    currentSlot.setStreakDiagonal(1);
-                }
-            }
-
-            if (!isAtLeftEdge(column)) {
-                Slot bottomLeftSlot = board[row + 1][column - 1];
-
-                if (currentSlot.equals(bottomLeftSlot)) {
-                    currentSlot.setStreakDiagonal(
-                            Math.max(bottomLeftSlot.getStreakDiagonal() + 1, currentSlot.getStreakDiagonal()));
-                } else {
-                    currentSlot.setStreakDiagonal(1);
-                }
-            }
+    private void splitRuns(int row, int column) {
+        int journalIndex = tokensCount * JOURNAL_ENTRIES_PER_TOKEN;
+
+        for (int direction = 0; direction < Slot.DIRECTIONS_COUNT; direction++, journalIndex += 2) {
+            int rowStep = DIRECTIONS_ROW_STEPS[direction];
+            int columnStep = DIRECTIONS_COLUMN_STEPS[direction];
+            int backwardStreak = joinedStreaks[journalIndex];
+            int forwardStreak = joinedStreaks[journalIndex + 1];
+
+            if (backwardStreak > 0)
+                getSlot(row - backwardStreak * rowStep, column - backwardStreak * columnStep)
+                        .setStreak(direction, backwardStreak);
+
+            if (forwardStreak > 0)
+                getSlot(row + forwardStreak * rowStep, column + forwardStreak * columnStep)
+                        .setStreak(direction, forwardStreak);
         }
-
-        return currentSlot.getStreakDiagonal() >= winningStreak;
     }
 
     /**
-     * @param column Slot column
-     * @param row    Slot row
+     * @param column the column to update its insertion index
      *               <p>
-     *               Updates the vertical streak of the given slot.
-     *               Uses a Dynamic Programming approach;
-     *               Storing the streak into a local variable inside the slot and updates it if it's a streak.
-     *               This has a runtime of O(1).
-     * @return if the player won vertically
+     *               This method updates the counters of the game.
+     *               Updates the index of the next available slot in the given column.
+     *               Updates the count of the tokens inserted into the board, which also passes the turn on,
+     *               past the players who forfeited
+     *               Updates the history of the moves
+     *               Notifies the move listener, if any
      */
-    private boolean updateVerticalStreak(int row, int column) {
-        Slot currentSlot = board[row][column];
+    private void updateCounters(int column) {
+        insertionIndices[column]--;
+        tokensCount++;
+        turnOrder.onTokenInserted(tokensCount);
+        moveHistory.add(column);
 
-        if (isAtBottom(row) || !currentSlot.equals(board[row + 1][column])) {
-            currentSlot.setStreakVertical(1);
-        } else {
-            currentSlot.setStreakVertical(board[row + 1][column].getStreakVertical() + 1);
-        }
+        if (moveListener != null) moveListener.onTokenInserted(column);
+    }
 
-        return currentSlot.getStreakVertical() >= winningStreak;
+    @Override
+    public int getMovesCount() {
+        return moveHistory.size();
     }
 
     @Override
-    public LinkedList<Integer> getInsertionSequence() {
-        return insertionSequence;
+    public int getMoveColumn(int index) {
+        return moveHistory.get(index);
     }
 
     @Override
     public int[][] getBoard() {
-        int[][] outBoard = new int[board.length][board[0].length];
+        int[][] outBoard = new int[rowsCount][columnsCount];
+
+        for (int j = 0; j < columnsCount; j++) {
+            Slot[] column = columns[j];
 
-        for (int i = 0; i < board.length; i++) {
-            Slot[] row = board[i];
+            if (column == null) continue;
 
-            for (int j = 0; j < row.length; j++) {
-                outBoard[i][j] = row[j].getTokenId();
+            for (int height = 0; height < getColumnHeight(j); height++) {
+                outBoard[rowsCount - 1 - height][j] = column[height].getTokenId();
             }
         }
 
         return outBoard;
     }
 
+    @Override
+    public int getTokenId(int row, int column) {
+        Slot slot = getSlot(row, column);
+        return slot == null ? 0 : slot.getTokenId();
+    }
+
+    /**
+     * The players take turns in the order of their ids, starting from 1, so the turn follows from the tokens count,
+     * and the turns passed without a token.
+     */
     @Override
     public int getCurrentPlayerId() {
-        return playersQueue.getLast();
+        return turnOrder.getCurrentPlayerId(tokensCount);
     }
 
     @Override
     public int getPreviousPlayerId() {
-        return playersQueue.getFirst();
+        return turnOrder.getLastPlayerId(tokensCount);
+    }
+
+    @Override
+    public int getWinnerId() {
+        if (gameStatus != GameStatus.FINISHED_WIN) return 0;
+
+        return turnOrder.isWonByForfeit() ? getCurrentPlayerId() : getPreviousPlayerId();
     }
 
     @Override
@@ -262,10 +475,24 @@ public class DTEngine implements IDTEngine {
         return gameStatus;
     }
 
-    private int getNextPlayerToPlay() {
-        int nextPlayer = playersQueue.pollLast();
-        playersQueue.addFirst(nextPlayer);
-        return nextPlayer;
+    @Override
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    @Override
+    public int getColumnsCount() {
+        return columnsCount;
+    }
+
+    @Override
+    public int getPlayersCount() {
+        return playersCount;
+    }
+
+    @Override
+    public int getWinningStreak() {
+        return winningStreak;
     }
 
     private boolean isInsertionValid(int column) {
@@ -277,43 +504,66 @@ public class DTEngine implements IDTEngine {
     }
 
     private boolean isColumnValid(int column) {
-        return column >= 0 && column < boardSize;
+        return column >= 0 && column < columnsCount;
     }
 
     private boolean isRowValid(int row) {
-        return row >= 0 && row < boardSize;
+        return row >= 0 && row < rowsCount;
     }
 
-    private void initBoard() {
-        for (Slot[] row : board) {
-            for (int j = 0; j < row.length; j++) {
-                row[j] = new Slot(0);
-            }
-        }
+    /**
+     * @return the slot, or null if it's empty
+     */
+    private Slot getSlot(int row, int column) {
+        return row <= insertionIndices[column] ? null : columns[column][rowsCount - 1 - row];
     }
 
-    private void initInsertionIndices() {
-        for (int i = 0; i < insertionIndices.length; i++) {
-            insertionIndices[i] = boardSize - 1;
+    /**
+     * Fills the column's next empty slot with the player's token, reusing the slot's object when it had one.
+     * Only allocates the first time a slot is filled, along with the column's storage when it's beyond it.
+     *
+     * @return the filled slot
+     */
+    private Slot fillSlot(int row, int column, int playerId) {
+        Slot[] columnSlots = columns[column];
+        int height = rowsCount - 1 - row;
+
+        if (columnSlots == null) {
+            columnSlots = new Slot[Math.min(rowsCount, COLUMN_CHUNK_SIZE)];
+            columns[column] = columnSlots;
+        } else if (height == columnSlots.length) {
+            columnSlots = Arrays.copyOf(columnSlots, Math.min(rowsCount, columnSlots.length * 2));
+            columns[column] = columnSlots;
         }
-    }
 
-    private void initPlayers() {
-        for (int i = 1; i <= playersCount; i++) {
-            playersQueue.addFirst(i);
+        Slot slot = columnSlots[height];
+
+        if (slot == null) {
+            slot = new Slot(playerId);
+            columnSlots[height] = slot;
+        } else {
+            // The streaks are all rewritten by updateStreaks
+            slot.setTokenId(playerId);
         }
+
+        return slot;
     }
 
-    private boolean isAtBottom(int row) {
-        return row == boardSize - 1;
+    /**
+     * @return the number of tokens in the column
+     */
+    private int getColumnHeight(int column) {
+        return rowsCount - 1 - insertionIndices[column];
     }
 
-    private boolean isAtRightEdge(int column) {
-        return column == boardSize - 1;
+    private boolean isSameToken(Slot slot, Slot otherSlot) {
+        return otherSlot != null && slot.equals(otherSlot);
     }
 
-    private boolean isAtLeftEdge(int column) {
-        return column == 0;
+    private void initInsertionIndices() {
+        for (int i = 0; i < insertionIndices.length; i++) {
+            insertionIndices[i] = rowsCount - 1;
+        }
     }
 
 
@@ -324,13 +574,15 @@ public class DTEngine implements IDTEngine {
 
         out.println();
 
-        for (Slot[] row : board) {
+        for (int i = 0; i < rowsCount; i++) {
 
-            for (int j = 0; j < board[0].length; j++) {
-                out.print(" >" + "id:" + row[j].getTokenId() + ", "
-                        + "v:" + row[j].getStreakVertical() + ", "
-                        + "d:" + row[j].getStreakDiagonal() + ", "
-                        + "h:" + row[j].getStreakHorizontal() + "< ");
+            for (int j = 0; j < columnsCount; j++) {
+                Slot slot = getSlot(i, j) == null ? new Slot(0) : getSlot(i, j);
+                out.print(" >" + "id:" + slot.getTokenId() + ", "
+                        + "v:" + slot.getStreakVertical() + ", "
+                        + "d:" + slot.getStreakDiagonal() + ", "
+                        + "a:" + slot.getStreakAntiDiagonal() + ", "
+                        + "h:" + slot.getStreakHorizontal() + "< ");
             }
 
             out.println();
@@ -0,0 +1,95 @@
+package com.drop_token.model;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the engines of finished games to play the next games on, so a server churning through many short games
+ * doesn't rebuild an engine, and garbage collect the old one, for every game.
+ * <p>
+ * Idle engines are kept apart by configuration, at most maxIdleEngines of each; released engines beyond that
+ * are left to the garbage collector. Engines are acquired and released from any thread.
+ */
+public class DTEnginePool {
+
+    private final IDTEngineFactory engineFactory;
+    private final int maxIdleEngines;
+
+    private final ConcurrentMap<Configuration, Queue<IDTEngine>> idleEngines = new ConcurrentHashMap<>();
+
+    /**
+     * @param engineFactory  creates the engines when none of the configuration is idle
+     * @param maxIdleEngines the number of idle engines kept for every configuration
+     */
+    public DTEnginePool(IDTEngineFactory engineFactory, int maxIdleEngines) {
+        this.engineFactory = engineFactory;
+        this.maxIdleEngines = maxIdleEngines;
+    }
+
+    /**
+     * @return an engine of the configuration at the start of a game, either an idle one or a new one
+     */
+    public IDTEngine acquire(int rowsCount, int columnsCount, int playersCount, int winningStreak) {
+        Queue<IDTEngine> engines = idleEngines.get(new Configuration(rowsCount, columnsCount, playersCount,
+                winningStreak));
+        IDTEngine engine = engines == null ? null : engines.poll();
+
+        return engine != null ? engine : engineFactory.create(rowsCount, columnsCount, playersCount, winningStreak);
+    }
+
+    /**
+     * Resets the engine and keeps it for the next game of its configuration.
+     * Its move listener is dropped, and the caller mustn't use the engine anymore.
+     */
+    public void release(IDTEngine engine) {
+        engine.setMoveListener(null);
+        engine.reset();
+
+        Configuration configuration = new Configuration(engine.getRowsCount(), engine.getColumnsCount(),
+                engine.getPlayersCount(), engine.getWinningStreak());
+
+        // Dropped when the configuration already has enough idle engines
+        idleEngines.computeIfAbsent(configuration, key -> new ArrayBlockingQueue<>(maxIdleEngines)).offer(engine);
+    }
+
+    /**
+     * @return the number of idle engines of the configuration
+     */
+    public int getIdleCount(int rowsCount, int columnsCount, int playersCount, int winningStreak) {
+        Queue<IDTEngine> engines = idleEngines.get(new Configuration(rowsCount, columnsCount, playersCount,
+                winningStreak));
+
+        return engines == null ? 0 : engines.size();
+    }
+
+    private static final class Configuration {
+        private final int rowsCount;
+        private final int columnsCount;
+        private final int playersCount;
+        private final int winningStreak;
+
+        Configuration(int rowsCount, int columnsCount, int playersCount, int winningStreak) {
+            this.rowsCount = rowsCount;
+            this.columnsCount = columnsCount;
+            this.playersCount = playersCount;
+            this.winningStreak = winningStreak;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Configuration)) return false;
+
+            Configuration configuration = (Configuration) obj;
+
+            return rowsCount == configuration.rowsCount && columnsCount == configuration.columnsCount
+                    && playersCount == configuration.playersCount && winningStreak == configuration.winningStreak;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((rowsCount * 31 + columnsCount) * 31 + playersCount) * 31 + winningStreak;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.drop_token.model;
+
+/**
+ * The 64-bit hash of a position, as maintained by the engines: the XOR of the hashes of all its tokens.
+ * <p>
+ * Inserting or removing a token updates the hash with a single XOR, and equal positions have equal hashes
+ * whatever moves led to them, on any engine. A token's hash is derived from its slot and player by the
+ * SplitMix64 finalizer instead of looked up in a table of random keys, so boards of any size hash the same way
+ * without allocating anything.
+ */
+public final class DTPositionHash {
+
+    private DTPositionHash() {
+    }
+
+    /**
+     * @param height   the slot's row counted from the bottom of the board
+     * @param column   the slot's column
+     * @param playerId the id of the player owning the token in the slot
+     */
+    public static long getTokenHash(int height, int column, int playerId) {
+        return mix(((long) height << 40) ^ ((long) column << 8) ^ playerId);
+    }
+
+    /**
+     * @return the value's bits spread over all of the result's bits, distinct values giving distinct results
+     */
+    public static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
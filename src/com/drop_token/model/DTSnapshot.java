@@ -0,0 +1,230 @@
+package com.drop_token.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable copy of a game's position, compact enough to be kept for many games or persisted,
+ * and restored into an engine of the same configuration with {@link IDTEngine#restore(DTSnapshot)}.
+ * <p>
+ * The snapshot is a byte array: a header of the rows count, columns count, players count and winning streak,
+ * followed by every column's height and then its tokens, bottom to top, bit-packed LSB first.
+ * Heights take just the bits the rows count needs, and tokens those of the players count,
+ * so a 6x7 board of 2 players takes 24 bytes. Only the position is kept, not the moves leading to it.
+ */
+public final class DTSnapshot {
+
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    private final byte[] data;
+
+    private final int rowsCount;
+    private final int columnsCount;
+    private final int playersCount;
+    private final int winningStreak;
+    private final int tokensCount;
+
+    private DTSnapshot(byte[] data) {
+        ByteBuffer header = ByteBuffer.wrap(data);
+
+        this.data = data;
+        this.rowsCount = header.getInt();
+        this.columnsCount = header.getInt();
+        this.playersCount = header.getInt();
+        this.winningStreak = header.getInt();
+        this.tokensCount = countTokens();
+    }
+
+    /**
+     * Copies the engine's position, reading the slots of its tokens and the top of every column.
+     */
+    public static DTSnapshot of(IDTEngine engine) {
+        int rowsCount = engine.getRowsCount();
+        int columnsCount = engine.getColumnsCount();
+        int playersCount = engine.getPlayersCount();
+        int[] heights = new int[columnsCount];
+        long tokensCount = 0;
+
+        for (int column = 0; column < columnsCount; column++) {
+            while (heights[column] < rowsCount && engine.getTokenId(rowsCount - 1 - heights[column], column) != 0) {
+                heights[column]++;
+            }
+
+            tokensCount += heights[column];
+        }
+
+        int heightBits = getBitsCount(rowsCount);
+        int tokenBits = getBitsCount(playersCount - 1);
+        long bitsCount = (long) columnsCount * heightBits + tokensCount * tokenBits;
+
+        byte[] data = new byte[HEADER_SIZE + (int) ((bitsCount + Byte.SIZE - 1) / Byte.SIZE)];
+        ByteBuffer.wrap(data).putInt(rowsCount).putInt(columnsCount).putInt(playersCount)
+                .putInt(engine.getWinningStreak());
+
+        long bitPosition = (long) HEADER_SIZE * Byte.SIZE;
+
+        for (int column = 0; column < columnsCount; column++) {
+            writeBits(data, bitPosition, heights[column], heightBits);
+            bitPosition += heightBits;
+
+            for (int height = 0; height < heights[column]; height++) {
+                writeBits(data, bitPosition, engine.getTokenId(rowsCount - 1 - height, column) - 1, tokenBits);
+                bitPosition += tokenBits;
+            }
+        }
+
+        return new DTSnapshot(data);
+    }
+
+    /**
+     * @param data a snapshot's bytes, as returned by {@link #toByteArray()}
+     * @throws IllegalArgumentException if the bytes aren't a valid snapshot
+     */
+    public static DTSnapshot fromByteArray(byte[] data) {
+        if (data.length < HEADER_SIZE) throw new IllegalArgumentException("Truncated snapshot");
+
+        ByteBuffer header = ByteBuffer.wrap(data);
+        int rowsCount = header.getInt();
+        int columnsCount = header.getInt();
+        int playersCount = header.getInt();
+
+        if (rowsCount <= 0 || columnsCount <= 0 || playersCount <= 0)
+            throw new IllegalArgumentException("Not a snapshot");
+
+        // Every column's height is read before its tokens, so the bytes are checked as they're walked
+        int heightBits = getBitsCount(rowsCount);
+        int tokenBits = getBitsCount(playersCount - 1);
+        long bitsCount = (long) data.length * Byte.SIZE;
+        long bitPosition = (long) HEADER_SIZE * Byte.SIZE;
+
+        for (int column = 0; column < columnsCount; column++) {
+            if (bitPosition + heightBits > bitsCount) throw new IllegalArgumentException("Truncated snapshot");
+
+            int height = readBits(data, bitPosition, heightBits);
+            bitPosition += heightBits;
+
+            if (height > rowsCount || bitPosition + (long) height * tokenBits > bitsCount)
+                throw new IllegalArgumentException("Corrupt snapshot");
+
+            for (int i = 0; i < height; i++, bitPosition += tokenBits) {
+                if (readBits(data, bitPosition, tokenBits) >= playersCount)
+                    throw new IllegalArgumentException("Corrupt snapshot");
+            }
+        }
+
+        return new DTSnapshot(data.clone());
+    }
+
+    /**
+     * Visits every token, the columns left to right and every column bottom to top,
+     * which is an order the tokens could have been inserted in.
+     */
+    public void forEachToken(TokenVisitor visitor) {
+        int heightBits = getBitsCount(rowsCount);
+        int tokenBits = getBitsCount(playersCount - 1);
+        long bitPosition = (long) HEADER_SIZE * Byte.SIZE;
+
+        for (int column = 0; column < columnsCount; column++) {
+            int columnHeight = readBits(data, bitPosition, heightBits);
+            bitPosition += heightBits;
+
+            for (int height = 0; height < columnHeight; height++) {
+                visitor.visit(height, column, readBits(data, bitPosition, tokenBits) + 1);
+                bitPosition += tokenBits;
+            }
+        }
+    }
+
+    /**
+     * @return whether the engine plays the configuration of the snapshot
+     */
+    public boolean supports(IDTEngine engine) {
+        return engine.getRowsCount() == rowsCount && engine.getColumnsCount() == columnsCount
+                && engine.getPlayersCount() == playersCount && engine.getWinningStreak() == winningStreak;
+    }
+
+    /**
+     * @return a copy of the snapshot's bytes
+     */
+    public byte[] toByteArray() {
+        return data.clone();
+    }
+
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    public int getColumnsCount() {
+        return columnsCount;
+    }
+
+    public int getPlayersCount() {
+        return playersCount;
+    }
+
+    public int getWinningStreak() {
+        return winningStreak;
+    }
+
+    public int getTokensCount() {
+        return tokensCount;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DTSnapshot && Arrays.equals(data, ((DTSnapshot) obj).data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
+    }
+
+    private int countTokens() {
+        int heightBits = getBitsCount(rowsCount);
+        int tokenBits = getBitsCount(playersCount - 1);
+        long bitPosition = (long) HEADER_SIZE * Byte.SIZE;
+        int count = 0;
+
+        for (int column = 0; column < columnsCount; column++) {
+            int height = readBits(data, bitPosition, heightBits);
+            bitPosition += heightBits + (long) height * tokenBits;
+            count += height;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return the number of bits needed to hold any value from 0 to maxValue
+     */
+    private static int getBitsCount(int maxValue) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(maxValue);
+    }
+
+    private static void writeBits(byte[] data, long bitPosition, int value, int bitsCount) {
+        for (int bit = 0; bit < bitsCount; bit++, bitPosition++) {
+            if ((value >>> bit & 1) != 0) data[(int) (bitPosition >>> 3)] |= 1 << (bitPosition & 7);
+        }
+    }
+
+    private static int readBits(byte[] data, long bitPosition, int bitsCount) {
+        int value = 0;
+
+        for (int bit = 0; bit < bitsCount; bit++, bitPosition++) {
+            value |= (data[(int) (bitPosition >>> 3)] >>> (bitPosition & 7) & 1) << bit;
+        }
+
+        return value;
+    }
+
+    public interface TokenVisitor {
+
+        /**
+         * @param height   the token's row counted from the bottom of the board
+         * @param column   the token's column
+         * @param playerId the id of the player owning the token
+         */
+        void visit(int height, int column, int playerId);
+    }
+}
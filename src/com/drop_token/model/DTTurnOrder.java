@@ -0,0 +1,141 @@
+package com.drop_token.model;
+
+import java.util.Arrays;
+
+/**
+ * The turns of an engine's players, once turns pass without a token.
+ * <p>
+ * The players take turns in the order of their ids, so the player to play follows from the tokens count,
+ * shifted by the turns that passed without a token: the skipped ones, and the turns of the players who forfeited,
+ * passed over as soon as they come. Every shift is recorded along with the tokens count it was made at,
+ * so undoing a token reverts the shifts made after it in O(1) each. A game nobody skips or forfeits never shifts,
+ * and the engines only pay an addition for it.
+ */
+final class DTTurnOrder {
+
+    private static final int INITIAL_SHIFTS_CAPACITY = 16;
+
+    private final int playersCount;
+    private int turnOffset;
+
+    // Indexed by the players ids; null until a player forfeits
+    private boolean[] forfeitedPlayers;
+    private int forfeitedPlayersCount;
+
+    // The tokens count each shift was made at, and the offset it replaced; null until the first shift
+    private int[] shiftsTokensCounts;
+    private int[] shiftsTurnOffsets;
+    private int shiftsCount;
+
+    DTTurnOrder(int playersCount) {
+        this.playersCount = playersCount;
+    }
+
+    DTTurnOrder(DTTurnOrder turnOrder) {
+        this.playersCount = turnOrder.playersCount;
+        this.turnOffset = turnOrder.turnOffset;
+        this.forfeitedPlayers = turnOrder.forfeitedPlayers == null ? null : turnOrder.forfeitedPlayers.clone();
+        this.forfeitedPlayersCount = turnOrder.forfeitedPlayersCount;
+        this.shiftsTokensCounts = turnOrder.shiftsTokensCounts == null ? null : turnOrder.shiftsTokensCounts.clone();
+        this.shiftsTurnOffsets = turnOrder.shiftsTurnOffsets == null ? null : turnOrder.shiftsTurnOffsets.clone();
+        this.shiftsCount = turnOrder.shiftsCount;
+    }
+
+    int getCurrentPlayerId(int tokensCount) {
+        return (tokensCount + turnOffset) % playersCount + 1;
+    }
+
+    /**
+     * @return the player of the last token, from the offset as it was before the shifts made since
+     */
+    int getLastPlayerId(int tokensCount) {
+        int lastTurnOffset = turnOffset;
+
+        for (int i = shiftsCount - 1; i >= 0 && shiftsTokensCounts[i] == tokensCount; i--) {
+            lastTurnOffset = shiftsTurnOffsets[i];
+        }
+
+        return (tokensCount + lastTurnOffset + playersCount - 1) % playersCount + 1;
+    }
+
+    /**
+     * Called once a token is counted.
+     */
+    void onTokenInserted(int tokensCount) {
+        if (forfeitedPlayersCount > 0) passForfeitedTurns(tokensCount);
+    }
+
+    /**
+     * Called once a token is undone; reverts the shifts made after it, the forfeits stay.
+     */
+    void onTokenRemoved(int tokensCount) {
+        while (shiftsCount > 0 && shiftsTokensCounts[shiftsCount - 1] > tokensCount) {
+            turnOffset = shiftsTurnOffsets[--shiftsCount];
+        }
+
+        if (forfeitedPlayersCount > 0) passForfeitedTurns(tokensCount);
+    }
+
+    void skipTurn(int tokensCount) {
+        shift(tokensCount, 1);
+
+        if (forfeitedPlayersCount > 0) passForfeitedTurns(tokensCount);
+    }
+
+    /**
+     * @return false if the player already forfeited, or is the only player left
+     */
+    boolean forfeit(int playerId, int tokensCount) {
+        if (forfeitedPlayers == null) forfeitedPlayers = new boolean[playersCount + 1];
+
+        if (forfeitedPlayers[playerId] || forfeitedPlayersCount == playersCount - 1) return false;
+
+        forfeitedPlayers[playerId] = true;
+        forfeitedPlayersCount++;
+
+        passForfeitedTurns(tokensCount);
+
+        return true;
+    }
+
+    /**
+     * @return if every player but one forfeited, who then has the turn
+     */
+    boolean isWonByForfeit() {
+        return forfeitedPlayersCount > 0 && forfeitedPlayersCount == playersCount - 1;
+    }
+
+    void reset() {
+        turnOffset = 0;
+        shiftsCount = 0;
+
+        if (forfeitedPlayersCount > 0) {
+            Arrays.fill(forfeitedPlayers, false);
+            forfeitedPlayersCount = 0;
+        }
+    }
+
+    private void passForfeitedTurns(int tokensCount) {
+        int passedTurns = 0;
+
+        while (forfeitedPlayers[getCurrentPlayerId(tokensCount + passedTurns)]) {
+            passedTurns++;
+        }
+
+        if (passedTurns > 0) shift(tokensCount, passedTurns);
+    }
+
+    private void shift(int tokensCount, int turns) {
+        if (shiftsTokensCounts == null) {
+            shiftsTokensCounts = new int[INITIAL_SHIFTS_CAPACITY];
+            shiftsTurnOffsets = new int[INITIAL_SHIFTS_CAPACITY];
+        } else if (shiftsCount == shiftsTokensCounts.length) {
+            shiftsTokensCounts = Arrays.copyOf(shiftsTokensCounts, shiftsCount * 2);
+            shiftsTurnOffsets = Arrays.copyOf(shiftsTurnOffsets, shiftsCount * 2);
+        }
+
+        shiftsTokensCounts[shiftsCount] = tokensCount;
+        shiftsTurnOffsets[shiftsCount++] = turnOffset;
+        turnOffset = (turnOffset + turns) % playersCount;
+    }
+}
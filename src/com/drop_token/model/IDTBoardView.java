@@ -0,0 +1,18 @@
+package com.drop_token.model;
+
+/**
+ * Read-only access to the slots of a board, without copying them.
+ */
+public interface IDTBoardView {
+
+    int getRowsCount();
+
+    int getColumnsCount();
+
+    /**
+     * @param row    Row of the slot, indexing starts at 0 for the top row.
+     * @param column Column of the slot, indexing starts at 0.
+     * @return The id of the player owning the token in the slot, 0 if the slot is empty.
+     */
+    int getTokenId(int row, int column);
+}
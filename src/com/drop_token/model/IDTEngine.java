@@ -2,7 +2,7 @@ package com.drop_token.model;
 
 import java.util.LinkedList;
 
-public interface IDTEngine {
+public interface IDTEngine extends IDTBoardView, IDTMoveHistory {
 
     /**
      * Calling this function adds the token into the specified column.
@@ -15,16 +15,102 @@ public interface IDTEngine {
      */
     TokenInsertionStatus insertToken(int column);
 
+    /**
+     * Reverts the last successful insertion.
+     * The board, the player to play and the game status are restored to what they were before it,
+     * so the engine can be walked back and forth along a line of play without being rebuilt.
+     *
+     * @return false if there are no insertions to revert.
+     */
+    boolean undo();
+
+    /**
+     * Passes the current player's turn without a token, e.g. once their time ran out.
+     * Undoing the token before the skip reverts the skip as well.
+     *
+     * @return false if the game is over.
+     */
+    boolean skipTurn();
+
+    /**
+     * Takes the player out of the game, the players who are left keep taking turns in the order of their ids.
+     * Once a single player is left, they win. A forfeit is final, undoing tokens doesn't bring the player back.
+     *
+     * @param playerId the id of the forfeiting player, who doesn't have to be the one to play
+     * @return false if the game is over, the player isn't in it anymore, or is the only player of the game.
+     */
+    boolean forfeit(int playerId);
+
+    /**
+     * Clears the board back to an empty game of the same configuration, keeping the storage already allocated,
+     * so one engine can play game after game without being rebuilt. Skipped turns and forfeits are cleared too.
+     * The move listener is kept, and notified of every removed token as if all the moves were undone.
+     */
+    void reset();
+
+    /**
+     * @return the hash of the position as defined by {@link DTPositionHash}, updated along with every token,
+     * so equal positions have equal hashes whatever moves led to them, on any engine
+     */
+    long getPositionHash();
+
+    /**
+     * @return an immutable copy of the position, without the moves leading to it
+     */
+    default DTSnapshot snapshot() {
+        return DTSnapshot.of(this);
+    }
+
+    /**
+     * Sets the board to the snapshot's position in O(cells), without replaying any move.
+     * The game status follows from the position, and the history starts over from it: the moves played
+     * before the snapshot aren't listed anymore, and can't be undone. The players to play follow from the number
+     * of tokens, skipped turns and forfeits are cleared. The move listener isn't notified.
+     *
+     * @param snapshot a position of the engine's configuration
+     * @throws IllegalArgumentException if the snapshot is of another configuration
+     */
+    void restore(DTSnapshot snapshot);
+
+    /**
+     * Copies the game into an independent engine, in the same position and with the same history,
+     * so the copy can be played, and undone, separately from this one.
+     *
+     * @return the new engine.
+     */
+    IDTEngine copy();
+
+    /**
+     * Sets the listener notified of every inserted and undone token, skipped turn and forfeit,
+     * replacing any previous one.
+     * Copies of the engine don't keep the listener.
+     *
+     * @param moveListener the listener, or null for none.
+     */
+    void setMoveListener(IDTMoveListener moveListener);
+
     /**
      * Gets the insertion sequence of the tokens into the board.
      * Only counts for the successful insertions.
      *
-     * @return LinkedList of the insertion sequence in columns.
+     * @return LinkedList of the insertion sequence in columns, indexing starting at 1, the last insertion first.
+     * @deprecated Boxes every move into a new list on every call,
+     * read the moves through {@link #getMovesCount()} and {@link #getMoveColumn(int)} instead.
      */
-    LinkedList<Integer> getInsertionSequence();
+    @Deprecated
+    default LinkedList<Integer> getInsertionSequence() {
+        LinkedList<Integer> insertionSequence = new LinkedList<>();
+
+        for (int i = 0; i < getMovesCount(); i++) {
+            insertionSequence.addFirst(getMoveColumn(i) + 1);
+        }
+
+        return insertionSequence;
+    }
 
     /**
      * @return an int matrix of the tokenIds, which corresponds to the players ids.
+     * It's a fresh copy on every call, prefer reading the slots through {@link #getTokenId(int, int)}.
      */
     int[][] getBoard();
 
@@ -38,8 +124,20 @@ public interface IDTEngine {
      */
     int getPreviousPlayerId();
 
+    /**
+     * @return the id of the player who won, by a winning streak or as the last player left, 0 if no one won yet.
+     */
+    int getWinnerId();
+
     GameStatus getGameStatus();
 
+    int getPlayersCount();
+
+    /**
+     * @return The number of consecutive tokens a player needs to win.
+     */
+    int getWinningStreak();
+
     enum TokenInsertionStatus {OK, ERROR, WIN, DRAW}
 
     enum GameStatus {PLAYING, FINISHED_WIN, FINISHED_DRAW}
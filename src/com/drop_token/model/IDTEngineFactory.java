@@ -0,0 +1,9 @@
+package com.drop_token.model;
+
+/**
+ * Creates engines of a given configuration, as the engines' constructors of the same parameters do.
+ */
+public interface IDTEngineFactory {
+
+    IDTEngine create(int rowsCount, int columnsCount, int playersCount, int winningStreak);
+}
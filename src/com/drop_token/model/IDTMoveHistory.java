@@ -0,0 +1,15 @@
+package com.drop_token.model;
+
+/**
+ * Read-only access to the successful insertions of a game, in play order, without copying nor boxing them.
+ */
+public interface IDTMoveHistory {
+
+    int getMovesCount();
+
+    /**
+     * @param index Index of the move, 0 for the first move of the game.
+     * @return The column of the move, indexing starts at 0.
+     */
+    int getMoveColumn(int index);
+}
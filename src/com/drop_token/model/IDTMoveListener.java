@@ -0,0 +1,35 @@
+package com.drop_token.model;
+
+/**
+ * Follows the tokens of an engine as they're inserted and undone, e.g. to record the game,
+ * and the turns passing without a token.
+ * Called synchronously on the engine's thread, so it must be quick.
+ */
+public interface IDTMoveListener {
+
+    /**
+     * Called once the token is counted, before the outcome of the insertion is known.
+     *
+     * @param column the column of the token, indexing starting at 0.
+     */
+    void onTokenInserted(int column);
+
+    /**
+     * Called once the last inserted token is undone.
+     */
+    void onTokenRemoved();
+
+    /**
+     * Called once the current player's turn is skipped.
+     */
+    default void onTurnSkipped() {
+    }
+
+    /**
+     * Called once the player forfeited.
+     *
+     * @param playerId the id of the player who is out of the game.
+     */
+    default void onPlayerForfeited(int playerId) {
+    }
+}
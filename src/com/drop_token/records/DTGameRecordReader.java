@@ -0,0 +1,211 @@
+package com.drop_token.records;
+
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Iterates the games of a file of the {@link GameRecordFormat}, in the fashion of a cursor;
+ * {@link #nextGame()} moves to the next game, whose header is then read through the getters,
+ * and whose moves are read one by one through {@link #nextMove()}.
+ * <p>
+ * The file is memory-mapped by windows of up to 1GB, remapped as the games go past their end,
+ * so files of billions of moves are read without any allocation per game nor per move.
+ */
+public class DTGameRecordReader implements Closeable {
+
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private static final GameStatus[] GAME_STATUSES = GameStatus.values();
+
+    private final FileChannel channel;
+    private final long fileSize;
+
+    private MappedByteBuffer window;
+    private long windowPosition;
+
+    // Position of the next game in the file
+    private long nextGamePosition;
+
+    // Header of the current game
+    private int rowsCount;
+    private int columnsCount;
+    private int playersCount;
+    private int winningStreak;
+    private GameStatus gameStatus;
+    private int winnerId;
+    private int movesCount;
+
+    // Moves of the current game
+    private int bitsPerMove;
+    private int movesIndex;
+    private int movesRead;
+    private long bits;
+    private int bitsCount;
+
+    // Index of the next header byte in the window
+    private int headerIndex;
+
+    public DTGameRecordReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+
+        ByteBuffer fileHeader = ByteBuffer.allocate(GameRecordFormat.FILE_HEADER_SIZE);
+
+        while (fileHeader.hasRemaining()) {
+            if (channel.read(fileHeader) < 0) throw new IOException("Truncated game records: " + file);
+        }
+
+        fileHeader.flip();
+
+        if (fileHeader.getInt() != GameRecordFormat.MAGIC || fileHeader.getInt() != GameRecordFormat.VERSION)
+            throw new IOException("Not a game records file: " + file);
+
+        this.nextGamePosition = GameRecordFormat.FILE_HEADER_SIZE;
+    }
+
+    /**
+     * Moves to the next game, skipping the moves left unread in the current one.
+     *
+     * @return false if there are no more games.
+     */
+    public boolean nextGame() throws IOException {
+        if (nextGamePosition >= fileSize) return false;
+
+        map(nextGamePosition, Math.min(GameRecordFormat.MAX_GAME_HEADER_SIZE, fileSize - nextGamePosition));
+        headerIndex = (int) (nextGamePosition - windowPosition);
+
+        rowsCount = getVarint();
+        columnsCount = getVarint();
+        playersCount = getVarint();
+        winningStreak = getVarint();
+
+        int outcome = getVarint();
+        gameStatus = GAME_STATUSES[outcome & GameRecordFormat.STATUS_MASK];
+        winnerId = outcome >>> GameRecordFormat.STATUS_BITS;
+
+        movesCount = getVarint();
+        bitsPerMove = GameRecordFormat.getBitsPerMove(columnsCount);
+
+        long movesPosition = windowPosition + headerIndex;
+        long movesSize = GameRecordFormat.getMovesSize(movesCount, bitsPerMove);
+
+        if (movesPosition + movesSize > fileSize) throw new IOException("Truncated game record");
+
+        map(movesPosition, movesSize);
+
+        movesIndex = (int) (movesPosition - windowPosition);
+        movesRead = 0;
+        bits = 0;
+        bitsCount = 0;
+        nextGamePosition = movesPosition + movesSize;
+
+        return true;
+    }
+
+    /**
+     * @return the column of the current game's next move, indexing starting at 0, or -1 after its last move.
+     */
+    public int nextMove() {
+        if (movesRead == movesCount) return -1;
+
+        while (bitsCount < bitsPerMove) {
+            bits |= (long) (window.get(movesIndex++) & 0xFF) << bitsCount;
+            bitsCount += Byte.SIZE;
+        }
+
+        int column = (int) (bits & ((1L << bitsPerMove) - 1));
+
+        bits >>>= bitsPerMove;
+        bitsCount -= bitsPerMove;
+        movesRead++;
+
+        return column;
+    }
+
+    /**
+     * Plays the current game's unread moves on the engine, which must be a fresh engine of the game's board.
+     *
+     * @return the status of the last insertion, OK if there was none
+     */
+    public TokenInsertionStatus replay(IDTEngine engine) {
+        TokenInsertionStatus tokenInsertionStatus = TokenInsertionStatus.OK;
+
+        for (int column = nextMove(); column >= 0; column = nextMove()) {
+            tokenInsertionStatus = engine.insertToken(column);
+        }
+
+        return tokenInsertionStatus;
+    }
+
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    public int getColumnsCount() {
+        return columnsCount;
+    }
+
+    public int getPlayersCount() {
+        return playersCount;
+    }
+
+    public int getWinningStreak() {
+        return winningStreak;
+    }
+
+    public GameStatus getGameStatus() {
+        return gameStatus;
+    }
+
+    /**
+     * @return the id of the winner, 0 if the game wasn't won.
+     */
+    public int getWinnerId() {
+        return winnerId;
+    }
+
+    public int getMovesCount() {
+        return movesCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Remaps the window unless the range is already in it.
+     */
+    private void map(long position, long size) throws IOException {
+        if (window != null && position >= windowPosition && position + size <= windowPosition + window.limit())
+            return;
+
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(Math.max(WINDOW_SIZE, size), fileSize - position));
+        windowPosition = position;
+    }
+
+    private int getVarint() throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            if (headerIndex >= window.limit()) throw new IOException("Truncated game record");
+
+            byte b = window.get(headerIndex++);
+            value |= (b & 0x7F) << shift;
+
+            if (b >= 0) return value;
+        }
+
+        throw new IOException("Malformed game record");
+    }
+}
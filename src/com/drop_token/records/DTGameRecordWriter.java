@@ -0,0 +1,146 @@
+package com.drop_token.records;
+
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTMoveListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Records games into a file of the {@link GameRecordFormat}, appending to the games already in it.
+ * <p>
+ * The writer listens to the engine of the game being recorded, so every token is recorded as it's inserted,
+ * and dropped again if it's undone. The game is only written once it's ended, as its header needs the outcome
+ * and the number of moves. Writes go through a buffer that's flushed as it fills up, and on close.
+ */
+public class DTGameRecordWriter implements IDTMoveListener, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int INITIAL_MOVES_SIZE = 64;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private IDTEngine engine;
+    private int[] moves = new int[INITIAL_MOVES_SIZE];
+    private int movesCount;
+
+    public DTGameRecordWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+
+        if (channel.size() == 0) buffer.putInt(GameRecordFormat.MAGIC).putInt(GameRecordFormat.VERSION);
+    }
+
+    /**
+     * Starts recording the game of the engine, from its current position on.
+     * Any game still being recorded is dropped.
+     */
+    public void startGame(IDTEngine engine) {
+        if (this.engine != null) this.engine.setMoveListener(null);
+
+        this.engine = engine;
+        this.movesCount = 0;
+
+        engine.setMoveListener(this);
+    }
+
+    /**
+     * Writes the recorded game with the engine's current outcome, and stops listening to it.
+     */
+    public void endGame() throws IOException {
+        if (engine == null) return;
+
+        int columnsCount = engine.getColumnsCount();
+        GameStatus gameStatus = engine.getGameStatus();
+        int winnerId = engine.getWinnerId();
+
+        ensureRoom(GameRecordFormat.MAX_GAME_HEADER_SIZE);
+
+        putVarint(engine.getRowsCount());
+        putVarint(columnsCount);
+        putVarint(engine.getPlayersCount());
+        putVarint(engine.getWinningStreak());
+        putVarint(winnerId << GameRecordFormat.STATUS_BITS | gameStatus.ordinal());
+        putVarint(movesCount);
+
+        int bitsPerMove = GameRecordFormat.getBitsPerMove(columnsCount);
+        long bits = 0;
+        int bitsCount = 0;
+
+        for (int i = 0; i < movesCount; i++) {
+            bits |= (long) moves[i] << bitsCount;
+            bitsCount += bitsPerMove;
+
+            for (; bitsCount >= Byte.SIZE; bits >>>= Byte.SIZE, bitsCount -= Byte.SIZE) {
+                putByte((byte) bits);
+            }
+        }
+
+        if (bitsCount > 0) putByte((byte) bits);
+
+        engine.setMoveListener(null);
+        engine = null;
+    }
+
+    @Override
+    public void onTokenInserted(int column) {
+        if (movesCount == moves.length) moves = Arrays.copyOf(moves, movesCount * 2);
+
+        moves[movesCount++] = column;
+    }
+
+    @Override
+    public void onTokenRemoved() {
+        movesCount--;
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the games written so far and closes the file, a game still being recorded is dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        if (engine != null) engine.setMoveListener(null);
+
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    private void putByte(byte b) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+
+        buffer.put(b);
+    }
+
+    private void ensureRoom(int size) throws IOException {
+        if (buffer.remaining() < size) flush();
+    }
+}
@@ -0,0 +1,41 @@
+package com.drop_token.records;
+
+/**
+ * The layout of game record files, shared by the writer and the reader.
+ * <p>
+ * A file starts with the magic number and the format version, as two big-endian ints, followed by the games.
+ * Every game is a header of unsigned LEB128 varints; the rows count, the columns count, the players count,
+ * the winning streak, the outcome and the moves count. The outcome packs the final game status ordinal into its
+ * two lowest bits and the winner's id, 0 without a winner, above them.
+ * The moves follow, each one the column index on just enough bits for the columns count,
+ * packed from the lowest bit of each byte up, and padded to a whole byte at the end of the game.
+ */
+final class GameRecordFormat {
+
+    static final int MAGIC = 0x44544752;
+    static final int VERSION = 1;
+    static final int FILE_HEADER_SIZE = 8;
+
+    // Six varints of an int each, at most 5 bytes per varint
+    static final int MAX_GAME_HEADER_SIZE = 6 * 5;
+
+    static final int STATUS_BITS = 2;
+    static final int STATUS_MASK = (1 << STATUS_BITS) - 1;
+
+    private GameRecordFormat() {
+    }
+
+    /**
+     * @return the number of bits holding a column index, at least 1
+     */
+    static int getBitsPerMove(int columnsCount) {
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(columnsCount - 1));
+    }
+
+    /**
+     * @return the number of bytes holding the packed moves of a game
+     */
+    static long getMovesSize(int movesCount, int bitsPerMove) {
+        return ((long) movesCount * bitsPerMove + Byte.SIZE - 1) / Byte.SIZE;
+    }
+}
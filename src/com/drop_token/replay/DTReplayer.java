@@ -0,0 +1,225 @@
+package com.drop_token.replay;
+
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays recorded games through an engine, headless, without prompts nor per-command output.
+ * <p>
+ * A game file holds the columns of the games' moves, one per line, as the GET command prints them,
+ * and the games are separated by blank lines.
+ * For every game a line "gameNumber result movesCount" is written, where the result is WIN followed by the
+ * winner's id, DRAW, PLAYING for games which ended before being decided, or ERROR for games with an unreadable
+ * line or a refused move. The file's summary follows the games.
+ * <p>
+ * Both the input and the output go through large byte buffers, and the engine is rewound between games,
+ * so replaying allocates nothing per game nor per move.
+ */
+public class DTReplayer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Room kept at the end of the output buffer, enough for any result line
+    private static final int MAX_RESULT_LENGTH = 64;
+
+    // Columns can't go beyond this, anything longer is an unreadable line
+    private static final int MAX_COLUMN = 1_000_000;
+
+    private static final byte[] RESULT_WIN = " WIN ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESULT_DRAW = " DRAW ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESULT_PLAYING = " PLAYING ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESULT_ERROR = " ERROR ".getBytes(StandardCharsets.US_ASCII);
+
+    private final IDTEngine engine;
+    private final WritableByteChannel out;
+
+    private final ByteBuffer inBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer outBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // State of the line being read
+    private int lineColumn;
+    private boolean hasLineDigits;
+    private boolean hasLineEndedDigits;
+    private boolean isLineInvalid;
+
+    // State of the game being replayed
+    private int gameNumber;
+    private int gameMovesCount;
+    private boolean hasGameLines;
+    private boolean isGameInvalid;
+
+    /**
+     * @param engine a fresh engine of the recorded games' configuration, it's reused for every game
+     * @param out    where the results are written
+     */
+    public DTReplayer(IDTEngine engine, WritableByteChannel out) {
+        this.engine = engine;
+        this.out = out;
+    }
+
+    /**
+     * Replays every game of the file, writes their results and the file's summary.
+     *
+     * @return the file's summary
+     */
+    public ReplaySummary replay(Path file) throws IOException {
+        ReplaySummary summary = new ReplaySummary(file.toString());
+
+        gameNumber = 0;
+        resetLine();
+        resetGame();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            inBuffer.clear();
+
+            while (channel.read(inBuffer) >= 0) {
+                inBuffer.flip();
+
+                while (inBuffer.hasRemaining()) {
+                    readByte(inBuffer.get(), summary);
+                }
+
+                inBuffer.clear();
+            }
+        }
+
+        // The last line and game don't need to be terminated
+        endLine(summary);
+        endGame(summary);
+
+        writeSummary(summary);
+
+        return summary;
+    }
+
+    private void readByte(byte b, ReplaySummary summary) throws IOException {
+        switch (b) {
+            case '\n':
+                endLine(summary);
+                break;
+            case ' ':
+            case '\t':
+            case '\r':
+                hasLineEndedDigits = hasLineDigits;
+                break;
+            default:
+                if (b < '0' || b > '9' || hasLineEndedDigits) {
+                    isLineInvalid = true;
+                } else {
+                    hasLineDigits = true;
+                    lineColumn = lineColumn * 10 + (b - '0');
+
+                    if (lineColumn > MAX_COLUMN) isLineInvalid = true;
+                }
+        }
+    }
+
+    private void endLine(ReplaySummary summary) throws IOException {
+        if (!hasLineDigits && !isLineInvalid) {
+            // A blank line closes the game
+            endGame(summary);
+            return;
+        }
+
+        hasGameLines = true;
+
+        if (!isGameInvalid) {
+            if (isLineInvalid || engine.insertToken(lineColumn - 1) == TokenInsertionStatus.ERROR)
+                isGameInvalid = true;
+            else
+                gameMovesCount++;
+        }
+
+        resetLine();
+    }
+
+    private void endGame(ReplaySummary summary) throws IOException {
+        if (!hasGameLines) return;
+
+        ensureOutputRoom();
+
+        putNumber(++gameNumber);
+
+        if (isGameInvalid) {
+            summary.countError();
+            outBuffer.put(RESULT_ERROR);
+        } else {
+            switch (engine.getGameStatus()) {
+                case FINISHED_WIN:
+                    summary.countWin();
+                    outBuffer.put(RESULT_WIN);
+                    putNumber(engine.getPreviousPlayerId());
+                    outBuffer.put((byte) ' ');
+                    break;
+                case FINISHED_DRAW:
+                    summary.countDraw();
+                    outBuffer.put(RESULT_DRAW);
+                    break;
+                case PLAYING:
+                    summary.countUnfinished();
+                    outBuffer.put(RESULT_PLAYING);
+                    break;
+            }
+        }
+
+        putNumber(gameMovesCount);
+        outBuffer.put((byte) '\n');
+
+        while (engine.undo()) {
+            // Rewinds the engine to an empty board for the next game
+        }
+
+        resetGame();
+    }
+
+    private void resetLine() {
+        lineColumn = 0;
+        hasLineDigits = false;
+        hasLineEndedDigits = false;
+        isLineInvalid = false;
+    }
+
+    private void resetGame() {
+        gameMovesCount = 0;
+        hasGameLines = false;
+        isGameInvalid = false;
+    }
+
+    private void putNumber(long number) {
+        if (number >= 10) putNumber(number / 10);
+
+        outBuffer.put((byte) ('0' + number % 10));
+    }
+
+    private void writeSummary(ReplaySummary summary) throws IOException {
+        ByteBuffer summaryLine = ByteBuffer.wrap((summary + "\n").getBytes(StandardCharsets.US_ASCII));
+
+        flush();
+
+        while (summaryLine.hasRemaining()) {
+            out.write(summaryLine);
+        }
+    }
+
+    private void ensureOutputRoom() throws IOException {
+        if (outBuffer.remaining() < MAX_RESULT_LENGTH) flush();
+    }
+
+    private void flush() throws IOException {
+        outBuffer.flip();
+
+        while (outBuffer.hasRemaining()) {
+            out.write(outBuffer);
+        }
+
+        outBuffer.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.drop_token.replay;
+
+/**
+ * The tally of the games replayed from a single file.
+ */
+public class ReplaySummary {
+
+    private final String fileName;
+
+    private long gamesCount;
+    private long winsCount;
+    private long drawsCount;
+    private long unfinishedCount;
+    private long errorsCount;
+
+    ReplaySummary(String fileName) {
+        this.fileName = fileName;
+    }
+
+    void countWin() {
+        gamesCount++;
+        winsCount++;
+    }
+
+    void countDraw() {
+        gamesCount++;
+        drawsCount++;
+    }
+
+    void countUnfinished() {
+        gamesCount++;
+        unfinishedCount++;
+    }
+
+    void countError() {
+        gamesCount++;
+        errorsCount++;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getGamesCount() {
+        return gamesCount;
+    }
+
+    public long getWinsCount() {
+        return winsCount;
+    }
+
+    public long getDrawsCount() {
+        return drawsCount;
+    }
+
+    /**
+     * @return The number of games whose moves were all valid, but ended before a win or a draw.
+     */
+    public long getUnfinishedCount() {
+        return unfinishedCount;
+    }
+
+    /**
+     * @return The number of games holding an unreadable line or a move the engine refused.
+     */
+    public long getErrorsCount() {
+        return errorsCount;
+    }
+
+    @Override
+    public String toString() {
+        return fileName + ": " + gamesCount + " games, " + winsCount + " wins, " + drawsCount + " draws, "
+                + unfinishedCount + " unfinished, " + errorsCount + " errors";
+    }
+}
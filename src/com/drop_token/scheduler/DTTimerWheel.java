@@ -0,0 +1,171 @@
+package com.drop_token.scheduler;
+
+/**
+ * A hashed timing wheel, holding any number of timers at a fixed resolution, driven by a single thread.
+ * <p>
+ * Time is cut into ticks, and the ticks spread over a ring of buckets; a timer is linked into the bucket of
+ * its deadline's tick, along with the timers due a whole number of rotations before or after it.
+ * Scheduling, rescheduling and cancelling a timer are O(1) whatever the number of timers, and advancing the wheel
+ * only visits the buckets of the elapsed ticks, so its owner may sleep until {@link #getNextDeadlineNanos()}
+ * instead of waking up on every tick.
+ * <p>
+ * A timer never fires before its deadline, and at most a tick after it if the wheel is advanced on time.
+ * The wheel isn't thread safe, it's meant to be owned by a thread that advances it between its other work.
+ */
+public class DTTimerWheel {
+
+    private final long tickNanos;
+    private final int bucketsMask;
+    private final Timer[] buckets;
+    private final long startNanos;
+
+    // The next tick to expire, every tick before it was expired
+    private long currentTick;
+    private int timersCount;
+
+    /**
+     * @param tickNanos    the resolution of the timers
+     * @param bucketsCount the number of ticks of a rotation, a power of two
+     * @param nowNanos     the current time, as of {@link System#nanoTime()}
+     */
+    public DTTimerWheel(long tickNanos, int bucketsCount, long nowNanos) {
+        if (tickNanos <= 0 || bucketsCount <= 0 || Integer.bitCount(bucketsCount) != 1)
+            throw new IllegalArgumentException("The ticks must last and the buckets be a power of two");
+
+        this.tickNanos = tickNanos;
+        this.bucketsMask = bucketsCount - 1;
+        this.buckets = new Timer[bucketsCount];
+        this.startNanos = nowNanos;
+    }
+
+    /**
+     * Schedules the timer, moving it if it's already scheduled. A deadline in the past fires on the next advance.
+     */
+    public void schedule(Timer timer, long deadlineNanos) {
+        if (timer.bucketIndex >= 0) unlink(timer);
+
+        // Rounded up, so the timer never fires early, and never into a tick already expired
+        long tick = Math.max(currentTick, Math.floorDiv(deadlineNanos - startNanos + tickNanos - 1, tickNanos));
+        int bucketIndex = (int) tick & bucketsMask;
+        Timer head = buckets[bucketIndex];
+
+        timer.deadlineTick = tick;
+        timer.bucketIndex = bucketIndex;
+        timer.previous = null;
+        timer.next = head;
+
+        if (head != null) head.previous = timer;
+
+        buckets[bucketIndex] = timer;
+        timersCount++;
+    }
+
+    /**
+     * @return false if the timer wasn't scheduled
+     */
+    public boolean cancel(Timer timer) {
+        if (timer.bucketIndex < 0) return false;
+
+        unlink(timer);
+        return true;
+    }
+
+    /**
+     * Fires every timer due by now, in the order of their ticks. The timers may schedule and cancel any timer
+     * as they fire; the ones they schedule fire on a later tick at the earliest.
+     *
+     * @return the number of fired timers
+     */
+    public int advance(long nowNanos) {
+        long lastTick = Math.floorDiv(nowNanos - startNanos, tickNanos);
+        int firedCount = 0;
+
+        while (currentTick <= lastTick) {
+            if (timersCount == 0) {
+                currentTick = lastTick + 1;
+                break;
+            }
+
+            // Counted first, so the timers scheduled by the fired ones go to the next tick at the earliest
+            long tick = currentTick++;
+            int bucketIndex = (int) tick & bucketsMask;
+            Timer timer = buckets[bucketIndex];
+
+            while (timer != null) {
+                Timer next = timer.next;
+
+                if (timer.deadlineTick <= tick) {
+                    unlink(timer);
+                    firedCount++;
+                    timer.onExpired(nowNanos);
+
+                    // The fired timer may have cancelled the next one
+                    if (next != null && next.bucketIndex != bucketIndex) next = buckets[bucketIndex];
+                }
+
+                timer = next;
+            }
+        }
+
+        return firedCount;
+    }
+
+    /**
+     * Finds the first tick holding a timer within a rotation, which may be due on a later rotation, so sleeping
+     * until then never misses a timer, and wakes up at most once a rotation for nothing.
+     *
+     * @return the time to advance the wheel at, or Long.MAX_VALUE if no timer is scheduled
+     */
+    public long getNextDeadlineNanos() {
+        if (timersCount == 0) return Long.MAX_VALUE;
+
+        long tick = currentTick;
+
+        while (tick < currentTick + bucketsMask && buckets[(int) tick & bucketsMask] == null) {
+            tick++;
+        }
+
+        return startNanos + tick * tickNanos;
+    }
+
+    public int getTimersCount() {
+        return timersCount;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.previous == null) buckets[timer.bucketIndex] = timer.next;
+        else timer.previous.next = timer.next;
+
+        if (timer.next != null) timer.next.previous = timer.previous;
+
+        timer.previous = null;
+        timer.next = null;
+        timer.bucketIndex = -1;
+        timersCount--;
+    }
+
+    /**
+     * A timer of the wheel, linked into its bucket by itself, so scheduling it allocates nothing.
+     * It's scheduled on one wheel at a time.
+     */
+    public abstract static class Timer {
+
+        private Timer previous;
+        private Timer next;
+        private long deadlineTick;
+
+        // -1 while the timer isn't scheduled
+        private int bucketIndex = -1;
+
+        public boolean isScheduled() {
+            return bucketIndex >= 0;
+        }
+
+        /**
+         * Called by the thread advancing the wheel, once the timer is due and unscheduled.
+         *
+         * @param nowNanos the time the wheel was advanced to
+         */
+        protected abstract void onExpired(long nowNanos);
+    }
+}
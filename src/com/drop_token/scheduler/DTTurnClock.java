@@ -0,0 +1,111 @@
+package com.drop_token.scheduler;
+
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.scheduler.IDTTimeoutListener.TimeoutAction;
+
+import java.util.Arrays;
+
+/**
+ * The clock of a single game, the time left to each of its players.
+ * <p>
+ * The clock follows the game's turns by comparing the engine's player and moves with the ones of the running turn,
+ * every time it's updated, so the game itself knows nothing of it. Once the running turn's time is out, the clock
+ * skips the turn or has the player forfeit, on the engine, and starts the next turn.
+ */
+public class DTTurnClock extends DTTimerWheel.Timer {
+
+    private final DTTurnScheduler scheduler;
+    private final IDTEngine engine;
+
+    // Indexed by the players ids, minus one; the time left as of the start of their last turn
+    private final long[] remainingNanos;
+
+    private IDTTimeoutListener timeoutListener;
+
+    // The turn the time runs for; no player while the clock is stopped
+    private int turnPlayerId;
+    private int turnMovesCount;
+    private long turnStartNanos;
+
+    DTTurnClock(DTTurnScheduler scheduler, IDTEngine engine) {
+        this.scheduler = scheduler;
+        this.engine = engine;
+        this.remainingNanos = new long[engine.getPlayersCount()];
+
+        Arrays.fill(remainingNanos, scheduler.getBudgetNanos());
+    }
+
+    /**
+     * @param timeoutListener the listener, or null for none.
+     */
+    public void setTimeoutListener(IDTTimeoutListener timeoutListener) {
+        this.timeoutListener = timeoutListener;
+    }
+
+    /**
+     * Called after every command of the game; if the turn passed on, charges the time it took to its player
+     * and starts the clock of the next one. Stops the clock once the game is over.
+     */
+    public void update(long nowNanos) {
+        if (engine.getGameStatus() != GameStatus.PLAYING) {
+            stop();
+            return;
+        }
+
+        int playerId = engine.getCurrentPlayerId();
+        int movesCount = engine.getMovesCount();
+
+        if (playerId == turnPlayerId && movesCount == turnMovesCount) return;
+
+        if (turnPlayerId != 0)
+            remainingNanos[turnPlayerId - 1] += scheduler.getIncrementNanos() - (nowNanos - turnStartNanos);
+
+        turnPlayerId = playerId;
+        turnMovesCount = movesCount;
+        turnStartNanos = nowNanos;
+
+        // A player who moved past their deadline, before the timer fired, has no time left
+        scheduler.schedule(this, nowNanos + Math.max(0, remainingNanos[playerId - 1]));
+    }
+
+    /**
+     * Stops the clock for good, e.g. as the game is left; the time of the running turn isn't charged.
+     */
+    public void stop() {
+        scheduler.cancel(this);
+        turnPlayerId = 0;
+    }
+
+    /**
+     * @return the player's time left, the running turn's elapsed time included
+     */
+    public long getRemainingNanos(int playerId, long nowNanos) {
+        long elapsedNanos = playerId == turnPlayerId ? nowNanos - turnStartNanos : 0;
+
+        return remainingNanos[playerId - 1] - elapsedNanos;
+    }
+
+    @Override
+    protected void onExpired(long nowNanos) {
+        int playerId = turnPlayerId;
+        TimeoutAction timeoutAction = scheduler.getTimeoutAction();
+
+        // The turn is over, and its player out of time but for the increment
+        remainingNanos[playerId - 1] = scheduler.getIncrementNanos();
+        turnPlayerId = 0;
+
+        boolean isApplied = timeoutAction == TimeoutAction.SKIP ? engine.skipTurn() : engine.forfeit(playerId);
+
+        // The only player of the game can't forfeit, their time just runs out
+        if (!isApplied) {
+            stop();
+            return;
+        }
+
+        // First, so a listener leaving the game stops the next turn's clock
+        update(nowNanos);
+
+        if (timeoutListener != null) timeoutListener.onTimeout(playerId, timeoutAction, nowNanos);
+    }
+}
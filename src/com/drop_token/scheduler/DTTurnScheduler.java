@@ -0,0 +1,102 @@
+package com.drop_token.scheduler;
+
+import com.drop_token.model.IDTEngine;
+import com.drop_token.scheduler.IDTTimeoutListener.TimeoutAction;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the clocks of many games on a single {@link DTTimerWheel}, without any thread of its own.
+ * <p>
+ * Every player of a game gets the same time budget, which only runs during their turns, and the increment
+ * added to it after each of them. A game only keeps the timer of its current turn on the wheel, so a clock costs
+ * nothing but its memory between moves, and the owning thread only wakes up for the turns actually running out:
+ * once its player's time is out, the turn is skipped or the player forfeits.
+ * <p>
+ * The scheduler isn't thread safe, it's meant to be owned by the thread playing its games, e.g. a server's
+ * event loop, which advances it between its other work.
+ */
+public class DTTurnScheduler {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    // About 40 seconds a rotation, longer turns wait on the wheel for a few rotations
+    private static final int BUCKETS_COUNT = 4096;
+
+    private final long budgetNanos;
+    private final long incrementNanos;
+    private final TimeoutAction timeoutAction;
+    private final DTTimerWheel timerWheel;
+
+    /**
+     * @param budgetMillis    the time every player starts with
+     * @param incrementMillis the time every player gets after each of their turns, 0 for none
+     * @param timeoutAction   what happens to the players whose time runs out; a skipped player's time
+     *                        starts over from the increment
+     */
+    public DTTurnScheduler(long budgetMillis, long incrementMillis, TimeoutAction timeoutAction) {
+        this(budgetMillis, incrementMillis, timeoutAction, System.nanoTime());
+    }
+
+    /**
+     * @param nowNanos the current time, for a scheduler driven by a clock other than {@link System#nanoTime()}
+     */
+    public DTTurnScheduler(long budgetMillis, long incrementMillis, TimeoutAction timeoutAction, long nowNanos) {
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.incrementNanos = TimeUnit.MILLISECONDS.toNanos(incrementMillis);
+        this.timeoutAction = timeoutAction;
+        this.timerWheel = new DTTimerWheel(TICK_NANOS, BUCKETS_COUNT, nowNanos);
+    }
+
+    /**
+     * Starts the clock of the game's current turn.
+     *
+     * @return the game's clock, to be updated after every command of the game
+     */
+    public DTTurnClock startClock(IDTEngine engine, long nowNanos) {
+        DTTurnClock turnClock = new DTTurnClock(this, engine);
+        turnClock.update(nowNanos);
+
+        return turnClock;
+    }
+
+    /**
+     * Times out the turns whose time ran out by now.
+     *
+     * @return the number of timed out turns
+     */
+    public int advance(long nowNanos) {
+        return timerWheel.advance(nowNanos);
+    }
+
+    /**
+     * @return the time to advance the scheduler at, or Long.MAX_VALUE if no clock runs
+     */
+    public long getNextDeadlineNanos() {
+        return timerWheel.getNextDeadlineNanos();
+    }
+
+    public int getRunningClocksCount() {
+        return timerWheel.getTimersCount();
+    }
+
+    long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    long getIncrementNanos() {
+        return incrementNanos;
+    }
+
+    TimeoutAction getTimeoutAction() {
+        return timeoutAction;
+    }
+
+    void schedule(DTTurnClock turnClock, long deadlineNanos) {
+        timerWheel.schedule(turnClock, deadlineNanos);
+    }
+
+    void cancel(DTTurnClock turnClock) {
+        timerWheel.cancel(turnClock);
+    }
+}
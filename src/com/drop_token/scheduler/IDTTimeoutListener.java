@@ -0,0 +1,19 @@
+package com.drop_token.scheduler;
+
+/**
+ * Told of the turns whose time ran out, e.g. to let the players know.
+ * Called on the thread advancing the clock's scheduler.
+ */
+public interface IDTTimeoutListener {
+
+    /**
+     * Called once the timeout was applied to the game, and the clock of the next turn started.
+     *
+     * @param playerId      the id of the player whose time ran out
+     * @param timeoutAction what the timeout did to the player
+     * @param nowNanos      the time the scheduler was advanced to
+     */
+    void onTimeout(int playerId, TimeoutAction timeoutAction, long nowNanos);
+
+    enum TimeoutAction {SKIP, FORFEIT}
+}
@@ -0,0 +1,67 @@
+package com.drop_token.server;
+
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.scheduler.IDTTimeoutListener.TimeoutAction;
+
+/**
+ * The layout of the moves broadcast to the watchers of a game, each one packed into a long, so a move is encoded
+ * once and queued to every watcher without allocating.
+ * <p>
+ * The insertion status ordinal takes the 2 lowest bits, the player's id the next 16, then the column,
+ * indexing starting at 0, and the height of the token, 1 for the bottom row, take 23 bits each.
+ * <p>
+ * A turn timed out without a token is broadcast the same way, with a height of 0 and the timeout action's ordinal
+ * in place of the column.
+ */
+final class BoardDelta {
+
+    private static final int STATUS_BITS = 2;
+    private static final int PLAYER_BITS = 16;
+    private static final int COORDINATE_BITS = 23;
+
+    private static final int PLAYER_SHIFT = STATUS_BITS;
+    private static final int COLUMN_SHIFT = PLAYER_SHIFT + PLAYER_BITS;
+    private static final int HEIGHT_SHIFT = COLUMN_SHIFT + COORDINATE_BITS;
+
+    private static final TokenInsertionStatus[] STATUSES = TokenInsertionStatus.values();
+    private static final TimeoutAction[] TIMEOUT_ACTIONS = TimeoutAction.values();
+
+    private BoardDelta() {
+    }
+
+    static long encode(int column, int height, int playerId, TokenInsertionStatus status) {
+        return (long) height << HEIGHT_SHIFT | (long) column << COLUMN_SHIFT | (long) playerId << PLAYER_SHIFT
+                | status.ordinal();
+    }
+
+    /**
+     * @param status WIN if the timeout ended the game, OK otherwise
+     */
+    static long encodeTimeout(int playerId, TimeoutAction timeoutAction, TokenInsertionStatus status) {
+        return encode(timeoutAction.ordinal(), 0, playerId, status);
+    }
+
+    static boolean isTimeout(long delta) {
+        return getHeight(delta) == 0;
+    }
+
+    static TimeoutAction getTimeoutAction(long delta) {
+        return TIMEOUT_ACTIONS[getColumn(delta)];
+    }
+
+    static int getColumn(long delta) {
+        return (int) (delta >>> COLUMN_SHIFT) & ((1 << COORDINATE_BITS) - 1);
+    }
+
+    static int getHeight(long delta) {
+        return (int) (delta >>> HEIGHT_SHIFT);
+    }
+
+    static int getPlayerId(long delta) {
+        return (int) (delta >>> PLAYER_SHIFT) & ((1 << PLAYER_BITS) - 1);
+    }
+
+    static TokenInsertionStatus getStatus(long delta) {
+        return STATUSES[(int) delta & ((1 << STATUS_BITS) - 1)];
+    }
+}
@@ -0,0 +1,238 @@
+package com.drop_token.server;
+
+import com.drop_token.journal.DTJournal;
+import com.drop_token.metrics.DTMetrics;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.scheduler.DTTurnScheduler;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A thread multiplexing many sessions over a single selector.
+ * Commands are cheap compared to the I/O around them, so every session is served right on the loop's thread.
+ * Other threads hand work to the loop's sessions as tasks, run on the loop's thread between selections.
+ * When the games are timed, the loop owns the clocks of its sessions, and only wakes up for the turns running out.
+ */
+class DTEventLoop implements Runnable {
+
+    private final Selector selector;
+    private final Supplier<IDTEngine> engineFactory;
+    private final Consumer<IDTEngine> engineRecycler;
+    private final DTMetrics metrics;
+    private final DTJournal journal;
+    private final DTGameRegistry gameRegistry;
+    private final DTTurnScheduler turnScheduler;
+
+    // Connections accepted by the server, waiting to be registered by the loop's own thread
+    private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean isRunning = true;
+
+    DTEventLoop(Supplier<IDTEngine> engineFactory, Consumer<IDTEngine> engineRecycler, DTMetrics metrics,
+                DTJournal journal, DTGameRegistry gameRegistry, DTTurnScheduler turnScheduler) throws IOException {
+        this.selector = Selector.open();
+        this.engineFactory = engineFactory;
+        this.engineRecycler = engineRecycler;
+        this.metrics = metrics;
+        this.journal = journal;
+        this.gameRegistry = gameRegistry;
+        this.turnScheduler = turnScheduler;
+    }
+
+    /**
+     * Hands a new connection to the loop; called from the accepting thread.
+     */
+    void register(SocketChannel channel) {
+        pendingChannels.add(channel);
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the task on the loop's thread; called from any thread.
+     */
+    void execute(Runnable task) {
+        pendingTasks.add(task);
+        selector.wakeup();
+    }
+
+    Consumer<IDTEngine> getEngineRecycler() {
+        return engineRecycler;
+    }
+
+    /**
+     * @return the metrics the sessions record, or null
+     */
+    DTMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the journal of the sessions' games, or null
+     */
+    DTJournal getJournal() {
+        return journal;
+    }
+
+    DTGameRegistry getGameRegistry() {
+        return gameRegistry;
+    }
+
+    /**
+     * @return the scheduler of the sessions' clocks, or null if the games aren't timed
+     */
+    DTTurnScheduler getTurnScheduler() {
+        return turnScheduler;
+    }
+
+    void shutdown() {
+        isRunning = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (isRunning) {
+                select();
+
+                registerPendingChannels();
+                runPendingTasks();
+
+                // Before the commands, so the turns whose time ran out are over before their late moves are read
+                if (turnScheduler != null) advanceTurnScheduler();
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+
+                while (selectedKeys.hasNext()) {
+                    SelectionKey selectionKey = selectedKeys.next();
+                    selectedKeys.remove();
+
+                    handle(selectionKey);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Event loop failed", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Waits for I/O, tasks, or the next deadline of the clocks, rounded up to the millisecond.
+     */
+    private void select() throws IOException {
+        long deadlineNanos = turnScheduler == null ? Long.MAX_VALUE : turnScheduler.getNextDeadlineNanos();
+
+        if (deadlineNanos == Long.MAX_VALUE) {
+            selector.select();
+            return;
+        }
+
+        long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+
+        if (timeoutMillis > 0) selector.select(timeoutMillis);
+        else selector.selectNow();
+    }
+
+    private void registerPendingChannels() {
+        SocketChannel channel;
+
+        while ((channel = pendingChannels.poll()) != null) {
+            SelectionKey selectionKey = null;
+            IDTEngine engine = null;
+
+            try {
+                channel.configureBlocking(false);
+
+                selectionKey = channel.register(selector, SelectionKey.OP_READ);
+                engine = engineFactory.get();
+                selectionKey.attach(new DTSession(channel, selectionKey, this, engine));
+            } catch (IOException | RuntimeException e) {
+                if (!(e instanceof IOException)) logFailure("Failed starting a session", e);
+
+                if (selectionKey != null) selectionKey.cancel();
+
+                // No session took the engine
+                if (engine != null) engineRecycler.accept(engine);
+
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // The connection is gone either way
+                }
+            }
+        }
+    }
+
+    private void runPendingTasks() {
+        Runnable task;
+
+        while ((task = pendingTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // The sessions guard their own tasks, this one failed on its own
+                logFailure("Task failed", e);
+            }
+        }
+    }
+
+    private void advanceTurnScheduler() {
+        try {
+            turnScheduler.advance(System.nanoTime());
+        } catch (RuntimeException e) {
+            // The failed clock is already off the wheel, the other sessions go on being served
+            logFailure("Failed timing out turns", e);
+        }
+    }
+
+    private void handle(SelectionKey selectionKey) {
+        DTSession session = (DTSession) selectionKey.attachment();
+
+        try {
+            if (selectionKey.isReadable()) session.onReadable();
+            else if (selectionKey.isWritable()) session.onWritable();
+        } catch (IOException | CancelledKeyException e) {
+            session.close();
+        } catch (RuntimeException e) {
+            // Only the failing session is closed, the loop goes on serving the others
+            session.fail(e);
+        }
+    }
+
+    /**
+     * Reports a failure the loop survived, as a bug rather than a lost connection.
+     */
+    static void logFailure(String message, Throwable failure) {
+        System.err.println(Thread.currentThread().getName() + ": " + message);
+        failure.printStackTrace();
+    }
+
+    private void closeAll() {
+        // The games aren't over, only the server, so they're left to be recovered
+        for (SelectionKey selectionKey : selector.keys()) {
+            DTSession session = (DTSession) selectionKey.attachment();
+
+            // The keys of closed sessions, and of the sessions which failed to start, stay until the next selection
+            if (selectionKey.isValid() && session != null) session.close(false);
+        }
+
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // Nothing is left to serve
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.drop_token.server;
+
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.scheduler.IDTTimeoutListener.TimeoutAction;
+import com.drop_token.view.DTBoardRenderer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fans the moves of a session's game out to the sessions watching it.
+ * <p>
+ * The broadcast lives on the game's event loop: moves are published, and watchers added, on its thread only,
+ * so none of it is locked. Every move is encoded once into a {@link BoardDelta} and offered to every watcher,
+ * and a new watcher first gets the board rendered once for all the watchers joining at the same move,
+ * so watching costs the game per move, not per watcher polling the board. The turns timed out without a token,
+ * and the games a forfeit ends, are broadcast the same way.
+ * The games of the server all start from an empty board, and are never undone.
+ */
+class DTGameBroadcast {
+
+    private final int gameId;
+    private final DTEventLoop eventLoop;
+    private final IDTEngine engine;
+
+    private final List<DTWatcher> watchers = new ArrayList<>();
+
+    // The number of tokens in each column, as of the published moves
+    private final int[] heights;
+    private int publishedMovesCount;
+
+    // The board as of snapshotMovesCount moves, rendered for the first watcher joining at that move
+    private DTBoardRenderer boardRenderer;
+    private String snapshot;
+    private int snapshotMovesCount = -1;
+
+    private boolean isClosed;
+
+    /**
+     * @param eventLoop the event loop of the game's session
+     */
+    DTGameBroadcast(int gameId, DTEventLoop eventLoop, IDTEngine engine) {
+        this.gameId = gameId;
+        this.eventLoop = eventLoop;
+        this.engine = engine;
+        this.heights = new int[engine.getColumnsCount()];
+
+        // A resumed game already has moves
+        publish();
+    }
+
+    int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Offers the moves played since the last call to every watcher; called by the game's session after every command.
+     */
+    void publish() {
+        int movesCount = engine.getMovesCount();
+        int rowsCount = engine.getRowsCount();
+
+        for (; publishedMovesCount < movesCount; publishedMovesCount++) {
+            int column = engine.getMoveColumn(publishedMovesCount);
+            int height = ++heights[column];
+
+            if (watchers.isEmpty()) continue;
+
+            TokenInsertionStatus status = publishedMovesCount < movesCount - 1 ? TokenInsertionStatus.OK
+                    : getLastInsertionStatus();
+            // The turns don't follow from the moves once they're skipped, the token is still on the board though
+            offer(BoardDelta.encode(column, height, engine.getTokenId(rowsCount - height, column), status));
+        }
+    }
+
+    /**
+     * Offers the turn timed out without a token to every watcher, after the moves played before it;
+     * called by the game's session once the clock skipped the turn or had its player forfeit.
+     */
+    void publishTimeout(int playerId, TimeoutAction timeoutAction) {
+        publish();
+
+        if (!watchers.isEmpty()) offer(BoardDelta.encodeTimeout(playerId, timeoutAction, getLastInsertionStatus()));
+    }
+
+    /**
+     * Subscribes the watcher from any thread; it gets the board once it's subscribed on the game's thread,
+     * then every move from there on.
+     */
+    void watch(DTWatcher watcher) {
+        eventLoop.execute(() -> subscribe(watcher));
+    }
+
+    /**
+     * Called by the game's session as it's closed, every watcher is told the game is gone.
+     */
+    void close() {
+        isClosed = true;
+
+        for (DTWatcher watcher : watchers) {
+            watcher.closeGame();
+        }
+
+        watchers.clear();
+    }
+
+    private void subscribe(DTWatcher watcher) {
+        if (isClosed) {
+            watcher.closeGame();
+            return;
+        }
+
+        if (watcher.isCancelled()) return;
+
+        watcher.start(getSnapshot());
+        watchers.add(watcher);
+    }
+
+    private String getSnapshot() {
+        if (snapshotMovesCount != publishedMovesCount) {
+            if (boardRenderer == null) boardRenderer = new DTBoardRenderer();
+
+            StringBuilder board = new StringBuilder();
+            boardRenderer.render(engine, board);
+
+            snapshot = board.toString();
+            snapshotMovesCount = publishedMovesCount;
+        }
+
+        return snapshot;
+    }
+
+    private TokenInsertionStatus getLastInsertionStatus() {
+        GameStatus gameStatus = engine.getGameStatus();
+
+        if (gameStatus == GameStatus.FINISHED_WIN) return TokenInsertionStatus.WIN;
+        if (gameStatus == GameStatus.FINISHED_DRAW) return TokenInsertionStatus.DRAW;
+
+        return TokenInsertionStatus.OK;
+    }
+
+    private void offer(long delta) {
+        for (int i = watchers.size() - 1; i >= 0; i--) {
+            DTWatcher watcher = watchers.get(i);
+
+            if (watcher.isCancelled()) {
+                remove(i);
+                continue;
+            }
+
+            // A dropped watcher is scheduled all the same, to tell its session
+            if (!watcher.offer(delta)) remove(i);
+
+            watcher.schedule();
+        }
+    }
+
+    /**
+     * Removes in O(1), the order of the watchers doesn't matter.
+     */
+    private void remove(int index) {
+        int lastIndex = watchers.size() - 1;
+
+        watchers.set(index, watchers.get(lastIndex));
+        watchers.remove(lastIndex);
+    }
+}
@@ -0,0 +1,37 @@
+package com.drop_token.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The live games of the server by their ids, for sessions to watch the games of other sessions.
+ * Shared by every event loop.
+ */
+class DTGameRegistry {
+
+    private final AtomicInteger lastGameId = new AtomicInteger();
+    private final ConcurrentMap<Integer, DTGameBroadcast> broadcasts = new ConcurrentHashMap<>();
+
+    /**
+     * @return an id of a game that isn't journaled, whose id the journal would give otherwise
+     */
+    int nextGameId() {
+        return lastGameId.incrementAndGet();
+    }
+
+    void register(DTGameBroadcast broadcast) {
+        broadcasts.put(broadcast.getGameId(), broadcast);
+    }
+
+    void unregister(DTGameBroadcast broadcast) {
+        broadcasts.remove(broadcast.getGameId(), broadcast);
+    }
+
+    /**
+     * @return the broadcast of the live game, or null if there's no such game
+     */
+    DTGameBroadcast get(int gameId) {
+        return broadcasts.get(gameId);
+    }
+}
@@ -0,0 +1,168 @@
+package com.drop_token.server;
+
+import com.drop_token.journal.DTJournal;
+import com.drop_token.metrics.DTMetrics;
+import com.drop_token.model.DTEnginePool;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.scheduler.DTTurnScheduler;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hosts many independent games over TCP on the local machine, one game per connection.
+ * <p>
+ * Clients speak the same PUT/GET/BOARD/EXIT commands as the console, one per line, and get the same responses,
+ * without the prompt. Connections are accepted on a dedicated thread and spread round-robin
+ * over a fixed number of event loops, each serving its sessions without blocking.
+ * <p>
+ * Given a journal, the server journals the moves of every game, and lets clients resume the games recovered
+ * from it after a restart, by their ids. Clients may also watch the game of another client by its id,
+ * getting its board and then every move as it's played. Given turn schedulers, the players' turns are timed,
+ * and the turns running out are skipped or forfeited.
+ */
+public class DTServer {
+
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final long MIN_ACCEPT_BACK_OFF_MILLIS = 10;
+    private static final long MAX_ACCEPT_BACK_OFF_MILLIS = 1000;
+
+    private final int port;
+    private final DTEventLoop[] eventLoops;
+
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * @param port            the local port to listen on, 0 picks any free port
+     * @param eventLoopsCount the number of threads serving the sessions
+     * @param engineFactory   creates the engine of every new session
+     */
+    public DTServer(int port, int eventLoopsCount, Supplier<IDTEngine> engineFactory) throws IOException {
+        this(port, eventLoopsCount, engineFactory, engine -> {
+        }, null, null, null);
+    }
+
+    /**
+     * @param port            the local port to listen on, 0 picks any free port
+     * @param eventLoopsCount the number of threads serving the sessions
+     * @param engineFactory   creates the engine of every new session, such as {@link DTEnginePool#acquire}
+     * @param engineRecycler  takes back the engine of every closed session, such as {@link DTEnginePool#release}
+     * @param metrics         records the metrics of every session, or null
+     * @param journal         journals the games of every session, or null
+     * @param turnSchedulers  creates the scheduler of the clocks of each event loop's sessions, or null
+     */
+    public DTServer(int port, int eventLoopsCount, Supplier<IDTEngine> engineFactory,
+                    Consumer<IDTEngine> engineRecycler, DTMetrics metrics, DTJournal journal,
+                    Supplier<DTTurnScheduler> turnSchedulers) throws IOException {
+        this.port = port;
+        this.eventLoops = new DTEventLoop[eventLoopsCount];
+
+        DTGameRegistry gameRegistry = new DTGameRegistry();
+
+        for (int i = 0; i < eventLoopsCount; i++) {
+            eventLoops[i] = new DTEventLoop(engineFactory, engineRecycler, metrics, journal, gameRegistry,
+                    turnSchedulers == null ? null : turnSchedulers.get());
+        }
+    }
+
+    /**
+     * Starts listening and serving; returns once the server is bound.
+     */
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), ACCEPT_BACKLOG);
+
+        for (int i = 0; i < eventLoops.length; i++) {
+            new Thread(eventLoops[i], "dt-event-loop-" + i).start();
+        }
+
+        new Thread(this::acceptConnections, "dt-acceptor").start();
+    }
+
+    /**
+     * Stops accepting connections and closes every open session.
+     */
+    public void stop() throws IOException {
+        serverChannel.close();
+
+        for (DTEventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+    }
+
+    /**
+     * @return the port the server is bound to
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Accepts until the server is stopped. Failing to accept, e.g. out of file descriptors, only pauses accepting,
+     * for longer and longer while it keeps failing, and a connection failing before it's served is just closed.
+     */
+    private void acceptConnections() {
+        int nextEventLoop = 0;
+        long backOffMillis = 0;
+
+        while (true) {
+            SocketChannel channel;
+
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                // The server was stopped
+                return;
+            } catch (IOException e) {
+                backOffMillis = Math.min(MAX_ACCEPT_BACK_OFF_MILLIS, Math.max(MIN_ACCEPT_BACK_OFF_MILLIS,
+                        backOffMillis * 2));
+                System.err.println("Failed accepting a connection, retrying in " + backOffMillis + " ms: " + e);
+
+                if (!sleep(backOffMillis)) return;
+
+                continue;
+            }
+
+            backOffMillis = 0;
+
+            try {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                // Reset by the client already
+                close(channel);
+                continue;
+            }
+
+            eventLoops[nextEventLoop].register(channel);
+            nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+        }
+    }
+
+    /**
+     * @return false if interrupted
+     */
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void close(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // The connection is gone either way
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.drop_token.server;
+
+import com.drop_token.controller.DTController;
+import com.drop_token.game_utils.AsciiSequence;
+import com.drop_token.journal.DTJournal;
+import com.drop_token.metrics.DTMetrics;
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.scheduler.DTTurnClock;
+import com.drop_token.scheduler.DTTurnScheduler;
+import com.drop_token.scheduler.IDTTimeoutListener.TimeoutAction;
+import com.drop_token.view.DTBufferedConsoleManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A single client connection, playing its own game.
+ * <p>
+ * The session is driven by its event loop: whatever was read is split into lines, every complete line is
+ * handed to the game's controller, and the responses of all of them are written back together.
+ * While a response can't be fully written, the session stops reading, so slow clients push back on themselves.
+ * <p>
+ * The session also answers GAME with the id of its game, WATCH &lt;id&gt; by the board of the game of that id
+ * followed by its moves as they're played, and UNWATCH by stopping them. When the server journals its games,
+ * RESUME &lt;id&gt; takes over the game of that id recovered from the journal. When the games are timed, the session
+ * tells its client of every turn whose time ran out, as it happens.
+ */
+class DTSession {
+
+    private static final int MAX_LINE_LENGTH = 1024;
+    private static final int INITIAL_OUTPUT_CAPACITY = 256;
+
+    private static final String COMMAND_GAME = "GAME";
+    private static final String COMMAND_WATCH = "WATCH";
+    private static final String COMMAND_UNWATCH = "UNWATCH";
+    private static final String COMMAND_RESUME = "RESUME";
+
+    private final SocketChannel channel;
+    private final SelectionKey selectionKey;
+
+    private final DTEventLoop eventLoop;
+    private final DTJournal journal;
+    private final DTGameRegistry gameRegistry;
+    private final DTBufferedConsoleManager consoleManager;
+
+    // Replaced when the session resumes a recovered game
+    private IDTEngine engine;
+    private DTController controller;
+    private DTJournal.GameLog gameLog;
+    private DTGameBroadcast broadcast;
+
+    // The clock of the game, or null if the games aren't timed
+    private DTTurnClock turnClock;
+
+    // The game the session watches, or null
+    private DTWatcher watcher;
+    private final Runnable drainWatcherTask = this::onOutputReady;
+
+    private final ByteBuffer inBuffer = ByteBuffer.allocate(MAX_LINE_LENGTH);
+    private final AsciiSequence line = new AsciiSequence();
+    private ByteBuffer outBuffer = ByteBuffer.allocate(INITIAL_OUTPUT_CAPACITY);
+
+    private boolean isClosed;
+
+    // Set when a line overflowed the input buffer; the rest of it is dropped and answered with an error
+    private boolean isDiscardingLine;
+
+    DTSession(SocketChannel channel, SelectionKey selectionKey, DTEventLoop eventLoop, IDTEngine engine) {
+        this.channel = channel;
+        this.selectionKey = selectionKey;
+        this.eventLoop = eventLoop;
+        this.journal = eventLoop.getJournal();
+        this.gameRegistry = eventLoop.getGameRegistry();
+        this.consoleManager = new DTBufferedConsoleManager();
+
+        if (journal == null) {
+            play(engine, gameRegistry.nextGameId());
+        } else {
+            gameLog = journal.startGame(engine);
+            play(engine, gameLog.getGameId());
+        }
+
+        outBuffer.flip();
+    }
+
+    void onReadable() throws IOException {
+        if (channel.read(inBuffer) < 0) {
+            close();
+            return;
+        }
+
+        inBuffer.flip();
+
+        handleLines();
+
+        if (inBuffer.position() == 0 && inBuffer.limit() == inBuffer.capacity()) {
+            // The buffer is full without a single line ending, the line is too long to be a command
+            isDiscardingLine = true;
+            inBuffer.clear();
+        } else {
+            inBuffer.compact();
+        }
+
+        flushOutput();
+    }
+
+    void onWritable() throws IOException {
+        flushOutput();
+    }
+
+    void close() {
+        close(true);
+    }
+
+    /**
+     * Closes the session after a command, a task or its clock failed unexpectedly.
+     */
+    void fail(RuntimeException failure) {
+        DTEventLoop.logFailure("Session of game " + broadcast.getGameId() + " failed", failure);
+
+        try {
+            close();
+        } catch (RuntimeException closeFailure) {
+            DTEventLoop.logFailure("Failed closing the session of game " + broadcast.getGameId(), closeFailure);
+        }
+    }
+
+    /**
+     * @param isGameOver false when the server is stopping, so the journaled game is recovered once it's started again
+     */
+    void close(boolean isGameOver) {
+        if (isClosed) return;
+
+        isClosed = true;
+        selectionKey.cancel();
+
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // The connection is gone either way
+        }
+
+        if (watcher != null) watcher.cancel();
+
+        if (gameLog != null) {
+            if (isGameOver) gameLog.end();
+            else gameLog.detach();
+        }
+
+        leaveGame();
+    }
+
+    private void play(IDTEngine engine, int gameId) {
+        DTMetrics metrics = eventLoop.getMetrics();
+
+        this.engine = engine;
+        this.controller = new DTController(engine, consoleManager, null);
+
+        if (metrics != null) controller.setMetrics(metrics);
+
+        broadcast = new DTGameBroadcast(gameId, eventLoop, engine);
+        gameRegistry.register(broadcast);
+
+        DTTurnScheduler turnScheduler = eventLoop.getTurnScheduler();
+
+        if (turnScheduler != null) {
+            turnClock = turnScheduler.startClock(engine, System.nanoTime());
+            turnClock.setTimeoutListener(this::onTimeout);
+        }
+    }
+
+    /**
+     * Closes the game's broadcast; nothing uses the game anymore, its engine can serve the next session.
+     */
+    private void leaveGame() {
+        if (turnClock != null) turnClock.stop();
+
+        gameRegistry.unregister(broadcast);
+        broadcast.close();
+
+        eventLoop.getEngineRecycler().accept(engine);
+    }
+
+    private void handleLines() {
+        byte[] input = inBuffer.array();
+        int lineStart = inBuffer.position();
+
+        for (int i = lineStart; i < inBuffer.limit() && !controller.isExitCalled(); i++) {
+
+            if (input[i] != '\n') continue;
+
+            if (isDiscardingLine) {
+                isDiscardingLine = false;
+                consoleManager.notifyWrongInput();
+            } else {
+                line.wrap(input, lineStart, i - lineStart);
+
+                if (!handleSessionCommand(line)) {
+                    controller.handleInput(line);
+                    broadcast.publish();
+
+                    if (turnClock != null) turnClock.update(System.nanoTime());
+                }
+            }
+
+            lineStart = i + 1;
+        }
+
+        inBuffer.position(lineStart);
+    }
+
+    /**
+     * @return false if the line isn't a command of the session's own, for the controller to handle it
+     */
+    private boolean handleSessionCommand(CharSequence line) {
+        int end = line.length();
+        int position = 0;
+
+        while (position < end && line.charAt(position) <= ' ') position++;
+        while (end > position && line.charAt(end - 1) <= ' ') end--;
+
+        if (matchesCommand(line, position, end, COMMAND_GAME)) {
+            consoleManager.printLine(COMMAND_GAME + ' ' + broadcast.getGameId());
+            return true;
+        }
+
+        if (matchesCommand(line, position, end, COMMAND_UNWATCH)) {
+            unwatch();
+            consoleManager.displayInsertionResult(TokenInsertionStatus.OK);
+            return true;
+        }
+
+        String command;
+
+        if (startsWithCommand(line, position, end, COMMAND_WATCH)) command = COMMAND_WATCH;
+        else if (journal != null && startsWithCommand(line, position, end, COMMAND_RESUME)) command = COMMAND_RESUME;
+        else return false;
+
+        int gameId = parseGameId(line, position + command.length(), end);
+
+        if (gameId < 0) consoleManager.notifyWrongInput();
+        else if (command.equals(COMMAND_WATCH)) watch(gameId);
+        else resume(gameId);
+
+        return true;
+    }
+
+    /**
+     * Watches the game, from now on the session gets its board and moves as they come, or answers ERROR
+     * if there's no such game to watch.
+     */
+    private void watch(int gameId) {
+        DTGameBroadcast watchedBroadcast = gameRegistry.get(gameId);
+
+        if (watchedBroadcast == null || watchedBroadcast == broadcast) {
+            consoleManager.notifyWrongInput();
+            return;
+        }
+
+        unwatch();
+
+        watcher = new DTWatcher(eventLoop, drainWatcherTask);
+        watchedBroadcast.watch(watcher);
+    }
+
+    private void unwatch() {
+        if (watcher == null) return;
+
+        watcher.cancel();
+        watcher = null;
+    }
+
+    /**
+     * Ends the session's game for the recovered one, or answers ERROR if there's no such game to resume.
+     */
+    private void resume(int gameId) {
+        DTJournal.GameLog resumedGameLog = journal.resumeGame(gameId);
+
+        if (resumedGameLog == null) {
+            consoleManager.notifyWrongInput();
+            return;
+        }
+
+        gameLog.end();
+        leaveGame();
+
+        gameLog = resumedGameLog;
+        play(resumedGameLog.getEngine(), gameId);
+
+        consoleManager.displayInsertionResult(TokenInsertionStatus.OK);
+    }
+
+    /**
+     * Run on the loop's thread, as the clock timed out the turn.
+     */
+    private void onTimeout(int playerId, TimeoutAction timeoutAction, long nowNanos) {
+        controller.onTurnTimedOut();
+        broadcast.publishTimeout(playerId, timeoutAction);
+
+        consoleManager.displayTimeout(playerId, timeoutAction, engine.getGameStatus() == GameStatus.FINISHED_WIN
+                ? TokenInsertionStatus.WIN : TokenInsertionStatus.OK);
+
+        onOutputReady();
+    }
+
+    /**
+     * Run on the loop's thread once the watched game offered the watcher something, or the clock timed out a turn.
+     */
+    private void onOutputReady() {
+        if (isClosed) return;
+
+        try {
+            flushOutput();
+        } catch (IOException | CancelledKeyException e) {
+            close();
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writes the pending responses, and waits for the channel to become writable if they don't fit at once.
+     * The watched game's moves are only taken while nothing is left unwritten, so a watcher whose client
+     * doesn't read lets its moves pile up until it's dropped. The moves held back are taken as soon as
+     * the output is all written, as the watcher won't be scheduled again until it's drained.
+     */
+    private void flushOutput() throws IOException {
+        boolean isWatcherDrained = false;
+
+        do {
+            if (watcher != null && !outBuffer.hasRemaining()) {
+                if (!watcher.drainTo(consoleManager)) watcher = null;
+
+                isWatcherDrained = true;
+            }
+
+            appendOutput();
+
+            channel.write(outBuffer);
+        } while (!isWatcherDrained && watcher != null && !outBuffer.hasRemaining());
+
+        if (outBuffer.hasRemaining()) {
+            selectionKey.interestOps(SelectionKey.OP_WRITE);
+        } else if (controller.isExitCalled()) {
+            close();
+        } else {
+            selectionKey.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Moves the output collected by the console manager at the end of the unwritten output.
+     */
+    private void appendOutput() {
+        CharSequence output = consoleManager.getOutput();
+
+        if (output.length() == 0) return;
+
+        outBuffer.compact();
+
+        if (outBuffer.remaining() < output.length()) {
+            ByteBuffer biggerBuffer = ByteBuffer.allocate(Math.max(outBuffer.capacity() * 2,
+                    outBuffer.position() + output.length()));
+            outBuffer.flip();
+            biggerBuffer.put(outBuffer);
+            outBuffer = biggerBuffer;
+        }
+
+        for (int i = 0; i < output.length(); i++) {
+            outBuffer.put((byte) output.charAt(i));
+        }
+
+        outBuffer.flip();
+
+        consoleManager.clearOutput();
+    }
+
+    /**
+     * @return the game id following the command, or -1 if there's none or it's too big to be one
+     */
+    private static int parseGameId(CharSequence line, int position, int end) {
+        while (position < end && line.charAt(position) <= ' ') position++;
+
+        if (position == end) return -1;
+
+        int gameId = 0;
+
+        for (; position < end; position++) {
+            char c = line.charAt(position);
+
+            if (c < '0' || c > '9' || gameId > (Integer.MAX_VALUE - (c - '0')) / 10) return -1;
+
+            gameId = gameId * 10 + c - '0';
+        }
+
+        return gameId;
+    }
+
+    private static boolean matchesCommand(CharSequence line, int position, int end, String command) {
+        return end - position == command.length() && startsWith(line, position, command);
+    }
+
+    /**
+     * @return if the line starts with the command followed by whitespace
+     */
+    private static boolean startsWithCommand(CharSequence line, int position, int end, String command) {
+        return end - position > command.length() && startsWith(line, position, command)
+                && line.charAt(position + command.length()) <= ' ';
+    }
+
+    private static boolean startsWith(CharSequence line, int position, String command) {
+        for (int i = 0; i < command.length(); i++) {
+            char c = line.charAt(position + i);
+
+            // Case insensitive, as the console's commands
+            if ((c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c) != command.charAt(i)) return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+package com.drop_token.server;
+
+import com.drop_token.data_types.LongRingBuffer;
+import com.drop_token.view.DTBufferedConsoleManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A session's subscription to the moves of another session's game.
+ * <p>
+ * The watched game's thread hands the watcher a rendering of the board once, then offers it every move into
+ * a bounded ring, and schedules the watching session on its own event loop, which drains the ring into its output.
+ * While the watching client doesn't read its output, the session doesn't drain the ring either, so a slow watcher
+ * fills it up and gets dropped, instead of slowing the game down or being buffered without bounds.
+ */
+class DTWatcher {
+
+    private static final int RING_CAPACITY = 256;
+
+    private static final String WATCH_DROPPED = "DROPPED";
+    private static final String WATCH_CLOSED = "CLOSED";
+
+    private final DTEventLoop eventLoop;
+    private final Runnable drainTask;
+    private final LongRingBuffer deltas = new LongRingBuffer(RING_CAPACITY);
+    private final AtomicBoolean isScheduled = new AtomicBoolean();
+
+    // Written by the game's thread, read by the watching session's
+    private volatile String snapshot;
+    private volatile boolean isDropped;
+    private volatile boolean isGameClosed;
+
+    // Written by the watching session's thread, read by the game's
+    private volatile boolean isCancelled;
+
+    // Only touched by the watching session's thread
+    private boolean isSnapshotDrained;
+
+    /**
+     * @param eventLoop the event loop of the watching session
+     * @param drainTask drains the watcher into the session's output, run on its event loop
+     */
+    DTWatcher(DTEventLoop eventLoop, Runnable drainTask) {
+        this.eventLoop = eventLoop;
+        this.drainTask = drainTask;
+    }
+
+    /**
+     * Called by the game's thread, before offering any move.
+     */
+    void start(String snapshot) {
+        this.snapshot = snapshot;
+        schedule();
+    }
+
+    /**
+     * Called by the game's thread.
+     *
+     * @return false if the watcher was dropped, having missed the move
+     */
+    boolean offer(long delta) {
+        if (deltas.offer(delta)) return true;
+
+        isDropped = true;
+        return false;
+    }
+
+    /**
+     * Called by the game's thread once its session is closed; no more moves will be offered.
+     */
+    void closeGame() {
+        isGameClosed = true;
+        schedule();
+    }
+
+    /**
+     * Has the watching session drain the watcher, unless it's already due to.
+     */
+    void schedule() {
+        if (isScheduled.compareAndSet(false, true)) eventLoop.execute(drainTask);
+    }
+
+    /**
+     * Called by the watching session's thread, the game stops offering moves to the watcher.
+     */
+    void cancel() {
+        isCancelled = true;
+    }
+
+    boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * Called by the watching session's thread; moves the board and the moves and timed out turns received so far
+     * to the output, and then DROPPED or CLOSED if the watcher is done.
+     *
+     * @return false if the watcher is done
+     */
+    boolean drainTo(DTBufferedConsoleManager consoleManager) {
+        // Cleared first, so moves offered from now on schedule the session again
+        isScheduled.set(false);
+
+        if (!isSnapshotDrained) {
+            String pendingSnapshot = snapshot;
+
+            // Not subscribed yet, the game offers no move before the snapshot
+            if (pendingSnapshot == null) {
+                if (isGameClosed) return printDone(consoleManager, WATCH_CLOSED);
+
+                return true;
+            }
+
+            consoleManager.print(pendingSnapshot);
+            snapshot = null;
+            isSnapshotDrained = true;
+        }
+
+        while (!deltas.isEmpty()) {
+            long delta = deltas.poll();
+
+            if (BoardDelta.isTimeout(delta)) {
+                consoleManager.displayTimeout(BoardDelta.getPlayerId(delta), BoardDelta.getTimeoutAction(delta),
+                        BoardDelta.getStatus(delta));
+            } else {
+                consoleManager.displayMove(BoardDelta.getColumn(delta), BoardDelta.getHeight(delta),
+                        BoardDelta.getPlayerId(delta), BoardDelta.getStatus(delta));
+            }
+        }
+
+        if (isDropped) return printDone(consoleManager, WATCH_DROPPED);
+        if (isGameClosed) return printDone(consoleManager, WATCH_CLOSED);
+
+        return true;
+    }
+
+    private boolean printDone(DTBufferedConsoleManager consoleManager, String reason) {
+        consoleManager.printLine(reason);
+        return false;
+    }
+}
@@ -0,0 +1,39 @@
+package com.drop_token.simulation;
+
+import com.drop_token.model.IDTEngine;
+
+import java.util.Random;
+
+/**
+ * Plays any column that isn't full, the central ones more likely than the outer ones,
+ * as they take part in more lines of the board.
+ * A column's weight is its distance to the nearest edge plus one, so weights rise linearly towards the center.
+ */
+public class CenterBiasedMovePolicy implements IDTMovePolicy {
+
+    @Override
+    public int chooseColumn(IDTEngine engine, Random random) {
+        int columnsCount = engine.getColumnsCount();
+        int totalWeight = 0;
+
+        for (int column = 0; column < columnsCount; column++) {
+            if (engine.getTokenId(0, column) == 0) totalWeight += getWeight(column, columnsCount);
+        }
+
+        int target = random.nextInt(totalWeight);
+
+        for (int column = 0; column < columnsCount; column++) {
+            if (engine.getTokenId(0, column) != 0) continue;
+
+            target -= getWeight(column, columnsCount);
+
+            if (target < 0) return column;
+        }
+
+        throw new IllegalStateException("No open column in an unfinished game");
+    }
+
+    private static int getWeight(int column, int columnsCount) {
+        return Math.min(column, columnsCount - 1 - column) + 1;
+    }
+}
@@ -0,0 +1,24 @@
+package com.drop_token.simulation;
+
+import com.drop_token.ai.DTComputerPlayer;
+import com.drop_token.model.IDTEngine;
+
+import java.util.Random;
+
+/**
+ * Plays the moves of a single threaded {@link DTComputerPlayer}, searching within a fixed time per move.
+ * The random source isn't used, so games between computer players only differ by the time the searches get.
+ */
+public class ComputerMovePolicy implements IDTMovePolicy {
+
+    private final DTComputerPlayer computerPlayer;
+
+    public ComputerMovePolicy(long moveTimeMillis) {
+        this.computerPlayer = new DTComputerPlayer(moveTimeMillis);
+    }
+
+    @Override
+    public int chooseColumn(IDTEngine engine, Random random) {
+        return computerPlayer.chooseColumn(engine).getColumn();
+    }
+}
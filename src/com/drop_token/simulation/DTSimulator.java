@@ -0,0 +1,127 @@
+package com.drop_token.simulation;
+
+import com.drop_token.model.IDTEngine;
+import com.drop_token.model.IDTEngine.GameStatus;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays many games between move policies on parallel workers, and tallies their outcomes.
+ * <p>
+ * Every worker has its own engine, reset between games instead of being rebuilt, and its own policies.
+ * Game i is played with a random source seeded from the simulation's seed and i, so whichever worker plays it,
+ * the same seed gives the same games, and the same statistics, as long as the policies don't search on a clock.
+ */
+public class DTSimulator {
+
+    // Workers claim games in batches, so the shared counter is rarely touched
+    private static final int GAMES_PER_CLAIM = 64;
+
+    private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    private final Supplier<IDTEngine> engineFactory;
+    private final List<Supplier<IDTMovePolicy>> policyFactories;
+    private final int threadsCount;
+
+    /**
+     * @param engineFactory   creates the engine of every worker
+     * @param policyFactories creates the policy of every player, in the order of their ids,
+     *                        repeated over the players if there are fewer policies than players
+     * @param threadsCount    the number of workers
+     */
+    public DTSimulator(Supplier<IDTEngine> engineFactory, List<Supplier<IDTMovePolicy>> policyFactories,
+                       int threadsCount) {
+        this.engineFactory = engineFactory;
+        this.policyFactories = policyFactories;
+        this.threadsCount = threadsCount;
+    }
+
+    public SimulationStats simulate(long gamesCount, long seed) {
+        long startNanos = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(threadsCount);
+        AtomicLong nextGame = new AtomicLong();
+        List<Callable<SimulationStats>> workers = new ArrayList<>(threadsCount);
+
+        for (int i = 0; i < threadsCount; i++) {
+            workers.add(() -> simulateGames(nextGame, gamesCount, seed));
+        }
+
+        SimulationStats stats = null;
+
+        try {
+            for (Future<SimulationStats> result : pool.invokeAll(workers)) {
+                SimulationStats workerStats = getResult(result);
+
+                if (stats == null) {
+                    stats = workerStats;
+                } else {
+                    stats.merge(workerStats);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        stats.setElapsedNanos(System.nanoTime() - startNanos);
+
+        return stats;
+    }
+
+    private SimulationStats simulateGames(AtomicLong nextGame, long gamesCount, long seed) {
+        IDTEngine engine = engineFactory.get();
+        IDTMovePolicy[] policies = new IDTMovePolicy[engine.getPlayersCount()];
+
+        for (int i = 0; i < policies.length; i++) {
+            policies[i] = policyFactories.get(i % policyFactories.size()).get();
+        }
+
+        SimulationStats stats = new SimulationStats(engine.getPlayersCount());
+        Random random = new Random();
+
+        for (long firstGame = nextGame.getAndAdd(GAMES_PER_CLAIM); firstGame < gamesCount;
+             firstGame = nextGame.getAndAdd(GAMES_PER_CLAIM)) {
+            long lastGame = Math.min(gamesCount, firstGame + GAMES_PER_CLAIM);
+
+            for (long game = firstGame; game < lastGame; game++) {
+                random.setSeed(seed + game * SEED_INCREMENT);
+                engine.reset();
+
+                playGame(engine, policies, random);
+
+                stats.countGame(engine.getWinnerId(), engine.getMovesCount());
+            }
+        }
+
+        return stats;
+    }
+
+    private static void playGame(IDTEngine engine, IDTMovePolicy[] policies, Random random) {
+        while (engine.getGameStatus() == GameStatus.PLAYING) {
+            IDTMovePolicy policy = policies[engine.getCurrentPlayerId() - 1];
+
+            if (engine.insertToken(policy.chooseColumn(engine, random)) == TokenInsertionStatus.ERROR)
+                throw new IllegalStateException("A move policy played a full column");
+        }
+    }
+
+    private static SimulationStats getResult(Future<SimulationStats> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation worker failed", e.getCause());
+        }
+    }
+}
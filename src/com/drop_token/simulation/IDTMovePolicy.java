@@ -0,0 +1,19 @@
+package com.drop_token.simulation;
+
+import com.drop_token.model.IDTEngine;
+
+import java.util.Random;
+
+/**
+ * Picks the moves of a simulated player.
+ * Every simulation worker has its own instances, so a policy may keep state between moves without locking.
+ */
+public interface IDTMovePolicy {
+
+    /**
+     * @param engine an unfinished game, to be left in the same position
+     * @param random the worker's random source, seeded for the game so simulations can be reproduced
+     * @return a column that isn't full, indexing starting at 0
+     */
+    int chooseColumn(IDTEngine engine, Random random);
+}
@@ -0,0 +1,29 @@
+package com.drop_token.simulation;
+
+import com.drop_token.model.IDTEngine;
+
+import java.util.Random;
+
+/**
+ * Plays any column that isn't full, all of them equally likely.
+ */
+public class RandomMovePolicy implements IDTMovePolicy {
+
+    private int[] openColumns = new int[0];
+
+    @Override
+    public int chooseColumn(IDTEngine engine, Random random) {
+        int columnsCount = engine.getColumnsCount();
+
+        if (openColumns.length < columnsCount) openColumns = new int[columnsCount];
+
+        int openColumnsCount = 0;
+
+        for (int column = 0; column < columnsCount; column++) {
+            // A column is full once its top slot, row 0, holds a token
+            if (engine.getTokenId(0, column) == 0) openColumns[openColumnsCount++] = column;
+        }
+
+        return openColumns[random.nextInt(openColumnsCount)];
+    }
+}
@@ -0,0 +1,147 @@
+package com.drop_token.simulation;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The outcomes of simulated games. Every worker tallies its own games, the tallies are merged at the end.
+ */
+public class SimulationStats {
+
+    private static final int INITIAL_LENGTHS_CAPACITY = 64;
+
+    private final int playersCount;
+
+    // Indexed by the winner's id, 0 unused
+    private final long[] winsCounts;
+    private long drawsCount;
+    private long gamesCount;
+    private long movesCount;
+
+    // The number of games of every length, growing with the longest game
+    private long[] lengthsCounts = new long[INITIAL_LENGTHS_CAPACITY];
+
+    private long elapsedNanos;
+
+    SimulationStats(int playersCount) {
+        this.playersCount = playersCount;
+        this.winsCounts = new long[playersCount + 1];
+    }
+
+    /**
+     * @param winnerId the id of the winner, or 0 for a draw
+     */
+    void countGame(int winnerId, int gameLength) {
+        if (winnerId == 0) {
+            drawsCount++;
+        } else {
+            winsCounts[winnerId]++;
+        }
+
+        gamesCount++;
+        movesCount += gameLength;
+
+        if (gameLength >= lengthsCounts.length)
+            lengthsCounts = Arrays.copyOf(lengthsCounts, Math.max(gameLength + 1, lengthsCounts.length * 2));
+
+        lengthsCounts[gameLength]++;
+    }
+
+    void merge(SimulationStats stats) {
+        for (int playerId = 1; playerId <= playersCount; playerId++) {
+            winsCounts[playerId] += stats.winsCounts[playerId];
+        }
+
+        drawsCount += stats.drawsCount;
+        gamesCount += stats.gamesCount;
+        movesCount += stats.movesCount;
+
+        if (stats.lengthsCounts.length > lengthsCounts.length)
+            lengthsCounts = Arrays.copyOf(lengthsCounts, stats.lengthsCounts.length);
+
+        for (int length = 0; length < stats.lengthsCounts.length; length++) {
+            lengthsCounts[length] += stats.lengthsCounts[length];
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getGamesCount() {
+        return gamesCount;
+    }
+
+    public long getWinsCount(int playerId) {
+        return winsCounts[playerId];
+    }
+
+    public long getDrawsCount() {
+        return drawsCount;
+    }
+
+    public double getFirstPlayerWinRate() {
+        return gamesCount == 0 ? 0 : (double) winsCounts[1] / gamesCount;
+    }
+
+    public double getDrawRate() {
+        return gamesCount == 0 ? 0 : (double) drawsCount / gamesCount;
+    }
+
+    /**
+     * @return the number of games that took exactly that many moves
+     */
+    public long getLengthCount(int gameLength) {
+        return gameLength < lengthsCounts.length ? lengthsCounts[gameLength] : 0;
+    }
+
+    public double getAverageLength() {
+        return gamesCount == 0 ? 0 : (double) movesCount / gamesCount;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the length within which that share of the games finished, or 0 without games
+     */
+    public int getLengthPercentile(double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * gamesCount));
+        long seen = 0;
+
+        for (int length = 0; length < lengthsCounts.length; length++) {
+            seen += lengthsCounts[length];
+
+            if (seen >= rank) return length;
+        }
+
+        return 0;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : gamesCount * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+
+        report.append(String.format(Locale.ROOT, "games: %d in %.2f s, %.0f games/s%n",
+                gamesCount, elapsedNanos / 1e9, getGamesPerSecond()));
+
+        report.append("wins:");
+        for (int playerId = 1; playerId <= playersCount; playerId++) {
+            report.append(String.format(Locale.ROOT, " player %d=%.2f%%", playerId,
+                    gamesCount == 0 ? 0 : 100.0 * winsCounts[playerId] / gamesCount));
+        }
+        report.append(String.format(Locale.ROOT, " draws=%.2f%%%n", 100 * getDrawRate()));
+
+        report.append(String.format(Locale.ROOT, "length: mean=%.1f min=%d p50=%d p90=%d p99=%d max=%d%n",
+                getAverageLength(), getLengthPercentile(0), getLengthPercentile(50), getLengthPercentile(90),
+                getLengthPercentile(99), getLengthPercentile(100)));
+
+        return report.toString();
+    }
+}
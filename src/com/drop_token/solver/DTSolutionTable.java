@@ -0,0 +1,252 @@
+package com.drop_token.solver;
+
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.IDTBoardView;
+import com.drop_token.model.IDTEngine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The solved values of a board configuration, memory-mapped from the file written by {@link #write}.
+ * <p>
+ * A value is for the player to play: 0 is a draw, a positive value is a win that many plies ahead,
+ * including the winning move, and a negative value a loss that many plies ahead.
+ * Finished positions aren't stored, their result is the engine's game status.
+ * <p>
+ * The file is a header of the magic number, the format version, the rows and columns counts, the winning streak,
+ * a reserved int and the number of entries, followed by the entries packed as (canonicalKey << 8) | (value & 0xFF)
+ * in ascending order, so a position is looked up with a binary search straight on the mapped pages.
+ */
+public class DTSolutionTable {
+
+    public static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private static final int MAGIC = 0x44545356;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    // A mapping can't exceed 2GB, so large tables are mapped in several segments
+    private static final int SEGMENT_SIZE_LOG2 = 27;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SIZE_LOG2) - 1;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final int rowsCount;
+    private final int columnsCount;
+    private final int winningStreak;
+    private final long entriesCount;
+    private final LongBuffer[] segments;
+
+    private DTSolutionTable(int rowsCount, int columnsCount, int winningStreak, long entriesCount,
+                            LongBuffer[] segments) {
+        this.rowsCount = rowsCount;
+        this.columnsCount = columnsCount;
+        this.winningStreak = winningStreak;
+        this.entriesCount = entriesCount;
+        this.segments = segments;
+    }
+
+    /**
+     * Maps the table file into memory, its pages are only read when looked up.
+     */
+    public static DTSolutionTable open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) throw new IOException("Truncated solution table: " + file);
+            }
+
+            header.flip();
+
+            if (header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException("Not a solution table: " + file);
+
+            int rowsCount = header.getInt();
+            int columnsCount = header.getInt();
+            int winningStreak = header.getInt();
+            header.getInt();
+            long entriesCount = header.getLong();
+
+            if (channel.size() < HEADER_SIZE + entriesCount * Long.BYTES)
+                throw new IOException("Truncated solution table: " + file);
+
+            LongBuffer[] segments = new LongBuffer[(int) ((entriesCount + SEGMENT_MASK) >>> SEGMENT_SIZE_LOG2)];
+
+            for (int i = 0; i < segments.length; i++) {
+                long firstEntry = (long) i << SEGMENT_SIZE_LOG2;
+                long segmentEntries = Math.min(SEGMENT_MASK + 1, entriesCount - firstEntry);
+
+                // The mapping stays valid once the channel is closed
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstEntry * Long.BYTES,
+                        segmentEntries * Long.BYTES).asLongBuffer();
+            }
+
+            return new DTSolutionTable(rowsCount, columnsCount, winningStreak, entriesCount, segments);
+        }
+    }
+
+    /**
+     * Writes the entries returned by {@link DTSolver#solve()} into a table file.
+     */
+    public static void write(Path file, DTSolver solver, long[] packedEntries) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(solver.getRowsCount()).putInt(solver.getColumnsCount())
+                    .putInt(solver.getWinningStreak()).putInt(0).putLong(packedEntries.length);
+
+            for (long packedEntry : packedEntries) {
+                if (!buffer.hasRemaining()) writeFully(channel, buffer);
+
+                buffer.putLong(packedEntry);
+            }
+
+            writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * @return whether the engine plays the configuration this table solved
+     */
+    public boolean supports(IDTEngine engine) {
+        return engine.getPlayersCount() == 2 && engine.getRowsCount() == rowsCount
+                && engine.getColumnsCount() == columnsCount && engine.getWinningStreak() == winningStreak;
+    }
+
+    /**
+     * @param board an unfinished position of the solved configuration
+     * @return the value of the position for the player to play, or NO_VALUE if it isn't in the table
+     */
+    public int getValue(IDTBoardView board) {
+        long positionKey = BitboardDTEngine.getPositionKey(board);
+        return getValue(Math.min(positionKey,
+                BitboardDTEngine.mirrorPositionKey(positionKey, rowsCount, columnsCount)));
+    }
+
+    /**
+     * Finds the column with the best value, playing every column on the engine and taking it back.
+     *
+     * @param engine an unfinished game of the solved configuration
+     * @return the best column, indexing starting at 0, or -1 if the position isn't in the table
+     */
+    public int getBestColumn(IDTEngine engine) {
+        int bestColumn = -1;
+        int bestValue = NO_VALUE;
+
+        for (int column = 0; column < columnsCount; column++) {
+            int moveValue;
+
+            switch (engine.insertToken(column)) {
+                case WIN:
+                    moveValue = 1;
+                    break;
+                case DRAW:
+                    moveValue = 0;
+                    break;
+                case OK:
+                    moveValue = getParentValue(getValue(engine));
+                    break;
+                default:
+                    continue;
+            }
+
+            engine.undo();
+
+            if (moveValue == NO_VALUE) return -1;
+
+            if (isBetter(moveValue, bestValue)) {
+                bestColumn = column;
+                bestValue = moveValue;
+            }
+        }
+
+        return bestColumn;
+    }
+
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    public int getColumnsCount() {
+        return columnsCount;
+    }
+
+    public int getWinningStreak() {
+        return winningStreak;
+    }
+
+    public long getEntriesCount() {
+        return entriesCount;
+    }
+
+    /**
+     * @return the value of a move leading to a position of the given value for the next player
+     */
+    static int getParentValue(int value) {
+        if (value == NO_VALUE) return NO_VALUE;
+        if (value > 0) return -(value + 1);
+        if (value < 0) return -value + 1;
+
+        return 0;
+    }
+
+    /**
+     * Wins are better the sooner they come, and losses the later they come.
+     *
+     * @return whether value is better than otherValue for the player to play
+     */
+    static boolean isBetter(int value, int otherValue) {
+        if (otherValue == NO_VALUE) return true;
+
+        return getRank(value) > getRank(otherValue);
+    }
+
+    private static int getRank(int value) {
+        if (value > 0) return Byte.MAX_VALUE - value;
+        if (value < 0) return Byte.MIN_VALUE - value;
+
+        return 0;
+    }
+
+    private int getValue(long canonicalKey) {
+        long low = 0;
+        long high = entriesCount - 1;
+
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long packedEntry = getEntry(middle);
+            long middleKey = packedEntry >>> 8;
+
+            if (middleKey < canonicalKey) {
+                low = middle + 1;
+            } else if (middleKey > canonicalKey) {
+                high = middle - 1;
+            } else {
+                return (byte) packedEntry;
+            }
+        }
+
+        return NO_VALUE;
+    }
+
+    private long getEntry(long index) {
+        return segments[(int) (index >>> SEGMENT_SIZE_LOG2)].get((int) (index & SEGMENT_MASK));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+}
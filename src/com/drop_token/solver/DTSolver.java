@@ -0,0 +1,209 @@
+package com.drop_token.solver;
+
+import com.drop_token.model.BitboardDTEngine;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves every position reachable in a two players game, giving each one its value as defined by
+ * {@link DTSolutionTable}.
+ * <p>
+ * Positions and their mirror images share one value, so only the canonical key of each pair is solved and stored.
+ * The distinct positions a few plies deep are split among parallel workers, every one solving its share
+ * into its own map. The maps are then merged and the first plies solved on top of them.
+ * <p>
+ * Every stored position takes about 20 bytes while solving, so the 4x4 board is solved in a blink,
+ * 5x5 boards within a few GB, and 6x6 boards only on machines with plenty of memory.
+ */
+public class DTSolver {
+
+    // Position keys take columnsCount * (rowsCount + 1) bits and are packed with a byte of value into a long
+    public static final int MAX_POSITION_KEY_BITS = Long.SIZE - Byte.SIZE - 1;
+
+    // Depth of the positions handed to the workers
+    private static final int FRONTIER_DEPTH = 4;
+
+    private final int rowsCount;
+    private final int columnsCount;
+    private final int winningStreak;
+    private final int threadsCount;
+
+    public DTSolver(int rowsCount, int columnsCount, int winningStreak, int threadsCount) {
+        if (columnsCount * (rowsCount + 1) > MAX_POSITION_KEY_BITS)
+            throw new IllegalArgumentException("Board of " + rowsCount + "x" + columnsCount + " can't be solved");
+
+        this.rowsCount = rowsCount;
+        this.columnsCount = columnsCount;
+        this.winningStreak = winningStreak;
+        this.threadsCount = threadsCount;
+    }
+
+    /**
+     * @return the values of all the reachable unfinished positions, packed as (canonicalKey << 8) | (value & 0xFF)
+     * and sorted
+     */
+    public long[] solve() {
+        List<int[]> frontier = new ArrayList<>();
+        collectFrontier(newEngine(), new int[FRONTIER_DEPTH], 0, new HashSet<>(), frontier);
+
+        LongByteHashMap solvedPositions = solveFrontier(frontier);
+
+        // The frontier positions are all known now, leaving only the plies above them to solve
+        solve(newEngine(), solvedPositions);
+
+        long[] packedEntries = solvedPositions.toPackedEntries();
+        Arrays.parallelSort(packedEntries);
+
+        return packedEntries;
+    }
+
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    public int getColumnsCount() {
+        return columnsCount;
+    }
+
+    public int getWinningStreak() {
+        return winningStreak;
+    }
+
+    private void collectFrontier(BitboardDTEngine engine, int[] moves, int depth, Set<Long> collectedKeys,
+                                 List<int[]> frontier) {
+        if (depth == FRONTIER_DEPTH) {
+            if (collectedKeys.add(engine.getCanonicalPositionKey())) frontier.add(moves.clone());
+            return;
+        }
+
+        for (int column = 0; column < columnsCount; column++) {
+            TokenInsertionStatus status = engine.insertToken(column);
+
+            if (status == TokenInsertionStatus.ERROR) continue;
+
+            if (status == TokenInsertionStatus.OK) {
+                moves[depth] = column;
+                collectFrontier(engine, moves, depth + 1, collectedKeys, frontier);
+            }
+
+            engine.undo();
+        }
+    }
+
+    private LongByteHashMap solveFrontier(List<int[]> frontier) {
+        ForkJoinPool pool = new ForkJoinPool(threadsCount);
+        AtomicInteger nextPosition = new AtomicInteger();
+        List<Callable<LongByteHashMap>> workers = new ArrayList<>(threadsCount);
+
+        for (int i = 0; i < threadsCount; i++) {
+            workers.add(() -> {
+                BitboardDTEngine engine = newEngine();
+                LongByteHashMap workerPositions = new LongByteHashMap();
+
+                for (int position = nextPosition.getAndIncrement(); position < frontier.size();
+                     position = nextPosition.getAndIncrement()) {
+                    for (int column : frontier.get(position)) {
+                        engine.insertToken(column);
+                    }
+
+                    solve(engine, workerPositions);
+
+                    while (engine.undo()) {
+                        // Back to the empty board for the next position
+                    }
+                }
+
+                return workerPositions;
+            });
+        }
+
+        try {
+            return merge(pool.invokeAll(workers));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static LongByteHashMap merge(List<Future<LongByteHashMap>> results) {
+        LongByteHashMap merged = null;
+
+        for (Future<LongByteHashMap> result : results) {
+            LongByteHashMap workerPositions = getResult(result);
+
+            // Merging into the largest map copies the fewest entries
+            if (merged == null) {
+                merged = workerPositions;
+            } else if (workerPositions.size() > merged.size()) {
+                merged.putAllInto(workerPositions);
+                merged = workerPositions;
+            } else {
+                workerPositions.putAllInto(merged);
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * @return the value of the engine's unfinished position, for its current player
+     */
+    private int solve(BitboardDTEngine engine, LongByteHashMap solvedPositions) {
+        long canonicalKey = engine.getCanonicalPositionKey();
+        int value = solvedPositions.get(canonicalKey);
+
+        if (value != LongByteHashMap.NO_VALUE) return value;
+
+        value = DTSolutionTable.NO_VALUE;
+
+        for (int column = 0; column < columnsCount; column++) {
+            int moveValue;
+
+            switch (engine.insertToken(column)) {
+                case WIN:
+                    moveValue = 1;
+                    break;
+                case DRAW:
+                    moveValue = 0;
+                    break;
+                case OK:
+                    moveValue = DTSolutionTable.getParentValue(solve(engine, solvedPositions));
+                    break;
+                default:
+                    continue;
+            }
+
+            engine.undo();
+
+            if (DTSolutionTable.isBetter(moveValue, value)) value = moveValue;
+        }
+
+        solvedPositions.put(canonicalKey, (byte) value);
+
+        return value;
+    }
+
+    private BitboardDTEngine newEngine() {
+        return new BitboardDTEngine(rowsCount, columnsCount, 2, winningStreak);
+    }
+
+    private static LongByteHashMap getResult(Future<LongByteHashMap> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solver worker failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.drop_token.solver;
+
+/**
+ * An open addressing map from non-zero long keys to byte values, without boxing nor per entry objects.
+ * Holds the solved positions of a single solver worker, so it isn't thread-safe.
+ */
+class LongByteHashMap {
+
+    static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private static final int DEFAULT_CAPACITY_LOG2 = 16;
+
+    // The map grows once this share of its slots is used
+    private static final double MAX_LOAD = 0.6;
+
+    // A key of 0 marks an empty slot
+    private long[] keys;
+    private byte[] values;
+    private int indexMask;
+    private int size;
+
+    LongByteHashMap() {
+        allocate(1 << DEFAULT_CAPACITY_LOG2);
+    }
+
+    /**
+     * @return the value of the key, or NO_VALUE
+     */
+    int get(long key) {
+        for (int index = indexOf(key); keys[index] != 0; index = (index + 1) & indexMask) {
+            if (keys[index] == key) return values[index];
+        }
+
+        return NO_VALUE;
+    }
+
+    void put(long key, byte value) {
+        int index = indexOf(key);
+
+        while (keys[index] != 0 && keys[index] != key) {
+            index = (index + 1) & indexMask;
+        }
+
+        if (keys[index] == 0) {
+            if (size + 1 > MAX_LOAD * keys.length) {
+                grow();
+                put(key, value);
+                return;
+            }
+
+            size++;
+            keys[index] = key;
+        }
+
+        values[index] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies every entry into the other map.
+     */
+    void putAllInto(LongByteHashMap map) {
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index] != 0) map.put(keys[index], values[index]);
+        }
+    }
+
+    /**
+     * @return every entry packed as (key << 8) | (value & 0xFF), in no particular order
+     */
+    long[] toPackedEntries() {
+        long[] packedEntries = new long[size];
+        int count = 0;
+
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index] != 0) packedEntries[count++] = (keys[index] << 8) | (values[index] & 0xFF);
+        }
+
+        return packedEntries;
+    }
+
+    private int indexOf(long key) {
+        // Fibonacci hashing, keys of neighbouring positions only differ in a few bits
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & indexMask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        byte[] oldValues = values;
+
+        allocate(oldKeys.length * 2);
+
+        for (int index = 0; index < oldKeys.length; index++) {
+            if (oldKeys[index] != 0) put(oldKeys[index], oldValues[index]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new byte[capacity];
+        indexMask = capacity - 1;
+        size = 0;
+    }
+}
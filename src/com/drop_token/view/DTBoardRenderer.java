@@ -0,0 +1,40 @@
+package com.drop_token.view;
+
+import com.drop_token.model.IDTBoardView;
+
+/**
+ * Renders a board as ASCII art, reading the slots straight from the board view
+ * and appending to a caller-owned builder, so the builder can be reused for every rendering.
+ */
+public class DTBoardRenderer {
+
+    public void render(IDTBoardView board, StringBuilder out) {
+        int rowsCount = board.getRowsCount();
+        int columnsCount = board.getColumnsCount();
+
+        for (int row = 0; row < rowsCount; row++) {
+
+            out.append('|');
+
+            for (int column = 0; column < columnsCount; column++) {
+                out.append(' ').append(board.getTokenId(row, column));
+            }
+
+            out.append('\n');
+        }
+
+        out.append('+');
+
+        for (int column = 0; column < columnsCount; column++) {
+            out.append("--");
+        }
+
+        out.append('\n').append(' ');
+
+        for (int column = 0; column < columnsCount; column++) {
+            out.append(' ').append(column + 1);
+        }
+
+        out.append('\n');
+    }
+}
@@ -0,0 +1,95 @@
+package com.drop_token.view;
+
+import com.drop_token.model.IDTBoardView;
+import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.model.IDTMoveHistory;
+import com.drop_token.scheduler.IDTTimeoutListener.TimeoutAction;
+
+/**
+ * A console manager that collects the game's output in memory instead of printing it,
+ * for games whose input is pushed by their owner one line at a time, like the sessions of a server.
+ * Having no input of its own, it's only an output; the owner hands every line to {@link
+ * com.drop_token.controller.IDTController#handleInput(CharSequence)}.
+ * <p>
+ * The owner drains the collected output with {@link #getOutput()} and {@link #clearOutput()}.
+ */
+public class DTBufferedConsoleManager implements IDTConsoleManager {
+
+    private final StringBuilder out = new StringBuilder();
+    private final DTBoardRenderer boardRenderer = new DTBoardRenderer();
+
+    @Override
+    public void displayComputerInput(String input, String report) {
+        out.append(input).append('\n');
+    }
+
+    @Override
+    public void printInsertionSequence(IDTMoveHistory moveHistory) {
+        for (int i = 0; i < moveHistory.getMovesCount(); i++) {
+            out.append(moveHistory.getMoveColumn(i) + 1).append('\n');
+        }
+    }
+
+    @Override
+    public void printBoard(IDTBoardView board) {
+        boardRenderer.render(board, out);
+    }
+
+    @Override
+    public void displayInsertionResult(TokenInsertionStatus tokenInsertionStatus) {
+        out.append(tokenInsertionStatus.name()).append('\n');
+    }
+
+    @Override
+    public void exit() {
+        out.append("EXIT").append('\n');
+    }
+
+    @Override
+    public void notifyWrongInput() {
+        out.append("ERROR").append('\n');
+    }
+
+    /**
+     * Collects a response of a command the owner handles itself, rather than the controller.
+     */
+    public void printLine(String line) {
+        out.append(line).append('\n');
+    }
+
+    /**
+     * Collects output the owner rendered itself, as is.
+     */
+    public void print(CharSequence text) {
+        out.append(text);
+    }
+
+    /**
+     * Collects a move of a watched game, as MOVE &lt;column&gt; &lt;height&gt; &lt;playerId&gt; &lt;status&gt;,
+     * the column indexing starting at 1 as in the commands, and the height at 1 for the bottom row.
+     */
+    public void displayMove(int column, int height, int playerId, TokenInsertionStatus tokenInsertionStatus) {
+        out.append("MOVE ").append(column + 1).append(' ').append(height).append(' ').append(playerId).append(' ')
+                .append(tokenInsertionStatus.name()).append('\n');
+    }
+
+    /**
+     * Collects a timed out turn, as TIMEOUT &lt;playerId&gt; &lt;SKIP|FORFEIT&gt; &lt;status&gt;,
+     * the status being WIN if the forfeit left a single player.
+     */
+    public void displayTimeout(int playerId, TimeoutAction timeoutAction, TokenInsertionStatus tokenInsertionStatus) {
+        out.append("TIMEOUT ").append(playerId).append(' ').append(timeoutAction.name()).append(' ')
+                .append(tokenInsertionStatus.name()).append('\n');
+    }
+
+    /**
+     * @return the output collected since it was last cleared
+     */
+    public CharSequence getOutput() {
+        return out;
+    }
+
+    public void clearOutput() {
+        out.setLength(0);
+    }
+}
@@ -1,70 +1,137 @@
 package com.drop_token.view;
 
+import com.drop_token.model.IDTBoardView;
 import com.drop_token.model.IDTEngine.TokenInsertionStatus;
-
+import com.drop_token.model.IDTMoveHistory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Scanner;
+import java.io.UncheckedIOException;
+
+public class DTConsoleManager implements IDTConsoleManager, IDTConsoleInput {
 
-public class DTConsoleManager implements IDTConsoleManager {
+    private static final int PIPELINED_OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_PENDING_LINE_LENGTH = 1024;
 
-    private final Scanner in;
+    private final BufferedReader in;
     private final PrintStream out;
+    private final boolean isPipelined;
+
+    private final DTBoardRenderer boardRenderer = new DTBoardRenderer();
+    private final StringBuilder boardText = new StringBuilder();
+    private byte[] boardBytes = new byte[0];
 
     public DTConsoleManager() {
-        this.in = new Scanner(System.in);
-        this.out = System.out;
+        this(System.in, System.out);
     }
 
-    public String getNextInput() {
-        out.print("> ");
-        return in.nextLine();
+    public DTConsoleManager(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in));
+        this.out = out;
+        this.isPipelined = false;
+    }
+
+    /**
+     * A console for clients pipelining their commands, driven by {@link
+     * com.drop_token.controller.DTController#startPipelinedGame()}.
+     * <p>
+     * No prompt is printed, and the responses are held back in memory until flushed,
+     * so a whole batch of commands is answered with a single write.
+     */
+    public DTConsoleManager(InputStream in, OutputStream out, boolean isPipelined) {
+        this.in = new BufferedReader(new InputStreamReader(in));
+        this.out = isPipelined ? new PrintStream(new BufferedOutputStream(out, PIPELINED_OUTPUT_BUFFER_SIZE), false)
+                : new PrintStream(out, true);
+        this.isPipelined = isPipelined;
     }
 
     @Override
-    public void printInsertionSequence(LinkedList<Integer> insertionSequence) {
-        for (Iterator<Integer> it = insertionSequence.descendingIterator(); it.hasNext(); ) {
-            Integer column = it.next();
-            out.println(column);
+    public String getNextInput() {
+        if (!isPipelined) out.print("> ");
+
+        try {
+            return in.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't read the input", e);
         }
     }
 
+    /**
+     * Looks ahead for a whole line, as the bytes at hand may only be the beginning of one, still being typed
+     * or sent; reading it would block. Lines longer than the look ahead are reported as not pending yet.
+     */
     @Override
-    public void printBoard(int[][] board) {
-        for (int[] row : board) {
+    public boolean hasPendingInput() {
+        try {
+            in.mark(MAX_PENDING_LINE_LENGTH + 1);
 
-            out.print("|");
+            try {
+                for (int i = 0; i <= MAX_PENDING_LINE_LENGTH && in.ready(); i++) {
+                    int c = in.read();
 
-            for (int j = 0; j < board[0].length; j++) {
-                out.print(" " + row[j]);
-            }
+                    // The end of the input ends the last line too
+                    if (c == '\n' || c == '\r' || c < 0) return true;
+                }
 
-            out.println();
+                return false;
+            } finally {
+                in.reset();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't read the input", e);
         }
+    }
 
-        out.print("+");
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void displayComputerInput(String input, String report) {
+        out.println("> " + input);
+        out.println("# " + report);
+    }
 
-        for (int i = 0; i < board[0].length; i++) {
-            out.print("--");
+    @Override
+    public void printInsertionSequence(IDTMoveHistory moveHistory) {
+        for (int i = 0; i < moveHistory.getMovesCount(); i++) {
+            out.println(moveHistory.getMoveColumn(i) + 1);
         }
+    }
 
-        out.println();
+    /**
+     * Renders the board into a reused builder, then prints it with a single write.
+     */
+    @Override
+    public void printBoard(IDTBoardView board) {
+        boardText.setLength(0);
+        boardRenderer.render(board, boardText);
 
-        out.print(" ");
+        if (boardBytes.length < boardText.length()) boardBytes = new byte[boardText.length() * 2];
 
-        for (int i = 0; i < board[0].length; i++) {
-            out.print(" " + (i + 1));
+        for (int i = 0; i < boardText.length(); i++) {
+            boardBytes[i] = (byte) boardText.charAt(i);
         }
 
-        out.println();
+        out.write(boardBytes, 0, boardText.length());
     }
 
     @Override
     public void exit() {
         out.println("EXIT");
-        in.close();
         out.close();
+
+        try {
+            in.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't close the input", e);
+        }
     }
 
     @Override
@@ -0,0 +1,20 @@
+package com.drop_token.view;
+
+/**
+ * The input side of a console, for games pulling their commands one line at a time.
+ * Games whose input is pushed into the controller by their owner, like the sessions of a server, have none.
+ */
+public interface IDTConsoleInput {
+
+    /**
+     * @return the next input line, or null once the input ended
+     */
+    String getNextInput();
+
+    /**
+     * @return if an input line can be read right away, without blocking
+     */
+    default boolean hasPendingInput() {
+        return false;
+    }
+}
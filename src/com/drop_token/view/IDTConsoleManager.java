@@ -1,16 +1,61 @@
 package com.drop_token.view;
 
+import com.drop_token.model.IDTBoardView;
 import com.drop_token.model.IDTEngine.TokenInsertionStatus;
+import com.drop_token.model.IDTMoveHistory;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 
+/**
+ * The output side of a console; consoles reading their own input are also an {@link IDTConsoleInput}.
+ */
 public interface IDTConsoleManager {
 
-    String getNextInput();
+    /**
+     * Writes out any output held back so far.
+     */
+    default void flush() {
+    }
 
-    void printInsertionSequence(LinkedList<Integer> insertionSequence);
+    /**
+     * Shows an input the computer played in place of the user, with the report of how it was chosen.
+     */
+    void displayComputerInput(String input, String report);
 
-    void printBoard(int[][] board);
+    /**
+     * Prints the column of every move, indexing starting at 1, the first move first.
+     */
+    void printInsertionSequence(IDTMoveHistory moveHistory);
+
+    /**
+     * @param insertionSequence the columns, indexing starting at 1, the last insertion first.
+     * @deprecated Takes the boxed moves of {@link com.drop_token.model.IDTEngine#getInsertionSequence()},
+     * pass the engine itself to {@link #printInsertionSequence(IDTMoveHistory)} instead.
+     */
+    @Deprecated
+    default void printInsertionSequence(LinkedList<Integer> insertionSequence) {
+        int[] columns = new int[insertionSequence.size()];
+        int movesCount = 0;
+
+        for (Iterator<Integer> it = insertionSequence.descendingIterator(); it.hasNext(); ) {
+            columns[movesCount++] = it.next() - 1;
+        }
+
+        printInsertionSequence(new IDTMoveHistory() {
+            @Override
+            public int getMovesCount() {
+                return columns.length;
+            }
+
+            @Override
+            public int getMoveColumn(int index) {
+                return columns[index];
+            }
+        });
+    }
+
+    void printBoard(IDTBoardView board);
 
     void displayInsertionResult(TokenInsertionStatus tokenInsertionStatus);
 